@@ -1,16 +1,125 @@
 import com.ivicevic.diffviewer.Model;
 import com.ivicevic.diffviewer.View;
+import com.ivicevic.diffviewer.algorithm.DiffAlgorithm;
+import com.ivicevic.diffviewer.algorithm.DiffAlgorithmRegistry;
+import com.ivicevic.diffviewer.algorithm.DiffMode;
+import com.ivicevic.diffviewer.algorithm.HuntAlgorithm;
+import com.ivicevic.diffviewer.algorithm.MoveDetector;
+import com.ivicevic.diffviewer.algorithm.Tokenizer;
+import com.ivicevic.diffviewer.io.TextDecoder;
+import java.awt.AWTEvent;
+import java.awt.Toolkit;
+import java.awt.event.AWTEventListener;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 
 public class DiffviewerApplication {
+  // Prints the time from JVM start to the first paint of the frame.
+  private static final String STARTUP_TIMING_PROPERTY = "diffviewer.startupTiming";
+  // Exits after the first paint and warm-up, used for the class data sharing training run.
+  private static final String EXIT_AFTER_STARTUP_PROPERTY = "diffviewer.exitAfterStartup";
+
+  // Chooses the diff engine by its name instead of selecting one for every diff.
+  private static final String ALGORITHM_OPTION = "--algorithm=";
+
   public static void main(final String[] args) {
+    final var algorithms = DiffAlgorithmRegistry.withDefaults();
+    final var algorithm =
+        Arrays.stream(args)
+            .filter(arg -> arg.startsWith(ALGORITHM_OPTION))
+            .map(arg -> algorithms.get(arg.substring(ALGORITHM_OPTION.length())))
+            .reduce((first, second) -> second)
+            .orElse(Optional.of(algorithms.getAutomatic()));
+    // Compatible with git difftool, e.g. difftool.diffviewer.cmd = ... "$LOCAL" "$REMOTE".
+    final var files = Arrays.stream(args).filter(arg -> !arg.startsWith(ALGORITHM_OPTION)).toList();
+    if ((files.size() != 0 && files.size() != 2) || algorithm.isEmpty()) {
+      System.err.println(
+          "Usage: DiffviewerApplication [--algorithm=<name>] [<original file> <modified file>]");
+      System.err.println(
+          "Algorithms: "
+              + Stream.concat(
+                      Stream.of(DiffAlgorithmRegistry.AUTOMATIC),
+                      algorithms.getAlgorithms().stream().map(DiffAlgorithm::getName))
+                  .collect(Collectors.joining(", ")));
+      System.exit(2);
+    }
+
+    final var warmUp = CompletableFuture.runAsync(DiffviewerApplication::warmUp);
+    if (Boolean.getBoolean(STARTUP_TIMING_PROPERTY)
+        || Boolean.getBoolean(EXIT_AFTER_STARTUP_PROPERTY)) {
+      onFirstPaint(warmUp);
+    }
+
     try {
       UIManager.setLookAndFeel(UIManager.getCrossPlatformLookAndFeelClassName());
     } catch (final Exception e) {
       e.printStackTrace();
     }
 
-    SwingUtilities.invokeLater(() -> new View(new Model()));
+    SwingUtilities.invokeLater(
+        () -> {
+          final var model = new Model(algorithms);
+          model.setAlgorithm(algorithm.get());
+          final var view = new View(model);
+          if (files.size() == 2) {
+            view.compareFiles(Path.of(files.get(0)), Path.of(files.get(1)));
+          }
+        });
+  }
+
+  /** Loads and exercises the diff pipeline in the background so the first real diff is fast. */
+  private static void warmUp() {
+    final var original = "The quick brown fox\njumps over\nthe lazy dog\n\tand more\nlines";
+    final var modified = "The quick red fox\nthe lazy dog\njumps over\n\tand more\nlines";
+    final var originalLines =
+        new TextDecoder()
+            .decode(ByteBuffer.wrap(original.getBytes(StandardCharsets.UTF_8)))
+            .getLines()
+            .toArray(String[]::new);
+    final var modifiedLines = modified.split("\n");
+    final var algorithm = new HuntAlgorithm();
+    new MoveDetector(1)
+        .detectMoves(algorithm.buildDiff(originalLines, modifiedLines, DiffMode.LINES));
+    algorithm.buildDiff(
+        originalLines[0].split(""), modifiedLines[0].split(""), DiffMode.CHARACTERS);
+    final var tokenizer = Tokenizer.withAllBoundaries();
+    algorithm.buildDiff(
+        tokenizer.tokenize(originalLines[0]), tokenizer.tokenize(modifiedLines[0]), DiffMode.WORDS);
+  }
+
+  private static void onFirstPaint(final CompletableFuture<Void> warmUp) {
+    final var toolkit = Toolkit.getDefaultToolkit();
+    toolkit.addAWTEventListener(
+        new AWTEventListener() {
+          @Override
+          public void eventDispatched(final AWTEvent event) {
+            toolkit.removeAWTEventListener(this);
+            // The paint event is dispatched after this listener, so measure once it is done.
+            SwingUtilities.invokeLater(
+                () -> {
+                  if (Boolean.getBoolean(STARTUP_TIMING_PROPERTY)) {
+                    final var start =
+                        ProcessHandle.current().info().startInstant().orElse(Instant.now());
+                    System.err.printf(
+                        "First paint after %d ms.%n",
+                        Duration.between(start, Instant.now()).toMillis());
+                  }
+                  if (Boolean.getBoolean(EXIT_AFTER_STARTUP_PROPERTY)) {
+                    warmUp.thenRun(() -> System.exit(0));
+                  }
+                });
+          }
+        },
+        AWTEvent.PAINT_EVENT_MASK);
   }
 }
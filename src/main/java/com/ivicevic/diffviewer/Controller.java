@@ -1,16 +1,63 @@
 package com.ivicevic.diffviewer;
 
+import com.ivicevic.diffviewer.algorithm.BinaryDiffAlgorithm;
+import com.ivicevic.diffviewer.algorithm.ComparisonOption;
 import com.ivicevic.diffviewer.algorithm.Diff;
+import com.ivicevic.diffviewer.algorithm.DiffAlgorithm;
 import com.ivicevic.diffviewer.algorithm.DiffMode;
+import com.ivicevic.diffviewer.algorithm.MoveDetector;
+import com.ivicevic.diffviewer.algorithm.commands.FoldCommand;
 import com.ivicevic.diffviewer.components.EditorPane.EditorKind;
+import com.ivicevic.diffviewer.execution.DiffExecutor;
+import com.ivicevic.diffviewer.execution.DiffExecutor.Execution;
+import com.ivicevic.diffviewer.execution.DiffExecutor.ScopedTask;
+import com.ivicevic.diffviewer.execution.TaskScope.Subtask;
+import com.ivicevic.diffviewer.io.DecodedText;
+import com.ivicevic.diffviewer.io.DiffCache;
+import com.ivicevic.diffviewer.io.FileInspector;
+import com.ivicevic.diffviewer.io.FileKind;
+import com.ivicevic.diffviewer.io.LineEnding;
+import com.ivicevic.diffviewer.io.TextDecoder;
+import com.ivicevic.diffviewer.merge.ThreeWayMerge;
+import com.ivicevic.diffviewer.patch.PatchApplier;
+import com.ivicevic.diffviewer.patch.PatchFormat;
+import com.ivicevic.diffviewer.patch.PatchHunk;
+import com.ivicevic.diffviewer.patch.PatchParser;
+import com.ivicevic.diffviewer.patch.PatchWriter;
+import com.ivicevic.diffviewer.search.DiffIndex;
+import com.ivicevic.diffviewer.search.SearchMatch;
+import com.ivicevic.diffviewer.search.SearchQuery;
+import com.ivicevic.diffviewer.session.DiffScheduler;
+import com.ivicevic.diffviewer.session.FilePair;
+import com.ivicevic.diffviewer.session.Session;
+import com.ivicevic.diffviewer.session.SessionDocument;
+import com.ivicevic.diffviewer.structure.StructureFormat;
+import com.ivicevic.diffviewer.structure.StructuredDiffAlgorithm;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 import javax.swing.JFileChooser;
-import javax.swing.SwingWorker;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import javax.swing.filechooser.FileFilter;
 import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -18,10 +65,26 @@ import lombok.RequiredArgsConstructor;
 import lombok.Value;
 
 public class Controller implements PropertyChangeListener {
+  // Highlighting is the expensive part, beyond this many matches they are only counted.
+  private static final int MAX_HIGHLIGHTED_MATCHES = 10_000;
+
   @Getter(AccessLevel.PACKAGE)
   private final Model model;
 
   private final View view;
+  private final FileInspector fileInspector = new FileInspector();
+  private final DiffCache diffCache = DiffCache.fromSystemProperties().orElse(null);
+  private final DiffScheduler diffScheduler = new DiffScheduler();
+  private final DiffExecutor diffExecutor = new DiffExecutor();
+  // The comparison whose result is shown next, cancelled when another one starts.
+  private Execution comparison = null;
+  private Session session = null;
+  // Built off the EDT for every new diff, so that searches don't have to wait for it.
+  private CompletableFuture<DiffIndex> diffIndex = CompletableFuture.completedFuture(null);
+  private Execution indexing = null;
+  private Diff indexedDiff = null;
+  private SearchQuery searchQuery = null;
+  private Execution search = null;
 
   public Controller(final Model model, final View view) {
     this.model = model;
@@ -31,9 +94,101 @@ public class Controller implements PropertyChangeListener {
 
   @Override
   public void propertyChange(final PropertyChangeEvent evt) {
+    if (evt.getPropertyName().equals(Model.DIFF_PROPERTY) && evt.getNewValue() != indexedDiff) {
+      indexDiff((Diff) evt.getNewValue());
+    }
     view.propertyChange(evt.getPropertyName(), evt.getNewValue());
   }
 
+  private void indexDiff(final Diff diff) {
+    indexedDiff = diff;
+    if (indexing != null) {
+      indexing.cancel();
+      diffIndex.cancel(false);
+    }
+    if (diff == null) {
+      indexing = null;
+      diffIndex = CompletableFuture.completedFuture(null);
+    } else {
+      final var index = new CompletableFuture<DiffIndex>();
+      indexing =
+          diffExecutor.submit(
+              scope -> DiffIndex.of(diff), index::complete, index::completeExceptionally);
+      diffIndex = index;
+    }
+    // Matches refer to the previous diff, so the last query is repeated on the new one.
+    if (searchQuery != null) {
+      startSearch(searchQuery);
+    }
+  }
+
+  /** Searches both panes, or moves on to the next match if the query has already been searched. */
+  public void search(final SearchQuery query) {
+    if (query.equals(searchQuery)) {
+      gotoNextMatch();
+    } else {
+      startSearch(query);
+    }
+  }
+
+  private void startSearch(final SearchQuery query) {
+    if (search != null) {
+      search.cancel();
+    }
+    model.setSearchMatchIndex(-1);
+    model.setSearchMatches(List.of());
+    if (query.getText().isEmpty()) {
+      searchQuery = null;
+      search = null;
+      model.setStatus("");
+      return;
+    }
+
+    searchQuery = query;
+    final var index = diffIndex;
+    search =
+        diffExecutor.submit(
+            (scope, publish) -> {
+              // Waits for the index of the current diff, a new diff cancels the search.
+              final var diffIndex = index.get();
+              if (diffIndex == null) {
+                return 0;
+              }
+              final var published = new int[1];
+              return diffIndex.search(
+                  query,
+                  match -> {
+                    if (published[0] < MAX_HIGHLIGHTED_MATCHES) {
+                      ++published[0];
+                      publish.accept(match);
+                    }
+                    return !Thread.currentThread().isInterrupted();
+                  });
+            },
+            this::addSearchMatches,
+            matches ->
+                model.setStatus(
+                    matches == 0
+                        ? "No matches for \"" + query.getText() + "\"."
+                        : String.format("%,d matches for \"%s\".", matches, query.getText())),
+            e -> model.setStatus("Search failed: " + getCause(e).getMessage()));
+  }
+
+  private void addSearchMatches(final List<SearchMatch> matches) {
+    final var first = model.getSearchMatches().isEmpty();
+    model.addSearchMatches(matches);
+    if (first) {
+      model.setSearchMatchIndex(0);
+    }
+  }
+
+  public void gotoNextMatch() {
+    final var matches = model.getSearchMatches();
+    if (!matches.isEmpty()) {
+      model.setSearchMatchIndex((model.getSearchMatchIndex() + 1) % matches.size());
+    }
+  }
+
   public void gotoNextDifference(final int currentLine) {
     final var changedLines = model.getChangedLines();
     if (changedLines.size() == 0) {
@@ -62,6 +217,10 @@ public class Controller implements PropertyChangeListener {
     gotoLine(previousLine);
   }
 
+  public void gotoRow(final int row) {
+    gotoLine(row);
+  }
+
   private void gotoLine(final int line) {
     model.setOriginalCaretLine(line);
   }
@@ -71,6 +230,59 @@ public class Controller implements PropertyChangeListener {
     updateDiff();
   }
 
+  public void setComparisonOption(final ComparisonOption option, final boolean enabled) {
+    final var options = new HashSet<>(model.getComparisonOptions());
+    if (enabled) {
+      options.add(option);
+    } else {
+      options.remove(option);
+    }
+    model.setComparisonOptions(options);
+    // Diffs of the other entries were computed with the previous options.
+    resetSession();
+    updateDiff();
+  }
+
+  /** Chooses the diff engine by its name, "auto" selects one for every diff. */
+  public void setAlgorithm(final String name) {
+    final var algorithm =
+        model
+            .getAlgorithms()
+            .get(name)
+            .orElseThrow(() -> new IllegalArgumentException("Unknown diff algorithm: " + name));
+    if (algorithm == model.getAlgorithm()) {
+      return;
+    }
+    model.setAlgorithm(algorithm);
+    // Diffs of the other entries were computed by the previous engine.
+    resetSession();
+    updateDiff();
+  }
+
+  private void resetSession() {
+    if (session != null) {
+      session.close();
+      session = newSession(session.getPairs());
+    }
+  }
+
+  public void setStructuredDiff(final boolean enabled) {
+    model.setStructuredDiff(enabled);
+    // Diffs of the other entries were computed with the previous setting.
+    resetSession();
+    updateDiff();
+  }
+
+  public void setContextLines(final int contextLines) {
+    model.setContextLines(contextLines);
+  }
+
+  public void expandFold(final FoldCommand fold) {
+    final var expandedFolds = new HashSet<>(model.getExpandedFolds());
+    expandedFolds.add(fold.getStart());
+    model.setExpandedFolds(expandedFolds);
+  }
+
   public void toggleScrollingSynchronization() {
     model.setIsScrollingSynchronized(!model.isScrollingSynchronized());
   }
@@ -82,28 +294,385 @@ public class Controller implements PropertyChangeListener {
       return;
     }
 
-    final var file = fileChooser.getSelectedFile();
-    final var sb = new StringBuilder();
-    try {
-      final var reader = new BufferedReader(new FileReader(file));
-      var line = reader.readLine();
-      while (line != null) {
-        sb.append(line);
-        sb.append(System.lineSeparator());
-        line = reader.readLine();
+    loadFile(editorKind, fileChooser.getSelectedFile().toPath());
+  }
+
+  /** Loads a file off the EDT and compares it with the other side as it is, in one scope. */
+  void loadFile(final EditorKind editorKind, final Path path) {
+    final var maxTextFileSize = model.getMaxTextFileSize();
+    final var settings = ComparisonInput.of(model);
+    startComparison(
+        scope -> {
+          final var file = LoadedFile.load(path, fileInspector, maxTextFileSize);
+          final var input = settings.withFile(editorKind, file);
+          return new LoadedComparison(
+              editorKind == EditorKind.ORIGINAL ? file : null,
+              editorKind == EditorKind.MODIFIED ? file : null,
+              input.hasBothSides() ? compare(input) : null);
+        },
+        loaded -> {
+          model.setPatchConflicts(List.of());
+          setLoadedFile(
+              editorKind,
+              editorKind == EditorKind.ORIGINAL ? loaded.getOriginal() : loaded.getModified());
+          if (loaded.getResult() != null) {
+            showComparison(loaded.getResult());
+          }
+        },
+        e ->
+            JOptionPane.showMessageDialog(
+                view, getCause(e).getMessage(), "Open File", JOptionPane.ERROR_MESSAGE));
+  }
+
+  /**
+   * Loads both files concurrently off the EDT and compares them in the same scope, e.g. when
+   * launched with two files from the command line. A failing load cancels the other one.
+   */
+  public void compareFiles(final Path originalPath, final Path modifiedPath) {
+    if (Files.isDirectory(originalPath) && Files.isDirectory(modifiedPath)) {
+      compareDirectories(originalPath, modifiedPath);
+      return;
+    }
+
+    final var maxTextFileSize = model.getMaxTextFileSize();
+    final var settings = ComparisonInput.of(model);
+    startComparison(
+        scope -> {
+          final var original =
+              scope.fork(() -> LoadedFile.load(originalPath, fileInspector, maxTextFileSize));
+          final var modified =
+              scope.fork(() -> LoadedFile.load(modifiedPath, fileInspector, maxTextFileSize));
+          scope.join();
+          final var originalFile = original.resultNow();
+          final var modifiedFile = modified.resultNow();
+          return new LoadedComparison(
+              originalFile,
+              modifiedFile,
+              compare(settings.withFiles(originalFile, modifiedFile)));
+        },
+        loaded -> {
+          model.setPatchConflicts(List.of());
+          setLoadedFile(EditorKind.ORIGINAL, loaded.getOriginal());
+          setLoadedFile(EditorKind.MODIFIED, loaded.getModified());
+          showComparison(loaded.getResult());
+        },
+        e ->
+            JOptionPane.showMessageDialog(
+                view, getCause(e).getMessage(), "Compare Files", JOptionPane.ERROR_MESSAGE));
+  }
+
+  public void compareDirectories() {
+    final var directories = new ArrayList<Path>();
+    for (final var kind : List.of(EditorKind.ORIGINAL, EditorKind.MODIFIED)) {
+      final var fileChooser = new JFileChooser();
+      fileChooser.setDialogTitle("Select " + kind.getLabel() + " Directory");
+      fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+      if (fileChooser.showOpenDialog(view) != JFileChooser.APPROVE_OPTION) {
+        return;
       }
+      directories.add(fileChooser.getSelectedFile().toPath());
+    }
+    compareDirectories(directories.get(0), directories.get(1));
+  }
+
+  private void compareDirectories(final Path originalDirectory, final Path modifiedDirectory) {
+    final List<FilePair> pairs;
+    try {
+      pairs = FilePair.ofDirectories(originalDirectory, modifiedDirectory);
     } catch (final IOException e) {
       throw new RuntimeException(e);
     }
+    openSession(pairs);
+  }
+
+  public void openSession(final List<FilePair> pairs) {
+    if (session != null) {
+      session.close();
+    }
+    session = newSession(pairs);
+    model.setSessionPairs(pairs);
+    model.setSessionIndex(-1);
+    if (pairs.isEmpty()) {
+      model.setStatus("Directories contain no files.");
+    } else {
+      selectSessionEntry(0);
+    }
+  }
+
+  /** Creates a session whose entries are compared like single files with the current settings. */
+  private Session newSession(final List<FilePair> pairs) {
+    final var settings = ComparisonInput.of(model);
+    return new Session(
+        pairs,
+        (pair, original, modified) -> {
+          final var result =
+              compare(
+                  settings.withTexts(pair.getOriginal(), original, pair.getModified(), modified));
+          return new Session.Comparison(result.getDiff(), result.getStatus());
+        },
+        diffScheduler,
+        model.getMaxTextFileSize());
+  }
+
+  public void selectSessionEntry(final int index) {
+    if (session == null || index < 0 || index == model.getSessionIndex()) {
+      return;
+    }
 
-    final var text = sb.toString();
+    model.setSessionIndex(index);
+    final var currentSession = session;
+    currentSession
+        .open(index)
+        .thenAcceptAsync(
+            document -> {
+              // Ignore documents that arrive after another entry has been selected.
+              if (session == currentSession && model.getSessionIndex() == index) {
+                showSessionDocument(document);
+              }
+            },
+            SwingUtilities::invokeLater)
+        .exceptionally(
+            e -> {
+              SwingUtilities.invokeLater(
+                  () -> {
+                    if (session == currentSession && model.getSessionIndex() == index) {
+                      model.setStatus(getCause(e).getMessage());
+                    }
+                  });
+              return null;
+            });
+  }
+
+  private void showSessionDocument(final SessionDocument document) {
+    final var pair = document.getPair();
+    model.setPatchConflicts(List.of());
+    model.setOriginalPath(pair.getOriginal());
+    model.setOriginalLineEnding(document.getOriginalLineEnding());
+    model.setOriginalLines(document.getOriginalLines());
+    model.setModifiedPath(pair.getModified());
+    model.setModifiedLineEnding(document.getModifiedLineEnding());
+    model.setModifiedLines(document.getModifiedLines());
+    final var diff = document.getDiff();
+    if (diff == null) {
+      // Binary and huge files are compared byte by byte as usual.
+      updateDiff();
+      return;
+    }
+    model.setDiff(diff);
+    model.setChangedLines(diff.getChangedLines());
+    model.setStatus(document.getStatus());
+  }
+
+  private static String describe(
+      final Diff diff, final LineEnding originalLineEnding, final LineEnding modifiedLineEnding) {
+    final var hunks = diff.getHunks().size();
+    if (hunks > 0) {
+      return hunks + " differences.";
+    } else if (originalLineEnding != null
+        && modifiedLineEnding != null
+        && originalLineEnding != modifiedLineEnding) {
+      return String.format(
+          "Files differ only in line endings (%s vs. %s).",
+          originalLineEnding.getLabel(), modifiedLineEnding.getLabel());
+    }
+    return "Files are identical.";
+  }
+
+  private void setLoadedFile(final EditorKind editorKind, final LoadedFile file) {
+    final var decodedText = file.getDecodedText();
+    final var lines = decodedText == null ? null : decodedText.getLines();
+    final var lineEnding = decodedText == null ? null : decodedText.getLineEnding();
     if (editorKind == EditorKind.ORIGINAL) {
-      model.setOriginalText(text);
+      model.setOriginalPath(file.getPath());
+      model.setOriginalLineEnding(lineEnding);
+      model.setOriginalLines(lines);
     } else {
-      model.setModifiedText(text);
+      model.setModifiedPath(file.getPath());
+      model.setModifiedLineEnding(lineEnding);
+      model.setModifiedLines(lines);
     }
+    if (file.getKind() != FileKind.TEXT) {
+      model.setStatus(
+          file.getPath().getFileName()
+              + (file.getKind() == FileKind.BINARY
+                  ? " is a binary file."
+                  : " is too large to display."));
+    }
+  }
+
+  public void exportPatch() {
+    final var modelDiff = model.getDiff();
+    if (modelDiff == null) {
+      return;
+    }
+    if (isComparedByBytes()) {
+      model.setStatus("Patches can only be exported for text files.");
+      return;
+    }
+
+    final var unifiedFilter = new PatchFileFilter(PatchFormat.UNIFIED, "Unified Diff (*.patch)");
+    final var contextFilter = new PatchFileFilter(PatchFormat.CONTEXT, "Context Diff (*.diff)");
+    final var fileChooser = new JFileChooser();
+    fileChooser.setAcceptAllFileFilterUsed(false);
+    fileChooser.addChoosableFileFilter(unifiedFilter);
+    fileChooser.addChoosableFileFilter(contextFilter);
+    fileChooser.setFileFilter(unifiedFilter);
+    final var result = fileChooser.showSaveDialog(view);
+    if (result != JFileChooser.APPROVE_OPTION) {
+      return;
+    }
+
+    final var format = ((PatchFileFilter) fileChooser.getFileFilter()).getFormat();
+    final var path = fileChooser.getSelectedFile().toPath();
+    final var originalLabel = getPatchLabel(model.getOriginalPath(), "original");
+    final var modifiedLabel = getPatchLabel(model.getModifiedPath(), "modified");
+    final var input = ComparisonInput.of(model);
+    // The patch is written off the EDT, only a failure returns to it.
+    diffExecutor.submit(
+        scope -> {
+          // Structured diffs align lines that don't correspond, so patches are always made of
+          // lines.
+          final var diff =
+              input.isStructuredDiff()
+                  ? input
+                      .getAlgorithm()
+                      .buildDiff(
+                          input.getOriginalLines().toArray(String[]::new),
+                          input.getModifiedLines().toArray(String[]::new),
+                          DiffMode.LINES,
+                          input.getComparisonOptions())
+                  : modelDiff;
+          writePatch(path, format, diff, originalLabel, modifiedLabel);
+          return path;
+        },
+        written -> model.setStatus("Patch written to " + written + "."),
+        e ->
+            JOptionPane.showMessageDialog(
+                view, getCause(e).getMessage(), "Export Patch", JOptionPane.ERROR_MESSAGE));
+  }
 
+  private static void writePatch(
+      final Path path,
+      final PatchFormat format,
+      final Diff diff,
+      final String originalLabel,
+      final String modifiedLabel)
+      throws IOException {
+    try (final var channel =
+        FileChannel.open(
+            path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      new PatchWriter(format).write(diff, originalLabel, modifiedLabel, channel);
+    }
+  }
+
+  /** Returns the cause of a failure without the exceptions that merely wrap it for its thread. */
+  private static Throwable getCause(final Throwable failure) {
+    var cause = failure;
+    while ((cause instanceof CompletionException
+            || cause instanceof ExecutionException
+            || cause instanceof UncheckedIOException)
+        && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    return cause;
+  }
+
+  public void applyPatch() {
+    final var originalLines = model.getOriginalLines();
+    if (originalLines == null) {
+      return;
+    }
+    if (isComparedByBytes()) {
+      model.setStatus("Patches can only be applied to text files.");
+      return;
+    }
+
+    final var fileChooser = new JFileChooser();
+    final var result = fileChooser.showOpenDialog(view);
+    if (result != JFileChooser.APPROVE_OPTION) {
+      return;
+    }
+
+    final List<PatchHunk> hunks;
+    try {
+      final var patch = new TextDecoder().decode(fileChooser.getSelectedFile().toPath());
+      hunks = new PatchParser().parse(new StringReader(String.join("\n", patch.getLines())));
+    } catch (final IOException e) {
+      throw new RuntimeException(e);
+    }
+
+    final var patchResult =
+        new PatchApplier().apply(originalLines.toArray(String[]::new), hunks);
+    model.setModifiedPath(null);
+    model.setModifiedLineEnding(model.getOriginalLineEnding());
+    model.setModifiedLines(patchResult.getLines());
+    model.setPatchConflicts(patchResult.getConflicts());
     updateDiff();
+
+    if (!patchResult.getConflicts().isEmpty()) {
+      JOptionPane.showMessageDialog(
+          view,
+          patchResult.getConflicts().size() + " of " + hunks.size() + " hunks could not be applied.",
+          "Apply Patch",
+          JOptionPane.WARNING_MESSAGE);
+    }
+  }
+
+  // Binary and huge files have no lines, their diffs are hex dumps that patches don't apply to.
+  private boolean isComparedByBytes() {
+    return model.getOriginalLines() == null || model.getModifiedLines() == null;
+  }
+
+  private static String getPatchLabel(final Path path, final String fallback) {
+    return path == null ? fallback : path.toString();
+  }
+
+  public void openThreeWayMerge() {
+    final var files = new ArrayList<File>();
+    for (final var kind : List.of(EditorKind.BASE, EditorKind.OURS, EditorKind.THEIRS)) {
+      final var fileChooser = new JFileChooser();
+      fileChooser.setDialogTitle("Select " + kind.getLabel() + " File");
+      if (fileChooser.showOpenDialog(view) != JFileChooser.APPROVE_OPTION) {
+        return;
+      }
+      files.add(fileChooser.getSelectedFile());
+    }
+
+    // Files are read and both diffs computed concurrently, only the result returns to the EDT.
+    final var threeWayMerge = new ThreeWayMerge(model.getAlgorithm());
+    final var maxTextFileSize = model.getMaxTextFileSize();
+    diffExecutor.submit(
+        scope -> {
+          final var texts = new ArrayList<Subtask<String[]>>();
+          for (final var file : files) {
+            texts.add(scope.fork(() -> readLines(file.toPath(), fileInspector, maxTextFileSize)));
+          }
+          scope.join();
+          return threeWayMerge.merge(
+              texts.get(0).resultNow(), texts.get(1).resultNow(), texts.get(2).resultNow(), scope);
+        },
+        MergeView::new,
+        e ->
+            JOptionPane.showMessageDialog(
+                view, getCause(e).getMessage(), "Three-Way Merge", JOptionPane.ERROR_MESSAGE));
+  }
+
+  /** Reads the lines of a text file to merge, binary and huge files can't be merged. */
+  private static String[] readLines(
+      final Path path, final FileInspector fileInspector, final long maxTextFileSize)
+      throws IOException {
+    final var file = LoadedFile.load(path, fileInspector, maxTextFileSize);
+    if (file.getKind() != FileKind.TEXT) {
+      throw new IOException(
+          path.getFileName()
+              + (file.getKind() == FileKind.BINARY
+                  ? " is a binary file and can't be merged."
+                  : " is too large to merge."));
+    }
+    return file.getDecodedText().getLines().toArray(String[]::new);
   }
 
   public void adjustScrolling(final EditorKind editorKind, final int value) {
@@ -121,39 +690,289 @@ public class Controller implements PropertyChangeListener {
   }
 
   private void updateDiff() {
-    final var originalText = model.getOriginalText();
-    final var modifiedText = model.getModifiedText();
-    if (originalText == null || modifiedText == null) {
+    final var input = ComparisonInput.of(model);
+    if (!input.hasBothSides()) {
       return;
     }
+    startComparison(
+        scope -> compare(input),
+        this::showComparison,
+        e -> model.setStatus("Comparison failed: " + e.getMessage()));
+  }
 
-    new DiffWorker(model, originalText, modifiedText).execute();
+  /** Starts a comparison, cancelling the previous one so that only the latest result shows. */
+  private <T> void startComparison(
+      final ScopedTask<T> task,
+      final Consumer<? super T> onSuccess,
+      final Consumer<? super Throwable> onFailure) {
+    if (comparison != null) {
+      comparison.cancel();
+    }
+    comparison = diffExecutor.submit(task, onSuccess, onFailure);
   }
 
-  @Value
-  @EqualsAndHashCode(callSuper = true)
-  @RequiredArgsConstructor
-  private static class DiffWorker extends SwingWorker<Diff, Object> {
-    Model model;
-    String originalText;
-    String modifiedText;
+  private void showComparison(final ComparisonResult result) {
+    final var diff = result.getDiff();
+    model.setDiff(diff);
+    model.setChangedLines(diff == null ? List.of() : diff.getChangedLines());
+    model.setStatus(result.getStatus());
+  }
 
-    @Override
-    protected Diff doInBackground() {
-      return model
-          .getAlgorithm()
-          .buildDiff(originalText.split("\n"), modifiedText.split("\n"), DiffMode.LINES);
+  /** Compares the input off the EDT. */
+  private ComparisonResult compare(final ComparisonInput input) throws IOException {
+    final var originalLines = input.getOriginalLines();
+    final var modifiedLines = input.getModifiedLines();
+    if (originalLines == null || modifiedLines == null) {
+      return compareBytes(input);
     }
 
-    @Override
-    protected void done() {
+    final var format =
+        StructureFormat.of(input.getOriginalPath())
+            .or(() -> StructureFormat.of(input.getModifiedPath()))
+            .orElse(null);
+    if (input.isStructuredDiff() && format != null && !originalLines.equals(modifiedLines)) {
+      return compareStructures(input, format);
+    }
+    return compareLines(input);
+  }
+
+  private ComparisonResult compareLines(final ComparisonInput input) {
+    final var originalLines = input.getOriginalLines().toArray(String[]::new);
+    final var modifiedLines = input.getModifiedLines().toArray(String[]::new);
+    // Lines are stored without their line endings, so equal texts need no LCS at all.
+    final var diff =
+        Arrays.equals(originalLines, modifiedLines)
+            ? Diff.identical(originalLines)
+            : diffLines(
+                originalLines, modifiedLines, input.getAlgorithm(), input.getComparisonOptions());
+    return new ComparisonResult(
+        diff, describe(diff, input.getOriginalLineEnding(), input.getModifiedLineEnding()));
+  }
+
+  private Diff diffLines(
+      final String[] originalLines,
+      final String[] modifiedLines,
+      final DiffAlgorithm algorithm,
+      final Set<ComparisonOption> comparisonOptions) {
+    final var key =
+        diffCache == null
+            ? null
+            : DiffCache.key(algorithm.getName(), originalLines, modifiedLines, comparisonOptions);
+    if (diffCache != null) {
+      final var cached = diffCache.get(key, originalLines, modifiedLines);
+      if (cached.isPresent()) {
+        return cached.get();
+      }
+    }
+
+    final var diff =
+        new MoveDetector()
+            .detectMoves(
+                algorithm.buildDiff(
+                    originalLines, modifiedLines, DiffMode.LINES, comparisonOptions));
+    if (diffCache != null) {
       try {
-        final var diff = get();
-        model.setDiff(diff);
-        model.setChangedLines(diff.getChangedLines());
-      } catch (final InterruptedException | ExecutionException e) {
-        throw new RuntimeException(e);
+        diffCache.put(key, diff);
+      } catch (final IOException e) {
+        // The cache is best effort, a failed write only costs the next comparison.
       }
     }
+    return diff;
+  }
+
+  private ComparisonResult compareStructures(
+      final ComparisonInput input, final StructureFormat format) {
+    try {
+      // Only the parsers need the texts of the whole files.
+      final var diff =
+          new StructuredDiffAlgorithm()
+              .buildDiff(
+                  String.join("\n", input.getOriginalLines()),
+                  String.join("\n", input.getModifiedLines()),
+                  format);
+      final var hunks = diff.getHunks().size();
+      return new ComparisonResult(
+          diff,
+          hunks == 0 ? "Files are structurally identical." : hunks + " structural differences.");
+    } catch (final ParseException e) {
+      final var diff =
+          new MoveDetector()
+              .detectMoves(
+                  input
+                      .getAlgorithm()
+                      .buildDiff(
+                          input.getOriginalLines().toArray(String[]::new),
+                          input.getModifiedLines().toArray(String[]::new),
+                          DiffMode.LINES,
+                          input.getComparisonOptions()));
+      return new ComparisonResult(
+          diff,
+          diff.getHunks().size()
+              + " differences, compared by lines as "
+              + format
+              + " could not be parsed: "
+              + e.getMessage());
+    }
+  }
+
+  private ComparisonResult compareBytes(final ComparisonInput input) throws IOException {
+    final var originalPath = input.getOriginalPath();
+    final var modifiedPath = input.getModifiedPath();
+    final var comparison = fileInspector.compare(originalPath, modifiedPath);
+    final var status =
+        comparison.isIdentical()
+            ? String.format("Files are identical (%,d bytes).", comparison.getOriginalSize())
+            : String.format(
+                "Files differ at byte offset %,d (original: %,d bytes, modified: %,d bytes).",
+                comparison.getFirstDifference(),
+                comparison.getOriginalSize(),
+                comparison.getModifiedSize());
+    // Only files that are small enough are rendered as hex dump, all others just get compared.
+    if (comparison.isIdentical()
+        || comparison.getOriginalSize() > BinaryDiffAlgorithm.DEFAULT_MAX_SIZE
+        || comparison.getModifiedSize() > BinaryDiffAlgorithm.DEFAULT_MAX_SIZE) {
+      return new ComparisonResult(null, status);
+    }
+
+    try (final var originalChannel = FileChannel.open(originalPath, StandardOpenOption.READ);
+        final var modifiedChannel = FileChannel.open(modifiedPath, StandardOpenOption.READ)) {
+      final var diff =
+          new BinaryDiffAlgorithm(input.getAlgorithm())
+              .buildDiff(
+                  originalChannel.map(MapMode.READ_ONLY, 0, originalChannel.size()),
+                  modifiedChannel.map(MapMode.READ_ONLY, 0, modifiedChannel.size()));
+      return new ComparisonResult(diff, status);
+    }
+  }
+
+  /** A snapshot of everything a comparison needs, taken on the EDT. */
+  @Value
+  private static class ComparisonInput {
+    Path originalPath;
+    Path modifiedPath;
+    List<String> originalLines;
+    List<String> modifiedLines;
+    LineEnding originalLineEnding;
+    LineEnding modifiedLineEnding;
+    DiffAlgorithm algorithm;
+    Set<ComparisonOption> comparisonOptions;
+    boolean structuredDiff;
+
+    static ComparisonInput of(final Model model) {
+      return new ComparisonInput(
+          model.getOriginalPath(),
+          model.getModifiedPath(),
+          model.getOriginalLines(),
+          model.getModifiedLines(),
+          model.getOriginalLineEnding(),
+          model.getModifiedLineEnding(),
+          model.getAlgorithm(),
+          model.getComparisonOptions(),
+          model.isStructuredDiff());
+    }
+
+    /** Returns whether both sides are known, either as lines or as files to compare by bytes. */
+    boolean hasBothSides() {
+      return (originalLines != null && modifiedLines != null)
+          || (originalPath != null && modifiedPath != null);
+    }
+
+    /** Replaces one side by the given file, keeping the other one. */
+    ComparisonInput withFile(final EditorKind editorKind, final LoadedFile file) {
+      final var text = file.getDecodedText();
+      return editorKind == EditorKind.ORIGINAL
+          ? new ComparisonInput(
+              file.getPath(),
+              modifiedPath,
+              text == null ? null : text.getLines(),
+              modifiedLines,
+              text == null ? null : text.getLineEnding(),
+              modifiedLineEnding,
+              algorithm,
+              comparisonOptions,
+              structuredDiff)
+          : new ComparisonInput(
+              originalPath,
+              file.getPath(),
+              originalLines,
+              text == null ? null : text.getLines(),
+              originalLineEnding,
+              text == null ? null : text.getLineEnding(),
+              algorithm,
+              comparisonOptions,
+              structuredDiff);
+    }
+
+    ComparisonInput withFiles(final LoadedFile original, final LoadedFile modified) {
+      return withTexts(
+          original.getPath(),
+          original.getDecodedText(),
+          modified.getPath(),
+          modified.getDecodedText());
+    }
+
+    ComparisonInput withTexts(
+        final Path originalPath,
+        final DecodedText originalText,
+        final Path modifiedPath,
+        final DecodedText modifiedText) {
+      return new ComparisonInput(
+          originalPath,
+          modifiedPath,
+          originalText == null ? null : originalText.getLines(),
+          modifiedText == null ? null : modifiedText.getLines(),
+          originalText == null ? null : originalText.getLineEnding(),
+          modifiedText == null ? null : modifiedText.getLineEnding(),
+          algorithm,
+          comparisonOptions,
+          structuredDiff);
+    }
+  }
+
+  @Value
+  private static class ComparisonResult {
+    // Null if files were only compared byte by byte.
+    Diff diff;
+    String status;
+  }
+
+  @Value
+  private static class LoadedComparison {
+    // Null for a side that was not loaded.
+    LoadedFile original;
+    LoadedFile modified;
+    // Null if there is nothing to compare the loaded file with yet.
+    ComparisonResult result;
+  }
+
+  @Value
+  private static class LoadedFile {
+    Path path;
+    FileKind kind;
+    // Only set for text files, binary and huge files are only compared byte by byte.
+    DecodedText decodedText;
+
+    static LoadedFile load(
+        final Path path, final FileInspector fileInspector, final long maxTextFileSize)
+        throws IOException {
+      final var kind = fileInspector.inspect(path, maxTextFileSize);
+      // Each load gets its own decoder since decoders are not thread-safe, and so that the buffer
+      // of a large file is released with it.
+      return new LoadedFile(
+          path, kind, kind == FileKind.TEXT ? new TextDecoder().decode(path) : null);
+    }
+  }
+
+  @Value
+  @EqualsAndHashCode(callSuper = true)
+  @RequiredArgsConstructor
+  private static class PatchFileFilter extends FileFilter {
+    PatchFormat format;
+    String description;
+
+    @Override
+    public boolean accept(final File file) {
+      return true;
+    }
   }
 }
@@ -2,5 +2,6 @@ package com.ivicevic.diffviewer;
 
 public enum HighlightStrategy {
   LINES,
+  WORDS,
   CHARACTERS
 }
@@ -0,0 +1,48 @@
+package com.ivicevic.diffviewer;
+
+import com.ivicevic.diffviewer.components.EditorPane;
+import com.ivicevic.diffviewer.components.EditorPane.EditorKind;
+import com.ivicevic.diffviewer.merge.MergeResult;
+import java.awt.GridLayout;
+import java.util.List;
+import javax.swing.BorderFactory;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.text.BadLocationException;
+
+public class MergeView extends JFrame {
+  public MergeView(final MergeResult mergeResult) {
+    super("Three-Way Merge (" + mergeResult.getConflictCount() + " conflicts)");
+
+    final var contentPanel = new JPanel(new GridLayout(1, 3, 4, 4));
+    contentPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+    final var editorPanes =
+        List.of(
+            new EditorPane(EditorKind.OURS),
+            new EditorPane(EditorKind.BASE),
+            new EditorPane(EditorKind.THEIRS));
+    for (final var editorPane : editorPanes) {
+      editorPane.getLoadFileButton().setVisible(false);
+      try {
+        editorPane.setMergeResult(mergeResult);
+      } catch (final BadLocationException e) {
+        throw new RuntimeException(e);
+      }
+      editorPane.getTextArea().setCaretPosition(0);
+      contentPanel.add(editorPane);
+    }
+    add(contentPanel);
+
+    // All panes share the same rows, so they scroll as one.
+    final var scrollModel =
+        editorPanes.get(0).getScrollPane().getVerticalScrollBar().getModel();
+    for (final var editorPane : editorPanes.subList(1, editorPanes.size())) {
+      editorPane.getScrollPane().getVerticalScrollBar().setModel(scrollModel);
+    }
+
+    setSize(1600, 1080);
+    setLocationRelativeTo(null);
+    setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+    setVisible(true);
+  }
+}
@@ -1,42 +1,108 @@
 package com.ivicevic.diffviewer;
 
+import com.ivicevic.diffviewer.algorithm.ComparisonOption;
 import com.ivicevic.diffviewer.algorithm.Diff;
-import com.ivicevic.diffviewer.algorithm.HuntAlgorithm;
+import com.ivicevic.diffviewer.algorithm.DiffAlgorithm;
+import com.ivicevic.diffviewer.algorithm.DiffAlgorithmRegistry;
+import com.ivicevic.diffviewer.algorithm.Tokenizer;
+import com.ivicevic.diffviewer.io.FileInspector;
+import com.ivicevic.diffviewer.io.LineEnding;
+import com.ivicevic.diffviewer.patch.PatchConflict;
+import com.ivicevic.diffviewer.search.SearchMatch;
+import com.ivicevic.diffviewer.session.FilePair;
 import java.beans.PropertyChangeListener;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import javax.swing.event.SwingPropertyChangeSupport;
 import lombok.Getter;
 
 @Getter
 public class Model {
+  public static final String ALGORITHM_PROPERTY = "algorithm";
   public static final String HIGHLIGHT_STRATEGY_PROPERTY = "highlightStrategy";
+  public static final String COMPARISON_OPTIONS_PROPERTY = "comparisonOptions";
+  public static final String STRUCTURED_DIFF_PROPERTY = "structuredDiff";
   public static final String SCROLLING_SYNCHRONIZED_PROPERTY = "scrollingSynchronized";
   public static final String ORIGINAL_SCROLL_VALUE_PROPERTY = "originalScrollValue";
   public static final String MODIFIED_SCROLL_VALUE_PROPERTY = "modifiedScrollValue";
   public static final String ORIGINAL_CARET_LINE_PROPERTY = "originalCaretLine";
-  public static final String ORIGINAL_TEXT_PROPERTY = "originalText";
-  public static final String MODIFIED_TEXT_PROPERTY = "modifiedText";
+  public static final String ORIGINAL_PATH_PROPERTY = "originalPath";
+  public static final String MODIFIED_PATH_PROPERTY = "modifiedPath";
+  public static final String ORIGINAL_LINES_PROPERTY = "originalLines";
+  public static final String MODIFIED_LINES_PROPERTY = "modifiedLines";
+  public static final String ORIGINAL_LINE_ENDING_PROPERTY = "originalLineEnding";
+  public static final String MODIFIED_LINE_ENDING_PROPERTY = "modifiedLineEnding";
   public static final String DIFF_PROPERTY = "diff";
   public static final String CHANGED_LINES_PROPERTY = "changedLines";
+  public static final String PATCH_CONFLICTS_PROPERTY = "patchConflicts";
+  public static final String MAX_TEXT_FILE_SIZE_PROPERTY = "maxTextFileSize";
+  public static final String STATUS_PROPERTY = "status";
+  public static final String SESSION_PAIRS_PROPERTY = "sessionPairs";
+  public static final String SESSION_INDEX_PROPERTY = "sessionIndex";
+  public static final String SEARCH_MATCHES_PROPERTY = "searchMatches";
+  public static final String SEARCH_MATCHES_ADDED_PROPERTY = "searchMatchesAdded";
+  public static final String SEARCH_MATCH_INDEX_PROPERTY = "searchMatchIndex";
+  public static final String CONTEXT_LINES_PROPERTY = "contextLines";
+  public static final String EXPANDED_FOLDS_PROPERTY = "expandedFolds";
 
-  private final HuntAlgorithm algorithm = new HuntAlgorithm();
+  public static final int DEFAULT_CONTEXT_LINES = 3;
+
+  private final DiffAlgorithmRegistry algorithms;
+  // Selects the engine for every diff unless one is chosen.
+  private DiffAlgorithm algorithm;
+  private final Tokenizer tokenizer = Tokenizer.withAllBoundaries();
   private HighlightStrategy highlightStrategy = HighlightStrategy.CHARACTERS;
+  private Set<ComparisonOption> comparisonOptions = Set.of();
+  private boolean structuredDiff = false;
   private boolean scrollingSynchronized = true;
   private int originalScrollValue = 0;
   private int modifiedScrollValue = 0;
   private int originalCaretLine = 0;
-  private String originalText = null;
-  private String modifiedText = null;
+  private Path originalPath = null;
+  private Path modifiedPath = null;
+  // Lines without their line terminators, as decoded.
+  private List<String> originalLines = null;
+  private List<String> modifiedLines = null;
+  private LineEnding originalLineEnding = null;
+  private LineEnding modifiedLineEnding = null;
   private Diff diff = null;
   private List<Integer> changedLines = List.of();
+  private List<PatchConflict> patchConflicts = List.of();
+  private long maxTextFileSize = FileInspector.DEFAULT_MAX_TEXT_FILE_SIZE;
+  private String status = "";
+  private List<FilePair> sessionPairs = List.of();
+  private int sessionIndex = -1;
+  private List<SearchMatch> searchMatches = new ArrayList<>();
+  private int searchMatchIndex = -1;
+  // Unchanged lines are only folded if not negative.
+  private int contextLines = -1;
+  // Source rows at which folds have been expanded.
+  private Set<Integer> expandedFolds = Set.of();
 
   private final SwingPropertyChangeSupport propertyChangeSupport =
       new SwingPropertyChangeSupport(this);
 
+  public Model() {
+    this(DiffAlgorithmRegistry.withDefaults());
+  }
+
+  public Model(final DiffAlgorithmRegistry algorithms) {
+    this.algorithms = algorithms;
+    this.algorithm = algorithms.getAutomatic();
+  }
+
   public void addPropertyChangeListener(final PropertyChangeListener listener) {
     propertyChangeSupport.addPropertyChangeListener(listener);
   }
 
+  public void setAlgorithm(final DiffAlgorithm algorithm) {
+    final var oldValue = this.algorithm;
+    this.algorithm = algorithm;
+    propertyChangeSupport.firePropertyChange(ALGORITHM_PROPERTY, oldValue, algorithm);
+  }
+
   public void setHighlightStrategy(final HighlightStrategy highlightStrategy) {
     final var oldValue = this.highlightStrategy;
     this.highlightStrategy = highlightStrategy;
@@ -46,6 +112,19 @@ public class Model {
     propertyChangeSupport.firePropertyChange(DIFF_PROPERTY, null, diff);
   }
 
+  public void setComparisonOptions(final Set<ComparisonOption> comparisonOptions) {
+    final var oldValue = this.comparisonOptions;
+    this.comparisonOptions = Set.copyOf(comparisonOptions);
+    propertyChangeSupport.firePropertyChange(
+        COMPARISON_OPTIONS_PROPERTY, oldValue, this.comparisonOptions);
+  }
+
+  public void setStructuredDiff(final boolean structuredDiff) {
+    final var oldValue = this.structuredDiff;
+    this.structuredDiff = structuredDiff;
+    propertyChangeSupport.firePropertyChange(STRUCTURED_DIFF_PROPERTY, oldValue, structuredDiff);
+  }
+
   public void setIsScrollingSynchronized(final boolean scrollingSynchronized) {
     final var oldValue = this.scrollingSynchronized;
     this.scrollingSynchronized = scrollingSynchronized;
@@ -68,27 +147,55 @@ public class Model {
   }
 
   public void setOriginalCaretLine(final int originalCaretLine) {
-    final var oldValue = this.originalCaretLine;
     this.originalCaretLine = originalCaretLine;
+    // Always fired, so going to the same line again scrolls back to it.
     propertyChangeSupport.firePropertyChange(
-        ORIGINAL_CARET_LINE_PROPERTY, oldValue, originalCaretLine);
+        ORIGINAL_CARET_LINE_PROPERTY, null, originalCaretLine);
   }
 
-  public void setOriginalText(final String originalText) {
-    final var oldValue = this.originalText;
-    this.originalText = originalText;
-    propertyChangeSupport.firePropertyChange(ORIGINAL_TEXT_PROPERTY, oldValue, originalText);
+  public void setOriginalPath(final Path originalPath) {
+    final var oldValue = this.originalPath;
+    this.originalPath = originalPath;
+    propertyChangeSupport.firePropertyChange(ORIGINAL_PATH_PROPERTY, oldValue, originalPath);
   }
 
-  public void setModifiedText(final String modifiedText) {
-    final var oldValue = this.modifiedText;
-    this.modifiedText = modifiedText;
-    propertyChangeSupport.firePropertyChange(MODIFIED_TEXT_PROPERTY, oldValue, modifiedText);
+  public void setModifiedPath(final Path modifiedPath) {
+    final var oldValue = this.modifiedPath;
+    this.modifiedPath = modifiedPath;
+    propertyChangeSupport.firePropertyChange(MODIFIED_PATH_PROPERTY, oldValue, modifiedPath);
+  }
+
+  public void setOriginalLines(final List<String> originalLines) {
+    final var oldValue = this.originalLines;
+    this.originalLines = originalLines;
+    propertyChangeSupport.firePropertyChange(ORIGINAL_LINES_PROPERTY, oldValue, originalLines);
+  }
+
+  public void setModifiedLines(final List<String> modifiedLines) {
+    final var oldValue = this.modifiedLines;
+    this.modifiedLines = modifiedLines;
+    propertyChangeSupport.firePropertyChange(MODIFIED_LINES_PROPERTY, oldValue, modifiedLines);
+  }
+
+  public void setOriginalLineEnding(final LineEnding originalLineEnding) {
+    final var oldValue = this.originalLineEnding;
+    this.originalLineEnding = originalLineEnding;
+    propertyChangeSupport.firePropertyChange(
+        ORIGINAL_LINE_ENDING_PROPERTY, oldValue, originalLineEnding);
+  }
+
+  public void setModifiedLineEnding(final LineEnding modifiedLineEnding) {
+    final var oldValue = this.modifiedLineEnding;
+    this.modifiedLineEnding = modifiedLineEnding;
+    propertyChangeSupport.firePropertyChange(
+        MODIFIED_LINE_ENDING_PROPERTY, oldValue, modifiedLineEnding);
   }
 
   public void setDiff(final Diff diff) {
     final var oldValue = this.diff;
     this.diff = diff;
+    // Folds of the previous diff don't apply to the new one.
+    this.expandedFolds = Set.of();
     propertyChangeSupport.firePropertyChange(DIFF_PROPERTY, oldValue, diff);
   }
 
@@ -97,4 +204,73 @@ public class Model {
     this.changedLines = changedLines;
     propertyChangeSupport.firePropertyChange(CHANGED_LINES_PROPERTY, oldValue, changedLines);
   }
+
+  public void setPatchConflicts(final List<PatchConflict> patchConflicts) {
+    final var oldValue = this.patchConflicts;
+    this.patchConflicts = patchConflicts;
+    propertyChangeSupport.firePropertyChange(PATCH_CONFLICTS_PROPERTY, oldValue, patchConflicts);
+  }
+
+  public void setMaxTextFileSize(final long maxTextFileSize) {
+    final var oldValue = this.maxTextFileSize;
+    this.maxTextFileSize = maxTextFileSize;
+    propertyChangeSupport.firePropertyChange(
+        MAX_TEXT_FILE_SIZE_PROPERTY, oldValue, maxTextFileSize);
+  }
+
+  public void setStatus(final String status) {
+    final var oldValue = this.status;
+    this.status = status;
+    propertyChangeSupport.firePropertyChange(STATUS_PROPERTY, oldValue, status);
+  }
+
+  public void setSessionPairs(final List<FilePair> sessionPairs) {
+    final var oldValue = this.sessionPairs;
+    this.sessionPairs = sessionPairs;
+    propertyChangeSupport.firePropertyChange(SESSION_PAIRS_PROPERTY, oldValue, sessionPairs);
+  }
+
+  public void setSessionIndex(final int sessionIndex) {
+    final var oldValue = this.sessionIndex;
+    this.sessionIndex = sessionIndex;
+    propertyChangeSupport.firePropertyChange(SESSION_INDEX_PROPERTY, oldValue, sessionIndex);
+  }
+
+  public void setSearchMatches(final List<SearchMatch> searchMatches) {
+    final var oldValue = this.searchMatches;
+    this.searchMatches = new ArrayList<>(searchMatches);
+    propertyChangeSupport.firePropertyChange(
+        SEARCH_MATCHES_PROPERTY, oldValue, this.searchMatches);
+  }
+
+  /** Appends matches of a running search, only the new matches are passed to listeners. */
+  public void addSearchMatches(final List<SearchMatch> searchMatches) {
+    this.searchMatches.addAll(searchMatches);
+    propertyChangeSupport.firePropertyChange(SEARCH_MATCHES_ADDED_PROPERTY, null, searchMatches);
+  }
+
+  public void setSearchMatchIndex(final int searchMatchIndex) {
+    final var oldValue = this.searchMatchIndex;
+    this.searchMatchIndex = searchMatchIndex;
+    propertyChangeSupport.firePropertyChange(
+        SEARCH_MATCH_INDEX_PROPERTY, oldValue, searchMatchIndex);
+  }
+
+  public void setContextLines(final int contextLines) {
+    final var oldValue = this.contextLines;
+    this.contextLines = contextLines;
+    this.expandedFolds = Set.of();
+    propertyChangeSupport.firePropertyChange(CONTEXT_LINES_PROPERTY, oldValue, contextLines);
+    // Trigger repaint of the folded diff.
+    propertyChangeSupport.firePropertyChange(DIFF_PROPERTY, null, diff);
+  }
+
+  public void setExpandedFolds(final Set<Integer> expandedFolds) {
+    final var oldValue = this.expandedFolds;
+    this.expandedFolds = Set.copyOf(expandedFolds);
+    propertyChangeSupport.firePropertyChange(
+        EXPANDED_FOLDS_PROPERTY, oldValue, this.expandedFolds);
+    // Trigger repaint of the folded diff.
+    propertyChangeSupport.firePropertyChange(DIFF_PROPERTY, null, diff);
+  }
 }
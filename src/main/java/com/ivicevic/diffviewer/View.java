@@ -1,15 +1,42 @@
 package com.ivicevic.diffviewer;
 
+import com.ivicevic.diffviewer.algorithm.ComparisonOption;
 import com.ivicevic.diffviewer.algorithm.Diff;
+import com.ivicevic.diffviewer.algorithm.DiffAlgorithm;
+import com.ivicevic.diffviewer.algorithm.FoldedDiff;
+import com.ivicevic.diffviewer.components.EditorContent;
 import com.ivicevic.diffviewer.components.EditorPane;
 import com.ivicevic.diffviewer.components.EditorPane.EditorKind;
+import com.ivicevic.diffviewer.components.OverviewRuler;
 import com.ivicevic.diffviewer.components.Toolbar;
+import com.ivicevic.diffviewer.execution.DiffExecutor;
+import com.ivicevic.diffviewer.execution.DiffExecutor.Execution;
+import com.ivicevic.diffviewer.execution.TaskScope;
+import com.ivicevic.diffviewer.search.SearchMatch;
+import com.ivicevic.diffviewer.search.SearchMatch.Side;
+import com.ivicevic.diffviewer.search.SearchQuery;
+import com.ivicevic.diffviewer.session.FilePair;
 import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Dimension;
 import java.awt.GridLayout;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import javax.swing.BorderFactory;
+import javax.swing.DefaultListCellRenderer;
 import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JList;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.ListSelectionModel;
 import javax.swing.text.BadLocationException;
+import lombok.Value;
 
 public class View extends JFrame {
   private final Controller controller;
@@ -17,6 +44,18 @@ public class View extends JFrame {
   private final Toolbar toolbar;
   private final EditorPane originalEditorPane;
   private final EditorPane modifiedEditorPane;
+  private final OverviewRuler overviewRuler;
+  private final JLabel statusLabel;
+  private final JList<FilePair> sessionList;
+  private final JScrollPane sessionScrollPane;
+  // The diff currently displayed and its folding.
+  private Diff renderedDiff = null;
+  private FoldedDiff foldedDiff = null;
+  private final DiffExecutor diffExecutor = new DiffExecutor();
+  // The rendering in progress, if any.
+  private Execution rendering = null;
+  // Runs once the diff being rendered is displayed.
+  private Runnable afterRender = null;
 
   public View(final Model model) {
     super("Compare Files");
@@ -35,7 +74,37 @@ public class View extends JFrame {
     contentPanel.add(originalEditorPane);
     modifiedEditorPane = new EditorPane(EditorKind.MODIFIED);
     contentPanel.add(modifiedEditorPane);
-    rootPanel.add(contentPanel, BorderLayout.CENTER);
+    overviewRuler = new OverviewRuler();
+    final var editorPanel = new JPanel(new BorderLayout());
+    editorPanel.add(contentPanel, BorderLayout.CENTER);
+    editorPanel.add(overviewRuler, BorderLayout.LINE_END);
+    rootPanel.add(editorPanel, BorderLayout.CENTER);
+
+    sessionList = new JList<>();
+    sessionList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+    sessionList.setCellRenderer(
+        new DefaultListCellRenderer() {
+          @Override
+          public Component getListCellRendererComponent(
+              final JList<?> list,
+              final Object value,
+              final int index,
+              final boolean isSelected,
+              final boolean cellHasFocus) {
+            return super.getListCellRendererComponent(
+                list, ((FilePair) value).getName(), index, isSelected, cellHasFocus);
+          }
+        });
+    sessionScrollPane = new JScrollPane(sessionList);
+    sessionScrollPane.setBorder(BorderFactory.createEmptyBorder(4, 10, 10, 0));
+    sessionScrollPane.setPreferredSize(new Dimension(240, 0));
+    // Only shown while comparing directories.
+    sessionScrollPane.setVisible(false);
+    rootPanel.add(sessionScrollPane, BorderLayout.LINE_START);
+
+    statusLabel = new JLabel(" ");
+    statusLabel.setBorder(BorderFactory.createEmptyBorder(0, 10, 6, 10));
+    rootPanel.add(statusLabel, BorderLayout.PAGE_END);
 
     initializeComponents(model);
     addActionListeners();
@@ -44,6 +113,15 @@ public class View extends JFrame {
     setLocationRelativeTo(null);
     setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
     setVisible(true);
+
+    // Icons are decoded in the background once the frame is visible to speed up the first paint.
+    toolbar.loadIcons(ForkJoinPool.commonPool());
+    originalEditorPane.loadIcons(ForkJoinPool.commonPool());
+    modifiedEditorPane.loadIcons(ForkJoinPool.commonPool());
+  }
+
+  public void compareFiles(final Path originalPath, final Path modifiedPath) {
+    controller.compareFiles(originalPath, modifiedPath);
   }
 
   private void addActionListeners() {
@@ -53,8 +131,7 @@ public class View extends JFrame {
             e -> {
               final int currentLine;
               try {
-                final var textArea = originalEditorPane.getTextArea();
-                currentLine = textArea.getLineOfOffset(textArea.getCaretPosition());
+                currentLine = getCaretRow();
                 controller.gotoNextDifference(currentLine);
               } catch (final BadLocationException ex) {
                 throw new RuntimeException(ex);
@@ -66,8 +143,7 @@ public class View extends JFrame {
             e -> {
               final int currentLine;
               try {
-                final var textArea = originalEditorPane.getTextArea();
-                currentLine = textArea.getLineOfOffset(textArea.getCaretPosition());
+                currentLine = getCaretRow();
                 controller.gotoPreviousDifference(currentLine);
               } catch (final BadLocationException ex) {
                 throw new RuntimeException(ex);
@@ -76,12 +152,62 @@ public class View extends JFrame {
     toolbar
         .getLineHighlightButton()
         .addActionListener(e -> controller.setHighlightStrategy(HighlightStrategy.LINES));
+    toolbar
+        .getWordHighlightButton()
+        .addActionListener(e -> controller.setHighlightStrategy(HighlightStrategy.WORDS));
     toolbar
         .getCharacterHighlightButton()
         .addActionListener(e -> controller.setHighlightStrategy(HighlightStrategy.CHARACTERS));
+    toolbar
+        .getIgnoreWhitespaceButton()
+        .addActionListener(
+            e ->
+                controller.setComparisonOption(
+                    ComparisonOption.IGNORE_ALL_WHITESPACE,
+                    toolbar.getIgnoreWhitespaceButton().isSelected()));
+    toolbar
+        .getIgnoreCaseButton()
+        .addActionListener(
+            e ->
+                controller.setComparisonOption(
+                    ComparisonOption.IGNORE_CASE, toolbar.getIgnoreCaseButton().isSelected()));
+    toolbar
+        .getStructuredDiffButton()
+        .addActionListener(
+            e -> controller.setStructuredDiff(toolbar.getStructuredDiffButton().isSelected()));
+    toolbar
+        .getOnlyChangesButton()
+        .addActionListener(
+            e ->
+                controller.setContextLines(
+                    toolbar.getOnlyChangesButton().isSelected()
+                        ? Model.DEFAULT_CONTEXT_LINES
+                        : -1));
+    toolbar
+        .getAlgorithmComboBox()
+        .addActionListener(
+            e -> {
+              final var selected = toolbar.getAlgorithmComboBox().getSelectedItem();
+              if (selected instanceof DiffAlgorithm algorithm) {
+                controller.setAlgorithm(algorithm.getName());
+              }
+            });
     toolbar
         .getScrollSyncButton()
         .addActionListener(e -> controller.toggleScrollingSynchronization());
+    toolbar.getExportPatchButton().addActionListener(e -> controller.exportPatch());
+    toolbar.getApplyPatchButton().addActionListener(e -> controller.applyPatch());
+    toolbar.getThreeWayMergeButton().addActionListener(e -> controller.openThreeWayMerge());
+    toolbar.getCompareDirectoriesButton().addActionListener(e -> controller.compareDirectories());
+    toolbar.getSearchField().addActionListener(e -> search());
+    toolbar.getMatchCaseButton().addActionListener(e -> search());
+    toolbar.getChangedOnlyButton().addActionListener(e -> search());
+    sessionList.addListSelectionListener(
+        e -> {
+          if (!e.getValueIsAdjusting()) {
+            controller.selectSessionEntry(sessionList.getSelectedIndex());
+          }
+        });
 
     originalEditorPane
         .getLoadFileButton()
@@ -89,55 +215,238 @@ public class View extends JFrame {
     modifiedEditorPane
         .getLoadFileButton()
         .addActionListener(e -> controller.loadFileIntoEditor(EditorKind.MODIFIED));
+    for (final var pane : List.of(originalEditorPane, modifiedEditorPane)) {
+      pane.getTextArea()
+          .addMouseListener(
+              new MouseAdapter() {
+                @Override
+                public void mouseClicked(final MouseEvent e) {
+                  final var fold = pane.getFoldAt(e.getPoint());
+                  if (fold != null) {
+                    controller.expandFold(fold);
+                  }
+                }
+              });
+    }
+    overviewRuler.addMouseListener(
+        new MouseAdapter() {
+          @Override
+          public void mousePressed(final MouseEvent e) {
+            final var row = overviewRuler.getRowAt(e.getY());
+            if (row >= 0) {
+              controller.gotoRow(foldedDiff == null ? row : foldedDiff.toSourceRow(row));
+            }
+          }
+        });
     originalEditorPane
         .getScrollPane()
         .getVerticalScrollBar()
         .addAdjustmentListener(e -> controller.adjustScrolling(EditorKind.ORIGINAL, e.getValue()));
+    // The ruler marks the visible part of the original pane, the modified pane follows it when
+    // scrolling is synchronized.
+    final var originalScrollModel =
+        originalEditorPane.getScrollPane().getVerticalScrollBar().getModel();
+    originalScrollModel.addChangeListener(
+        e -> {
+          final var minimum = originalScrollModel.getMinimum();
+          final var range = originalScrollModel.getMaximum() - minimum;
+          if (range > 0) {
+            final var start = (double) (originalScrollModel.getValue() - minimum) / range;
+            overviewRuler.setViewport(
+                start, start + (double) originalScrollModel.getExtent() / range);
+          }
+        });
     modifiedEditorPane
         .getScrollPane()
         .getVerticalScrollBar()
         .addAdjustmentListener(e -> controller.adjustScrolling(EditorKind.MODIFIED, e.getValue()));
   }
 
+  /** Returns the source row of the caret in the original pane, mapping folded rows back. */
+  private int getCaretRow() throws BadLocationException {
+    final var textArea = originalEditorPane.getTextArea();
+    final var row = textArea.getLineOfOffset(textArea.getCaretPosition());
+    return foldedDiff == null ? row : foldedDiff.toSourceRow(row);
+  }
+
+  private int toDisplayRow(final int sourceRow) {
+    return foldedDiff == null ? sourceRow : foldedDiff.toDisplayRow(sourceRow);
+  }
+
+  /** Maps matches to displayed rows, leaving out those in folded rows. */
+  private List<SearchMatch> toDisplayedMatches(final List<SearchMatch> matches) {
+    if (foldedDiff == null) {
+      return matches;
+    }
+    return matches.stream()
+        .filter(match -> foldedDiff.getFold(match.getRow()) == null)
+        .map(
+            match ->
+                new SearchMatch(
+                    match.getSide(),
+                    foldedDiff.toDisplayRow(match.getRow()),
+                    match.getStart(),
+                    match.getEnd()))
+        .toList();
+  }
+
+  private void selectMatch(final SearchMatch match) {
+    final var textArea =
+        (match.getSide() == Side.ORIGINAL ? originalEditorPane : modifiedEditorPane)
+            .getTextArea();
+    final int lineStartOffset;
+    try {
+      lineStartOffset = textArea.getLineStartOffset(toDisplayRow(match.getRow()));
+    } catch (final BadLocationException e) {
+      throw new RuntimeException(e);
+    }
+    // Moving the caret scrolls the match into view, the other pane follows if synchronized.
+    textArea.setCaretPosition(lineStartOffset + match.getEnd());
+    textArea.moveCaretPosition(lineStartOffset + match.getStart());
+  }
+
+  /**
+   * Builds the documents and highlights of both panes off the EDT in one scope, so that only
+   * swapping them in is left to it. A rendering still in progress is cancelled.
+   */
+  private void render(final Diff diff) {
+    final var model = controller.getModel();
+    final var contextLines = model.getContextLines();
+    final var expandedFolds = model.getExpandedFolds();
+    final var highlightStrategy = model.getHighlightStrategy();
+    final var algorithm = model.getAlgorithm();
+    final var tokenizer = model.getTokenizer();
+    final var comparisonOptions = model.getComparisonOptions();
+    if (rendering != null) {
+      rendering.cancel();
+    }
+    rendering =
+        diffExecutor.submit(
+            scope -> {
+              final var folded = FoldedDiff.of(diff, contextLines, expandedFolds);
+              final var displayed = folded.getDiff();
+              final var rulerIndex = scope.fork(() -> OverviewRuler.Index.of(displayed));
+              final var contents = new ArrayList<TaskScope.Subtask<EditorContent>>();
+              for (final var pane : List.of(originalEditorPane, modifiedEditorPane)) {
+                contents.add(
+                    scope.fork(
+                        () ->
+                            switch (highlightStrategy) {
+                              case LINES -> pane.prepareLineDiff(displayed);
+                              case WORDS -> pane.prepareWordDiff(
+                                  displayed, algorithm, tokenizer, comparisonOptions);
+                              case CHARACTERS -> pane.prepareCharacterDiff(
+                                  displayed, algorithm, comparisonOptions);
+                            }));
+              }
+              scope.join();
+              return new Rendering(
+                  folded,
+                  rulerIndex.resultNow(),
+                  contents.get(0).resultNow(),
+                  contents.get(1).resultNow());
+            },
+            result -> {
+              try {
+                install(diff, result);
+              } catch (final BadLocationException e) {
+                throw new RuntimeException(e);
+              }
+            },
+            e -> model.setStatus("Could not display the diff: " + e.getMessage()));
+  }
+
+  /** Swaps in a rendering of the diff, which only takes as long as handing over the documents. */
+  private void install(final Diff diff, final Rendering rendering) throws BadLocationException {
+    final var model = controller.getModel();
+    // Repainting the same diff, e.g. after expanding a fold, keeps the caret on its row.
+    final var caretRow = diff == renderedDiff ? getCaretRow() : 0;
+    renderedDiff = diff;
+    foldedDiff = rendering.getFoldedDiff();
+    overviewRuler.setIndex(rendering.getRulerIndex());
+    originalEditorPane.setContent(rendering.getOriginal());
+    modifiedEditorPane.setContent(rendering.getModified());
+    originalEditorPane.setPatchConflicts(model.getPatchConflicts());
+    // Rendering the diff removes all highlights, including those of search matches.
+    final var matches = toDisplayedMatches(model.getSearchMatches());
+    originalEditorPane.addSearchMatches(matches);
+    modifiedEditorPane.addSearchMatches(matches);
+
+    final var caretOffset =
+        originalEditorPane.getTextArea().getLineStartOffset(toDisplayRow(caretRow));
+    originalEditorPane.getTextArea().setCaretPosition(caretOffset);
+    modifiedEditorPane.getTextArea().setCaretPosition(caretOffset);
+
+    if (afterRender != null) {
+      final var action = afterRender;
+      afterRender = null;
+      action.run();
+    }
+  }
+
+  private void search() {
+    controller.search(
+        new SearchQuery(
+            toolbar.getSearchField().getText(),
+            toolbar.getMatchCaseButton().isSelected(),
+            toolbar.getChangedOnlyButton().isSelected()));
+  }
+
   private void initializeComponents(final Model model) {
     toolbar
         .getLineHighlightButton()
         .setSelected(model.getHighlightStrategy() == HighlightStrategy.LINES);
+    toolbar
+        .getWordHighlightButton()
+        .setSelected(model.getHighlightStrategy() == HighlightStrategy.WORDS);
     toolbar
         .getCharacterHighlightButton()
         .setSelected(model.getHighlightStrategy() == HighlightStrategy.CHARACTERS);
+    updateComparisonOptionButtons(model.getComparisonOptions());
+    toolbar.getStructuredDiffButton().setSelected(model.isStructuredDiff());
+    toolbar.getOnlyChangesButton().setSelected(model.getContextLines() >= 0);
+    final var algorithms = new ArrayList<DiffAlgorithm>();
+    algorithms.add(model.getAlgorithms().getAutomatic());
+    algorithms.addAll(model.getAlgorithms().getAlgorithms());
+    toolbar.setAlgorithms(algorithms);
+    toolbar.getAlgorithmComboBox().setSelectedItem(model.getAlgorithm());
     toolbar.getScrollSyncButton().setSelected(model.isScrollingSynchronized());
   }
 
+  private void updateComparisonOptionButtons(final Set<ComparisonOption> options) {
+    toolbar
+        .getIgnoreWhitespaceButton()
+        .setSelected(options.contains(ComparisonOption.IGNORE_ALL_WHITESPACE));
+    toolbar.getIgnoreCaseButton().setSelected(options.contains(ComparisonOption.IGNORE_CASE));
+  }
+
   public void propertyChange(final String propertyName, final Object newValue) {
     switch (propertyName) {
       case Model.HIGHLIGHT_STRATEGY_PROPERTY -> {
         final var strategy = (HighlightStrategy) newValue;
         toolbar.getLineHighlightButton().setSelected(strategy == HighlightStrategy.LINES);
+        toolbar.getWordHighlightButton().setSelected(strategy == HighlightStrategy.WORDS);
         toolbar.getCharacterHighlightButton().setSelected(strategy == HighlightStrategy.CHARACTERS);
       }
       case Model.DIFF_PROPERTY -> {
-        try {
-          final var newDiff = (Diff) newValue;
-          if (newDiff == null) {
-            return;
-          }
-          // TODO: This is a bit hacky, but it works for now.
-          if (controller.getModel().getHighlightStrategy() == HighlightStrategy.LINES) {
-            originalEditorPane.setLineDiff(newDiff);
-            modifiedEditorPane.setLineDiff(newDiff);
-          } else {
-            final var algorithm = controller.getModel().getAlgorithm();
-            originalEditorPane.setCharacterDiff(newDiff, algorithm);
-            modifiedEditorPane.setCharacterDiff(newDiff, algorithm);
-          }
-        } catch (final BadLocationException e) {
-          throw new RuntimeException(e);
+        final var newDiff = (Diff) newValue;
+        if (newDiff == null) {
+          return;
         }
-
-        originalEditorPane.getTextArea().setCaretPosition(0);
-        modifiedEditorPane.getTextArea().setCaretPosition(0);
+        render(newDiff);
+      }
+      case Model.COMPARISON_OPTIONS_PROPERTY -> {
+        @SuppressWarnings("unchecked")
+        final var options = (Set<ComparisonOption>) newValue;
+        updateComparisonOptionButtons(options);
       }
+      case Model.CONTEXT_LINES_PROPERTY -> toolbar
+          .getOnlyChangesButton()
+          .setSelected((int) newValue >= 0);
+      case Model.ALGORITHM_PROPERTY -> toolbar.getAlgorithmComboBox().setSelectedItem(newValue);
+      case Model.STRUCTURED_DIFF_PROPERTY -> toolbar
+          .getStructuredDiffButton()
+          .setSelected((boolean) newValue);
       case Model.SCROLLING_SYNCHRONIZED_PROPERTY -> toolbar
           .getScrollSyncButton()
           .setSelected((boolean) newValue);
@@ -149,7 +458,7 @@ public class View extends JFrame {
         pane.getScrollPane().getVerticalScrollBar().setValue((int) newValue);
       }
       case Model.ORIGINAL_CARET_LINE_PROPERTY -> {
-        final var line = (int) newValue;
+        final var line = toDisplayRow((int) newValue);
 
         final var textArea = originalEditorPane.getTextArea();
         final int lineStartOffset;
@@ -164,18 +473,80 @@ public class View extends JFrame {
         textArea.moveCaretPosition(lineEndOffset - 1);
         textArea.grabFocus();
       }
-      case Model.ORIGINAL_TEXT_PROPERTY, Model.MODIFIED_TEXT_PROPERTY -> {
+      case Model.ORIGINAL_LINES_PROPERTY, Model.MODIFIED_LINES_PROPERTY -> {
         final var pane =
-            propertyName.equals(Model.ORIGINAL_TEXT_PROPERTY)
+            propertyName.equals(Model.ORIGINAL_LINES_PROPERTY)
                 ? originalEditorPane
                 : modifiedEditorPane;
-        pane.getTextArea().setText((String) newValue);
+        @SuppressWarnings("unchecked")
+        final var lines = (List<String>) newValue;
+        pane.getTextArea().getHighlighter().removeAllHighlights();
+        pane.getTextArea().setText(lines == null ? null : String.join("\n", lines));
         originalEditorPane.getTextArea().setCaretPosition(0);
         modifiedEditorPane.getTextArea().setCaretPosition(0);
       }
+      case Model.SESSION_PAIRS_PROPERTY -> {
+        @SuppressWarnings("unchecked")
+        final var pairs = (List<FilePair>) newValue;
+        sessionList.setListData(pairs.toArray(FilePair[]::new));
+        sessionScrollPane.setVisible(!pairs.isEmpty());
+        revalidate();
+      }
+      case Model.SESSION_INDEX_PROPERTY -> {
+        final var index = (int) newValue;
+        if (index < 0) {
+          sessionList.clearSelection();
+        } else {
+          sessionList.setSelectedIndex(index);
+          sessionList.ensureIndexIsVisible(index);
+        }
+      }
+      case Model.SEARCH_MATCHES_PROPERTY, Model.SEARCH_MATCHES_ADDED_PROPERTY -> {
+        @SuppressWarnings("unchecked")
+        final var matches = toDisplayedMatches((List<SearchMatch>) newValue);
+        try {
+          for (final var pane : List.of(originalEditorPane, modifiedEditorPane)) {
+            if (propertyName.equals(Model.SEARCH_MATCHES_PROPERTY)) {
+              pane.clearSearchMatches();
+            }
+            pane.addSearchMatches(matches);
+          }
+        } catch (final BadLocationException e) {
+          throw new RuntimeException(e);
+        }
+      }
+      case Model.SEARCH_MATCH_INDEX_PROPERTY -> {
+        final var index = (int) newValue;
+        final var matches = controller.getModel().getSearchMatches();
+        if (index < 0 || index >= matches.size()) {
+          return;
+        }
+        final var match = matches.get(index);
+        final var fold = foldedDiff == null ? null : foldedDiff.getFold(match.getRow());
+        if (fold != null) {
+          // The expanded diff is rendered in the background, the match is selected afterwards.
+          afterRender = () -> selectMatch(match);
+          controller.expandFold(fold);
+        } else {
+          selectMatch(match);
+        }
+      }
+      case Model.STATUS_PROPERTY -> {
+        final var status = (String) newValue;
+        // An empty label would collapse, so at least a blank is shown.
+        statusLabel.setText(status == null || status.isEmpty() ? " " : status);
+      }
       default -> {
         // do nothing
       }
     }
   }
+
+  @Value
+  private static class Rendering {
+    FoldedDiff foldedDiff;
+    OverviewRuler.Index rulerIndex;
+    EditorContent original;
+    EditorContent modified;
+  }
 }
@@ -0,0 +1,33 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import java.util.Set;
+import lombok.Value;
+
+/** What a {@link DiffAlgorithm} needs and guarantees, used to choose an engine for the inputs. */
+@Value
+public class AlgorithmCapabilities {
+  MemoryClass memoryClass;
+  // Exact engines always keep as many lines as possible.
+  boolean exact;
+  Set<DiffMode> modes;
+
+  public static AlgorithmCapabilities of(
+      final MemoryClass memoryClass, final boolean exact, final DiffMode... modes) {
+    return new AlgorithmCapabilities(memoryClass, exact, Set.of(modes));
+  }
+
+  public boolean supports(final DiffMode mode) {
+    return modes.contains(mode);
+  }
+
+  /** How the memory of an engine grows with the inputs, from the cheapest to the most expensive. */
+  public enum MemoryClass {
+    // Proportional to the length of both inputs.
+    LINEAR,
+    // Proportional to the product of the lengths of the segments split off at common lines, which
+    // is capped per segment.
+    SEGMENTED,
+    // Proportional to the product of the lengths of both inputs.
+    QUADRATIC
+  }
+}
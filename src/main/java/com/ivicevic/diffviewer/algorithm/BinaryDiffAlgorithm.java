@@ -0,0 +1,220 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.InsertCommand;
+import com.ivicevic.diffviewer.algorithm.commands.KeepCommand;
+import com.ivicevic.diffviewer.algorithm.commands.VirtualKeepCommand;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.SplittableRandom;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Diffs two byte streams and renders the result as side-by-side hex dump. Both inputs are cut into
+ * content-defined chunks by a rolling gear hash, so chunk boundaries re-synchronize right after
+ * insertions and deletions instead of shifting every subsequent block. The chunk sequences are then
+ * diffed like lines and every chunk is rendered as rows of {@value #BYTES_PER_ROW} bytes.
+ */
+@RequiredArgsConstructor
+public class BinaryDiffAlgorithm {
+  public static final long DEFAULT_MAX_SIZE = 8L * 1024 * 1024;
+
+  private static final int BYTES_PER_ROW = 16;
+  private static final int MIN_CHUNK_SIZE = 64;
+  private static final int MAX_CHUNK_SIZE = 4096;
+  // Cuts chunks at roughly every 256 bytes after the minimum chunk size.
+  private static final long BOUNDARY_MASK = 0xFFL << 24;
+  // The quadratic line diff is only used up to this many cells, beyond it chunks are replaced.
+  private static final long MAX_MATRIX_CELLS = 16L * 1024 * 1024;
+  private static final long[] GEAR = new long[256];
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  static {
+    final var random = new SplittableRandom(0x5EED);
+    for (var i = 0; i < GEAR.length; ++i) {
+      GEAR[i] = random.nextLong();
+    }
+  }
+
+  private final DiffAlgorithm algorithm;
+
+  public Diff buildDiff(final ByteBuffer original, final ByteBuffer modified) {
+    final var originalChunks = chunk(original);
+    final var modifiedChunks = chunk(modified);
+    final var ids = new ChunkIds();
+    final var originalIds = ids.of(original, originalChunks);
+    final var modifiedIds = ids.of(modified, modifiedChunks);
+
+    // Identical leading and trailing chunks are aligned without running the diff at all.
+    var prefix = 0;
+    while (prefix < originalIds.length
+        && prefix < modifiedIds.length
+        && originalIds[prefix].equals(modifiedIds[prefix])) {
+      ++prefix;
+    }
+    var suffix = 0;
+    while (suffix < originalIds.length - prefix
+        && suffix < modifiedIds.length - prefix
+        && originalIds[originalIds.length - 1 - suffix].equals(
+            modifiedIds[modifiedIds.length - 1 - suffix])) {
+      ++suffix;
+    }
+
+    final var renderer = new Renderer(original, modified, originalChunks, modifiedChunks);
+    for (var i = 0; i < prefix; ++i) {
+      renderer.add(i, i, true);
+    }
+
+    final var originalMiddle = slice(originalIds, prefix, originalIds.length - suffix);
+    final var modifiedMiddle = slice(modifiedIds, prefix, modifiedIds.length - suffix);
+    if ((long) originalMiddle.length * modifiedMiddle.length <= MAX_MATRIX_CELLS) {
+      final var middle = algorithm.buildDiff(originalMiddle, modifiedMiddle, DiffMode.LINES);
+      var originalChunk = prefix;
+      var modifiedChunk = prefix;
+      for (var row = 0; row < middle.getOriginal().size(); ++row) {
+        final var originalCommand = middle.getOriginal().get(row);
+        final var modifiedCommand = middle.getModified().get(row);
+        // Replaced chunks may share a row without any virtual padding.
+        renderer.add(
+            originalCommand instanceof VirtualKeepCommand ? -1 : originalChunk++,
+            modifiedCommand instanceof VirtualKeepCommand ? -1 : modifiedChunk++,
+            originalCommand instanceof KeepCommand && modifiedCommand instanceof KeepCommand);
+      }
+    } else {
+      for (var i = prefix; i < originalIds.length - suffix; ++i) {
+        renderer.add(i, -1, false);
+      }
+      for (var i = prefix; i < modifiedIds.length - suffix; ++i) {
+        renderer.add(-1, i, false);
+      }
+    }
+
+    for (var i = suffix; i > 0; --i) {
+      renderer.add(originalIds.length - i, modifiedIds.length - i, true);
+    }
+    return renderer.toDiff();
+  }
+
+  /** Returns the exclusive end offsets of all content-defined chunks of the buffer. */
+  private static int[] chunk(final ByteBuffer buffer) {
+    final var ends = new ArrayList<Integer>();
+    final var limit = buffer.limit();
+    var start = 0;
+    var hash = 0L;
+    for (var i = 0; i < limit; ++i) {
+      hash = (hash << 1) + GEAR[buffer.get(i) & 0xFF];
+      final var size = i + 1 - start;
+      if ((size >= MIN_CHUNK_SIZE && (hash & BOUNDARY_MASK) == 0) || size >= MAX_CHUNK_SIZE) {
+        ends.add(i + 1);
+        start = i + 1;
+        hash = 0;
+      }
+    }
+    if (start < limit) {
+      ends.add(limit);
+    }
+    return ends.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private static String[] slice(final String[] array, final int from, final int to) {
+    final var result = new String[to - from];
+    System.arraycopy(array, from, result, 0, result.length);
+    return result;
+  }
+
+  private static int getStart(final int[] chunks, final int chunk) {
+    return chunk == 0 ? 0 : chunks[chunk - 1];
+  }
+
+  /** Assigns equal chunks the same id. Byte buffers hash and compare by their content. */
+  private static class ChunkIds {
+    private final HashMap<ByteBuffer, String> ids = new HashMap<>();
+
+    private String[] of(final ByteBuffer buffer, final int[] chunks) {
+      final var result = new String[chunks.length];
+      for (var i = 0; i < chunks.length; ++i) {
+        final var start = getStart(chunks, i);
+        final var chunk = buffer.slice(start, chunks[i] - start);
+        result[i] = ids.computeIfAbsent(chunk, c -> String.valueOf(ids.size()));
+      }
+      return result;
+    }
+  }
+
+  @RequiredArgsConstructor
+  private static class Renderer {
+    private final ByteBuffer original;
+    private final ByteBuffer modified;
+    private final int[] originalChunks;
+    private final int[] modifiedChunks;
+    private final List<EditCommand> originalScript = new ArrayList<>();
+    private final List<EditCommand> modifiedScript = new ArrayList<>();
+
+    /** Adds the rows of a pair of aligned chunks, where -1 denotes a missing chunk. */
+    private void add(final int originalChunk, final int modifiedChunk, final boolean keep) {
+      final var originalRows = render(original, originalChunks, originalChunk);
+      final var modifiedRows = render(modified, modifiedChunks, modifiedChunk);
+      final var rows = Math.max(originalRows.size(), modifiedRows.size());
+      for (var row = 0; row < rows; ++row) {
+        originalScript.add(
+            row >= originalRows.size()
+                ? new VirtualKeepCommand()
+                : keep
+                    ? new KeepCommand(originalRows.get(row))
+                    : new DeleteCommand(originalRows.get(row)));
+        modifiedScript.add(
+            row >= modifiedRows.size()
+                ? new VirtualKeepCommand()
+                : keep
+                    ? new KeepCommand(modifiedRows.get(row))
+                    : new InsertCommand(modifiedRows.get(row)));
+      }
+    }
+
+    private static List<String> render(
+        final ByteBuffer buffer, final int[] chunks, final int chunk) {
+      if (chunk == -1) {
+        return List.of();
+      }
+      final var rows = new ArrayList<String>();
+      final var end = chunks[chunk];
+      for (var offset = getStart(chunks, chunk); offset < end; offset += BYTES_PER_ROW) {
+        rows.add(renderRow(buffer, offset, Math.min(end, offset + BYTES_PER_ROW)));
+      }
+      return rows;
+    }
+
+    private static String renderRow(final ByteBuffer buffer, final int start, final int end) {
+      final var sb = new StringBuilder(80);
+      for (var shift = 28; shift >= 0; shift -= 4) {
+        sb.append(HEX_DIGITS[(start >>> shift) & 0xF]);
+      }
+      for (var i = 0; i < BYTES_PER_ROW; ++i) {
+        sb.append(i % 8 == 0 ? "  " : " ");
+        if (start + i < end) {
+          final var b = buffer.get(start + i) & 0xFF;
+          sb.append(HEX_DIGITS[b >>> 4]).append(HEX_DIGITS[b & 0xF]);
+        } else {
+          sb.append("  ");
+        }
+      }
+      sb.append("  |");
+      for (var i = start; i < end; ++i) {
+        final var c = buffer.get(i) & 0xFF;
+        sb.append(c >= 0x20 && c < 0x7F ? (char) c : '.');
+      }
+      sb.append('|');
+      return sb.toString();
+    }
+
+    private Diff toDiff() {
+      final var changedLines =
+          new Diff(originalScript, modifiedScript, List.of())
+              .getHunks().stream().map(Hunk::getRowStart).toList();
+      return new Diff(originalScript, modifiedScript, changedLines);
+    }
+  }
+}
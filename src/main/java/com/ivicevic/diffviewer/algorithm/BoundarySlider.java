@@ -0,0 +1,151 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.InsertCommand;
+import com.ivicevic.diffviewer.algorithm.commands.KeepCommand;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Slides runs of only deleted or only inserted lines along equal neighbouring lines. The LCS
+ * backtrace resolves ties arbitrarily, so an inserted function may start with the closing brace of
+ * the previous one. Every position a run can slide to is scored by its two boundaries and the best
+ * one wins, the lowest one on ties.
+ */
+@RequiredArgsConstructor
+public class BoundarySlider implements EditScriptProcessor {
+  // Bounds the work per run, so the stage stays linear even for long runs of repeated lines.
+  private static final int MAX_SLIDE = 100;
+
+  private final BoundaryScorer scorer;
+
+  /** Prefers boundaries next to blank lines and before lines of low indentation. */
+  public static BoundarySlider forLines() {
+    return new BoundarySlider(
+        (above, below) -> {
+          var score = below == null ? -1 : below.isBlank() ? 0 : indentationOf(below);
+          if (above == null || above.isBlank()) {
+            score -= above == null ? 1 : 2;
+          }
+          return score;
+        });
+  }
+
+  /** Prefers boundaries that don't cut through words. */
+  public static BoundarySlider forTokens() {
+    return new BoundarySlider(
+        (above, below) ->
+            above != null
+                    && below != null
+                    && !above.isEmpty()
+                    && !below.isEmpty()
+                    && Character.isLetterOrDigit(above.charAt(above.length() - 1))
+                    && Character.isLetterOrDigit(below.charAt(0))
+                ? 1
+                : 0);
+  }
+
+  @Override
+  public List<EditCommand> process(final List<EditCommand> editScript) {
+    final var result = new ArrayList<>(editScript);
+    var start = 0;
+    while (start < result.size()) {
+      final var type = result.get(start).getClass();
+      if (type != DeleteCommand.class && type != InsertCommand.class) {
+        ++start;
+        continue;
+      }
+      var end = start;
+      var uniform = true;
+      while (end < result.size() && isChange(result.get(end))) {
+        uniform &= result.get(end).getClass() == type;
+        ++end;
+      }
+      if (uniform) {
+        slide(result, start, end, type == DeleteCommand.class);
+      }
+      start = end;
+    }
+    return result;
+  }
+
+  private void slide(
+      final List<EditCommand> script, final int start, final int end, final boolean deleted) {
+    var up = 0;
+    while (up < MAX_SLIDE
+        && start - up > 0
+        && isPlainKeep(script.get(start - up - 1))
+        && textAt(script, start - up - 1).equals(textAt(script, end - up - 1))) {
+      ++up;
+    }
+    var down = 0;
+    while (down < MAX_SLIDE
+        && end + down < script.size()
+        && isPlainKeep(script.get(end + down))
+        && textAt(script, start + down).equals(textAt(script, end + down))) {
+      ++down;
+    }
+    if (up == 0 && down == 0) {
+      return;
+    }
+
+    // Sliding doesn't change the lines of either side, only which of them are marked as changed.
+    var best = 0;
+    var bestScore = Integer.MAX_VALUE;
+    for (var offset = -up; offset <= down; ++offset) {
+      final var score =
+          scorer.score(textAt(script, start + offset - 1), textAt(script, start + offset))
+              + scorer.score(textAt(script, end + offset - 1), textAt(script, end + offset));
+      if (score <= bestScore) {
+        best = offset;
+        bestScore = score;
+      }
+    }
+
+    for (var i = start - up; i < end + down; ++i) {
+      final var text = script.get(i).getText();
+      final var changed = i >= start + best && i < end + best;
+      script.set(
+          i,
+          !changed
+              ? new KeepCommand(text)
+              : deleted ? new DeleteCommand(text) : new InsertCommand(text));
+    }
+  }
+
+  private static String textAt(final List<EditCommand> script, final int index) {
+    return index < 0 || index >= script.size() ? null : script.get(index).getText();
+  }
+
+  private static boolean isChange(final EditCommand command) {
+    return command instanceof DeleteCommand || command instanceof InsertCommand;
+  }
+
+  // Equivalent lines differ in their text, so runs can't slide across them.
+  private static boolean isPlainKeep(final EditCommand command) {
+    return command.getClass() == KeepCommand.class;
+  }
+
+  private static int indentationOf(final String line) {
+    var column = 0;
+    for (var i = 0; i < line.length(); ++i) {
+      final var c = line.charAt(i);
+      if (c == '\t') {
+        column += 8 - column % 8;
+      } else if (Character.isWhitespace(c)) {
+        ++column;
+      } else {
+        break;
+      }
+    }
+    return column;
+  }
+
+  /** Scores the boundary between two lines or tokens, lower is better and null is outside. */
+  @FunctionalInterface
+  public interface BoundaryScorer {
+    int score(String above, String below);
+  }
+}
@@ -0,0 +1,67 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Set;
+import lombok.Value;
+
+/**
+ * Integer keys for both sides of a comparison. Every line is normalized and hashed exactly once
+ * and lines with the same normalized text share the same key, so the diff core only has to compare
+ * ints instead of re-normalizing strings on every comparison.
+ */
+@Value
+public class ComparisonKeys {
+  int[] original;
+  int[] modified;
+
+  public static ComparisonKeys of(
+      final String[] original, final String[] modified, final Set<ComparisonOption> options) {
+    final var keys = new HashMap<String, Integer>();
+    return new ComparisonKeys(
+        toKeys(original, options, keys), toKeys(modified, options, keys));
+  }
+
+  public static String normalize(final String line, final Set<ComparisonOption> options) {
+    if (options.isEmpty()) {
+      return line;
+    }
+
+    var normalized = line;
+    if (options.contains(ComparisonOption.IGNORE_LINE_ENDINGS)) {
+      var end = normalized.length();
+      while (end > 0 && (normalized.charAt(end - 1) == '\r' || normalized.charAt(end - 1) == '\n')) {
+        --end;
+      }
+      normalized = normalized.substring(0, end);
+    }
+    if (options.contains(ComparisonOption.IGNORE_ALL_WHITESPACE)) {
+      final var sb = new StringBuilder(normalized.length());
+      for (var i = 0; i < normalized.length(); ++i) {
+        final var c = normalized.charAt(i);
+        if (!Character.isWhitespace(c)) {
+          sb.append(c);
+        }
+      }
+      normalized = sb.toString();
+    } else if (options.contains(ComparisonOption.IGNORE_TRAILING_WHITESPACE)) {
+      normalized = normalized.stripTrailing();
+    }
+    if (options.contains(ComparisonOption.IGNORE_CASE)) {
+      normalized = normalized.toLowerCase(Locale.ROOT);
+    }
+    return normalized;
+  }
+
+  private static int[] toKeys(
+      final String[] lines,
+      final Set<ComparisonOption> options,
+      final HashMap<String, Integer> keys) {
+    final var result = new int[lines.length];
+    for (var i = 0; i < lines.length; ++i) {
+      final var key = normalize(lines[i], options);
+      result[i] = keys.computeIfAbsent(key, k -> keys.size());
+    }
+    return result;
+  }
+}
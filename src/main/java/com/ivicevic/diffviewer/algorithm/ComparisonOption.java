@@ -0,0 +1,8 @@
+package com.ivicevic.diffviewer.algorithm;
+
+public enum ComparisonOption {
+  IGNORE_ALL_WHITESPACE,
+  IGNORE_TRAILING_WHITESPACE,
+  IGNORE_CASE,
+  IGNORE_LINE_ENDINGS
+}
@@ -1,6 +1,9 @@
 package com.ivicevic.diffviewer.algorithm;
 
 import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.KeepCommand;
+import com.ivicevic.diffviewer.algorithm.commands.VirtualKeepCommand;
+import java.util.ArrayList;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.Value;
@@ -11,4 +14,59 @@ public class Diff {
   List<EditCommand> original;
   List<EditCommand> modified;
   List<Integer> changedLines;
+
+  /** Creates the diff of two identical line sequences without running any algorithm. */
+  public static Diff identical(final String[] lines) {
+    final var commands = new ArrayList<EditCommand>(lines.length);
+    for (final var line : lines) {
+      commands.add(new KeepCommand(line));
+    }
+    return new Diff(commands, new ArrayList<>(commands), List.of());
+  }
+
+  /** Returns the changed hunks of a line diff, whose edit scripts are aligned row by row. */
+  public List<Hunk> getHunks() {
+    final var hunks = new ArrayList<Hunk>();
+    final var rows = Math.min(original.size(), modified.size());
+    var originalLine = 0;
+    var modifiedLine = 0;
+    var row = 0;
+    while (row < rows) {
+      if (isUnchanged(row)) {
+        if (!(original.get(row) instanceof VirtualKeepCommand)) {
+          ++originalLine;
+        }
+        if (!(modified.get(row) instanceof VirtualKeepCommand)) {
+          ++modifiedLine;
+        }
+        ++row;
+        continue;
+      }
+
+      final var rowStart = row;
+      final var originalStart = originalLine;
+      final var modifiedStart = modifiedLine;
+      while (row < rows && !isUnchanged(row)) {
+        if (!(original.get(row) instanceof VirtualKeepCommand)) {
+          ++originalLine;
+        }
+        if (!(modified.get(row) instanceof VirtualKeepCommand)) {
+          ++modifiedLine;
+        }
+        ++row;
+      }
+      hunks.add(new Hunk(rowStart, row, originalStart, originalLine, modifiedStart, modifiedLine));
+    }
+    return hunks;
+  }
+
+  // Virtual lines next to kept lines only occur in structured diffs, where lines merely shifted by
+  // reformatting are padded without being a difference.
+  private boolean isUnchanged(final int row) {
+    return isKept(original.get(row)) && isKept(modified.get(row));
+  }
+
+  private static boolean isKept(final EditCommand command) {
+    return command instanceof KeepCommand || command instanceof VirtualKeepCommand;
+  }
 }
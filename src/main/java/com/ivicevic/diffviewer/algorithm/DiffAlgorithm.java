@@ -0,0 +1,26 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import java.util.Set;
+
+/**
+ * An engine building the aligned diff of two sequences of lines, words or characters. Engines
+ * describe themselves by their {@link AlgorithmCapabilities}, which the {@link
+ * DiffAlgorithmRegistry} uses to choose one for the inputs. Further engines are picked up as
+ * services of this interface.
+ */
+public interface DiffAlgorithm {
+  /** Returns the name by which the engine is chosen on the command line. */
+  String getName();
+
+  String getLabel();
+
+  AlgorithmCapabilities getCapabilities();
+
+  default Diff buildDiff(
+      final String[] original, final String[] modified, final DiffMode diffMode) {
+    return buildDiff(original, modified, diffMode, Set.of());
+  }
+
+  Diff buildDiff(
+      String[] original, String[] modified, DiffMode diffMode, Set<ComparisonOption> options);
+}
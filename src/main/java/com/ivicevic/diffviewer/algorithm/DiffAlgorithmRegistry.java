@@ -0,0 +1,173 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import com.ivicevic.diffviewer.algorithm.AlgorithmCapabilities.MemoryClass;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.Set;
+import lombok.Getter;
+
+/**
+ * The diff engines to choose from, in the order of their registration. Besides the registered
+ * engines there is an automatic one, which selects an engine by the size of the inputs and the
+ * estimated share of changed lines on every diff.
+ */
+public class DiffAlgorithmRegistry {
+  public static final String AUTOMATIC = "auto";
+
+  // Inputs up to this many matrix cells are diffed exactly, which takes 16 MB at most.
+  static final long MAX_EXACT_CELLS = 4L * 1024 * 1024;
+  // Beyond this share of changed lines there are too few common lines to split the inputs at.
+  static final double MAX_SEGMENTABLE_DENSITY = 0.5;
+  // Lines sampled per side to estimate the share of changed lines.
+  private static final int DENSITY_SAMPLES = 1024;
+
+  private static final Comparator<DiffAlgorithm> CHEAPEST_FIRST =
+      Comparator.comparing(algorithm -> algorithm.getCapabilities().getMemoryClass());
+  private static final Comparator<DiffAlgorithm> EXACT_FIRST =
+      Comparator.comparing(algorithm -> !algorithm.getCapabilities().isExact());
+
+  private final Map<String, DiffAlgorithm> algorithms = new LinkedHashMap<>();
+  @Getter private final DiffAlgorithm automatic = new AutomaticAlgorithm();
+
+  /** Creates a registry of the built-in engines followed by those provided as services. */
+  public static DiffAlgorithmRegistry withDefaults() {
+    final var registry = new DiffAlgorithmRegistry();
+    registry.register(new HuntAlgorithm());
+    registry.register(new ParallelHuntAlgorithm());
+    ServiceLoader.load(DiffAlgorithm.class).forEach(registry::register);
+    return registry;
+  }
+
+  public void register(final DiffAlgorithm algorithm) {
+    final var name = algorithm.getName();
+    if (name.equals(AUTOMATIC) || algorithms.containsKey(name)) {
+      throw new IllegalArgumentException("Diff algorithm already registered: " + name);
+    }
+    algorithms.put(name, algorithm);
+  }
+
+  /** Returns the registered engines without the automatic one. */
+  public List<DiffAlgorithm> getAlgorithms() {
+    return List.copyOf(algorithms.values());
+  }
+
+  public Optional<DiffAlgorithm> get(final String name) {
+    return name.equals(AUTOMATIC)
+        ? Optional.of(automatic)
+        : Optional.ofNullable(algorithms.get(name));
+  }
+
+  /**
+   * Selects the engine for the inputs. Small inputs are cheap for every engine, so an exact engine
+   * is preferred for them. The matrix of large inputs might not fit into memory, so they are never
+   * diffed by an engine of quadratic memory unless no other one supports the mode. Of the others,
+   * an exact engine is preferred for densely changed inputs, which leave few common lines to split
+   * at, and the one needing the least memory otherwise. Ties are resolved by the order of
+   * registration.
+   */
+  public DiffAlgorithm select(
+      final String[] original, final String[] modified, final DiffMode diffMode) {
+    var candidates =
+        algorithms.values().stream()
+            .filter(algorithm -> algorithm.getCapabilities().supports(diffMode))
+            .toList();
+    if (candidates.isEmpty()) {
+      throw new IllegalStateException("No diff algorithm supports " + diffMode);
+    }
+    final var cells = (long) original.length * modified.length;
+    final Comparator<DiffAlgorithm> order;
+    if (cells <= MAX_EXACT_CELLS) {
+      order = EXACT_FIRST.thenComparing(CHEAPEST_FIRST);
+    } else {
+      final var bounded = candidates.stream().filter(algorithm -> !isQuadratic(algorithm)).toList();
+      if (!bounded.isEmpty()) {
+        candidates = bounded;
+      }
+      order =
+          estimateEditDensity(original, modified) > MAX_SEGMENTABLE_DENSITY
+              ? EXACT_FIRST.thenComparing(CHEAPEST_FIRST)
+              : CHEAPEST_FIRST.thenComparing(EXACT_FIRST);
+    }
+    // Of equal engines the first one is kept.
+    return candidates.stream().reduce((a, b) -> order.compare(a, b) <= 0 ? a : b).orElseThrow();
+  }
+
+  private static boolean isQuadratic(final DiffAlgorithm algorithm) {
+    return algorithm.getCapabilities().getMemoryClass() == MemoryClass.QUADRATIC;
+  }
+
+  /**
+   * Estimates the share of lines without an equal line on the other side from evenly spaced
+   * samples. Lines are compared by their hash codes and without the comparison options.
+   */
+  static double estimateEditDensity(final String[] original, final String[] modified) {
+    final var sampled =
+        Math.min(original.length, DENSITY_SAMPLES) + Math.min(modified.length, DENSITY_SAMPLES);
+    if (sampled == 0) {
+      return 0;
+    }
+    final var unmatched = countUnmatched(original, modified) + countUnmatched(modified, original);
+    return (double) unmatched / sampled;
+  }
+
+  private static int countUnmatched(final String[] sampled, final String[] other) {
+    final var hashes = new int[other.length];
+    for (var i = 0; i < other.length; ++i) {
+      hashes[i] = other[i].hashCode();
+    }
+    Arrays.sort(hashes);
+    final var samples = Math.min(sampled.length, DENSITY_SAMPLES);
+    var unmatched = 0;
+    for (var k = 0; k < samples; ++k) {
+      final var line = sampled[(int) ((long) k * sampled.length / samples)];
+      if (Arrays.binarySearch(hashes, line.hashCode()) < 0) {
+        ++unmatched;
+      }
+    }
+    return unmatched;
+  }
+
+  private class AutomaticAlgorithm implements DiffAlgorithm {
+    @Override
+    public String getName() {
+      return AUTOMATIC;
+    }
+
+    @Override
+    public String getLabel() {
+      return "Automatic";
+    }
+
+    /** Combines the capabilities of the registered engines, as any of them may be selected. */
+    @Override
+    public AlgorithmCapabilities getCapabilities() {
+      var memoryClass = MemoryClass.QUADRATIC;
+      var exact = true;
+      final var modes = EnumSet.noneOf(DiffMode.class);
+      for (final var algorithm : algorithms.values()) {
+        final var capabilities = algorithm.getCapabilities();
+        if (capabilities.getMemoryClass().compareTo(memoryClass) < 0) {
+          memoryClass = capabilities.getMemoryClass();
+        }
+        exact &= capabilities.isExact();
+        modes.addAll(capabilities.getModes());
+      }
+      return new AlgorithmCapabilities(memoryClass, exact, Set.copyOf(modes));
+    }
+
+    @Override
+    public Diff buildDiff(
+        final String[] original,
+        final String[] modified,
+        final DiffMode diffMode,
+        final Set<ComparisonOption> options) {
+      return select(original, modified, diffMode).buildDiff(original, modified, diffMode, options);
+    }
+  }
+}
@@ -2,5 +2,6 @@ package com.ivicevic.diffviewer.algorithm;
 
 public enum DiffMode {
   LINES,
+  WORDS,
   CHARACTERS
 }
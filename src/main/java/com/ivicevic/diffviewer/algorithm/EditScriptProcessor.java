@@ -0,0 +1,21 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import java.util.List;
+
+/**
+ * A stage that cleans up the edit script of the LCS backtrace before it is split into both sides.
+ * Stages must preserve the text of both sides and should run in linear time.
+ */
+@FunctionalInterface
+public interface EditScriptProcessor {
+  List<EditCommand> process(List<EditCommand> editScript);
+
+  /** Returns the stages applied by default in the given mode. */
+  static List<EditScriptProcessor> defaults(final DiffMode diffMode) {
+    return switch (diffMode) {
+      case LINES -> List.of(BoundarySlider.forLines(), new SimilarityPairer());
+      case WORDS, CHARACTERS -> List.of(BoundarySlider.forTokens(), new EqualityMerger());
+    };
+  }
+}
@@ -0,0 +1,98 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.EquivalentCommand;
+import com.ivicevic.diffviewer.algorithm.commands.InsertCommand;
+import com.ivicevic.diffviewer.algorithm.commands.KeepCommand;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges equalities that are no longer than the changes on both of their sides into them, like the
+ * semantic cleanup of diff-match-patch. A single matching character in the middle of a replaced
+ * word is mostly coincidence, highlighting it only fragments the change.
+ */
+public class EqualityMerger implements EditScriptProcessor {
+  @Override
+  public List<EditCommand> process(final List<EditCommand> editScript) {
+    final var result = new ArrayList<EditCommand>(editScript.size());
+    final var change = new Change();
+    var i = 0;
+    while (i < editScript.size()) {
+      final var command = editScript.get(i);
+      if (!(command instanceof KeepCommand)) {
+        change.add(command);
+        ++i;
+        continue;
+      }
+
+      var end = i;
+      var length = 0;
+      while (end < editScript.size() && editScript.get(end) instanceof KeepCommand) {
+        length += editScript.get(end).getText().length();
+        ++end;
+      }
+
+      final var before = change.length();
+      if (before > 0 && length <= before && length <= changeLengthAt(editScript, end)) {
+        for (var k = i; k < end; ++k) {
+          final var kept = editScript.get(k);
+          change.add(new DeleteCommand(kept.getText()));
+          change.add(
+              new InsertCommand(
+                  kept instanceof EquivalentCommand equivalentCommand
+                      ? equivalentCommand.getModified()
+                      : kept.getText()));
+        }
+      } else {
+        change.flush(result);
+        result.addAll(editScript.subList(i, end));
+      }
+      i = end;
+    }
+    change.flush(result);
+    return result;
+  }
+
+  /** Returns the length of the longer side of the change starting at the given index. */
+  private static int changeLengthAt(final List<EditCommand> editScript, final int start) {
+    final var change = new Change();
+    for (var i = start; i < editScript.size() && !(editScript.get(i) instanceof KeepCommand); ++i) {
+      change.add(editScript.get(i));
+    }
+    return change.length();
+  }
+
+  /** The change currently being collected, which grows with every merged equality. */
+  private static class Change {
+    private final List<EditCommand> deletes = new ArrayList<>();
+    private final List<EditCommand> inserts = new ArrayList<>();
+    private int deletedLength;
+    private int insertedLength;
+
+    private void add(final EditCommand command) {
+      if (command instanceof InsertCommand) {
+        inserts.add(command);
+        insertedLength += command.getText().length();
+      } else {
+        deletes.add(command);
+        deletedLength += command.getText().length();
+      }
+    }
+
+    private int length() {
+      return Math.max(deletedLength, insertedLength);
+    }
+
+    // Deletes go first so that each side of the change can be grouped into a single command.
+    private void flush(final List<EditCommand> result) {
+      result.addAll(deletes);
+      result.addAll(inserts);
+      deletes.clear();
+      inserts.clear();
+      deletedLength = 0;
+      insertedLength = 0;
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.FoldCommand;
+import com.ivicevic.diffviewer.algorithm.commands.VirtualKeepCommand;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import lombok.Value;
+
+/**
+ * A diff for display in which unchanged rows farther away from changes than the given number of
+ * context lines are folded into a single {@link FoldCommand} row. Only the remaining rows are
+ * rendered, so the cost of displaying a diff depends on the amount of change instead of the file
+ * size. Rows of the source diff and displayed rows can be mapped onto each other.
+ */
+@Value
+public class FoldedDiff {
+  // Folding fewer rows would hide next to nothing behind a placeholder.
+  private static final int MIN_FOLDED_ROWS = 2;
+
+  Diff diff;
+  // Source row of every displayed row, the first folded row for folds.
+  int[] sourceRows;
+
+  /**
+   * Folds the unchanged rows of the diff, except for the folds starting at one of the expanded
+   * rows. A negative number of context lines displays all rows.
+   */
+  public static FoldedDiff of(
+      final Diff source, final int contextLines, final Set<Integer> expandedFolds) {
+    final var rows = source.getOriginal().size();
+    if (contextLines < 0) {
+      return new FoldedDiff(source, IntStream.range(0, rows).toArray());
+    }
+
+    final var original = new ArrayList<EditCommand>();
+    final var modified = new ArrayList<EditCommand>();
+    final var sourceRows = new ArrayList<Integer>();
+    var unchangedStart = 0;
+    for (final var hunk : source.getHunks()) {
+      fold(
+          source,
+          unchangedStart,
+          hunk.getRowStart(),
+          contextLines,
+          expandedFolds,
+          original,
+          modified,
+          sourceRows);
+      for (var row = hunk.getRowStart(); row < hunk.getRowEnd(); ++row) {
+        original.add(source.getOriginal().get(row));
+        modified.add(source.getModified().get(row));
+        sourceRows.add(row);
+      }
+      unchangedStart = hunk.getRowEnd();
+    }
+    fold(
+        source,
+        unchangedStart,
+        rows,
+        contextLines,
+        expandedFolds,
+        original,
+        modified,
+        sourceRows);
+
+    final var mapping = sourceRows.stream().mapToInt(Integer::intValue).toArray();
+    final var changedLines =
+        source.getChangedLines().stream().map(row -> Arrays.binarySearch(mapping, row)).toList();
+    return new FoldedDiff(new Diff(original, modified, changedLines), mapping);
+  }
+
+  private static void fold(
+      final Diff source,
+      final int start,
+      final int end,
+      final int contextLines,
+      final Set<Integer> expandedFolds,
+      final List<EditCommand> original,
+      final List<EditCommand> modified,
+      final List<Integer> sourceRows) {
+    // Unchanged rows at the start or the end of the file only need context towards the change.
+    final var foldStart = start == 0 ? 0 : start + contextLines;
+    final var foldEnd = end == source.getOriginal().size() ? end : end - contextLines;
+    final var folded = foldEnd - foldStart >= MIN_FOLDED_ROWS && !expandedFolds.contains(foldStart);
+    for (var row = start; row < end; ++row) {
+      if (folded && row == foldStart) {
+        final var originalLines = countLines(source.getOriginal(), foldStart, foldEnd);
+        final var modifiedLines = countLines(source.getModified(), foldStart, foldEnd);
+        original.add(new FoldCommand(foldStart, foldEnd, originalLines));
+        modified.add(new FoldCommand(foldStart, foldEnd, modifiedLines));
+        sourceRows.add(row);
+        row = foldEnd - 1;
+        continue;
+      }
+      original.add(source.getOriginal().get(row));
+      modified.add(source.getModified().get(row));
+      sourceRows.add(row);
+    }
+  }
+
+  private static int countLines(final List<EditCommand> script, final int start, final int end) {
+    var lines = 0;
+    for (var row = start; row < end; ++row) {
+      if (!(script.get(row) instanceof VirtualKeepCommand)) {
+        ++lines;
+      }
+    }
+    return lines;
+  }
+
+  public int toSourceRow(final int displayRow) {
+    return sourceRows.length == 0 ? 0 : sourceRows[Math.min(displayRow, sourceRows.length - 1)];
+  }
+
+  /** Returns the displayed row of the source row, which is the fold row for folded rows. */
+  public int toDisplayRow(final int sourceRow) {
+    final var index = Arrays.binarySearch(sourceRows, sourceRow);
+    return index >= 0 ? index : Math.max(0, -index - 2);
+  }
+
+  /** Returns the fold hiding the source row, or null if it is displayed. */
+  public FoldCommand getFold(final int sourceRow) {
+    if (diff.getOriginal().isEmpty()) {
+      return null;
+    }
+    final var command = diff.getOriginal().get(toDisplayRow(sourceRow));
+    return command instanceof FoldCommand fold && sourceRow < fold.getEnd() ? fold : null;
+  }
+}
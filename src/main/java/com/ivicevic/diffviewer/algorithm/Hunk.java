@@ -0,0 +1,17 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import lombok.Value;
+
+/**
+ * A run of consecutive changed rows of a line diff. Rows are indices into the aligned edit scripts,
+ * lines are zero-based line numbers of the respective input; all ranges are half-open.
+ */
+@Value
+public class Hunk {
+  int rowStart;
+  int rowEnd;
+  int originalStart;
+  int originalEnd;
+  int modifiedStart;
+  int modifiedEnd;
+}
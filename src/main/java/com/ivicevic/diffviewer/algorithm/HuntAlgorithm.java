@@ -2,6 +2,7 @@ package com.ivicevic.diffviewer.algorithm;
 
 import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
 import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.EquivalentCommand;
 import com.ivicevic.diffviewer.algorithm.commands.InsertCommand;
 import com.ivicevic.diffviewer.algorithm.commands.KeepCommand;
 import com.ivicevic.diffviewer.algorithm.commands.ModifyCommand;
@@ -10,20 +11,68 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import lombok.RequiredArgsConstructor;
 
 /**
  * This is an implementation of the diff algorithm described in the paper <a
  * href="https://www.cs.dartmouth.edu/~doug/diff.pdf">"An Algorithm for Differential File
- * Comparison"</a> by J.W. Hunt and M.D. McIlroy.
+ * Comparison"</a> by J.W. Hunt and M.D. McIlroy. The edit script is cleaned up by the {@link
+ * EditScriptProcessor} stages of the diff mode.
+ *
+ * <p>Interrupting the thread that builds a diff cancels it with a {@link CancellationException},
+ * so that its LCS matrix doesn't outlive the comparison that asked for it.
  */
-public class HuntAlgorithm {
-  private int[][] buildLcsMatrix(final String[] original, final String[] modified) {
-    final var P = new int[original.length + 1][modified.length + 1];
-    for (var i = 0; i < original.length; i++) {
-      for (var j = 0; j < modified.length; j++) {
-        if (i == 0 || j == 0) {
-          P[i][j] = 0;
-        } else if (original[i - 1].equals(modified[j - 1])) {
+@RequiredArgsConstructor
+public class HuntAlgorithm implements DiffAlgorithm {
+  private static final AlgorithmCapabilities CAPABILITIES =
+      AlgorithmCapabilities.of(
+          AlgorithmCapabilities.MemoryClass.QUADRATIC,
+          true,
+          DiffMode.LINES,
+          DiffMode.WORDS,
+          DiffMode.CHARACTERS);
+
+  private final Function<DiffMode, List<EditScriptProcessor>> pipeline;
+
+  public HuntAlgorithm() {
+    this(EditScriptProcessor::defaults);
+  }
+
+  @Override
+  public String getName() {
+    return "hunt";
+  }
+
+  @Override
+  public String getLabel() {
+    return "Hunt-McIlroy";
+  }
+
+  @Override
+  public AlgorithmCapabilities getCapabilities() {
+    return CAPABILITIES;
+  }
+
+  private static int[][] buildLcsMatrix(
+      final BooleanSupplier cancelled,
+      final int[] original,
+      final int[] modified,
+      final int originalStart,
+      final int originalEnd,
+      final int modifiedStart,
+      final int modifiedEnd) {
+    final var n = originalEnd - originalStart;
+    final var m = modifiedEnd - modifiedStart;
+    // The first row and column stay 0 as they stand for the empty prefixes.
+    final var P = new int[n + 1][m + 1];
+    for (var i = 1; i <= n; i++) {
+      checkCancelled(cancelled);
+      for (var j = 1; j <= m; j++) {
+        if (original[originalStart + i - 1] == modified[modifiedStart + j - 1]) {
           P[i][j] = 1 + P[i - 1][j - 1];
         } else {
           P[i][j] = Math.max(P[i - 1][j], P[i][j - 1]);
@@ -33,30 +82,64 @@ public class HuntAlgorithm {
     return P;
   }
 
-  private List<EditCommand> buildEditScript(final String[] original, final String[] modified) {
-    final var P = buildLcsMatrix(original, modified);
+  /** Builds the edit script of the whole inputs, which subclasses may split up. */
+  protected List<EditCommand> buildEditScript(
+      final String[] original, final String[] modified, final Set<ComparisonOption> options) {
+    final var keys = ComparisonKeys.of(original, modified, options);
+    final var thread = Thread.currentThread();
+    return buildEditScript(
+        thread::isInterrupted, original, modified, keys, 0, original.length, 0, modified.length);
+  }
+
+  /**
+   * Builds the edit script of the given ranges of both inputs by their comparison keys, until it is
+   * cancelled.
+   */
+  protected static List<EditCommand> buildEditScript(
+      final BooleanSupplier cancelled,
+      final String[] original,
+      final String[] modified,
+      final ComparisonKeys keys,
+      final int originalStart,
+      final int originalEnd,
+      final int modifiedStart,
+      final int modifiedEnd) {
+    final var originalKeys = keys.getOriginal();
+    final var modifiedKeys = keys.getModified();
+    final var P =
+        buildLcsMatrix(
+            cancelled,
+            originalKeys,
+            modifiedKeys,
+            originalStart,
+            originalEnd,
+            modifiedStart,
+            modifiedEnd);
     final var editScript = new ArrayList<EditCommand>();
 
-    var i = original.length;
-    var j = modified.length;
+    var i = originalEnd - originalStart;
+    var j = modifiedEnd - modifiedStart;
 
     // Backtrace through the matrix to build the edit script
     while (i != 0 || j != 0) {
+      checkCancelled(cancelled);
+      final var o = originalStart + i - 1;
+      final var m = modifiedStart + j - 1;
       if (i == 0) {
-        editScript.add(new InsertCommand(modified[j - 1]));
+        editScript.add(new InsertCommand(modified[m]));
         --j;
       } else if (j == 0) {
-        editScript.add(new DeleteCommand(original[i - 1]));
+        editScript.add(new DeleteCommand(original[o]));
         --i;
-      } else if (original[i - 1].equals(modified[j - 1])) {
-        editScript.add(new KeepCommand(original[i - 1]));
+      } else if (originalKeys[o] == modifiedKeys[m]) {
+        editScript.add(keep(original[o], modified[m]));
         --i;
         --j;
       } else if (P[i - 1][j] <= P[i][j - 1]) {
-        editScript.add(new InsertCommand(modified[j - 1]));
+        editScript.add(new InsertCommand(modified[m]));
         --j;
       } else {
-        editScript.add(new DeleteCommand(original[i - 1]));
+        editScript.add(new DeleteCommand(original[o]));
         --i;
       }
     }
@@ -65,7 +148,21 @@ public class HuntAlgorithm {
     return editScript;
   }
 
-  private List<EditCommand> groupEditScript(final List<EditCommand> editScript) {
+  protected static void checkCancelled(final BooleanSupplier cancelled) {
+    if (cancelled.getAsBoolean()) {
+      throw new CancellationException("The diff has been cancelled.");
+    }
+  }
+
+  /** Keeps a pair of matching lines, which only match after normalization if they differ. */
+  protected static EditCommand keep(final String originalLine, final String modifiedLine) {
+    return originalLine.equals(modifiedLine)
+        ? new KeepCommand(originalLine)
+        : new EquivalentCommand(originalLine, modifiedLine);
+  }
+
+  private List<EditCommand> groupEditScript(
+      final List<EditCommand> editScript, final DiffMode diffMode) {
     // Merge consecutive Delete and Insert commands.
     final List<EditCommand> groupedList =
         editScript.stream()
@@ -78,6 +175,11 @@ public class HuntAlgorithm {
             .sequential()
             .collect(ArrayList::new, HuntAlgorithm::mergeIntoModify, ArrayList::addAll);
 
+    // Tokens are already the unit of highlighting, so consolidated word commands stay as they are.
+    if (diffMode == DiffMode.WORDS) {
+      return mergedList;
+    }
+
     // Split consolidated commands into single-chars out of convenience at the cost of some
     // performance.
     return mergedList.stream()
@@ -85,10 +187,18 @@ public class HuntAlgorithm {
         .collect(ArrayList::new, HuntAlgorithm::splitBaseCommands, ArrayList::addAll);
   }
 
-  public Diff buildDiff(final String[] original, final String[] modified, final DiffMode diffMode) {
-    var editScript = buildEditScript(original, modified);
-    if (diffMode == DiffMode.CHARACTERS) {
-      editScript = groupEditScript(editScript);
+  @Override
+  public Diff buildDiff(
+      final String[] original,
+      final String[] modified,
+      final DiffMode diffMode,
+      final Set<ComparisonOption> options) {
+    var editScript = buildEditScript(original, modified, options);
+    for (final var processor : pipeline.apply(diffMode)) {
+      editScript = processor.process(editScript);
+    }
+    if (diffMode == DiffMode.CHARACTERS || diffMode == DiffMode.WORDS) {
+      editScript = groupEditScript(editScript, diffMode);
     }
     // Original script consists of keep, delete and modify commands.
     final var originalScript = new ArrayList<EditCommand>();
@@ -107,7 +217,15 @@ public class HuntAlgorithm {
         modifiedScript.add(command);
       }
 
-      if (command instanceof ModifyCommand) {
+      if (command instanceof ModifyCommand modifyCommand && diffMode == DiffMode.LINES) {
+        // Paired lines share a row, so the unpaired lines before them are aligned first.
+        alignSides(originalScript, modifiedScript);
+        originalScript.add(new DeleteCommand(modifyCommand.getText()));
+        modifiedScript.add(new InsertCommand(modifyCommand.getModified()));
+      } else if (command instanceof ModifyCommand && diffMode == DiffMode.WORDS) {
+        originalScript.add(new ModifyCommand(command.getText(), ""));
+        modifiedScript.add(new ModifyCommand("", ((ModifyCommand) command).getModified()));
+      } else if (command instanceof ModifyCommand) {
         // Out of convenience we split the Modify command into its characters.
         for (final var c : command.getText().toCharArray()) {
           originalScript.add(new ModifyCommand(String.valueOf(c), ""));
@@ -120,20 +238,13 @@ public class HuntAlgorithm {
       // Align both sides by adding virtual lines.
       if (diffMode == DiffMode.LINES
           && (command instanceof KeepCommand || i == editScript.size() - 1)) {
-        final var delta = Math.max(originalScript.size(), modifiedScript.size());
-        var deltaOriginal = Math.max(0, delta - originalScript.size());
-        var deltaModified = Math.max(0, delta - modifiedScript.size());
-
-        // Add virtual lines to the shorter side.
-        while (deltaOriginal-- > 0) {
-          originalScript.add(new VirtualKeepCommand());
-        }
-        while (deltaModified-- > 0) {
-          modifiedScript.add(new VirtualKeepCommand());
-        }
+        alignSides(originalScript, modifiedScript);
       }
 
-      if (command instanceof KeepCommand) {
+      if (command instanceof EquivalentCommand equivalentCommand) {
+        originalScript.add(new KeepCommand(equivalentCommand.getText()));
+        modifiedScript.add(new KeepCommand(equivalentCommand.getModified()));
+      } else if (command instanceof KeepCommand) {
         originalScript.add(command);
         modifiedScript.add(command);
       }
@@ -163,6 +274,17 @@ public class HuntAlgorithm {
     return new Diff(originalScript, modifiedScript, consolidatedChangedLines);
   }
 
+  /** Adds virtual lines to the shorter side. */
+  private static void alignSides(
+      final List<EditCommand> originalScript, final List<EditCommand> modifiedScript) {
+    while (originalScript.size() < modifiedScript.size()) {
+      originalScript.add(new VirtualKeepCommand());
+    }
+    while (modifiedScript.size() < originalScript.size()) {
+      modifiedScript.add(new VirtualKeepCommand());
+    }
+  }
+
   private static void groupByCommand(final List<EditCommand> list, final EditCommand command) {
     final var size = list.size();
     if (size == 0) {
@@ -196,6 +318,10 @@ public class HuntAlgorithm {
   }
 
   private static void splitBaseCommands(final List<EditCommand> list, final EditCommand command) {
+    if (command instanceof EquivalentCommand) {
+      list.add(command);
+      return;
+    }
     if (command instanceof DeleteCommand) {
       for (final var c : command.getText().toCharArray()) {
         list.add(new DeleteCommand(String.valueOf(c)));
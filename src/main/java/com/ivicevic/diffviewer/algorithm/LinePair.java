@@ -0,0 +1,10 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import lombok.Value;
+
+/** A deleted and an inserted line similar enough to be diffed against each other. */
+@Value
+public class LinePair {
+  int originalRow;
+  int modifiedRow;
+}
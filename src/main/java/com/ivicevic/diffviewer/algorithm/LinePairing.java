@@ -0,0 +1,159 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.InsertCommand;
+import com.ivicevic.diffviewer.algorithm.commands.MovedDeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.MovedInsertCommand;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pairs deleted and inserted lines within each hunk of a line diff for character highlighting.
+ * Lines that {@link SimilarityPairer} has already shown on the same row are paired as they are.
+ * The remaining lines between those rows get a MinHash signature of their character trigrams, so
+ * comparing two lines costs a fixed number of comparisons regardless of their length. They are
+ * paired in order with the most similar line among the next few candidates, lines without a match
+ * are not diffed at all.
+ */
+public class LinePairing {
+  private static final int GRAM_LENGTH = 3;
+  private static final int SIGNATURE_LENGTH = 16;
+  private static final int WINDOW = 8;
+  private static final double MIN_SIMILARITY = 0.4;
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  public List<LinePair> pair(final Diff diff) {
+    final var pairs = new ArrayList<LinePair>();
+    for (final var hunk : diff.getHunks()) {
+      var start = hunk.getRowStart();
+      for (var row = hunk.getRowStart(); row < hunk.getRowEnd(); ++row) {
+        if (isAligned(diff.getOriginal().get(row), diff.getModified().get(row))) {
+          pairBySignature(diff, start, row, pairs);
+          pairs.add(new LinePair(row, row));
+          start = row + 1;
+        }
+      }
+      pairBySignature(diff, start, hunk.getRowEnd(), pairs);
+    }
+    return pairs;
+  }
+
+  // A deleted and an inserted line on the same row that the edit script pairer considers similar.
+  private static boolean isAligned(final EditCommand original, final EditCommand modified) {
+    return isCandidate(original, DeleteCommand.class)
+        && isCandidate(modified, InsertCommand.class)
+        && SimilarityPairer.isSimilar(original, modified);
+  }
+
+  private static void pairBySignature(
+      final Diff diff, final int rowStart, final int rowEnd, final List<LinePair> pairs) {
+    final var deleted = Candidates.of(diff.getOriginal(), rowStart, rowEnd, DeleteCommand.class);
+    final var inserted = Candidates.of(diff.getModified(), rowStart, rowEnd, InsertCommand.class);
+    var next = 0;
+    for (var d = 0; d < deleted.size() && next < inserted.size(); ++d) {
+      var best = -1;
+      var bestSimilarity = MIN_SIMILARITY;
+      for (var i = next; i < inserted.size() && i < next + WINDOW; ++i) {
+        if (!isComparable(deleted.lengths[d], inserted.lengths[i])) {
+          continue;
+        }
+        final var similarity = similarity(deleted.signatures[d], inserted.signatures[i]);
+        if (similarity > bestSimilarity) {
+          best = i;
+          bestSimilarity = similarity;
+        }
+      }
+      if (best != -1) {
+        pairs.add(new LinePair(deleted.rows[d], inserted.rows[best]));
+        next = best + 1;
+      }
+    }
+  }
+
+  private static boolean isCandidate(
+      final EditCommand command, final Class<? extends EditCommand> type) {
+    return type.isInstance(command)
+        && !(command instanceof MovedDeleteCommand)
+        && !(command instanceof MovedInsertCommand)
+        && !command.getText().isBlank();
+  }
+
+  // Lines of very different length can't reach the threshold, so their signatures are not compared.
+  private static boolean isComparable(final int length, final int otherLength) {
+    return Math.min(length, otherLength) >= MIN_SIMILARITY * Math.max(length, otherLength);
+  }
+
+  static double similarity(final long[] signature, final long[] otherSignature) {
+    var equal = 0;
+    for (var k = 0; k < SIGNATURE_LENGTH; ++k) {
+      if (signature[k] == otherSignature[k]) {
+        ++equal;
+      }
+    }
+    return (double) equal / SIGNATURE_LENGTH;
+  }
+
+  /** Returns the minimum of every hash function over all trigrams, estimating their overlap. */
+  static long[] signatureOf(final String line) {
+    final var signature = new long[SIGNATURE_LENGTH];
+    Arrays.fill(signature, Long.MAX_VALUE);
+    final var grams = Math.max(1, line.length() - GRAM_LENGTH + 1);
+    for (var start = 0; start < grams; ++start) {
+      var gram = 0L;
+      for (var i = start; i < Math.min(line.length(), start + GRAM_LENGTH); ++i) {
+        gram = gram * 31 + line.charAt(i);
+      }
+      for (var k = 0; k < SIGNATURE_LENGTH; ++k) {
+        signature[k] = Math.min(signature[k], mix(gram + (k + 1) * GOLDEN_GAMMA));
+      }
+    }
+    return signature;
+  }
+
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /** The changed lines of one side of a range of rows, skipping blank and moved ones. */
+  private static class Candidates {
+    private final int[] rows;
+    private final int[] lengths;
+    private final long[][] signatures;
+
+    private Candidates(final int size) {
+      rows = new int[size];
+      lengths = new int[size];
+      signatures = new long[size][];
+    }
+
+    private int size() {
+      return rows.length;
+    }
+
+    private static Candidates of(
+        final List<EditCommand> script,
+        final int rowStart,
+        final int rowEnd,
+        final Class<? extends EditCommand> type) {
+      final var rows = new ArrayList<Integer>();
+      for (var row = rowStart; row < rowEnd; ++row) {
+        if (isCandidate(script.get(row), type)) {
+          rows.add(row);
+        }
+      }
+
+      final var candidates = new Candidates(rows.size());
+      for (var i = 0; i < rows.size(); ++i) {
+        final var text = script.get(rows.get(i)).getText().strip();
+        candidates.rows[i] = rows.get(i);
+        candidates.lengths[i] = text.length();
+        candidates.signatures[i] = signatureOf(text);
+      }
+      return candidates;
+    }
+  }
+}
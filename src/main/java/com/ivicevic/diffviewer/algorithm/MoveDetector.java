@@ -0,0 +1,226 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.InsertCommand;
+import com.ivicevic.diffviewer.algorithm.commands.MovedDeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.MovedInsertCommand;
+import com.ivicevic.diffviewer.algorithm.commands.VirtualKeepCommand;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Post-processes a line diff to find blocks of deleted lines that reappear as inserted lines
+ * elsewhere. Windows of {@code minLines} inserted lines are indexed by a rolling hash, so every
+ * deleted window is looked up in constant time instead of being compared against every block.
+ * Lines are compared without leading and trailing whitespace so that re-indented blocks are found
+ * as well. Windows of blank lines and lone braces are neither indexed nor looked up.
+ */
+@RequiredArgsConstructor
+public class MoveDetector {
+  public static final int DEFAULT_MIN_LINES = 3;
+
+  private static final long BASE = 1_000_003L;
+
+  private final int minLines;
+
+  public MoveDetector() {
+    this(DEFAULT_MIN_LINES);
+  }
+
+  public Diff detectMoves(final Diff diff) {
+    final var deleted = Lines.of(diff.getOriginal(), DeleteCommand.class);
+    final var inserted = Lines.of(diff.getModified(), InsertCommand.class);
+    if (deleted.size() < minLines || inserted.size() < minLines) {
+      return diff;
+    }
+
+    // Index all significant windows of inserted lines that don't cross the boundary of a run.
+    final var insertedWindows = hashWindows(inserted);
+    final var index = new HashMap<Long, Deque<Integer>>();
+    for (var i = 0; i < inserted.size(); ++i) {
+      if (insertedWindows.valid[i] && isSignificant(inserted, i)) {
+        index.computeIfAbsent(insertedWindows.hashes[i], h -> new ArrayDeque<>()).add(i);
+      }
+    }
+
+    final var deletedWindows = hashWindows(deleted);
+    final var original = new ArrayList<>(diff.getOriginal());
+    final var modified = new ArrayList<>(diff.getModified());
+    final var used = new boolean[inserted.size()];
+    var block = 0;
+    var i = 0;
+    while (i < deleted.size()) {
+      final var match =
+          deletedWindows.valid[i] && isSignificant(deleted, i)
+              ? findMatch(index.get(deletedWindows.hashes[i]), deleted, i, inserted, used)
+              : -1;
+      if (match == -1) {
+        ++i;
+        continue;
+      }
+
+      // Extend the match as far as both runs continue with equal lines.
+      var length = minLines;
+      while (i + length < deleted.size()
+          && match + length < inserted.size()
+          && deleted.runStarts[i + length] == deleted.runStarts[i]
+          && inserted.runStarts[match + length] == inserted.runStarts[match]
+          && !used[match + length]
+          && deleted.keys[i + length].equals(inserted.keys[match + length])) {
+        ++length;
+      }
+
+      for (var offset = 0; offset < length; ++offset) {
+        used[match + offset] = true;
+        final var originalRow = deleted.rows[i + offset];
+        original.set(
+            originalRow, new MovedDeleteCommand(original.get(originalRow).getText(), block));
+        final var modifiedRow = inserted.rows[match + offset];
+        modified.set(
+            modifiedRow, new MovedInsertCommand(modified.get(modifiedRow).getText(), block));
+      }
+      ++block;
+      i += length;
+    }
+
+    return block > 0 ? new Diff(original, modified, diff.getChangedLines()) : diff;
+  }
+
+  private int findMatch(
+      final Deque<Integer> candidates,
+      final Lines deleted,
+      final int start,
+      final Lines inserted,
+      final boolean[] used) {
+    if (candidates == null) {
+      return -1;
+    }
+    // Candidates are ascending and the first one that matches is taken, so candidates overlapping
+    // moved blocks gather at the head, where removing them is cheap.
+    final var iterator = candidates.iterator();
+    while (iterator.hasNext()) {
+      final int candidate = iterator.next();
+      if (isUsed(used, candidate)) {
+        iterator.remove();
+        continue;
+      }
+      var matches = true;
+      for (var offset = 0; offset < minLines && matches; ++offset) {
+        matches = deleted.keys[start + offset].equals(inserted.keys[candidate + offset]);
+      }
+      if (matches) {
+        return candidate;
+      }
+    }
+    return -1;
+  }
+
+  private boolean isUsed(final boolean[] used, final int start) {
+    for (var offset = 0; offset < minLines; ++offset) {
+      if (used[start + offset]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Blocks made up of blank lines and lone braces carry no information about a move.
+  private boolean isSignificant(final Lines lines, final int start) {
+    for (var offset = 0; offset < minLines; ++offset) {
+      if (lines.keys[start + offset].length() > 1) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Computes the rolling hash of the window starting at every line, if it fits into its run. */
+  private Windows hashWindows(final Lines lines) {
+    var power = 1L;
+    for (var i = 1; i < minLines; ++i) {
+      power *= BASE;
+    }
+
+    final var windows = new Windows(lines.size());
+    var hash = 0L;
+    for (var i = 0; i < lines.size(); ++i) {
+      if (i > 0 && lines.runStarts[i] != lines.runStarts[i - 1]) {
+        hash = 0;
+      }
+      hash = hash * BASE + lines.hashes[i];
+      final var windowStart = i - minLines + 1;
+      if (windowStart >= lines.runStarts[i]) {
+        windows.hashes[windowStart] = hash;
+        windows.valid[windowStart] = true;
+        hash -= lines.hashes[windowStart] * power;
+      }
+    }
+    return windows;
+  }
+
+  private static class Windows {
+    private final long[] hashes;
+    private final boolean[] valid;
+
+    private Windows(final int size) {
+      hashes = new long[size];
+      valid = new boolean[size];
+    }
+  }
+
+  /** The changed lines of one side, flattened in row order and grouped into runs of rows. */
+  private static class Lines {
+    private final String[] keys;
+    private final long[] hashes;
+    private final int[] rows;
+    private final int[] runStarts;
+
+    private Lines(final int size) {
+      keys = new String[size];
+      hashes = new long[size];
+      rows = new int[size];
+      runStarts = new int[size];
+    }
+
+    private int size() {
+      return keys.length;
+    }
+
+    private static Lines of(
+        final List<EditCommand> script, final Class<? extends EditCommand> type) {
+      final var rows = new ArrayList<Integer>();
+      for (var row = 0; row < script.size(); ++row) {
+        if (type.isInstance(script.get(row))) {
+          rows.add(row);
+        }
+      }
+
+      final var lines = new Lines(rows.size());
+      for (var i = 0; i < rows.size(); ++i) {
+        final int row = rows.get(i);
+        lines.rows[i] = row;
+        lines.keys[i] = script.get(row).getText().strip();
+        lines.hashes[i] = lines.keys[i].hashCode();
+        lines.runStarts[i] =
+            i > 0 && isContiguous(script, rows.get(i - 1), row) ? lines.runStarts[i - 1] : i;
+      }
+      return lines;
+    }
+
+    // Lines paired by similarity may be separated by virtual lines within the same run.
+    private static boolean isContiguous(
+        final List<EditCommand> script, final int previousRow, final int row) {
+      for (var between = previousRow + 1; between < row; ++between) {
+        if (!(script.get(between) instanceof VirtualKeepCommand)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,360 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.InsertCommand;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.Value;
+
+/**
+ * Splits large diffs into independent segments that are diffed in parallel. Lines occurring
+ * exactly once in both inputs are matched up in order like in patience diff and serve as anchors
+ * between the segments. Segments that are still too large are split again by the lines unique
+ * within them, those without any are diffed as a whole. Segments whose matrix would exceed {@link
+ * #MAX_SEGMENT_CELLS} are trimmed by their common first and last lines, and replaced as a whole if
+ * that doesn't suffice, which bounds the memory of densely changed or repetitive files. The joined
+ * edit script is then processed like the one of a sequential diff.
+ *
+ * <p>The result equals the sequential diff as long as all anchors are part of the longest common
+ * subsequence, which holds for files whose unique lines don't move, and no segment is replaced.
+ * Otherwise fewer lines may be kept than possible.
+ *
+ * <p>Segments are diffed by the threads of the pool, which aren't interrupted along with the thread
+ * that asked for the diff. Its interruption instead sets a flag that all segments check.
+ */
+public class ParallelHuntAlgorithm extends HuntAlgorithm {
+  public static final int DEFAULT_SEGMENT_SIZE = 2_000;
+  // The LCS matrix of a single segment is limited to 64 MB, larger segments are replaced.
+  static final long MAX_SEGMENT_CELLS = 16L * 1024 * 1024;
+
+  // Segments are split again at most this many times, in case their anchors only trim the edges.
+  private static final int MAX_DEPTH = 8;
+  private static final AlgorithmCapabilities CAPABILITIES =
+      AlgorithmCapabilities.of(
+          AlgorithmCapabilities.MemoryClass.SEGMENTED,
+          false,
+          DiffMode.LINES,
+          DiffMode.WORDS,
+          DiffMode.CHARACTERS);
+
+  private final ForkJoinPool pool;
+  private final int segmentSize;
+
+  public ParallelHuntAlgorithm() {
+    this(ForkJoinPool.commonPool(), DEFAULT_SEGMENT_SIZE);
+  }
+
+  /** Inputs and segments with at most segmentSize lines on both sides are diffed as a whole. */
+  public ParallelHuntAlgorithm(final ForkJoinPool pool, final int segmentSize) {
+    this.pool = pool;
+    this.segmentSize = segmentSize;
+  }
+
+  @Override
+  public String getName() {
+    return "parallel";
+  }
+
+  @Override
+  public String getLabel() {
+    return "Parallel Segments";
+  }
+
+  @Override
+  public AlgorithmCapabilities getCapabilities() {
+    return CAPABILITIES;
+  }
+
+  @Override
+  protected List<EditCommand> buildEditScript(
+      final String[] original, final String[] modified, final Set<ComparisonOption> options) {
+    if (original.length <= segmentSize && modified.length <= segmentSize) {
+      return super.buildEditScript(original, modified, options);
+    }
+    final var keys = ComparisonKeys.of(original, modified, options);
+    final var inputs = new Inputs(original, modified, keys, new AtomicBoolean());
+    final var task =
+        pool.submit(new SegmentTask(inputs, 0, original.length, 0, modified.length, 0));
+    try {
+      return task.get();
+    } catch (final InterruptedException e) {
+      inputs.getCancelled().set(true);
+      Thread.currentThread().interrupt();
+      throw new CancellationException("The diff has been cancelled.");
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw (RuntimeException) e.getCause();
+    }
+  }
+
+  /**
+   * Returns the anchors of the ranges as pairs of original and modified positions, which are the
+   * longest increasing run of lines unique within both ranges.
+   */
+  static int[][] findAnchors(
+      final ComparisonKeys keys,
+      final int originalStart,
+      final int originalEnd,
+      final int modifiedStart,
+      final int modifiedEnd) {
+    // Sorting the lines of both sides by key groups equal lines without a table of all keys. Every
+    // entry packs the key, the side and the position relative to the start of its range.
+    final var originalLength = originalEnd - originalStart;
+    final var entries = new long[originalLength + modifiedEnd - modifiedStart];
+    for (var i = originalStart; i < originalEnd; ++i) {
+      entries[i - originalStart] = (long) keys.getOriginal()[i] << 32 | (i - originalStart);
+    }
+    for (var j = modifiedStart; j < modifiedEnd; ++j) {
+      entries[originalLength + j - modifiedStart] =
+          (long) keys.getModified()[j] << 32 | 1L << 31 | (j - modifiedStart);
+    }
+    Arrays.sort(entries);
+
+    // Unique pairs are found in key order, but the positions are needed in original order.
+    final var modifiedByOriginal = new int[originalLength];
+    Arrays.fill(modifiedByOriginal, -1);
+    for (var k = 0; k + 1 < entries.length; ++k) {
+      final var key = entries[k] >>> 32;
+      if (entries[k + 1] >>> 32 == key
+          && (k + 2 == entries.length || entries[k + 2] >>> 32 != key)
+          && (k == 0 || entries[k - 1] >>> 32 != key)
+          && (entries[k] & 1L << 31) == 0
+          && (entries[k + 1] & 1L << 31) != 0) {
+        modifiedByOriginal[(int) entries[k]] = (int) (entries[k + 1] & Integer.MAX_VALUE);
+        ++k;
+      }
+    }
+
+    // Longest increasing subsequence of the modified positions by patience sorting.
+    final var tails = new int[originalLength];
+    final var previous = new int[originalLength];
+    var length = 0;
+    for (var position = 0; position < originalLength; ++position) {
+      final var j = modifiedByOriginal[position];
+      if (j < 0) {
+        continue;
+      }
+      var low = 0;
+      var high = length;
+      while (low < high) {
+        final var middle = (low + high) >>> 1;
+        if (modifiedByOriginal[tails[middle]] < j) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      tails[low] = position;
+      previous[position] = low > 0 ? tails[low - 1] : -1;
+      length = Math.max(length, low + 1);
+    }
+
+    final var anchors = new int[2][length];
+    var i = length > 0 ? tails[length - 1] : -1;
+    for (var k = length - 1; k >= 0; --k) {
+      anchors[0][k] = originalStart + i;
+      anchors[1][k] = modifiedStart + modifiedByOriginal[i];
+      i = previous[i];
+    }
+    return anchors;
+  }
+
+  @Value
+  private static class Inputs {
+    String[] original;
+    String[] modified;
+    ComparisonKeys keys;
+    AtomicBoolean cancelled;
+  }
+
+  private class SegmentTask extends RecursiveTask<List<EditCommand>> {
+    private final Inputs inputs;
+    private final int originalStart;
+    private final int originalEnd;
+    private final int modifiedStart;
+    private final int modifiedEnd;
+    private final int depth;
+
+    SegmentTask(
+        final Inputs inputs,
+        final int originalStart,
+        final int originalEnd,
+        final int modifiedStart,
+        final int modifiedEnd,
+        final int depth) {
+      this.inputs = inputs;
+      this.originalStart = originalStart;
+      this.originalEnd = originalEnd;
+      this.modifiedStart = modifiedStart;
+      this.modifiedEnd = modifiedEnd;
+      this.depth = depth;
+    }
+
+    @Override
+    protected List<EditCommand> compute() {
+      checkCancelled(inputs.getCancelled()::get);
+      if (depth > MAX_DEPTH
+          || (originalEnd - originalStart <= segmentSize
+              && modifiedEnd - modifiedStart <= segmentSize)) {
+        return diff();
+      }
+      final var anchors =
+          findAnchors(inputs.getKeys(), originalStart, originalEnd, modifiedStart, modifiedEnd);
+      if (anchors[0].length == 0) {
+        return diff();
+      }
+      return new GapsTask(this, anchors, 0, anchors[0].length + 1).compute();
+    }
+
+    private List<EditCommand> diff() {
+      if ((long) (originalEnd - originalStart) * (modifiedEnd - modifiedStart)
+          <= MAX_SEGMENT_CELLS) {
+        return diff(originalStart, originalEnd, modifiedStart, modifiedEnd);
+      }
+
+      // Only larger segments are trimmed, as trimming may keep other ones of equal lines than the
+      // sequential diff.
+      final var original = inputs.getOriginal();
+      final var modified = inputs.getModified();
+      final var originalKeys = inputs.getKeys().getOriginal();
+      final var modifiedKeys = inputs.getKeys().getModified();
+      var prefix = 0;
+      while (originalStart + prefix < originalEnd
+          && modifiedStart + prefix < modifiedEnd
+          && originalKeys[originalStart + prefix] == modifiedKeys[modifiedStart + prefix]) {
+        ++prefix;
+      }
+      var suffix = 0;
+      while (originalEnd - suffix > originalStart + prefix
+          && modifiedEnd - suffix > modifiedStart + prefix
+          && originalKeys[originalEnd - suffix - 1] == modifiedKeys[modifiedEnd - suffix - 1]) {
+        ++suffix;
+      }
+
+      final var result = new ArrayList<EditCommand>();
+      for (var i = 0; i < prefix; ++i) {
+        result.add(keep(original[originalStart + i], modified[modifiedStart + i]));
+      }
+      final var middleOriginalStart = originalStart + prefix;
+      final var middleOriginalEnd = originalEnd - suffix;
+      final var middleModifiedStart = modifiedStart + prefix;
+      final var middleModifiedEnd = modifiedEnd - suffix;
+      if ((long) (middleOriginalEnd - middleOriginalStart)
+              * (middleModifiedEnd - middleModifiedStart)
+          > MAX_SEGMENT_CELLS) {
+        for (var o = middleOriginalStart; o < middleOriginalEnd; ++o) {
+          result.add(new DeleteCommand(original[o]));
+        }
+        for (var m = middleModifiedStart; m < middleModifiedEnd; ++m) {
+          result.add(new InsertCommand(modified[m]));
+        }
+      } else {
+        result.addAll(
+            diff(middleOriginalStart, middleOriginalEnd, middleModifiedStart, middleModifiedEnd));
+      }
+      for (var i = suffix; i > 0; --i) {
+        result.add(keep(original[originalEnd - i], modified[modifiedEnd - i]));
+      }
+      return result;
+    }
+
+    private List<EditCommand> diff(
+        final int fromOriginal,
+        final int toOriginal,
+        final int fromModified,
+        final int toModified) {
+      return buildEditScript(
+          inputs.getCancelled()::get,
+          inputs.getOriginal(),
+          inputs.getModified(),
+          inputs.getKeys(),
+          fromOriginal,
+          toOriginal,
+          fromModified,
+          toModified);
+    }
+  }
+
+  /**
+   * Diffs the gaps around the anchors of a segment, where gap k lies between anchors k - 1 and k.
+   * Gaps are split in halves until their lines fit into a single segment.
+   */
+  private class GapsTask extends RecursiveTask<List<EditCommand>> {
+    private final SegmentTask segment;
+    private final int[][] anchors;
+    private final int from;
+    private final int to;
+
+    GapsTask(final SegmentTask segment, final int[][] anchors, final int from, final int to) {
+      this.segment = segment;
+      this.anchors = anchors;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected List<EditCommand> compute() {
+      checkCancelled(segment.inputs.getCancelled()::get);
+      final var lines =
+          getOriginalEnd(to - 1) - getOriginalStart(from)
+              + getModifiedEnd(to - 1) - getModifiedStart(from);
+      if (to - from > 1 && lines > segmentSize) {
+        final var middle = (from + to) >>> 1;
+        final var left = new GapsTask(segment, anchors, from, middle);
+        left.fork();
+        final var right = new GapsTask(segment, anchors, middle, to).compute();
+        final var result = new ArrayList<>(left.join());
+        result.addAll(right);
+        return result;
+      }
+
+      final var inputs = segment.inputs;
+      final var result = new ArrayList<EditCommand>();
+      for (var gap = from; gap < to; ++gap) {
+        if (gap > 0) {
+          final var anchor = gap - 1;
+          result.add(
+              keep(
+                  inputs.getOriginal()[anchors[0][anchor]],
+                  inputs.getModified()[anchors[1][anchor]]));
+        }
+        result.addAll(
+            new SegmentTask(
+                    inputs,
+                    getOriginalStart(gap),
+                    getOriginalEnd(gap),
+                    getModifiedStart(gap),
+                    getModifiedEnd(gap),
+                    segment.depth + 1)
+                .compute());
+      }
+      return result;
+    }
+
+    private int getOriginalStart(final int gap) {
+      return gap == 0 ? segment.originalStart : anchors[0][gap - 1] + 1;
+    }
+
+    private int getOriginalEnd(final int gap) {
+      return gap == anchors[0].length ? segment.originalEnd : anchors[0][gap];
+    }
+
+    private int getModifiedStart(final int gap) {
+      return gap == 0 ? segment.modifiedStart : anchors[1][gap - 1] + 1;
+    }
+
+    private int getModifiedEnd(final int gap) {
+      return gap == anchors[1].length ? segment.modifiedEnd : anchors[1][gap];
+    }
+  }
+}
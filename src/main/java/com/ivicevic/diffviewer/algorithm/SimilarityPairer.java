@@ -0,0 +1,99 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.InsertCommand;
+import com.ivicevic.diffviewer.algorithm.commands.ModifyCommand;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pairs deleted and inserted lines of a change by similarity, so that a line is shown next to a
+ * line it resembles instead of the one at the same position. Paired lines become Modify commands,
+ * lines in between them stay aligned by position. Only a few lines ahead are searched for a match
+ * and lines are compared by their common prefix and suffix, which keeps the stage linear.
+ */
+public class SimilarityPairer implements EditScriptProcessor {
+  private static final int LOOKAHEAD = 4;
+  // Minimum share of characters in the common prefix and suffix for lines to be paired.
+  private static final double MIN_SIMILARITY = 0.5;
+
+  @Override
+  public List<EditCommand> process(final List<EditCommand> editScript) {
+    final var result = new ArrayList<EditCommand>(editScript.size());
+    final var deletes = new ArrayList<EditCommand>();
+    final var inserts = new ArrayList<EditCommand>();
+    for (final var command : editScript) {
+      if (command instanceof DeleteCommand) {
+        deletes.add(command);
+      } else if (command instanceof InsertCommand) {
+        inserts.add(command);
+      } else {
+        pair(result, deletes, inserts);
+        result.add(command);
+      }
+    }
+    pair(result, deletes, inserts);
+    return result;
+  }
+
+  private static void pair(
+      final List<EditCommand> result,
+      final List<EditCommand> deletes,
+      final List<EditCommand> inserts) {
+    var d = 0;
+    var i = 0;
+    // Start of the lines not paired yet on both sides.
+    var pendingDeletes = 0;
+    var pendingInserts = 0;
+    while (d < deletes.size() && i < inserts.size()) {
+      if (isSimilar(deletes.get(d), inserts.get(i))) {
+        result.addAll(deletes.subList(pendingDeletes, d));
+        result.addAll(inserts.subList(pendingInserts, i));
+        result.add(new ModifyCommand(deletes.get(d).getText(), inserts.get(i).getText()));
+        pendingDeletes = ++d;
+        pendingInserts = ++i;
+        continue;
+      }
+
+      // Skip the fewest lines on either side to reach the next similar pair.
+      var skipped = false;
+      for (var ahead = 1; ahead <= LOOKAHEAD && !skipped; ++ahead) {
+        if (i + ahead < inserts.size() && isSimilar(deletes.get(d), inserts.get(i + ahead))) {
+          i += ahead;
+          skipped = true;
+        } else if (d + ahead < deletes.size()
+            && isSimilar(deletes.get(d + ahead), inserts.get(i))) {
+          d += ahead;
+          skipped = true;
+        }
+      }
+      if (!skipped) {
+        ++d;
+        ++i;
+      }
+    }
+    result.addAll(deletes.subList(pendingDeletes, deletes.size()));
+    result.addAll(inserts.subList(pendingInserts, inserts.size()));
+    deletes.clear();
+    inserts.clear();
+  }
+
+  static boolean isSimilar(final EditCommand deleted, final EditCommand inserted) {
+    final var original = deleted.getText().strip();
+    final var modified = inserted.getText().strip();
+    final var length = Math.min(original.length(), modified.length());
+    var prefix = 0;
+    while (prefix < length && original.charAt(prefix) == modified.charAt(prefix)) {
+      ++prefix;
+    }
+    var suffix = 0;
+    while (suffix < length - prefix
+        && original.charAt(original.length() - 1 - suffix)
+            == modified.charAt(modified.length() - 1 - suffix)) {
+      ++suffix;
+    }
+    final var total = original.length() + modified.length();
+    return total == 0 || 2.0 * (prefix + suffix) / total >= MIN_SIMILARITY;
+  }
+}
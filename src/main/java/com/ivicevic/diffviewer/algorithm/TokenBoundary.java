@@ -0,0 +1,10 @@
+package com.ivicevic.diffviewer.algorithm;
+
+public enum TokenBoundary {
+  // Runs of whitespace form tokens of their own.
+  WHITESPACE,
+  // Every punctuation character forms a token of its own.
+  PUNCTUATION,
+  // Identifiers such as `foo_bar` or `$value` are kept together instead of being split at `_`/`$`.
+  IDENTIFIERS
+}
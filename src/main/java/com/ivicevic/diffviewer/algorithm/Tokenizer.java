@@ -0,0 +1,73 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Set;
+import lombok.Value;
+
+/**
+ * Splits lines into tokens for word-level diffs. Tokens always concatenate back to the original
+ * line, so results can be mapped back to character ranges by summing up token lengths.
+ */
+@Value
+public class Tokenizer {
+  Set<TokenBoundary> boundaries;
+
+  public Tokenizer(final Set<TokenBoundary> boundaries) {
+    this.boundaries = Set.copyOf(boundaries);
+  }
+
+  public static Tokenizer withAllBoundaries() {
+    return new Tokenizer(EnumSet.allOf(TokenBoundary.class));
+  }
+
+  public String[] tokenize(final String line) {
+    final var tokens = new ArrayList<String>();
+    var start = 0;
+    for (var i = 1; i < line.length(); ++i) {
+      if (isBoundary(line.charAt(i - 1), line.charAt(i))) {
+        tokens.add(line.substring(start, i));
+        start = i;
+      }
+    }
+    if (start < line.length()) {
+      tokens.add(line.substring(start));
+    }
+    return tokens.toArray(String[]::new);
+  }
+
+  private boolean isBoundary(final char previous, final char current) {
+    final var previousClass = classify(previous);
+    final var currentClass = classify(current);
+    if (previousClass == CharacterClass.PUNCTUATION && currentClass == CharacterClass.PUNCTUATION) {
+      return boundaries.contains(TokenBoundary.PUNCTUATION);
+    }
+    if (previousClass == currentClass) {
+      return false;
+    }
+    if (previousClass == CharacterClass.WHITESPACE || currentClass == CharacterClass.WHITESPACE) {
+      return boundaries.contains(TokenBoundary.WHITESPACE);
+    }
+    return boundaries.contains(TokenBoundary.PUNCTUATION);
+  }
+
+  private CharacterClass classify(final char c) {
+    if (Character.isWhitespace(c)) {
+      return CharacterClass.WHITESPACE;
+    }
+    // Surrogates are treated as word characters so that pairs never get torn apart.
+    if (Character.isLetterOrDigit(c) || Character.isSurrogate(c)) {
+      return CharacterClass.WORD;
+    }
+    if (boundaries.contains(TokenBoundary.IDENTIFIERS) && Character.isJavaIdentifierPart(c)) {
+      return CharacterClass.WORD;
+    }
+    return CharacterClass.PUNCTUATION;
+  }
+
+  private enum CharacterClass {
+    WHITESPACE,
+    WORD,
+    PUNCTUATION
+  }
+}
@@ -0,0 +1,19 @@
+package com.ivicevic.diffviewer.algorithm.commands;
+
+import lombok.EqualsAndHashCode;
+import lombok.Value;
+
+/**
+ * A Keep command for lines that only match after normalization, e.g. when whitespace is ignored.
+ * Both sides retain their original text.
+ */
+@Value
+@EqualsAndHashCode(callSuper = true)
+public class EquivalentCommand extends KeepCommand {
+  String modified;
+
+  public EquivalentCommand(final String original, final String modified) {
+    super(original);
+    this.modified = modified;
+  }
+}
@@ -0,0 +1,23 @@
+package com.ivicevic.diffviewer.algorithm.commands;
+
+import lombok.EqualsAndHashCode;
+import lombok.Value;
+
+/**
+ * Placeholder row for a folded run of unchanged rows, only used for display. The folded rows are
+ * given as half-open range of the unfolded diff, lines counts the lines of its side among them.
+ */
+@Value
+@EqualsAndHashCode(callSuper = true)
+public class FoldCommand extends KeepCommand {
+  int start;
+  int end;
+  int lines;
+
+  public FoldCommand(final int start, final int end, final int lines) {
+    super(String.format("... %,d unchanged lines ...", lines));
+    this.start = start;
+    this.end = end;
+    this.lines = lines;
+  }
+}
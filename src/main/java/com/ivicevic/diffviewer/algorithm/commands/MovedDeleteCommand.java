@@ -0,0 +1,16 @@
+package com.ivicevic.diffviewer.algorithm.commands;
+
+import lombok.EqualsAndHashCode;
+import lombok.Value;
+
+/** A deleted line that reappears as part of a moved block, identified by its block number. */
+@Value
+@EqualsAndHashCode(callSuper = true)
+public class MovedDeleteCommand extends DeleteCommand {
+  int block;
+
+  public MovedDeleteCommand(final String text, final int block) {
+    super(text);
+    this.block = block;
+  }
+}
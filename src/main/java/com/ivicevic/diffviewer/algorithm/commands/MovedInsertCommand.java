@@ -0,0 +1,16 @@
+package com.ivicevic.diffviewer.algorithm.commands;
+
+import lombok.EqualsAndHashCode;
+import lombok.Value;
+
+/** An inserted line that originates from a moved block, identified by its block number. */
+@Value
+@EqualsAndHashCode(callSuper = true)
+public class MovedInsertCommand extends InsertCommand {
+  int block;
+
+  public MovedInsertCommand(final String text, final int block) {
+    super(text);
+    this.block = block;
+  }
+}
@@ -0,0 +1,164 @@
+package com.ivicevic.diffviewer.components;
+
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Highlighter;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.Position;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Highlighter that keeps the highlights of a diff apart from the few added one by one, like the
+ * selection and search matches. Diff highlights are replaced at once with a single repaint instead
+ * of damaging every range, and only those on visible lines are painted.
+ */
+public class DiffHighlighter implements Highlighter {
+  private JTextComponent component;
+  // Sorted by start offset, each within a single line.
+  private List<Entry> diffHighlights = List.of();
+  private final List<Entry> highlights = new ArrayList<>();
+
+  /** Replaces the diff highlights, which have to be created in the installed document. */
+  public void setDiffHighlights(final List<Entry> highlights) {
+    diffHighlights = highlights;
+    if (component != null) {
+      component.repaint();
+    }
+  }
+
+  @Override
+  public void install(final JTextComponent c) {
+    component = c;
+    removeAllHighlights();
+  }
+
+  @Override
+  public void deinstall(final JTextComponent c) {
+    component = null;
+  }
+
+  @Override
+  public void paint(final Graphics g) {
+    final var insets = component.getInsets();
+    final var bounds =
+        new Rectangle(
+            insets.left,
+            insets.top,
+            component.getWidth() - insets.left - insets.right,
+            component.getHeight() - insets.top - insets.bottom);
+
+    if (!diffHighlights.isEmpty()) {
+      final var clip = g.getClipBounds() != null ? g.getClipBounds() : bounds;
+      final var lines = component.getDocument().getDefaultRootElement();
+      final var firstOffset = component.viewToModel2D(new Point(0, clip.y));
+      final var lastOffset =
+          component.viewToModel2D(new Point(component.getWidth(), clip.y + clip.height));
+      final var start = lines.getElement(lines.getElementIndex(firstOffset)).getStartOffset();
+      final var end = lines.getElement(lines.getElementIndex(lastOffset)).getEndOffset();
+      for (var i = lowerBound(start); i < diffHighlights.size(); ++i) {
+        final var highlight = diffHighlights.get(i);
+        if (highlight.getStartOffset() > end) {
+          break;
+        }
+        highlight.paint(g, bounds, component);
+      }
+    }
+    for (final var highlight : highlights) {
+      highlight.paint(g, bounds, component);
+    }
+  }
+
+  /** Returns the index of the first diff highlight starting at or after the offset. */
+  private int lowerBound(final int offset) {
+    var low = 0;
+    var high = diffHighlights.size();
+    while (low < high) {
+      final var middle = (low + high) >>> 1;
+      if (diffHighlights.get(middle).getStartOffset() < offset) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  @Override
+  public Object addHighlight(final int p0, final int p1, final HighlightPainter painter)
+      throws BadLocationException {
+    final var document = component.getDocument();
+    final var highlight =
+        new Entry(document.createPosition(p0), document.createPosition(p1), painter);
+    highlights.add(highlight);
+    damage(p0, p1);
+    return highlight;
+  }
+
+  @Override
+  public void removeHighlight(final Object tag) {
+    if (highlights.remove(tag)) {
+      final var highlight = (Entry) tag;
+      damage(highlight.getStartOffset(), highlight.getEndOffset());
+    }
+  }
+
+  @Override
+  public void removeAllHighlights() {
+    diffHighlights = List.of();
+    highlights.clear();
+    if (component != null) {
+      component.repaint();
+    }
+  }
+
+  @Override
+  public void changeHighlight(final Object tag, final int p0, final int p1)
+      throws BadLocationException {
+    final var highlight = (Entry) tag;
+    final var document = component.getDocument();
+    damage(highlight.getStartOffset(), highlight.getEndOffset());
+    highlight.p0 = document.createPosition(p0);
+    highlight.p1 = document.createPosition(p1);
+    damage(p0, p1);
+  }
+
+  @Override
+  public Highlight[] getHighlights() {
+    final var result = new ArrayList<Highlight>(diffHighlights.size() + highlights.size());
+    result.addAll(diffHighlights);
+    result.addAll(highlights);
+    return result.toArray(Highlight[]::new);
+  }
+
+  private void damage(final int p0, final int p1) {
+    if (component != null && p0 != p1) {
+      component.getUI().damageRange(component, Math.min(p0, p1), Math.max(p0, p1));
+    }
+  }
+
+  @AllArgsConstructor
+  public static class Entry implements Highlight {
+    private Position p0;
+    private Position p1;
+    @Getter private final HighlightPainter painter;
+
+    @Override
+    public int getStartOffset() {
+      return p0.getOffset();
+    }
+
+    @Override
+    public int getEndOffset() {
+      return p1.getOffset();
+    }
+
+    private void paint(final Graphics g, final Rectangle bounds, final JTextComponent c) {
+      painter.paint(g, getStartOffset(), getEndOffset(), bounds, c);
+    }
+  }
+}
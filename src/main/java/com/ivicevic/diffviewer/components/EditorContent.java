@@ -0,0 +1,66 @@
+package com.ivicevic.diffviewer.components;
+
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Highlighter.HighlightPainter;
+import javax.swing.text.PlainDocument;
+import lombok.Getter;
+
+/**
+ * The document of an editor pane with the highlights of its diff. It is built off the event
+ * dispatch thread, as nothing listens to the document until {@link EditorPane#setContent} swaps it
+ * in together with all highlights.
+ */
+public class EditorContent {
+  @Getter private final List<EditCommand> editScript;
+  @Getter private final PlainDocument document = new PlainDocument();
+  private final int[] lineStarts;
+  private final List<DiffHighlighter.Entry> highlights = new ArrayList<>();
+
+  EditorContent(final List<EditCommand> editScript, final List<String> lines)
+      throws BadLocationException {
+    this.editScript = editScript;
+    lineStarts = new int[lines.size()];
+    final var text = new StringBuilder();
+    for (var row = 0; row < lines.size(); ++row) {
+      if (row > 0) {
+        text.append('\n');
+      }
+      lineStarts[row] = text.length();
+      text.append(lines.get(row));
+    }
+    document.insertString(0, text.toString(), null);
+  }
+
+  /** Returns the highlights sorted by their start offset, as the highlighter paints them. */
+  public List<DiffHighlighter.Entry> getHighlights() {
+    final var sorted = new ArrayList<>(highlights);
+    // The sort is stable, so character highlights stay on top of the line highlights.
+    sorted.sort(Comparator.comparingInt(DiffHighlighter.Entry::getStartOffset));
+    return sorted;
+  }
+
+  int getLineStartOffset(final int row) {
+    return lineStarts[row];
+  }
+
+  /** Returns the end offset of the row including its line break, like a text area does. */
+  int getLineEndOffset(final int row) {
+    return row + 1 < lineStarts.length ? lineStarts[row + 1] : document.getLength();
+  }
+
+  void addHighlight(final int p0, final int p1, final HighlightPainter painter)
+      throws BadLocationException {
+    highlights.add(
+        new DiffHighlighter.Entry(
+            document.createPosition(p0), document.createPosition(p1), painter));
+  }
+
+  void addLineHighlight(final int row, final HighlightPainter painter)
+      throws BadLocationException {
+    addHighlight(getLineStartOffset(row), getLineEndOffset(row), painter);
+  }
+}
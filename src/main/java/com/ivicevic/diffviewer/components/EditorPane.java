@@ -1,19 +1,34 @@
 package com.ivicevic.diffviewer.components;
 
+import com.ivicevic.diffviewer.algorithm.ComparisonOption;
 import com.ivicevic.diffviewer.algorithm.Diff;
+import com.ivicevic.diffviewer.algorithm.DiffAlgorithm;
 import com.ivicevic.diffviewer.algorithm.DiffMode;
-import com.ivicevic.diffviewer.algorithm.HuntAlgorithm;
+import com.ivicevic.diffviewer.algorithm.LinePairing;
+import com.ivicevic.diffviewer.algorithm.Tokenizer;
 import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
 import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.FoldCommand;
 import com.ivicevic.diffviewer.algorithm.commands.InsertCommand;
 import com.ivicevic.diffviewer.algorithm.commands.ModifyCommand;
+import com.ivicevic.diffviewer.algorithm.commands.MovedDeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.MovedInsertCommand;
 import com.ivicevic.diffviewer.algorithm.commands.VirtualKeepCommand;
+import com.ivicevic.diffviewer.merge.MergeResult;
+import com.ivicevic.diffviewer.patch.PatchConflict;
+import com.ivicevic.diffviewer.search.SearchMatch;
+import com.ivicevic.diffviewer.search.SearchMatch.Side;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Font;
+import java.awt.Point;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import javax.swing.ImageIcon;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 import javax.swing.JButton;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
@@ -21,6 +36,7 @@ import javax.swing.JTextArea;
 import javax.swing.JViewport;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.DefaultHighlighter.DefaultHighlightPainter;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
@@ -30,6 +46,10 @@ public class EditorPane extends JPanel {
   JButton loadFileButton;
   JTextArea textArea;
   JScrollPane scrollPane;
+  List<EditCommand> editScript = List.of();
+
+  @Getter(AccessLevel.NONE)
+  private final IconLoader iconLoader = new IconLoader();
 
   private static final Color INSERT_LINE_COLOR = new Color(221, 255, 221);
   private static final Color INSERT_CHARACTER_COLOR = new Color(151, 242, 149);
@@ -37,6 +57,15 @@ public class EditorPane extends JPanel {
   private static final Color DELETE_CHARACTER_COLOR = new Color(255, 182, 186);
   private static final Color MODIFY_CHARACTER_COLOR = new Color(194, 216, 242);
   private static final Color VIRTUAL_LINE_COLOR = new Color(231, 231, 231);
+  private static final Color MOVE_LINE_COLOR = new Color(234, 224, 255);
+  private static final Color CONFLICT_LINE_COLOR = new Color(255, 221, 153);
+  private static final Color SEARCH_MATCH_COLOR = new Color(255, 236, 115);
+
+  @Getter(AccessLevel.NONE)
+  private final DiffHighlighter highlighter = new DiffHighlighter();
+
+  @Getter(AccessLevel.NONE)
+  private final List<Object> searchHighlights = new ArrayList<>();
 
   public EditorPane(final EditorKind editorKind) {
     super(new BorderLayout(8, 8));
@@ -44,20 +73,23 @@ public class EditorPane extends JPanel {
     addComponents();
   }
 
+  /** Loads the button icons, which are deferred so that the pane can be shown right away. */
+  public void loadIcons(final Executor executor) {
+    iconLoader.load(executor);
+  }
+
   private void addComponents() {
     loadFileButton = new JButton();
-    final var imageUrl = getClass().getResource("/icons/folder.png");
     final var label = "Load " + kind.label + " File...";
-    if (imageUrl != null) {
-      loadFileButton.setIcon(new ImageIcon(imageUrl, label));
-    }
     loadFileButton.setText(label);
+    iconLoader.add(loadFileButton, "/icons/folder.png", label);
     add(loadFileButton, BorderLayout.PAGE_START);
 
     textArea = new JTextArea();
     textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 14));
     textArea.setEditable(false);
     textArea.setLineWrap(false);
+    textArea.setHighlighter(highlighter);
     textArea.setText("No file loaded.");
 
     scrollPane = new JScrollPane(textArea);
@@ -65,33 +97,204 @@ public class EditorPane extends JPanel {
     add(scrollPane, BorderLayout.CENTER);
   }
 
-  public void setLineDiff(final Diff diff) throws BadLocationException {
+  /** Prepares the line highlighted content of the diff, which may be done on any thread. */
+  public EditorContent prepareLineDiff(final Diff diff) throws BadLocationException {
     final var editScript = kind == EditorKind.ORIGINAL ? diff.getOriginal() : diff.getModified();
-    textArea.setText(
-        String.join("\n", editScript.stream().map(EditCommand::getText).toArray(String[]::new)));
-    applyLineHighlighting(editScript);
+    final var content =
+        new EditorContent(editScript, editScript.stream().map(EditCommand::getText).toList());
+    applyLineHighlighting(content);
+    return content;
   }
 
-  public void setCharacterDiff(final Diff diff, final HuntAlgorithm algorithm)
+  public EditorContent prepareCharacterDiff(
+      final Diff diff, final DiffAlgorithm algorithm, final Set<ComparisonOption> options)
       throws BadLocationException {
-    setLineDiff(diff);
-    applyCharacterHighlighting(diff.getOriginal(), diff.getModified(), algorithm);
+    final var content = prepareLineDiff(diff);
+    // Here we have to filter possible empty lines which would map Delete commands to Modify
+    // instead.
+    applyCharacterHighlighting(
+        content,
+        diff,
+        algorithm,
+        DiffMode.CHARACTERS,
+        options,
+        text -> Arrays.stream(text.split("")).filter(s -> !s.isEmpty()).toArray(String[]::new));
+    return content;
   }
 
-  private void applyLineHighlighting(final List<EditCommand> editScript)
+  public EditorContent prepareWordDiff(
+      final Diff diff,
+      final DiffAlgorithm algorithm,
+      final Tokenizer tokenizer,
+      final Set<ComparisonOption> options)
       throws BadLocationException {
-    final var highlighter = textArea.getHighlighter();
+    final var content = prepareLineDiff(diff);
+    applyCharacterHighlighting(
+        content,
+        diff,
+        algorithm,
+        DiffMode.WORDS,
+        options,
+        tokenizer::tokenize);
+    return content;
+  }
+
+  /** Swaps in prepared content, replacing all highlights. Has to be called on the EDT. */
+  public void setContent(final EditorContent content) {
+    editScript = content.getEditScript();
     highlighter.removeAllHighlights();
+    searchHighlights.clear();
+    textArea.setDocument(content.getDocument());
+    highlighter.setDiffHighlights(content.getHighlights());
+  }
+
+  public void setMergeResult(final MergeResult mergeResult) throws BadLocationException {
+    final var lines =
+        switch (kind) {
+          case OURS -> mergeResult.getOurs();
+          case THEIRS -> mergeResult.getTheirs();
+          default -> mergeResult.getBase();
+        };
+
+    // Every chunk spans as many rows as its longest side so that all three panes stay aligned.
+    final var rows = new ArrayList<String>();
+    final var painters = new ArrayList<LinePainter>();
+    final var virtualLinePainter = new LinePainter(VIRTUAL_LINE_COLOR);
+    final var changeLinePainter =
+        new LinePainter(kind == EditorKind.BASE ? DELETE_LINE_COLOR : INSERT_LINE_COLOR);
+    final var conflictLinePainter = new LinePainter(CONFLICT_LINE_COLOR);
+    for (final var chunk : mergeResult.getChunks()) {
+      final var baseLength = chunk.getBaseEnd() - chunk.getBaseStart();
+      final var oursLength = chunk.getOursEnd() - chunk.getOursStart();
+      final var theirsLength = chunk.getTheirsEnd() - chunk.getTheirsStart();
+      final var height = Math.max(baseLength, Math.max(oursLength, theirsLength));
+      final int start;
+      final int length;
+      switch (kind) {
+        case OURS -> {
+          start = chunk.getOursStart();
+          length = oursLength;
+        }
+        case THEIRS -> {
+          start = chunk.getTheirsStart();
+          length = theirsLength;
+        }
+        default -> {
+          start = chunk.getBaseStart();
+          length = baseLength;
+        }
+      }
+
+      final LinePainter painter =
+          switch (chunk.getKind()) {
+            case UNCHANGED -> null;
+            case CONFLICT -> conflictLinePainter;
+            case OURS -> kind == EditorKind.THEIRS ? null : changeLinePainter;
+            case THEIRS -> kind == EditorKind.OURS ? null : changeLinePainter;
+            case BOTH -> changeLinePainter;
+          };
+      for (var row = 0; row < height; ++row) {
+        if (row < length) {
+          rows.add(lines[start + row]);
+          painters.add(painter);
+        } else {
+          rows.add("");
+          painters.add(virtualLinePainter);
+        }
+      }
+    }
+
+    final var content = new EditorContent(List.of(), rows);
+    for (var row = 0; row < rows.size(); ++row) {
+      final var painter = painters.get(row);
+      if (painter != null) {
+        content.addLineHighlight(row, painter);
+      }
+    }
+    setContent(content);
+  }
+
+  public void setPatchConflicts(final List<PatchConflict> conflicts) throws BadLocationException {
+    if (conflicts.isEmpty()) {
+      return;
+    }
 
+    // Conflicts refer to lines of the file, which are shifted by virtual lines in the editor.
+    final var rows = new ArrayList<Integer>();
+    for (var row = 0; row < editScript.size(); ++row) {
+      final var command = editScript.get(row);
+      if (command instanceof FoldCommand fold) {
+        // Conflicts in folded lines are shown on the fold.
+        rows.addAll(Collections.nCopies(fold.getLines(), row));
+      } else if (!(command instanceof VirtualKeepCommand)) {
+        rows.add(row);
+      }
+    }
+    if (rows.isEmpty()) {
+      return;
+    }
+
+    final var conflictLinePainter = new LinePainter(CONFLICT_LINE_COLOR);
+    for (final var conflict : conflicts) {
+      final var lastLine = conflict.getLine() + Math.max(1, conflict.getLength());
+      for (var line = conflict.getLine(); line < lastLine; ++line) {
+        final var row = rows.get(Math.min(line, rows.size() - 1));
+        highlighter.addHighlight(
+            textArea.getLineStartOffset(row), textArea.getLineEndOffset(row), conflictLinePainter);
+      }
+    }
+  }
+
+  /**
+   * Highlights the matches of this pane's side, adding to the ones already highlighted. Rows of the
+   * matches have to be displayed rows.
+   */
+  public void addSearchMatches(final List<SearchMatch> matches) throws BadLocationException {
+    final var side = kind == EditorKind.ORIGINAL ? Side.ORIGINAL : Side.MODIFIED;
+    final var painter = new ProxyHighlightPainter(new DefaultHighlightPainter(SEARCH_MATCH_COLOR));
+    for (final var match : matches) {
+      if (match.getSide() == side) {
+        final var lineStartOffset = textArea.getLineStartOffset(match.getRow());
+        searchHighlights.add(
+            highlighter.addHighlight(
+                lineStartOffset + match.getStart(), lineStartOffset + match.getEnd(), painter));
+      }
+    }
+  }
+
+  /** Returns the fold displayed at the given point of the text area, or null if there is none. */
+  public FoldCommand getFoldAt(final Point point) {
+    final var offset = textArea.viewToModel2D(point);
+    if (offset < 0) {
+      return null;
+    }
+    try {
+      final var row = textArea.getLineOfOffset(offset);
+      return row < editScript.size() && editScript.get(row) instanceof FoldCommand fold
+          ? fold
+          : null;
+    } catch (final BadLocationException e) {
+      return null;
+    }
+  }
+
+  public void clearSearchMatches() {
+    searchHighlights.forEach(highlighter::removeHighlight);
+    searchHighlights.clear();
+  }
+
+  private void applyLineHighlighting(final EditorContent content) throws BadLocationException {
+    final var editScript = content.getEditScript();
     final var insertLinePainter = new LinePainter(INSERT_LINE_COLOR);
     final var deleteLinePainter = new LinePainter(DELETE_LINE_COLOR);
     final var virtualLinePainter = new LinePainter(VIRTUAL_LINE_COLOR);
+    final var moveLinePainter = new LinePainter(MOVE_LINE_COLOR);
 
     for (var line = 0; line < editScript.size(); ++line) {
       final var command = editScript.get(line);
       LinePainter painter = null;
 
-      if (command instanceof VirtualKeepCommand) {
+      if (command instanceof VirtualKeepCommand || command instanceof FoldCommand) {
         painter = virtualLinePainter;
       }
 
@@ -105,17 +308,23 @@ public class EditorPane extends JPanel {
         painter = insertLinePainter;
       }
 
+      if (command instanceof MovedDeleteCommand || command instanceof MovedInsertCommand) {
+        painter = moveLinePainter;
+      }
+
       if (painter != null) {
-        highlighter.addHighlight(
-            textArea.getLineStartOffset(line), textArea.getLineEndOffset(line), painter);
+        content.addLineHighlight(line, painter);
       }
     }
   }
 
   private void applyCharacterHighlighting(
-      final List<EditCommand> originalScript,
-      final List<EditCommand> modifiedScript,
-      final HuntAlgorithm algorithm)
+      final EditorContent content,
+      final Diff diff,
+      final DiffAlgorithm algorithm,
+      final DiffMode diffMode,
+      final Set<ComparisonOption> options,
+      final Function<String, String[]> splitter)
       throws BadLocationException {
     final var insertCharacterPainter =
         new ProxyHighlightPainter(new DefaultHighlightPainter(INSERT_CHARACTER_COLOR));
@@ -124,32 +333,29 @@ public class EditorPane extends JPanel {
     final var modifyCharacterPainter =
         new ProxyHighlightPainter(new DefaultHighlightPainter(MODIFY_CHARACTER_COLOR));
 
-    for (var row = 0; row < originalScript.size(); ++row) {
-      final var original = originalScript.get(row);
-      final var modified = modifiedScript.get(row);
-
-      if (original.getText().hashCode() == modified.getText().hashCode()
-          || original instanceof VirtualKeepCommand
-          || modified instanceof VirtualKeepCommand) {
+    // Only similar lines are diffed, kept lines that merely match after normalization, moved
+    // lines and lines without a counterpart are left to the line highlighting.
+    for (final var pair : new LinePairing().pair(diff)) {
+      final var original = diff.getOriginal().get(pair.getOriginalRow());
+      final var modified = diff.getModified().get(pair.getModifiedRow());
+      if (original.getText().equals(modified.getText())) {
         continue;
       }
 
-      // Here we have to filter possible empty lines which would map Delete commands to Modify
-      // instead.
       final var charDiff =
           algorithm.buildDiff(
-              Arrays.stream(original.getText().split(""))
-                  .filter(s -> !s.isEmpty())
-                  .toArray(String[]::new),
-              Arrays.stream(modified.getText().split(""))
-                  .filter(s -> !s.isEmpty())
-                  .toArray(String[]::new),
-              DiffMode.CHARACTERS);
+              splitter.apply(original.getText()),
+              splitter.apply(modified.getText()),
+              diffMode,
+              options);
       final var lineEditScript =
           kind == EditorKind.ORIGINAL ? charDiff.getOriginal() : charDiff.getModified();
-      final var highlighter = textArea.getHighlighter();
-      for (var column = 0; column < lineEditScript.size(); ++column) {
-        final var command = lineEditScript.get(column);
+      final var lineStartOffset =
+          content.getLineStartOffset(
+              kind == EditorKind.ORIGINAL ? pair.getOriginalRow() : pair.getModifiedRow());
+      var column = 0;
+      for (final var command : lineEditScript) {
+        final var width = getWidth(command);
         ProxyHighlightPainter painter = null;
 
         if (kind == EditorKind.ORIGINAL && command instanceof DeleteCommand) {
@@ -163,19 +369,30 @@ public class EditorPane extends JPanel {
         }
 
         if (painter != null) {
-          highlighter.addHighlight(
-              textArea.getLineStartOffset(row) + column,
-              textArea.getLineStartOffset(row) + column + 1,
-              painter);
+          content.addHighlight(
+              lineStartOffset + column, lineStartOffset + column + width, painter);
         }
+        column += width;
       }
     }
   }
 
+  private int getWidth(final EditCommand command) {
+    // Modify commands carry the modified text separately, all other commands span their text.
+    if (kind == EditorKind.MODIFIED && command instanceof ModifyCommand modifyCommand) {
+      return modifyCommand.getModified().length();
+    }
+    return command.getText().length();
+  }
+
+  @Getter
   @RequiredArgsConstructor
   public enum EditorKind {
     ORIGINAL("Original"),
-    MODIFIED("Modified");
+    MODIFIED("Modified"),
+    BASE("Base"),
+    OURS("Ours"),
+    THEIRS("Theirs");
 
     private final String label;
   }
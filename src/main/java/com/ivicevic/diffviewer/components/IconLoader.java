@@ -0,0 +1,58 @@
+package com.ivicevic.diffviewer.components;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import javax.swing.AbstractButton;
+import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+import lombok.Value;
+
+/**
+ * Loads button icons in the background so that showing a frame never waits for image decoding.
+ * Until its icon arrives a button without text shows the icon description instead.
+ */
+class IconLoader {
+  private final List<PendingIcon> pendingIcons = new ArrayList<>();
+
+  void add(final AbstractButton button, final String iconPath, final String description) {
+    button.setToolTipText(description);
+    if (button.getText() == null || button.getText().isEmpty()) {
+      button.setText(description);
+    }
+    pendingIcons.add(new PendingIcon(button, iconPath, description));
+  }
+
+  void load(final Executor executor) {
+    for (final var pendingIcon : pendingIcons) {
+      CompletableFuture.supplyAsync(pendingIcon::load, executor)
+          .thenAcceptAsync(pendingIcon::install, SwingUtilities::invokeLater);
+    }
+    pendingIcons.clear();
+  }
+
+  @Value
+  private static class PendingIcon {
+    AbstractButton button;
+    String iconPath;
+    String description;
+
+    ImageIcon load() {
+      final var imageUrl = IconLoader.class.getResource(iconPath);
+      return imageUrl == null ? null : new ImageIcon(imageUrl, description);
+    }
+
+    void install(final ImageIcon icon) {
+      if (icon == null) {
+        button.setText(description);
+        return;
+      }
+      button.setIcon(icon);
+      // Drop the placeholder text of icon-only buttons.
+      if (description.equals(button.getText())) {
+        button.setText(null);
+      }
+    }
+  }
+}
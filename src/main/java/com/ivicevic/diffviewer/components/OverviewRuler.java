@@ -0,0 +1,191 @@
+package com.ivicevic.diffviewer.components;
+
+import com.ivicevic.diffviewer.algorithm.Diff;
+import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.InsertCommand;
+import com.ivicevic.diffviewer.algorithm.commands.ModifyCommand;
+import com.ivicevic.diffviewer.algorithm.commands.MovedDeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.MovedInsertCommand;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.util.Arrays;
+import javax.swing.BorderFactory;
+import javax.swing.JComponent;
+
+/**
+ * Scaled map of the changed hunks of a diff, shown next to the editor panes. Hunks are kept in a
+ * compact index of row ranges and marks falling onto the same pixels are merged while painting, so
+ * painting takes time proportional to the number of hunks and the height, not to the line count.
+ */
+public class OverviewRuler extends JComponent {
+  private static final int WIDTH = 14;
+  private static final int MIN_MARK_HEIGHT = 2;
+  // Clicks this many pixels next to a mark still jump to its hunk.
+  private static final int HIT_TOLERANCE = 3;
+
+  private static final byte DELETE = 0;
+  private static final byte INSERT = 1;
+  private static final byte MODIFY = 2;
+  private static final byte MOVE = 3;
+  private static final Color[] KIND_COLORS = {
+    new Color(255, 182, 186), new Color(151, 242, 149), new Color(194, 216, 242),
+    new Color(200, 180, 250)
+  };
+  private static final Color VIEWPORT_COLOR = new Color(0, 0, 0, 24);
+
+  private int rows = 0;
+  private int[] hunkStarts = new int[0];
+  private int[] hunkEnds = new int[0];
+  private byte[] hunkKinds = new byte[0];
+  private double viewportStart = 0;
+  private double viewportEnd = 0;
+
+  public OverviewRuler() {
+    setBorder(BorderFactory.createEmptyBorder(4, 0, 10, 10));
+    setPreferredSize(new Dimension(WIDTH + 10, 0));
+  }
+
+  public void setDiff(final Diff diff) {
+    setIndex(Index.of(diff));
+  }
+
+  /** Shows the hunks of an index, which may have been built on any thread. */
+  public void setIndex(final Index index) {
+    rows = index.rows;
+    hunkStarts = index.starts;
+    hunkEnds = index.ends;
+    hunkKinds = index.kinds;
+    repaint();
+  }
+
+  /** Sets the visible part of the panes as fractions of their height. */
+  public void setViewport(final double start, final double end) {
+    if (start != viewportStart || end != viewportEnd) {
+      viewportStart = start;
+      viewportEnd = end;
+      repaint();
+    }
+  }
+
+  /**
+   * Returns the row displayed at the given height, snapping to the first row of a hunk whose mark
+   * is near it, or -1 if the diff is empty.
+   */
+  public int getRowAt(final int y) {
+    if (rows == 0) {
+      return -1;
+    }
+    final var insets = getInsets();
+    final var height = getTrackHeight();
+    final var row =
+        (int) Math.min(rows - 1L, Math.max(0L, (long) (y - insets.top) * rows / height));
+
+    // The hunk containing the row or the one right after it is closest to the pointer.
+    var index = Arrays.binarySearch(hunkStarts, row);
+    index = index >= 0 ? index : -index - 1;
+    var best = -1;
+    var bestDistance = HIT_TOLERANCE + 1;
+    for (var i = Math.max(0, index - 1); i <= index && i < hunkStarts.length; ++i) {
+      final var top = toY(hunkStarts[i]);
+      final var bottom = Math.max(toY(hunkEnds[i]), top + MIN_MARK_HEIGHT);
+      final var distance = y < top ? top - y : y >= bottom ? y - bottom + 1 : 0;
+      if (distance < bestDistance) {
+        best = i;
+        bestDistance = distance;
+      }
+    }
+    return best >= 0 ? hunkStarts[best] : row;
+  }
+
+  @Override
+  protected void paintComponent(final Graphics g) {
+    final var insets = getInsets();
+    final var width = getWidth() - insets.left - insets.right;
+    if (rows == 0 || width <= 0) {
+      return;
+    }
+
+    var markKind = -1;
+    var markTop = 0;
+    var markBottom = 0;
+    for (var i = 0; i < hunkStarts.length; ++i) {
+      final var top = toY(hunkStarts[i]);
+      final var bottom = Math.max(toY(hunkEnds[i]), top + MIN_MARK_HEIGHT);
+      if (hunkKinds[i] == markKind && top <= markBottom) {
+        markBottom = Math.max(markBottom, bottom);
+        continue;
+      }
+      if (markKind >= 0) {
+        g.setColor(KIND_COLORS[markKind]);
+        g.fillRect(insets.left, markTop, width, markBottom - markTop);
+      }
+      markKind = hunkKinds[i];
+      markTop = top;
+      markBottom = bottom;
+    }
+    if (markKind >= 0) {
+      g.setColor(KIND_COLORS[markKind]);
+      g.fillRect(insets.left, markTop, width, markBottom - markTop);
+    }
+
+    if (viewportEnd > viewportStart) {
+      final var height = getTrackHeight();
+      final var top = insets.top + (int) (viewportStart * height);
+      final var bottom = insets.top + (int) Math.ceil(viewportEnd * height);
+      g.setColor(VIEWPORT_COLOR);
+      g.fillRect(insets.left, top, width, Math.max(bottom - top, MIN_MARK_HEIGHT));
+    }
+  }
+
+  private int getTrackHeight() {
+    final var insets = getInsets();
+    return Math.max(1, getHeight() - insets.top - insets.bottom);
+  }
+
+  private int toY(final int row) {
+    return getInsets().top + (int) ((long) row * getTrackHeight() / rows);
+  }
+
+  /** The row ranges and kinds of the hunks of a displayed diff. */
+  public static class Index {
+    private final int rows;
+    private final int[] starts;
+    private final int[] ends;
+    private final byte[] kinds;
+
+    private Index(final Diff diff) {
+      final var hunks = diff.getHunks();
+      rows = Math.min(diff.getOriginal().size(), diff.getModified().size());
+      starts = new int[hunks.size()];
+      ends = new int[hunks.size()];
+      kinds = new byte[hunks.size()];
+      for (var i = 0; i < hunks.size(); ++i) {
+        final var hunk = hunks.get(i);
+        starts[i] = hunk.getRowStart();
+        ends[i] = hunk.getRowEnd();
+        kinds[i] = kindOf(diff, hunk.getRowStart(), hunk.getRowEnd());
+      }
+    }
+
+    public static Index of(final Diff diff) {
+      return new Index(diff);
+    }
+
+    private static byte kindOf(final Diff diff, final int rowStart, final int rowEnd) {
+      var deletes = false;
+      var inserts = false;
+      for (var row = rowStart; row < rowEnd; ++row) {
+        final EditCommand original = diff.getOriginal().get(row);
+        final EditCommand modified = diff.getModified().get(row);
+        if (original instanceof MovedDeleteCommand || modified instanceof MovedInsertCommand) {
+          return MOVE;
+        }
+        deletes |= original instanceof DeleteCommand || original instanceof ModifyCommand;
+        inserts |= modified instanceof InsertCommand || modified instanceof ModifyCommand;
+      }
+      return deletes && inserts ? MODIFY : inserts ? INSERT : DELETE;
+    }
+  }
+}
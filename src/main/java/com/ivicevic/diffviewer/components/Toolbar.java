@@ -1,11 +1,19 @@
 package com.ivicevic.diffviewer.components;
 
+import com.ivicevic.diffviewer.algorithm.DiffAlgorithm;
+import java.awt.Component;
+import java.util.List;
+import java.util.concurrent.Executor;
 import javax.swing.AbstractButton;
 import javax.swing.BorderFactory;
-import javax.swing.ImageIcon;
+import javax.swing.DefaultListCellRenderer;
 import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JList;
+import javax.swing.JTextField;
 import javax.swing.JToggleButton;
 import javax.swing.JToolBar;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 @Getter
@@ -13,8 +21,24 @@ public class Toolbar extends JToolBar {
   JButton previousDiffButton;
   JButton nextDiffButton;
   JToggleButton lineHighlightButton;
+  JToggleButton wordHighlightButton;
   JToggleButton characterHighlightButton;
+  JToggleButton ignoreWhitespaceButton;
+  JToggleButton ignoreCaseButton;
+  JToggleButton structuredDiffButton;
+  JToggleButton onlyChangesButton;
+  JComboBox<DiffAlgorithm> algorithmComboBox;
   JToggleButton scrollSyncButton;
+  JButton exportPatchButton;
+  JButton applyPatchButton;
+  JButton threeWayMergeButton;
+  JButton compareDirectoriesButton;
+  JTextField searchField;
+  JToggleButton matchCaseButton;
+  JToggleButton changedOnlyButton;
+
+  @Getter(AccessLevel.NONE)
+  private final IconLoader iconLoader = new IconLoader();
 
   public Toolbar() {
     super();
@@ -40,6 +64,11 @@ public class Toolbar extends JToolBar {
     setButtonIcon(lineHighlightButton, "/icons/highlight-lines.png", "Highlight Lines");
     add(lineHighlightButton);
 
+    wordHighlightButton = new JToggleButton();
+    wordHighlightButton.setText("Words");
+    setButtonIcon(wordHighlightButton, "/icons/highlight-characters.png", "Highlight Words");
+    add(wordHighlightButton);
+
     characterHighlightButton = new JToggleButton();
     characterHighlightButton.setText("Characters");
     setButtonIcon(
@@ -48,20 +77,108 @@ public class Toolbar extends JToolBar {
 
     addSeparator();
 
+    ignoreWhitespaceButton = new JToggleButton();
+    ignoreWhitespaceButton.setText("Ignore Whitespace");
+    ignoreWhitespaceButton.setToolTipText("Ignore all whitespace when comparing lines");
+    add(ignoreWhitespaceButton);
+
+    ignoreCaseButton = new JToggleButton();
+    ignoreCaseButton.setText("Ignore Case");
+    ignoreCaseButton.setToolTipText("Ignore case when comparing lines");
+    add(ignoreCaseButton);
+
+    structuredDiffButton = new JToggleButton();
+    structuredDiffButton.setText("Structured");
+    structuredDiffButton.setToolTipText("Compare JSON, XML and YAML files by their structure");
+    add(structuredDiffButton);
+
+    onlyChangesButton = new JToggleButton();
+    onlyChangesButton.setText("Only Changes");
+    onlyChangesButton.setToolTipText("Collapse unchanged lines, click on them to expand");
+    add(onlyChangesButton);
+
+    algorithmComboBox = new JComboBox<>();
+    algorithmComboBox.setToolTipText("Diff engine, selected by the size of the files if automatic");
+    algorithmComboBox.setRenderer(
+        new DefaultListCellRenderer() {
+          @Override
+          public Component getListCellRendererComponent(
+              final JList<?> list,
+              final Object value,
+              final int index,
+              final boolean isSelected,
+              final boolean cellHasFocus) {
+            return super.getListCellRendererComponent(
+                list,
+                value instanceof DiffAlgorithm algorithm ? algorithm.getLabel() : value,
+                index,
+                isSelected,
+                cellHasFocus);
+          }
+        });
+    add(algorithmComboBox);
+
+    addSeparator();
+
     scrollSyncButton = new JToggleButton();
     scrollSyncButton.setText("Synchronize Scrolling");
     setButtonIcon(scrollSyncButton, "/icons/sync-scrolling.png", "Synchronize Scrolling");
     add(scrollSyncButton);
+
+    addSeparator();
+
+    exportPatchButton = new JButton();
+    exportPatchButton.setText("Export Patch...");
+    exportPatchButton.setToolTipText("Export the differences as unified or context diff");
+    add(exportPatchButton);
+
+    applyPatchButton = new JButton();
+    applyPatchButton.setText("Apply Patch...");
+    applyPatchButton.setToolTipText("Apply a unified diff to the original file");
+    add(applyPatchButton);
+
+    threeWayMergeButton = new JButton();
+    threeWayMergeButton.setText("Three-Way Merge...");
+    threeWayMergeButton.setToolTipText("Compare base, ours and theirs side-by-side");
+    add(threeWayMergeButton);
+
+    compareDirectoriesButton = new JButton();
+    compareDirectoriesButton.setText("Compare Directories...");
+    compareDirectoriesButton.setToolTipText("Compare all files of two directories");
+    add(compareDirectoriesButton);
+
+    addSeparator();
+
+    searchField = new JTextField(16);
+    searchField.setMaximumSize(searchField.getPreferredSize());
+    searchField.setToolTipText("Find in both files, press Enter again for the next match");
+    add(searchField);
+
+    matchCaseButton = new JToggleButton();
+    matchCaseButton.setText("Match Case");
+    matchCaseButton.setToolTipText("Only find matches with the same case");
+    add(matchCaseButton);
+
+    changedOnlyButton = new JToggleButton();
+    changedOnlyButton.setText("Changed Only");
+    changedOnlyButton.setToolTipText("Only find matches in changed lines");
+    add(changedOnlyButton);
+  }
+
+  /** Offers the given diff engines for selection. */
+  public void setAlgorithms(final List<DiffAlgorithm> algorithms) {
+    algorithmComboBox.removeAllItems();
+    algorithms.forEach(algorithmComboBox::addItem);
+    algorithmComboBox.setMaximumSize(algorithmComboBox.getPreferredSize());
+  }
+
+  /** Loads the button icons, which are deferred so that the toolbar can be shown right away. */
+  public void loadIcons(final Executor executor) {
+    iconLoader.load(executor);
   }
 
   private void setButtonIcon(
       final AbstractButton button, final String iconPath, final String text) {
-    final var imageUrl = getClass().getResource(iconPath);
-    if (imageUrl != null) {
-      button.setIcon(new ImageIcon(imageUrl, text));
-      button.setToolTipText(text);
-    } else {
-      button.setText(text);
-    }
+    iconLoader.add(button, iconPath, text);
   }
 }
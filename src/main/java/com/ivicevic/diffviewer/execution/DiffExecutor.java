@@ -0,0 +1,130 @@
+package com.ivicevic.diffviewer.execution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs each comparison, like all other background work of the viewer, as one {@link TaskScope} on
+ * its own virtual thread and hands its result or failure to a callback executor, the EDT by
+ * default. Cancelling a comparison interrupts all of its subtasks and nothing is delivered
+ * afterwards.
+ */
+public class DiffExecutor {
+  private final ThreadFactory threadFactory = Thread.ofVirtual().name("diff-", 0).factory();
+  private final Executor callbackExecutor;
+
+  public DiffExecutor() {
+    this(SwingUtilities::invokeLater);
+  }
+
+  public DiffExecutor(final Executor callbackExecutor) {
+    this.callbackExecutor = callbackExecutor;
+  }
+
+  public <T> Execution submit(
+      final ScopedTask<T> task,
+      final Consumer<? super T> onSuccess,
+      final Consumer<? super Throwable> onFailure) {
+    return submit((scope, publish) -> task.run(scope), values -> {}, onSuccess, onFailure);
+  }
+
+  /**
+   * Submits a task that publishes values while it runs, e.g. the matches of a search. They are
+   * handed to the callback executor in batches, all of them before the result or failure.
+   */
+  public <T, V> Execution submit(
+      final PublishingTask<T, V> task,
+      final Consumer<? super List<V>> onPublish,
+      final Consumer<? super T> onSuccess,
+      final Consumer<? super Throwable> onFailure) {
+    final var execution = new Execution();
+    final var published = new ConcurrentLinkedQueue<V>();
+    final var flushPending = new AtomicBoolean();
+    final Runnable flush =
+        () -> {
+          flushPending.set(false);
+          final var values = new ArrayList<V>();
+          for (var value = published.poll(); value != null; value = published.poll()) {
+            values.add(value);
+          }
+          if (!values.isEmpty() && !execution.isCancelled()) {
+            onPublish.accept(values);
+          }
+        };
+    final Consumer<V> publish =
+        value -> {
+          published.add(value);
+          // Values published meanwhile are delivered by the flush that is already pending.
+          if (flushPending.compareAndSet(false, true)) {
+            callbackExecutor.execute(flush);
+          }
+        };
+    execution.thread =
+        threadFactory.newThread(
+            () -> {
+              T result = null;
+              Throwable failure = null;
+              try (final var scope = new TaskScope()) {
+                result = task.run(scope, publish);
+              } catch (final ExecutionException e) {
+                failure = e.getCause();
+              } catch (final Throwable e) {
+                // Errors like running out of memory for a large diff are delivered as well.
+                failure = e;
+              }
+              final var value = result;
+              final var cause = failure;
+              callbackExecutor.execute(
+                  () -> {
+                    if (execution.isCancelled()) {
+                      return;
+                    }
+                    flush.run();
+                    if (cause == null) {
+                      onSuccess.accept(value);
+                    } else {
+                      onFailure.accept(cause);
+                    }
+                  });
+            });
+    execution.thread.start();
+    return execution;
+  }
+
+  /** A unit of work that may fork subtasks into its scope. */
+  @FunctionalInterface
+  public interface ScopedTask<T> {
+    T run(TaskScope scope) throws Exception;
+  }
+
+  /** A unit of work that may fork subtasks into its scope and publish values while it runs. */
+  @FunctionalInterface
+  public interface PublishingTask<T, V> {
+    T run(TaskScope scope, Consumer<V> publish) throws Exception;
+  }
+
+  public static class Execution {
+    private Thread thread;
+    private volatile boolean cancelled = false;
+
+    /**
+     * Cancels the comparison. If called by the callback executor, like the EDT, nothing is
+     * delivered afterwards.
+     */
+    public void cancel() {
+      cancelled = true;
+      thread.interrupt();
+    }
+
+    public boolean isCancelled() {
+      return cancelled;
+    }
+  }
+}
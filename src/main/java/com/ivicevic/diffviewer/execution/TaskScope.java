@@ -0,0 +1,117 @@
+package com.ivicevic.diffviewer.execution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the subtasks of one unit of work on virtual threads, which succeed or fail together: the
+ * first failing subtask cancels all others and closing the scope waits for every subtask. Works
+ * like {@code StructuredTaskScope.ShutdownOnFailure}, which is still a preview API in Java 21.
+ */
+public class TaskScope implements AutoCloseable {
+  private final ThreadFactory threadFactory;
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+  // Guarded by the scope.
+  private final List<Subtask<?>> subtasks = new ArrayList<>();
+  private final List<Thread> threads = new ArrayList<>();
+  private boolean shutdown = false;
+
+  public TaskScope() {
+    this(Thread.ofVirtual().name("diff-subtask-", 0).factory());
+  }
+
+  public TaskScope(final ThreadFactory threadFactory) {
+    this.threadFactory = threadFactory;
+  }
+
+  /** Starts the task in a new thread, unless the scope has been shut down already. */
+  public <T> Subtask<T> fork(final Callable<T> task) {
+    final var subtask = new Subtask<>(task);
+    synchronized (this) {
+      if (shutdown) {
+        subtask.cancel(false);
+        return subtask;
+      }
+      final var thread = threadFactory.newThread(subtask);
+      subtasks.add(subtask);
+      threads.add(thread);
+      thread.start();
+    }
+    return subtask;
+  }
+
+  /** Waits for all subtasks, including those forked meanwhile, and throws the first failure. */
+  public void join() throws InterruptedException, ExecutionException {
+    for (var i = 0; ; ++i) {
+      final Subtask<?> subtask;
+      synchronized (this) {
+        if (i >= subtasks.size()) {
+          break;
+        }
+        subtask = subtasks.get(i);
+      }
+      try {
+        subtask.get();
+      } catch (final ExecutionException | CancellationException e) {
+        // The first failure is thrown below, cancellations are caused by it or by a shutdown.
+      }
+    }
+    final var cause = failure.get();
+    if (cause != null) {
+      throw new ExecutionException(cause);
+    }
+  }
+
+  /** Cancels all running subtasks by interrupting them and prevents new ones from starting. */
+  public void shutdown() {
+    final List<Subtask<?>> running;
+    synchronized (this) {
+      shutdown = true;
+      running = List.copyOf(subtasks);
+    }
+    running.forEach(subtask -> subtask.cancel(true));
+  }
+
+  /** Shuts the scope down and waits until the threads of all subtasks have terminated. */
+  @Override
+  public void close() {
+    shutdown();
+    final List<Thread> started;
+    synchronized (this) {
+      started = List.copyOf(threads);
+    }
+    var interrupted = false;
+    for (final var thread : started) {
+      while (thread.isAlive()) {
+        try {
+          thread.join();
+        } catch (final InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** A forked task, whose result is available once the scope has been joined successfully. */
+  public class Subtask<T> extends FutureTask<T> {
+    private Subtask(final Callable<T> task) {
+      super(task);
+    }
+
+    @Override
+    protected void setException(final Throwable t) {
+      failure.compareAndSet(null, t);
+      super.setException(t);
+      shutdown();
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package com.ivicevic.diffviewer.io;
+
+import java.nio.charset.Charset;
+import java.util.List;
+import lombok.Value;
+
+@Value
+public class DecodedText {
+  Charset charset;
+  boolean byteOrderMark;
+  LineEnding lineEnding;
+  // Lines without their line terminators.
+  List<String> lines;
+}
@@ -0,0 +1,174 @@
+package com.ivicevic.diffviewer.io;
+
+import com.ivicevic.diffviewer.algorithm.ComparisonOption;
+import com.ivicevic.diffviewer.algorithm.Diff;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+/**
+ * Persistent cache of line diffs keyed by SHA-256 hashes of both texts, the engine and the
+ * comparison options. Entries are stored in the compact {@link DiffEncoding} and memory-mapped
+ * when read. The least recently used entries are evicted once the cache exceeds its maximum size.
+ */
+@Getter
+@RequiredArgsConstructor
+public class DiffCache {
+  public static final String DIRECTORY_PROPERTY = "diffviewer.cache.dir";
+  public static final String MAX_SIZE_PROPERTY = "diffviewer.cache.maxSize";
+  public static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+
+  // Bumped whenever the encoding or the diff pipeline changes, invalidating all entries.
+  private static final String VERSION = "5";
+  private static final String SUFFIX = ".diff";
+
+  private final Path directory;
+  private final long maxSize;
+
+  /** Returns the cache configured by system properties or an empty optional if it is disabled. */
+  public static Optional<DiffCache> fromSystemProperties() {
+    final var directory = System.getProperty(DIRECTORY_PROPERTY);
+    if (directory == null || directory.isBlank()) {
+      return Optional.empty();
+    }
+    return Optional.of(
+        new DiffCache(Path.of(directory), Long.getLong(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE)));
+  }
+
+  /** Builds the key of the diff of both line sequences by the named engine with the options. */
+  public static String key(
+      final String algorithm,
+      final String[] original,
+      final String[] modified,
+      final Set<ComparisonOption> options) {
+    final var digest = sha256();
+    digest.update(VERSION.getBytes(StandardCharsets.UTF_8));
+    // Engines may align the same texts differently.
+    digest.update((algorithm + "\n").getBytes(StandardCharsets.UTF_8));
+    // Options are sorted so the key does not depend on the iteration order of the set.
+    digest.update(
+        options.stream()
+            .map(Enum::name)
+            .sorted()
+            .collect(Collectors.joining(",", "[", "]"))
+            .getBytes(StandardCharsets.UTF_8));
+    // Hashing both texts separately prevents collisions by shifting content between them.
+    digest.update(hash(original));
+    digest.update(hash(modified));
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  // Lines are hashed one by one, so the text of the whole file is never built.
+  private static byte[] hash(final String[] lines) {
+    final var digest = sha256();
+    for (final var line : lines) {
+      digest.update(line.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) '\n');
+    }
+    return digest.digest();
+  }
+
+  /** Looks up the diff of the given lines, treating unreadable or corrupt entries as misses. */
+  public Optional<Diff> get(final String key, final String[] original, final String[] modified) {
+    final var path = directory.resolve(key + SUFFIX);
+    try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final var diff =
+          DiffEncoding.decode(
+              channel.map(MapMode.READ_ONLY, 0, channel.size()), original, modified);
+      Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+      return Optional.of(diff);
+    } catch (final NoSuchFileException e) {
+      return Optional.empty();
+    } catch (final IOException | IllegalArgumentException e) {
+      delete(path);
+      return Optional.empty();
+    }
+  }
+
+  public void put(final String key, final Diff diff) throws IOException {
+    Files.createDirectories(directory);
+    final var path = directory.resolve(key + SUFFIX);
+    // Entries are written to a temporary file first so readers never see partial entries.
+    final var temporary = Files.createTempFile(directory, key, ".tmp");
+    try {
+      try (final var channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+        final var buffer = DiffEncoding.encode(diff);
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      Files.move(
+          temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      delete(temporary);
+    }
+    evict();
+  }
+
+  private void evict() throws IOException {
+    final var entries = new ArrayList<Entry>();
+    try (final var paths = Files.list(directory)) {
+      for (final var path : (Iterable<Path>) paths::iterator) {
+        if (path.getFileName().toString().endsWith(SUFFIX)) {
+          try {
+            entries.add(
+                new Entry(path, Files.size(path), Files.getLastModifiedTime(path).toMillis()));
+          } catch (final NoSuchFileException e) {
+            // Evicted concurrently.
+          }
+        }
+      }
+    }
+
+    entries.sort(Comparator.comparingLong(Entry::getLastModified).reversed());
+    var size = 0L;
+    for (final var entry : entries) {
+      size += entry.getSize();
+      if (size > maxSize) {
+        delete(entry.getPath());
+      }
+    }
+  }
+
+  private static void delete(final Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (final IOException e) {
+      // The entry is retried on the next eviction.
+    }
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Value
+  private static class Entry {
+    Path path;
+    long size;
+    long lastModified;
+  }
+}
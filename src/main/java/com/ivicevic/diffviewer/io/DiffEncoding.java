@@ -0,0 +1,153 @@
+package com.ivicevic.diffviewer.io;
+
+import com.ivicevic.diffviewer.algorithm.Diff;
+import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.InsertCommand;
+import com.ivicevic.diffviewer.algorithm.commands.KeepCommand;
+import com.ivicevic.diffviewer.algorithm.commands.MovedDeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.MovedInsertCommand;
+import com.ivicevic.diffviewer.algorithm.commands.VirtualKeepCommand;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of line diffs. Texts are not stored at all since they are known when a
+ * diff is looked up by content hash, only run-length encoded opcodes of both sides are written.
+ *
+ * <pre>
+ * magic, original runs, modified runs, changed lines
+ * runs:          count, (opcode byte, length int, [block int if moved])*
+ * changed lines: count, line int*
+ * </pre>
+ */
+public class DiffEncoding {
+  static final int MAGIC = 0x44564331; // "DVC1"
+
+  private static final byte KEEP = 0;
+  private static final byte DELETE = 1;
+  private static final byte INSERT = 2;
+  private static final byte VIRTUAL_KEEP = 3;
+  private static final byte MOVED_DELETE = 4;
+  private static final byte MOVED_INSERT = 5;
+
+  private DiffEncoding() {}
+
+  public static ByteBuffer encode(final Diff diff) {
+    final var original = encodeRuns(diff.getOriginal());
+    final var modified = encodeRuns(diff.getModified());
+    final var changedLines = diff.getChangedLines();
+    final var buffer =
+        ByteBuffer.allocate(
+            Integer.BYTES + original.remaining() + modified.remaining()
+                + Integer.BYTES * (1 + changedLines.size()));
+    buffer.putInt(MAGIC).put(original).put(modified).putInt(changedLines.size());
+    changedLines.forEach(buffer::putInt);
+    return buffer.flip();
+  }
+
+  /**
+   * Decodes a diff of the given lines.
+   *
+   * @throws IllegalArgumentException if the data is corrupt or does not match the lines
+   */
+  public static Diff decode(
+      final ByteBuffer buffer, final String[] original, final String[] modified) {
+    try {
+      if (buffer.getInt() != MAGIC) {
+        throw new IllegalArgumentException("Unknown diff encoding");
+      }
+      final var originalScript = decodeRuns(buffer, original);
+      final var modifiedScript = decodeRuns(buffer, modified);
+      final var count = buffer.getInt();
+      final var changedLines = new ArrayList<Integer>(count);
+      for (var i = 0; i < count; ++i) {
+        changedLines.add(buffer.getInt());
+      }
+      return new Diff(originalScript, modifiedScript, changedLines);
+    } catch (final BufferUnderflowException | IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Corrupt diff encoding", e);
+    }
+  }
+
+  private static ByteBuffer encodeRuns(final List<EditCommand> script) {
+    // Worst case is one run per command with block number.
+    final var buffer = ByteBuffer.allocate(Integer.BYTES + script.size() * (1 + 2 * Integer.BYTES));
+    buffer.putInt(0);
+    var runs = 0;
+    var i = 0;
+    while (i < script.size()) {
+      final var opcode = opcodeOf(script.get(i));
+      final var block = blockOf(script.get(i));
+      var length = 1;
+      while (i + length < script.size()
+          && opcodeOf(script.get(i + length)) == opcode
+          && blockOf(script.get(i + length)) == block) {
+        ++length;
+      }
+
+      buffer.put(opcode).putInt(length);
+      if (opcode == MOVED_DELETE || opcode == MOVED_INSERT) {
+        buffer.putInt(block);
+      }
+      ++runs;
+      i += length;
+    }
+    return buffer.putInt(0, runs).flip();
+  }
+
+  private static List<EditCommand> decodeRuns(final ByteBuffer buffer, final String[] lines) {
+    final var script = new ArrayList<EditCommand>(lines.length);
+    var line = 0;
+    for (var runs = buffer.getInt(); runs > 0; --runs) {
+      final var opcode = buffer.get();
+      final var length = buffer.getInt();
+      final var block = opcode == MOVED_DELETE || opcode == MOVED_INSERT ? buffer.getInt() : 0;
+      for (var i = 0; i < length; ++i) {
+        script.add(
+            switch (opcode) {
+              case KEEP -> new KeepCommand(lines[line++]);
+              case DELETE -> new DeleteCommand(lines[line++]);
+              case INSERT -> new InsertCommand(lines[line++]);
+              case VIRTUAL_KEEP -> new VirtualKeepCommand();
+              case MOVED_DELETE -> new MovedDeleteCommand(lines[line++], block);
+              case MOVED_INSERT -> new MovedInsertCommand(lines[line++], block);
+              default -> throw new IllegalArgumentException("Unknown opcode " + opcode);
+            });
+      }
+    }
+    if (line != lines.length) {
+      throw new IllegalArgumentException("Diff does not match the lines");
+    }
+    return script;
+  }
+
+  private static byte opcodeOf(final EditCommand command) {
+    // Subclasses have to be checked before their base classes.
+    if (command instanceof MovedDeleteCommand) {
+      return MOVED_DELETE;
+    } else if (command instanceof MovedInsertCommand) {
+      return MOVED_INSERT;
+    } else if (command instanceof KeepCommand) {
+      return KEEP;
+    } else if (command instanceof DeleteCommand) {
+      return DELETE;
+    } else if (command instanceof InsertCommand) {
+      return INSERT;
+    } else if (command instanceof VirtualKeepCommand) {
+      return VIRTUAL_KEEP;
+    }
+    throw new IllegalArgumentException("Only line diffs can be encoded");
+  }
+
+  private static int blockOf(final EditCommand command) {
+    if (command instanceof MovedDeleteCommand movedDeleteCommand) {
+      return movedDeleteCommand.getBlock();
+    } else if (command instanceof MovedInsertCommand movedInsertCommand) {
+      return movedInsertCommand.getBlock();
+    }
+    return 0;
+  }
+}
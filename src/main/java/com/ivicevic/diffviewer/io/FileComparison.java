@@ -0,0 +1,15 @@
+package com.ivicevic.diffviewer.io;
+
+import lombok.Value;
+
+@Value
+public class FileComparison {
+  long originalSize;
+  long modifiedSize;
+  // Offset of the first differing byte, or -1 if both files are identical.
+  long firstDifference;
+
+  public boolean isIdentical() {
+    return firstDifference == -1;
+  }
+}
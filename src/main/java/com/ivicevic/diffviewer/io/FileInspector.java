@@ -0,0 +1,90 @@
+package com.ivicevic.diffviewer.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Pre-checks files before they are loaded into an editor, so binary or huge files never go through
+ * the line diff, and compares such files byte by byte instead.
+ */
+public class FileInspector {
+  public static final long DEFAULT_MAX_TEXT_FILE_SIZE = 16L * 1024 * 1024;
+
+  private static final int SAMPLE_SIZE = 8192;
+  private static final long CHUNK_SIZE = 64L * 1024 * 1024;
+  // Share of control characters in the sample above which a file is considered binary.
+  private static final double MAX_CONTROL_CHARACTER_RATIO = 0.1;
+
+  public FileKind inspect(final Path path, final long maxTextFileSize) throws IOException {
+    if (isBinary(path)) {
+      return FileKind.BINARY;
+    }
+    return Files.size(path) > maxTextFileSize ? FileKind.TOO_LARGE : FileKind.TEXT;
+  }
+
+  /** Samples the header of a file for bytes that don't occur in text files. */
+  public boolean isBinary(final Path path) throws IOException {
+    final var sample = ByteBuffer.allocate(SAMPLE_SIZE);
+    try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      while (sample.hasRemaining()) {
+        if (channel.read(sample) == -1) {
+          break;
+        }
+      }
+    }
+    sample.flip();
+
+    // UTF-16 encoded text consists of NUL bytes to a large degree, so BOMs have to be honored.
+    if (sample.remaining() >= 2) {
+      final var first = sample.get(0) & 0xFF;
+      final var second = sample.get(1) & 0xFF;
+      if ((first == 0xFE && second == 0xFF) || (first == 0xFF && second == 0xFE)) {
+        return false;
+      }
+    }
+
+    var controlCharacters = 0;
+    for (var i = 0; i < sample.limit(); ++i) {
+      final var b = sample.get(i) & 0xFF;
+      if (b == 0) {
+        return true;
+      }
+      if (b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f' && b != 0x1B) {
+        ++controlCharacters;
+      }
+    }
+    return controlCharacters > sample.limit() * MAX_CONTROL_CHARACTER_RATIO;
+  }
+
+  /**
+   * Compares two files chunk by chunk over memory-mapped buffers. {@link ByteBuffer#mismatch} is
+   * vectorized by the JIT, so this is far cheaper than hashing both files and finds the first
+   * differing offset at the same time.
+   */
+  public FileComparison compare(final Path original, final Path modified) throws IOException {
+    try (final var originalChannel = FileChannel.open(original, StandardOpenOption.READ);
+        final var modifiedChannel = FileChannel.open(modified, StandardOpenOption.READ)) {
+      final var originalSize = originalChannel.size();
+      final var modifiedSize = modifiedChannel.size();
+      final var commonSize = Math.min(originalSize, modifiedSize);
+
+      for (var offset = 0L; offset < commonSize; offset += CHUNK_SIZE) {
+        final var length = Math.min(CHUNK_SIZE, commonSize - offset);
+        final var originalChunk = originalChannel.map(MapMode.READ_ONLY, offset, length);
+        final var modifiedChunk = modifiedChannel.map(MapMode.READ_ONLY, offset, length);
+        final var mismatch = originalChunk.mismatch(modifiedChunk);
+        if (mismatch != -1) {
+          return new FileComparison(originalSize, modifiedSize, offset + mismatch);
+        }
+      }
+
+      return new FileComparison(
+          originalSize, modifiedSize, originalSize == modifiedSize ? -1 : commonSize);
+    }
+  }
+}
@@ -0,0 +1,7 @@
+package com.ivicevic.diffviewer.io;
+
+public enum FileKind {
+  TEXT,
+  BINARY,
+  TOO_LARGE
+}
@@ -0,0 +1,16 @@
+package com.ivicevic.diffviewer.io;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum LineEnding {
+  NONE("none"),
+  LF("LF"),
+  CRLF("CRLF"),
+  CR("CR"),
+  MIXED("mixed");
+
+  private final String label;
+}
@@ -0,0 +1,169 @@
+package com.ivicevic.diffviewer.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decodes files into lines. The charset is taken from a byte order mark if there is one, otherwise
+ * UTF-8 is tried and ISO-8859-1 used as fallback. Lines are split at LF, CRLF and CR alike and cut
+ * straight out of the decoded buffer, so no intermediate Strings of the whole file are created.
+ *
+ * <p>Decoders and the char buffer are reused across calls, hence instances are not thread-safe.
+ * They are meant to be short-lived, e.g. one per comparison, so that the buffer of the largest file
+ * decoded is not kept around.
+ */
+public class TextDecoder {
+  private static final Charset UTF_32BE = Charset.forName("UTF-32BE");
+  private static final Charset UTF_32LE = Charset.forName("UTF-32LE");
+
+  private final Map<Charset, CharsetDecoder> decoders = new HashMap<>();
+  private CharBuffer chars = CharBuffer.allocate(0);
+
+  public DecodedText decode(final Path path) throws IOException {
+    try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return decode(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  public DecodedText decode(final ByteBuffer bytes) {
+    final var bomCharset = detectByteOrderMark(bytes);
+    if (bomCharset != null) {
+      return split(bomCharset, true, decodeLeniently(bomCharset, bytes));
+    }
+
+    try {
+      return split(StandardCharsets.UTF_8, false, decodeStrictly(StandardCharsets.UTF_8, bytes));
+    } catch (final CharacterCodingException e) {
+      // Every byte sequence is valid ISO-8859-1, so this never fails.
+      return split(
+          StandardCharsets.ISO_8859_1, false, decodeLeniently(StandardCharsets.ISO_8859_1, bytes));
+    }
+  }
+
+  /** Detects a byte order mark and advances the buffer past it. */
+  private static Charset detectByteOrderMark(final ByteBuffer bytes) {
+    final var start = bytes.position();
+    final var remaining = bytes.remaining();
+    final var b0 = remaining > 0 ? bytes.get(start) & 0xFF : -1;
+    final var b1 = remaining > 1 ? bytes.get(start + 1) & 0xFF : -1;
+    final var b2 = remaining > 2 ? bytes.get(start + 2) & 0xFF : -1;
+    final var b3 = remaining > 3 ? bytes.get(start + 3) & 0xFF : -1;
+
+    if (b0 == 0x00 && b1 == 0x00 && b2 == 0xFE && b3 == 0xFF) {
+      bytes.position(start + 4);
+      return UTF_32BE;
+    }
+    if (b0 == 0xFF && b1 == 0xFE && b2 == 0x00 && b3 == 0x00) {
+      bytes.position(start + 4);
+      return UTF_32LE;
+    }
+    if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) {
+      bytes.position(start + 3);
+      return StandardCharsets.UTF_8;
+    }
+    if (b0 == 0xFE && b1 == 0xFF) {
+      bytes.position(start + 2);
+      return StandardCharsets.UTF_16BE;
+    }
+    if (b0 == 0xFF && b1 == 0xFE) {
+      bytes.position(start + 2);
+      return StandardCharsets.UTF_16LE;
+    }
+    return null;
+  }
+
+  private CharBuffer decodeStrictly(final Charset charset, final ByteBuffer bytes)
+      throws CharacterCodingException {
+    return decode(charset, bytes.duplicate(), CodingErrorAction.REPORT);
+  }
+
+  private CharBuffer decodeLeniently(final Charset charset, final ByteBuffer bytes) {
+    try {
+      return decode(charset, bytes.duplicate(), CodingErrorAction.REPLACE);
+    } catch (final CharacterCodingException e) {
+      throw new IllegalStateException("Lenient decoding cannot fail", e);
+    }
+  }
+
+  private CharBuffer decode(
+      final Charset charset, final ByteBuffer bytes, final CodingErrorAction action)
+      throws CharacterCodingException {
+    final var decoder =
+        decoders
+            .computeIfAbsent(charset, Charset::newDecoder)
+            .reset()
+            .onMalformedInput(action)
+            .onUnmappableCharacter(action);
+
+    final var capacity = (int) Math.ceil(bytes.remaining() * (double) decoder.maxCharsPerByte());
+    if (chars.capacity() < capacity) {
+      chars = CharBuffer.allocate(capacity);
+    }
+    chars.clear();
+
+    var result = decoder.decode(bytes, chars, true);
+    if (result.isUnderflow()) {
+      result = decoder.flush(chars);
+    }
+    if (result.isError()) {
+      result.throwException();
+    }
+    return chars.flip();
+  }
+
+  private static DecodedText split(
+      final Charset charset, final boolean byteOrderMark, final CharBuffer chars) {
+    final var array = chars.array();
+    final var end = chars.limit();
+    final var lines = new ArrayList<String>();
+    var lf = 0;
+    var crlf = 0;
+    var cr = 0;
+    var start = 0;
+    var i = 0;
+    while (i < end) {
+      final var c = array[i];
+      if (c == '\n') {
+        ++lf;
+      } else if (c == '\r' && i + 1 < end && array[i + 1] == '\n') {
+        ++crlf;
+      } else if (c == '\r') {
+        ++cr;
+      } else {
+        ++i;
+        continue;
+      }
+
+      lines.add(new String(array, start, i - start));
+      i += c == '\r' && i + 1 < end && array[i + 1] == '\n' ? 2 : 1;
+      start = i;
+    }
+    if (start < end) {
+      lines.add(new String(array, start, end - start));
+    }
+
+    final LineEnding lineEnding;
+    final var kinds = (lf > 0 ? 1 : 0) + (crlf > 0 ? 1 : 0) + (cr > 0 ? 1 : 0);
+    if (kinds == 0) {
+      lineEnding = LineEnding.NONE;
+    } else if (kinds > 1) {
+      lineEnding = LineEnding.MIXED;
+    } else {
+      lineEnding = lf > 0 ? LineEnding.LF : crlf > 0 ? LineEnding.CRLF : LineEnding.CR;
+    }
+    return new DecodedText(charset, byteOrderMark, lineEnding, lines);
+  }
+}
@@ -0,0 +1,15 @@
+package com.ivicevic.diffviewer.merge;
+
+import lombok.Value;
+
+/** A region of a three-way merge. Lines are zero-based and all ranges are half-open. */
+@Value
+public class MergeChunk {
+  MergeChunkKind kind;
+  int baseStart;
+  int baseEnd;
+  int oursStart;
+  int oursEnd;
+  int theirsStart;
+  int theirsEnd;
+}
@@ -0,0 +1,10 @@
+package com.ivicevic.diffviewer.merge;
+
+public enum MergeChunkKind {
+  UNCHANGED,
+  OURS,
+  THEIRS,
+  // Both sides applied the identical change.
+  BOTH,
+  CONFLICT
+}
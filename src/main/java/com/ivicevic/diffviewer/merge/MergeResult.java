@@ -0,0 +1,16 @@
+package com.ivicevic.diffviewer.merge;
+
+import java.util.List;
+import lombok.Value;
+
+@Value
+public class MergeResult {
+  String[] base;
+  String[] ours;
+  String[] theirs;
+  List<MergeChunk> chunks;
+
+  public long getConflictCount() {
+    return chunks.stream().filter(chunk -> chunk.getKind() == MergeChunkKind.CONFLICT).count();
+  }
+}
@@ -0,0 +1,137 @@
+package com.ivicevic.diffviewer.merge;
+
+import com.ivicevic.diffviewer.algorithm.Diff;
+import com.ivicevic.diffviewer.algorithm.DiffAlgorithm;
+import com.ivicevic.diffviewer.algorithm.DiffMode;
+import com.ivicevic.diffviewer.algorithm.Hunk;
+import com.ivicevic.diffviewer.execution.TaskScope;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Classifies the changes of two descendants against their common base like diff3 does. Hunks of
+ * base→ours and base→theirs are intersected on base lines: regions touched by one side only merge
+ * cleanly, regions touched by both sides conflict unless both made the identical change.
+ */
+@RequiredArgsConstructor
+public class ThreeWayMerge {
+  private final DiffAlgorithm algorithm;
+
+  /** Computes both diffs concurrently as subtasks of the scope and classifies them. */
+  public MergeResult merge(
+      final String[] base, final String[] ours, final String[] theirs, final TaskScope scope)
+      throws InterruptedException, ExecutionException {
+    final var oursDiff = scope.fork(() -> algorithm.buildDiff(base, ours, DiffMode.LINES));
+    final var theirsDiff = scope.fork(() -> algorithm.buildDiff(base, theirs, DiffMode.LINES));
+    scope.join();
+    return merge(base, ours, theirs, oursDiff.resultNow(), theirsDiff.resultNow());
+  }
+
+  public MergeResult merge(
+      final String[] base,
+      final String[] ours,
+      final String[] theirs,
+      final Diff baseToOurs,
+      final Diff baseToTheirs) {
+    final var oursHunks = baseToOurs.getHunks();
+    final var theirsHunks = baseToTheirs.getHunks();
+    final var chunks = new ArrayList<MergeChunk>();
+
+    var oursIndex = 0;
+    var theirsIndex = 0;
+    // Line deltas of each side accumulated by all hunks before the current position.
+    var oursDelta = 0;
+    var theirsDelta = 0;
+    var baseLine = 0;
+
+    while (oursIndex < oursHunks.size() || theirsIndex < theirsHunks.size()) {
+      final var nextOurs = oursIndex < oursHunks.size() ? oursHunks.get(oursIndex) : null;
+      final var nextTheirs = theirsIndex < theirsHunks.size() ? theirsHunks.get(theirsIndex) : null;
+      final var regionStart =
+          Math.min(
+              nextOurs == null ? Integer.MAX_VALUE : nextOurs.getOriginalStart(),
+              nextTheirs == null ? Integer.MAX_VALUE : nextTheirs.getOriginalStart());
+
+      if (baseLine < regionStart) {
+        chunks.add(
+            new MergeChunk(
+                MergeChunkKind.UNCHANGED,
+                baseLine,
+                regionStart,
+                baseLine + oursDelta,
+                regionStart + oursDelta,
+                baseLine + theirsDelta,
+                regionStart + theirsDelta));
+      }
+
+      // Grow the region as long as hunks of either side overlap or touch it.
+      var regionEnd = regionStart;
+      var oursRegionDelta = 0;
+      var theirsRegionDelta = 0;
+      var touchedByOurs = false;
+      var touchedByTheirs = false;
+      var grown = true;
+      while (grown) {
+        grown = false;
+        if (oursIndex < oursHunks.size()
+            && oursHunks.get(oursIndex).getOriginalStart() <= regionEnd) {
+          final var hunk = oursHunks.get(oursIndex++);
+          regionEnd = Math.max(regionEnd, hunk.getOriginalEnd());
+          oursRegionDelta += getDelta(hunk);
+          touchedByOurs = true;
+          grown = true;
+        }
+        if (theirsIndex < theirsHunks.size()
+            && theirsHunks.get(theirsIndex).getOriginalStart() <= regionEnd) {
+          final var hunk = theirsHunks.get(theirsIndex++);
+          regionEnd = Math.max(regionEnd, hunk.getOriginalEnd());
+          theirsRegionDelta += getDelta(hunk);
+          touchedByTheirs = true;
+          grown = true;
+        }
+      }
+
+      final var oursStart = regionStart + oursDelta;
+      final var oursEnd = regionEnd + oursDelta + oursRegionDelta;
+      final var theirsStart = regionStart + theirsDelta;
+      final var theirsEnd = regionEnd + theirsDelta + theirsRegionDelta;
+      final MergeChunkKind kind;
+      if (touchedByOurs && touchedByTheirs) {
+        kind =
+            Arrays.equals(ours, oursStart, oursEnd, theirs, theirsStart, theirsEnd)
+                ? MergeChunkKind.BOTH
+                : MergeChunkKind.CONFLICT;
+      } else {
+        kind = touchedByOurs ? MergeChunkKind.OURS : MergeChunkKind.THEIRS;
+      }
+      chunks.add(
+          new MergeChunk(
+              kind, regionStart, regionEnd, oursStart, oursEnd, theirsStart, theirsEnd));
+
+      oursDelta += oursRegionDelta;
+      theirsDelta += theirsRegionDelta;
+      baseLine = regionEnd;
+    }
+
+    if (baseLine < base.length) {
+      chunks.add(
+          new MergeChunk(
+              MergeChunkKind.UNCHANGED,
+              baseLine,
+              base.length,
+              baseLine + oursDelta,
+              base.length + oursDelta,
+              baseLine + theirsDelta,
+              base.length + theirsDelta));
+    }
+    return new MergeResult(base, ours, theirs, List.copyOf(chunks));
+  }
+
+  private static int getDelta(final Hunk hunk) {
+    return (hunk.getModifiedEnd() - hunk.getModifiedStart())
+        - (hunk.getOriginalEnd() - hunk.getOriginalStart());
+  }
+}
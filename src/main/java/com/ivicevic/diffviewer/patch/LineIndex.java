@@ -0,0 +1,68 @@
+package com.ivicevic.diffviewer.patch;
+
+import com.ivicevic.diffviewer.algorithm.ComparisonKeys;
+import com.ivicevic.diffviewer.algorithm.ComparisonOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps line hashes of a document to the ascending positions of the lines with that hash, so hunks
+ * can be located by looking up their rarest line instead of scanning the whole document.
+ */
+class LineIndex {
+  private static final int[] NO_POSITIONS = new int[0];
+  private static final Set<ComparisonOption> OPTIONS =
+      Set.of(ComparisonOption.IGNORE_LINE_ENDINGS);
+
+  private final String[] lines;
+  private final int[] hashes;
+  private final Map<Integer, int[]> positions = new HashMap<>();
+
+  LineIndex(final String[] lines) {
+    this.lines = new String[lines.length];
+    this.hashes = new int[lines.length];
+    final var counts = new HashMap<Integer, Integer>();
+    for (var i = 0; i < lines.length; ++i) {
+      this.lines[i] = normalize(lines[i]);
+      hashes[i] = this.lines[i].hashCode();
+      counts.merge(hashes[i], 1, Integer::sum);
+    }
+
+    final var fill = new HashMap<Integer, Integer>();
+    for (var i = 0; i < lines.length; ++i) {
+      final var hash = hashes[i];
+      final var slots = positions.computeIfAbsent(hash, h -> new int[counts.get(h)]);
+      final int slot = fill.merge(hash, 1, Integer::sum) - 1;
+      slots[slot] = i;
+    }
+  }
+
+  int size() {
+    return lines.length;
+  }
+
+  /** Returns the positions of a line, which must have been normalized already. */
+  int[] getPositions(final String line) {
+    return positions.getOrDefault(line.hashCode(), NO_POSITIONS);
+  }
+
+  /** Checks whether a block of already normalized lines occurs at the given position. */
+  boolean matches(final int position, final List<String> block) {
+    if (position < 0 || position + block.size() > lines.length) {
+      return false;
+    }
+    for (var i = 0; i < block.size(); ++i) {
+      final var line = block.get(i);
+      if (hashes[position + i] != line.hashCode() || !lines[position + i].equals(line)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static String normalize(final String line) {
+    return ComparisonKeys.normalize(line, OPTIONS);
+  }
+}
@@ -0,0 +1,126 @@
+package com.ivicevic.diffviewer.patch;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+/**
+ * Applies unified diff hunks to a document. Hunks are located through a {@link LineIndex}, so they
+ * still apply if the document has shifted by an arbitrary offset. If the exact context cannot be
+ * found, up to {@code maxFuzz} context lines are dropped from both ends of the hunk, similar to
+ * the fuzz factor of GNU patch. Hunks that still cannot be located are reported as conflicts.
+ */
+@RequiredArgsConstructor
+public class PatchApplier {
+  public static final int DEFAULT_MAX_FUZZ = 2;
+
+  private final int maxFuzz;
+
+  public PatchApplier() {
+    this(DEFAULT_MAX_FUZZ);
+  }
+
+  public PatchResult apply(final String[] document, final List<PatchHunk> hunks) {
+    final var index = new LineIndex(document);
+    final var lines = new ArrayList<String>(document.length);
+    final var conflicts = new ArrayList<PatchConflict>();
+    var appliedHunks = 0;
+    // Offset by which previous hunks had to be moved, which is likely to apply to later ones too.
+    var offset = 0;
+    var consumed = 0;
+
+    for (var hunkIndex = 0; hunkIndex < hunks.size(); ++hunkIndex) {
+      final var hunk = hunks.get(hunkIndex);
+      final var expected = hunk.getOriginalStart() + offset;
+      Match match = null;
+      for (var fuzz = 0; fuzz <= maxFuzz && match == null; ++fuzz) {
+        match = locate(index, hunk, fuzz, expected, consumed);
+      }
+
+      if (match == null) {
+        final var line = Math.max(consumed, Math.min(expected, document.length));
+        conflicts.add(new PatchConflict(hunkIndex, line, hunk.getOriginalLines().size()));
+        continue;
+      }
+
+      for (var i = consumed; i < match.getPosition(); ++i) {
+        lines.add(document[i]);
+      }
+      lines.addAll(match.getReplacement());
+      consumed = match.getPosition() + match.getLength();
+      offset = match.getPosition() - match.getTrimmedLeading() - hunk.getOriginalStart();
+      ++appliedHunks;
+    }
+
+    for (var i = consumed; i < document.length; ++i) {
+      lines.add(document[i]);
+    }
+    return new PatchResult(lines, conflicts, appliedHunks);
+  }
+
+  private Match locate(
+      final LineIndex index,
+      final PatchHunk hunk,
+      final int fuzz,
+      final int expected,
+      final int minimum) {
+    final var originalLines = hunk.getOriginalLines();
+    final var modifiedLines = hunk.getModifiedLines();
+    final var leading = Math.min(fuzz, hunk.getLeadingContext());
+    final var trailing = Math.min(fuzz, hunk.getTrailingContext());
+    if (fuzz > 0 && leading == 0 && trailing == 0) {
+      return null;
+    }
+
+    final var block =
+        originalLines.subList(leading, originalLines.size() - trailing).stream()
+            .map(LineIndex::normalize)
+            .toList();
+    final var replacement = modifiedLines.subList(leading, modifiedLines.size() - trailing);
+    final var target = expected + leading;
+    if (block.isEmpty()) {
+      // Pure insertions without context can only rely on the expected position.
+      final var position = Math.max(minimum, Math.min(target, index.size()));
+      return new Match(position, 0, leading, replacement);
+    }
+
+    // Only candidates of the rarest line in the block need to be checked.
+    var anchor = 0;
+    var anchorPositions = index.getPositions(block.get(0));
+    for (var i = 1; i < block.size() && anchorPositions.length > 0; ++i) {
+      final var positions = index.getPositions(block.get(i));
+      if (positions.length < anchorPositions.length) {
+        anchor = i;
+        anchorPositions = positions;
+      }
+    }
+
+    var best = -1;
+    for (final var anchorPosition : anchorPositions) {
+      final var candidate = anchorPosition - anchor;
+      if (candidate < minimum) {
+        continue;
+      }
+      if (best != -1 && Math.abs(candidate - target) >= Math.abs(best - target)) {
+        // Positions are ascending, so candidates only get worse from here on.
+        if (candidate > target) {
+          break;
+        }
+        continue;
+      }
+      if (index.matches(candidate, block)) {
+        best = candidate;
+      }
+    }
+    return best == -1 ? null : new Match(best, block.size(), leading, replacement);
+  }
+
+  @Value
+  private static class Match {
+    int position;
+    int length;
+    int trimmedLeading;
+    List<String> replacement;
+  }
+}
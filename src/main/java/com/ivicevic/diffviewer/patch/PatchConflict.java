@@ -0,0 +1,11 @@
+package com.ivicevic.diffviewer.patch;
+
+import lombok.Value;
+
+/** A hunk that could not be applied, located at the zero-based lines where it was expected. */
+@Value
+public class PatchConflict {
+  int hunkIndex;
+  int line;
+  int length;
+}
@@ -0,0 +1,6 @@
+package com.ivicevic.diffviewer.patch;
+
+public enum PatchFormat {
+  UNIFIED,
+  CONTEXT
+}
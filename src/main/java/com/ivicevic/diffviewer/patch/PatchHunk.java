@@ -0,0 +1,17 @@
+package com.ivicevic.diffviewer.patch;
+
+import java.util.List;
+import lombok.Value;
+
+/**
+ * A single hunk of a unified diff. The original lines consist of context and deleted lines, the
+ * modified lines of context and inserted lines, both in patch order.
+ */
+@Value
+public class PatchHunk {
+  int originalStart;
+  List<String> originalLines;
+  List<String> modifiedLines;
+  int leadingContext;
+  int trailingContext;
+}
@@ -0,0 +1,85 @@
+package com.ivicevic.diffviewer.patch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/** Reads the hunks of a single-file unified diff. File headers and other noise are skipped. */
+public class PatchParser {
+  private static final Pattern HUNK_HEADER =
+      Pattern.compile("^@@ -(\\d+)(?:,(\\d+))? \\+(\\d+)(?:,(\\d+))? @@.*$");
+
+  public List<PatchHunk> parse(final Reader reader) throws IOException {
+    final var bufferedReader = new BufferedReader(reader);
+    final var hunks = new ArrayList<PatchHunk>();
+
+    var line = bufferedReader.readLine();
+    while (line != null) {
+      final var matcher = HUNK_HEADER.matcher(line);
+      if (!matcher.matches()) {
+        line = bufferedReader.readLine();
+        continue;
+      }
+
+      final var originalStart = Integer.parseInt(matcher.group(1));
+      var originalRemaining = matcher.group(2) == null ? 1 : Integer.parseInt(matcher.group(2));
+      var modifiedRemaining = matcher.group(4) == null ? 1 : Integer.parseInt(matcher.group(4));
+      final var originalLines = new ArrayList<String>();
+      final var modifiedLines = new ArrayList<String>();
+      var leadingContext = 0;
+      var trailingContext = 0;
+      var changed = false;
+
+      while ((originalRemaining > 0 || modifiedRemaining > 0)
+          && (line = bufferedReader.readLine()) != null) {
+        // Some tools strip the single space prefix of empty context lines.
+        final var prefix = line.isEmpty() ? ' ' : line.charAt(0);
+        final var text = line.isEmpty() ? "" : line.substring(1);
+        switch (prefix) {
+          case ' ' -> {
+            originalLines.add(text);
+            modifiedLines.add(text);
+            --originalRemaining;
+            --modifiedRemaining;
+            if (changed) {
+              ++trailingContext;
+            } else {
+              ++leadingContext;
+            }
+          }
+          case '-' -> {
+            originalLines.add(text);
+            --originalRemaining;
+            changed = true;
+            trailingContext = 0;
+          }
+          case '+' -> {
+            modifiedLines.add(text);
+            --modifiedRemaining;
+            changed = true;
+            trailingContext = 0;
+          }
+          case '\\' -> {
+            // "\ No newline at end of file" has no effect on the lines themselves.
+          }
+          default -> throw new IOException("Malformed hunk line: " + line);
+        }
+      }
+
+      // Empty ranges refer to the line preceding the change.
+      final var originalLength = originalLines.size();
+      hunks.add(
+          new PatchHunk(
+              originalLength == 0 ? originalStart : originalStart - 1,
+              originalLines,
+              modifiedLines,
+              changed ? leadingContext : originalLength,
+              changed ? trailingContext : 0));
+      line = bufferedReader.readLine();
+    }
+    return hunks;
+  }
+}
@@ -0,0 +1,11 @@
+package com.ivicevic.diffviewer.patch;
+
+import java.util.List;
+import lombok.Value;
+
+@Value
+public class PatchResult {
+  List<String> lines;
+  List<PatchConflict> conflicts;
+  int appliedHunks;
+}
@@ -0,0 +1,243 @@
+package com.ivicevic.diffviewer.patch;
+
+import com.ivicevic.diffviewer.algorithm.Diff;
+import com.ivicevic.diffviewer.algorithm.Hunk;
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.KeepCommand;
+import com.ivicevic.diffviewer.algorithm.commands.VirtualKeepCommand;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Writes a line diff as unified or context patch. Only the hunk boundaries are computed upfront,
+ * the lines themselves are streamed straight from the edit scripts into the writer, so memory stays
+ * flat regardless of the size of the patch.
+ */
+@RequiredArgsConstructor
+public class PatchWriter {
+  public static final int DEFAULT_CONTEXT_LINES = 3;
+
+  private final PatchFormat format;
+  private final int contextLines;
+
+  public PatchWriter(final PatchFormat format) {
+    this(format, DEFAULT_CONTEXT_LINES);
+  }
+
+  public void write(
+      final Diff diff,
+      final String originalLabel,
+      final String modifiedLabel,
+      final FileChannel channel)
+      throws IOException {
+    final var writer = Channels.newWriter(channel, StandardCharsets.UTF_8);
+    write(diff, originalLabel, modifiedLabel, writer);
+    writer.flush();
+  }
+
+  public void write(
+      final Diff diff, final String originalLabel, final String modifiedLabel, final Writer writer)
+      throws IOException {
+    final var groups = groupHunks(diff.getHunks(), diff.getOriginal().size());
+    if (groups.isEmpty()) {
+      return;
+    }
+
+    if (format == PatchFormat.UNIFIED) {
+      writeLine(writer, "--- ", originalLabel);
+      writeLine(writer, "+++ ", modifiedLabel);
+    } else {
+      writeLine(writer, "*** ", originalLabel);
+      writeLine(writer, "--- ", modifiedLabel);
+    }
+
+    for (final var group : groups) {
+      if (format == PatchFormat.UNIFIED) {
+        writeUnifiedHunk(diff, group, writer);
+      } else {
+        writeContextHunk(diff, group, writer);
+      }
+    }
+  }
+
+  /** Merges hunks whose context would overlap and extends them by the surrounding context. */
+  private List<Hunk> groupHunks(final List<Hunk> hunks, final int rows) {
+    final var groups = new ArrayList<Hunk>();
+    Hunk first = null;
+    Hunk last = null;
+    for (final var hunk : hunks) {
+      if (last != null && hunk.getRowStart() - last.getRowEnd() > 2 * contextLines) {
+        groups.add(withContext(first, last, rows));
+        first = null;
+      }
+      if (first == null) {
+        first = hunk;
+      }
+      last = hunk;
+    }
+    if (first != null) {
+      groups.add(withContext(first, last, rows));
+    }
+    return groups;
+  }
+
+  private Hunk withContext(final Hunk first, final Hunk last, final int rows) {
+    // Rows between hunks are unchanged on both sides, so rows and lines advance in lockstep there.
+    final var leading = Math.min(contextLines, first.getRowStart());
+    final var trailing = Math.min(contextLines, rows - last.getRowEnd());
+    return new Hunk(
+        first.getRowStart() - leading,
+        last.getRowEnd() + trailing,
+        first.getOriginalStart() - leading,
+        last.getOriginalEnd() + trailing,
+        first.getModifiedStart() - leading,
+        last.getModifiedEnd() + trailing);
+  }
+
+  private void writeUnifiedHunk(final Diff diff, final Hunk group, final Writer writer)
+      throws IOException {
+    writer.write("@@ -");
+    writer.write(formatUnifiedRange(group.getOriginalStart(), group.getOriginalEnd()));
+    writer.write(" +");
+    writer.write(formatUnifiedRange(group.getModifiedStart(), group.getModifiedEnd()));
+    writer.write(" @@\n");
+
+    final var original = diff.getOriginal();
+    final var modified = diff.getModified();
+    var row = group.getRowStart();
+    while (row < group.getRowEnd()) {
+      final var changeEnd = findChangeEnd(diff, row, group.getRowEnd());
+      if (changeEnd == row) {
+        writeLine(writer, " ", original.get(row).getText());
+        ++row;
+        continue;
+      }
+      writeSide(writer, "-", original, row, changeEnd);
+      writeSide(writer, "+", modified, row, changeEnd);
+      row = changeEnd;
+    }
+  }
+
+  private void writeContextHunk(final Diff diff, final Hunk group, final Writer writer)
+      throws IOException {
+    writer.write("***************\n");
+    writer.write("*** ");
+    writer.write(formatContextRange(group.getOriginalStart(), group.getOriginalEnd()));
+    writer.write(" ****\n");
+    writeContextSide(diff, group, diff.getOriginal(), diff.getModified(), "- ", writer);
+    writer.write("--- ");
+    writer.write(formatContextRange(group.getModifiedStart(), group.getModifiedEnd()));
+    writer.write(" ----\n");
+    writeContextSide(diff, group, diff.getModified(), diff.getOriginal(), "+ ", writer);
+  }
+
+  private void writeContextSide(
+      final Diff diff,
+      final Hunk group,
+      final List<EditCommand> side,
+      final List<EditCommand> otherSide,
+      final String changePrefix,
+      final Writer writer)
+      throws IOException {
+    // A side without any changes in this hunk is omitted entirely.
+    if (!hasLines(side, group.getRowStart(), group.getRowEnd(), diff)) {
+      return;
+    }
+
+    var row = group.getRowStart();
+    while (row < group.getRowEnd()) {
+      final var changeEnd = findChangeEnd(diff, row, group.getRowEnd());
+      if (changeEnd == row) {
+        writeLine(writer, "  ", side.get(row).getText());
+        ++row;
+        continue;
+      }
+      final var prefix =
+          countLines(otherSide, row, changeEnd) > 0 && countLines(side, row, changeEnd) > 0
+              ? "! "
+              : changePrefix;
+      writeSide(writer, prefix, side, row, changeEnd);
+      row = changeEnd;
+    }
+  }
+
+  private boolean hasLines(
+      final List<EditCommand> side, final int rowStart, final int rowEnd, final Diff diff) {
+    var row = rowStart;
+    while (row < rowEnd) {
+      final var changeEnd = findChangeEnd(diff, row, rowEnd);
+      if (changeEnd == row) {
+        ++row;
+      } else {
+        if (countLines(side, row, changeEnd) > 0) {
+          return true;
+        }
+        row = changeEnd;
+      }
+    }
+    return false;
+  }
+
+  private int findChangeEnd(final Diff diff, final int rowStart, final int rowEnd) {
+    final var original = diff.getOriginal();
+    final var modified = diff.getModified();
+    var row = rowStart;
+    while (row < rowEnd
+        && !(original.get(row) instanceof KeepCommand && modified.get(row) instanceof KeepCommand)) {
+      ++row;
+    }
+    return row;
+  }
+
+  private static int countLines(final List<EditCommand> side, final int rowStart, final int rowEnd) {
+    var count = 0;
+    for (var row = rowStart; row < rowEnd; ++row) {
+      if (!(side.get(row) instanceof VirtualKeepCommand)) {
+        ++count;
+      }
+    }
+    return count;
+  }
+
+  private static void writeSide(
+      final Writer writer,
+      final String prefix,
+      final List<EditCommand> side,
+      final int rowStart,
+      final int rowEnd)
+      throws IOException {
+    for (var row = rowStart; row < rowEnd; ++row) {
+      final var command = side.get(row);
+      if (!(command instanceof VirtualKeepCommand)) {
+        writeLine(writer, prefix, command.getText());
+      }
+    }
+  }
+
+  private static void writeLine(final Writer writer, final String prefix, final String text)
+      throws IOException {
+    writer.write(prefix);
+    writer.write(text);
+    writer.write('\n');
+  }
+
+  private static String formatUnifiedRange(final int start, final int end) {
+    final var count = end - start;
+    // Empty ranges refer to the line preceding the change.
+    final var first = count == 0 ? start : start + 1;
+    return count == 1 ? String.valueOf(first) : first + "," + count;
+  }
+
+  private static String formatContextRange(final int start, final int end) {
+    if (end - start == 0) {
+      return String.valueOf(start);
+    }
+    return end - start == 1 ? String.valueOf(end) : (start + 1) + "," + end;
+  }
+}
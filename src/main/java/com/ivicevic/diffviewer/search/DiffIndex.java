@@ -0,0 +1,165 @@
+package com.ivicevic.diffviewer.search;
+
+import com.ivicevic.diffviewer.algorithm.Diff;
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.search.SearchMatch.Side;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Searchable copy of both sides of a diff, with all rows joined by newlines into a single array
+ * per side. Row start offsets map matches back to rows and the row ranges of all hunks restrict
+ * searches to changed rows without scanning the rest.
+ */
+public class DiffIndex {
+  private final SideIndex original;
+  private final SideIndex modified;
+  // Pairs of start and end rows of all hunks.
+  private final int[] changedRanges;
+
+  private DiffIndex(final SideIndex original, final SideIndex modified, final int[] ranges) {
+    this.original = original;
+    this.modified = modified;
+    this.changedRanges = ranges;
+  }
+
+  public static DiffIndex of(final Diff diff) {
+    final var hunks = diff.getHunks();
+    final var changedRanges = new int[2 * hunks.size()];
+    for (var i = 0; i < hunks.size(); ++i) {
+      changedRanges[2 * i] = hunks.get(i).getRowStart();
+      changedRanges[2 * i + 1] = hunks.get(i).getRowEnd();
+    }
+    return new DiffIndex(
+        SideIndex.of(Side.ORIGINAL, diff.getOriginal()),
+        SideIndex.of(Side.MODIFIED, diff.getModified()),
+        changedRanges);
+  }
+
+  /**
+   * Passes all matches of the query to the consumer, first of the original side and then of the
+   * modified one, until the consumer returns false.
+   *
+   * @return the number of matches passed to the consumer
+   */
+  public int search(final SearchQuery query, final Predicate<SearchMatch> consumer) {
+    // Rows never contain newlines, so neither can a match.
+    if (query.getText().isEmpty() || query.getText().indexOf('\n') != -1) {
+      return 0;
+    }
+    final var pattern =
+        query.isMatchCase() ? query.getText() : new String(fold(query.getText().toCharArray()));
+    final var counter = new int[1];
+    final Predicate<SearchMatch> counting =
+        match -> {
+          ++counter[0];
+          return consumer.test(match);
+        };
+    if (original.search(pattern, query, changedRanges, counting)) {
+      modified.search(pattern, query, changedRanges, counting);
+    }
+    return counter[0];
+  }
+
+  /** Folds the case of the chars in place, which unlike String#toLowerCase keeps the length. */
+  private static char[] fold(final char[] chars) {
+    for (var i = 0; i < chars.length; ++i) {
+      chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+    }
+    return chars;
+  }
+
+  private static class SideIndex {
+    private final Side side;
+    private final char[] text;
+    private final int[] rowStarts;
+    // Case-folded copy of the text, only created by the first search ignoring case.
+    private volatile char[] foldedText;
+
+    private SideIndex(final Side side, final char[] text, final int[] rowStarts) {
+      this.side = side;
+      this.text = text;
+      this.rowStarts = rowStarts;
+    }
+
+    private static SideIndex of(final Side side, final List<EditCommand> script) {
+      final var rowStarts = new int[script.size() + 1];
+      var length = 0;
+      for (var row = 0; row < script.size(); ++row) {
+        rowStarts[row] = length;
+        length += script.get(row).getText().length() + 1;
+      }
+      rowStarts[script.size()] = length;
+
+      final var text = new char[length];
+      for (var row = 0; row < script.size(); ++row) {
+        final var line = script.get(row).getText();
+        line.getChars(0, line.length(), text, rowStarts[row]);
+        text[rowStarts[row + 1] - 1] = '\n';
+      }
+      return new SideIndex(side, text, rowStarts);
+    }
+
+    /** Returns false if the consumer stopped the search. */
+    private boolean search(
+        final String pattern,
+        final SearchQuery query,
+        final int[] changedRanges,
+        final Predicate<SearchMatch> consumer) {
+      final var haystack = query.isMatchCase() ? text : folded();
+      if (!query.isChangedOnly()) {
+        return search(haystack, pattern, 0, rowStarts.length - 1, consumer);
+      }
+      for (var i = 0; i < changedRanges.length; i += 2) {
+        if (!search(haystack, pattern, changedRanges[i], changedRanges[i + 1], consumer)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean search(
+        final char[] haystack,
+        final String pattern,
+        final int rowStart,
+        final int rowEnd,
+        final Predicate<SearchMatch> consumer) {
+      final var first = pattern.charAt(0);
+      final var last = rowStarts[rowEnd] - pattern.length();
+      var row = rowStart;
+      for (var offset = rowStarts[rowStart]; offset <= last; ++offset) {
+        if (haystack[offset] != first || !matchesAt(haystack, pattern, offset)) {
+          continue;
+        }
+        while (rowStarts[row + 1] <= offset) {
+          ++row;
+        }
+        final var column = offset - rowStarts[row];
+        if (!consumer.test(new SearchMatch(side, row, column, column + pattern.length()))) {
+          return false;
+        }
+        // Matches don't overlap.
+        offset += pattern.length() - 1;
+      }
+      return true;
+    }
+
+    private static boolean matchesAt(final char[] haystack, final String pattern, final int at) {
+      for (var i = 1; i < pattern.length(); ++i) {
+        if (haystack[at + i] != pattern.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private char[] folded() {
+      var result = foldedText;
+      if (result == null) {
+        result = fold(text.clone());
+        foldedText = result;
+      }
+      return result;
+    }
+  }
+}
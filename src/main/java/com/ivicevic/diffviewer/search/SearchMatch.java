@@ -0,0 +1,17 @@
+package com.ivicevic.diffviewer.search;
+
+import lombok.Value;
+
+/** A match in a row of one of the panes, between two columns of which the end is exclusive. */
+@Value
+public class SearchMatch {
+  Side side;
+  int row;
+  int start;
+  int end;
+
+  public enum Side {
+    ORIGINAL,
+    MODIFIED
+  }
+}
@@ -0,0 +1,11 @@
+package com.ivicevic.diffviewer.search;
+
+import lombok.Value;
+
+@Value
+public class SearchQuery {
+  String text;
+  boolean matchCase;
+  // Restricts the search to rows of changed hunks.
+  boolean changedOnly;
+}
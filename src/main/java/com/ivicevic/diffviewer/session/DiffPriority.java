@@ -0,0 +1,8 @@
+package com.ivicevic.diffviewer.session;
+
+/** Scheduling priority of diffs in a session, in descending order of urgency. */
+public enum DiffPriority {
+  VISIBLE,
+  PREFETCH,
+  BACKGROUND
+}
@@ -0,0 +1,65 @@
+package com.ivicevic.diffviewer.session;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Value;
+
+/**
+ * Bounded executor shared by all diffs of a session. Queued tasks run by priority and in submission
+ * order within the same priority, so the visible diff overtakes prefetching.
+ */
+public class DiffScheduler {
+  private final AtomicLong sequence = new AtomicLong();
+  private final ThreadPoolExecutor executor;
+
+  public DiffScheduler() {
+    this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+  }
+
+  public DiffScheduler(final int threads) {
+    final var threadCount = new AtomicInteger();
+    executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            30,
+            TimeUnit.SECONDS,
+            new PriorityBlockingQueue<>(),
+            runnable -> {
+              final var thread =
+                  new Thread(runnable, "diff-scheduler-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  public void execute(final Runnable task, final DiffPriority priority) {
+    executor.execute(new PrioritizedTask(task, priority, sequence.getAndIncrement()));
+  }
+
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Value
+  private static class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+    Runnable task;
+    DiffPriority priority;
+    long sequence;
+
+    @Override
+    public void run() {
+      task.run();
+    }
+
+    @Override
+    public int compareTo(final PrioritizedTask other) {
+      final var result = priority.compareTo(other.priority);
+      return result != 0 ? result : Long.compare(sequence, other.sequence);
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package com.ivicevic.diffviewer.session;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import lombok.Value;
+
+/** A pair of files to compare, either side is null if the file only exists on the other side. */
+@Value
+public class FilePair {
+  String name;
+  Path original;
+  Path modified;
+
+  /** Pairs all regular files of both directory trees by their relative paths. */
+  public static List<FilePair> ofDirectories(
+      final Path originalDirectory, final Path modifiedDirectory) throws IOException {
+    final var names = new TreeSet<String>();
+    names.addAll(listFiles(originalDirectory));
+    names.addAll(listFiles(modifiedDirectory));
+
+    final var pairs = new ArrayList<FilePair>(names.size());
+    for (final var name : names) {
+      final var original = originalDirectory.resolve(name);
+      final var modified = modifiedDirectory.resolve(name);
+      pairs.add(
+          new FilePair(
+              name,
+              Files.isRegularFile(original) ? original : null,
+              Files.isRegularFile(modified) ? modified : null));
+    }
+    return pairs;
+  }
+
+  private static List<String> listFiles(final Path directory) throws IOException {
+    try (final Stream<Path> paths = Files.walk(directory)) {
+      return paths
+          .filter(Files::isRegularFile)
+          .map(path -> directory.relativize(path).toString().replace('\\', '/'))
+          .toList();
+    }
+  }
+}
@@ -0,0 +1,237 @@
+package com.ivicevic.diffviewer.session;
+
+import com.ivicevic.diffviewer.algorithm.Diff;
+import com.ivicevic.diffviewer.io.DecodedText;
+import com.ivicevic.diffviewer.io.DiffEncoding;
+import com.ivicevic.diffviewer.io.FileInspector;
+import com.ivicevic.diffviewer.io.FileKind;
+import com.ivicevic.diffviewer.io.LineEnding;
+import com.ivicevic.diffviewer.io.TextDecoder;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.Getter;
+import lombok.Value;
+
+/**
+ * Many file pairs compared as one changeset. Text files are compared by the given {@link Comparer}
+ * on a shared {@link DiffScheduler}, the opened entry first and its successors prefetched. Only a
+ * few documents are kept in memory, hidden ones are evicted but retain their diff in the compact
+ * {@link DiffEncoding}, so reopening them only has to decode the files again.
+ */
+public class Session {
+  public static final int DEFAULT_MAX_DOCUMENTS = 8;
+  public static final int DEFAULT_PREFETCH = 2;
+
+  private static final DecodedText MISSING =
+      new DecodedText(StandardCharsets.UTF_8, false, LineEnding.NONE, List.of());
+
+  @Getter private final List<FilePair> pairs;
+  private final Comparer comparer;
+  private final DiffScheduler scheduler;
+  private final FileInspector fileInspector = new FileInspector();
+  private final long maxTextFileSize;
+  private final int prefetch;
+
+  private final CompactDiff[] compactDiffs;
+  private final Computation[] computations;
+  private final Map<Integer, SessionDocument> documents;
+  // Guarded by the session.
+  private boolean closed = false;
+
+  public Session(
+      final List<FilePair> pairs,
+      final Comparer comparer,
+      final DiffScheduler scheduler,
+      final long maxTextFileSize) {
+    this(pairs, comparer, scheduler, maxTextFileSize, DEFAULT_MAX_DOCUMENTS, DEFAULT_PREFETCH);
+  }
+
+  public Session(
+      final List<FilePair> pairs,
+      final Comparer comparer,
+      final DiffScheduler scheduler,
+      final long maxTextFileSize,
+      final int maxDocuments,
+      final int prefetch) {
+    this.pairs = List.copyOf(pairs);
+    this.comparer = comparer;
+    this.scheduler = scheduler;
+    this.maxTextFileSize = maxTextFileSize;
+    this.prefetch = prefetch;
+    compactDiffs = new CompactDiff[pairs.size()];
+    computations = new Computation[pairs.size()];
+    documents =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(final Map.Entry<Integer, SessionDocument> eldest) {
+            return size() > maxDocuments;
+          }
+        };
+  }
+
+  /** Returns the document of the given entry, computing it with priority and prefetching. */
+  public CompletableFuture<SessionDocument> open(final int index) {
+    final CompletableFuture<SessionDocument> document;
+    synchronized (this) {
+      document = schedule(index, DiffPriority.VISIBLE);
+      for (var i = index + 1; i <= index + prefetch && i < pairs.size(); ++i) {
+        schedule(i, DiffPriority.PREFETCH);
+      }
+    }
+    return document;
+  }
+
+  /** Returns whether the diff of the given entry has already been computed. */
+  public synchronized boolean isComputed(final int index) {
+    return compactDiffs[index] != null || documents.containsKey(index);
+  }
+
+  /**
+   * Drops the computations that have not started yet, e.g. after the comparison settings changed.
+   * Their documents complete as cancelled, running ones finish but are not shown anymore.
+   */
+  public synchronized void close() {
+    closed = true;
+    for (final var computation : computations) {
+      if (computation != null && computation.claimed.compareAndSet(false, true)) {
+        computation.getResult().cancel(false);
+      }
+    }
+  }
+
+  private CompletableFuture<SessionDocument> schedule(
+      final int index, final DiffPriority priority) {
+    final var document = documents.get(index);
+    if (document != null) {
+      return CompletableFuture.completedFuture(document);
+    }
+    if (closed) {
+      return CompletableFuture.failedFuture(new IllegalStateException("The session is closed."));
+    }
+
+    var computation = computations[index];
+    // A finished computation whose document has been evicted since has to run again.
+    if (computation == null || computation.getResult().isDone()) {
+      computation = new Computation(index);
+      computation.priority = priority;
+      computations[index] = computation;
+      scheduler.execute(computation, priority);
+    } else if (priority.compareTo(computation.priority) < 0) {
+      // Queued tasks can't be reordered, so a second task is queued that claims the same work.
+      computation.priority = priority;
+      scheduler.execute(computation, priority);
+    }
+    return computation.getResult();
+  }
+
+  private SessionDocument load(final int index) throws IOException {
+    final var pair = pairs.get(index);
+    final var textDecoder = new TextDecoder();
+    final var originalKind = inspect(pair.getOriginal());
+    final var modifiedKind = inspect(pair.getModified());
+    if (originalKind != FileKind.TEXT || modifiedKind != FileKind.TEXT) {
+      return new SessionDocument(
+          pair, originalKind, modifiedKind, null, null, null, null, null, null);
+    }
+
+    final var original = decode(textDecoder, pair.getOriginal());
+    final var modified = decode(textDecoder, pair.getModified());
+    final CompactDiff compactDiff;
+    synchronized (this) {
+      compactDiff = compactDiffs[index];
+    }
+
+    final Comparison comparison;
+    if (compactDiff != null) {
+      comparison =
+          new Comparison(
+              DiffEncoding.decode(
+                  compactDiff.getDiff().duplicate(),
+                  original.getLines().toArray(String[]::new),
+                  modified.getLines().toArray(String[]::new)),
+              compactDiff.getStatus());
+    } else {
+      comparison = comparer.compare(pair, original, modified);
+      final var encoded = DiffEncoding.encode(comparison.getDiff());
+      synchronized (this) {
+        compactDiffs[index] = new CompactDiff(encoded, comparison.getStatus());
+      }
+    }
+    return new SessionDocument(
+        pair,
+        originalKind,
+        modifiedKind,
+        original.getLines(),
+        modified.getLines(),
+        original.getLineEnding(),
+        modified.getLineEnding(),
+        comparison.getDiff(),
+        comparison.getStatus());
+  }
+
+  private FileKind inspect(final Path path) throws IOException {
+    return path == null ? FileKind.TEXT : fileInspector.inspect(path, maxTextFileSize);
+  }
+
+  private static DecodedText decode(final TextDecoder textDecoder, final Path path)
+      throws IOException {
+    return path == null ? MISSING : textDecoder.decode(path);
+  }
+
+  /** Compares the decoded texts of an entry, a missing file is given as empty text. */
+  @FunctionalInterface
+  public interface Comparer {
+    Comparison compare(FilePair pair, DecodedText original, DecodedText modified)
+        throws IOException;
+  }
+
+  @Value
+  public static class Comparison {
+    Diff diff;
+    String status;
+  }
+
+  @Value
+  private static class CompactDiff {
+    ByteBuffer diff;
+    String status;
+  }
+
+  private class Computation implements Runnable {
+    private final int index;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    @Getter private final CompletableFuture<SessionDocument> result = new CompletableFuture<>();
+    // Guarded by the session.
+    private DiffPriority priority = DiffPriority.BACKGROUND;
+
+    Computation(final int index) {
+      this.index = index;
+    }
+
+    @Override
+    public void run() {
+      if (!claimed.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        final var document = load(index);
+        synchronized (Session.this) {
+          documents.put(index, document);
+        }
+        result.complete(document);
+      } catch (final IOException e) {
+        result.completeExceptionally(new UncheckedIOException(e));
+      } catch (final RuntimeException e) {
+        result.completeExceptionally(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.ivicevic.diffviewer.session;
+
+import com.ivicevic.diffviewer.algorithm.Diff;
+import com.ivicevic.diffviewer.io.FileKind;
+import com.ivicevic.diffviewer.io.LineEnding;
+import java.util.List;
+import lombok.Value;
+
+/** A fully loaded entry of a session, ready to be shown in the editors. */
+@Value
+public class SessionDocument {
+  FilePair pair;
+  FileKind originalKind;
+  FileKind modifiedKind;
+  // Lines, line endings, diff and status are null unless both sides are text files.
+  List<String> originalLines;
+  List<String> modifiedLines;
+  LineEnding originalLineEnding;
+  LineEnding modifiedLineEnding;
+  Diff diff;
+  String status;
+}
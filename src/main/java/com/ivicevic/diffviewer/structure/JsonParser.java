@@ -0,0 +1,170 @@
+package com.ivicevic.diffviewer.structure;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+
+/** Recursive descent parser for JSON that records the lines of all values. */
+public class JsonParser {
+  private String text;
+  private int position;
+  private int line;
+
+  public StructureNode parse(final String text) throws ParseException {
+    this.text = text;
+    position = 0;
+    line = 0;
+    final var root = parseValue("");
+    skipWhitespace();
+    if (position < text.length()) {
+      throw error("Unexpected trailing content");
+    }
+    return root;
+  }
+
+  private StructureNode parseValue(final String key) throws ParseException {
+    skipWhitespace();
+    if (position >= text.length()) {
+      throw error("Unexpected end of input");
+    }
+
+    final var startLine = line;
+    return switch (text.charAt(position)) {
+      case '{' -> parseObject(key, startLine);
+      case '[' -> parseArray(key, startLine);
+      case '"' -> StructureNode.scalar(key, parseString(), startLine, line);
+      default -> StructureNode.scalar(key, parseLiteral(), startLine, line);
+    };
+  }
+
+  private StructureNode parseObject(final String key, final int startLine)
+      throws ParseException {
+    ++position;
+    final var members = new ArrayList<StructureNode>();
+    skipWhitespace();
+    if (peek() == '}') {
+      ++position;
+      return StructureNode.keyed(key, members, startLine, line);
+    }
+
+    while (true) {
+      skipWhitespace();
+      if (peek() != '"') {
+        throw error("Expected member name");
+      }
+      final var memberLine = line;
+      final var name = parseString();
+      skipWhitespace();
+      expect(':');
+      // Members start at their name, which may be on another line than the value.
+      members.add(parseValue(name).withStartLine(memberLine));
+      skipWhitespace();
+      if (peek() == ',') {
+        ++position;
+      } else {
+        expect('}');
+        return StructureNode.keyed(key, members, startLine, line);
+      }
+    }
+  }
+
+  private StructureNode parseArray(final String key, final int startLine) throws ParseException {
+    ++position;
+    final var elements = new ArrayList<StructureNode>();
+    skipWhitespace();
+    if (peek() == ']') {
+      ++position;
+      return StructureNode.ordered(key, elements, startLine, line);
+    }
+
+    while (true) {
+      elements.add(parseValue(""));
+      skipWhitespace();
+      if (peek() == ',') {
+        ++position;
+      } else {
+        expect(']');
+        return StructureNode.ordered(key, elements, startLine, line);
+      }
+    }
+  }
+
+  private String parseString() throws ParseException {
+    ++position;
+    final var sb = new StringBuilder();
+    while (position < text.length()) {
+      final var c = text.charAt(position++);
+      if (c == '"') {
+        return sb.toString();
+      }
+      if (c == '\n') {
+        throw error("Unterminated string");
+      }
+      if (c != '\\') {
+        sb.append(c);
+        continue;
+      }
+      if (position >= text.length()) {
+        break;
+      }
+      final var escaped = text.charAt(position++);
+      switch (escaped) {
+        case 'b' -> sb.append('\b');
+        case 'f' -> sb.append('\f');
+        case 'n' -> sb.append('\n');
+        case 'r' -> sb.append('\r');
+        case 't' -> sb.append('\t');
+        case 'u' -> {
+          if (position + 4 > text.length()) {
+            throw error("Invalid unicode escape");
+          }
+          try {
+            sb.append((char) Integer.parseInt(text, position, position + 4, 16));
+          } catch (final NumberFormatException e) {
+            throw error("Invalid unicode escape");
+          }
+          position += 4;
+        }
+        default -> sb.append(escaped);
+      }
+    }
+    throw error("Unterminated string");
+  }
+
+  private String parseLiteral() throws ParseException {
+    final var start = position;
+    while (position < text.length() && "{}[],: \t\r\n".indexOf(text.charAt(position)) < 0) {
+      ++position;
+    }
+    if (start == position) {
+      throw error("Unexpected character '" + text.charAt(position) + "'");
+    }
+    return text.substring(start, position);
+  }
+
+  private void skipWhitespace() {
+    while (position < text.length()) {
+      final var c = text.charAt(position);
+      if (c == '\n') {
+        ++line;
+      } else if (c != ' ' && c != '\t' && c != '\r') {
+        return;
+      }
+      ++position;
+    }
+  }
+
+  private char peek() {
+    return position < text.length() ? text.charAt(position) : '\0';
+  }
+
+  private void expect(final char c) throws ParseException {
+    if (peek() != c) {
+      throw error("Expected '" + c + "'");
+    }
+    ++position;
+  }
+
+  private ParseException error(final String message) {
+    return new ParseException(message + " in line " + (line + 1), position);
+  }
+}
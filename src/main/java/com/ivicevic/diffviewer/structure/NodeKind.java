@@ -0,0 +1,9 @@
+package com.ivicevic.diffviewer.structure;
+
+public enum NodeKind {
+  SCALAR,
+  // Children are identified by their keys, their order is irrelevant, e.g. JSON objects.
+  KEYED,
+  // Children are identified by their position, e.g. JSON arrays or XML content.
+  ORDERED
+}
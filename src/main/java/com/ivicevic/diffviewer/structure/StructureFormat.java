@@ -0,0 +1,35 @@
+package com.ivicevic.diffviewer.structure;
+
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.Locale;
+import java.util.Optional;
+
+public enum StructureFormat {
+  JSON,
+  XML,
+  YAML;
+
+  /** Detects the format from the file extension. */
+  public static Optional<StructureFormat> of(final Path path) {
+    if (path == null) {
+      return Optional.empty();
+    }
+    final var name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+    final var extension = name.substring(name.lastIndexOf('.') + 1);
+    return switch (extension) {
+      case "json" -> Optional.of(JSON);
+      case "xml", "xsd", "xsl", "xslt", "svg", "pom" -> Optional.of(XML);
+      case "yaml", "yml" -> Optional.of(YAML);
+      default -> Optional.empty();
+    };
+  }
+
+  public StructureNode parse(final String text) throws ParseException {
+    return switch (this) {
+      case JSON -> new JsonParser().parse(text);
+      case XML -> new XmlParser().parse(text);
+      case YAML -> new YamlParser().parse(text);
+    };
+  }
+}
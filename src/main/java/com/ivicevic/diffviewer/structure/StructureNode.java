@@ -0,0 +1,104 @@
+package com.ivicevic.diffviewer.structure;
+
+import java.util.List;
+import lombok.Value;
+
+/**
+ * A node of a parsed JSON, XML or YAML document together with the lines it spans in the source.
+ * Every node carries a hash of its whole subtree, so equal subtrees are recognized in constant
+ * time.
+ */
+@Value
+public class StructureNode {
+  private static final long PRIME = 0x100000001B3L;
+
+  NodeKind kind;
+  // Name of the node within its parent, empty for elements of sequences.
+  String key;
+  // Text of scalars, null for containers.
+  String value;
+  List<StructureNode> children;
+  // Zero-based and inclusive.
+  int startLine;
+  int endLine;
+  long hash;
+
+  private StructureNode(
+      final NodeKind kind,
+      final String key,
+      final String value,
+      final List<StructureNode> children,
+      final int startLine,
+      final int endLine) {
+    this.kind = kind;
+    this.key = key;
+    this.value = value;
+    this.children = List.copyOf(children);
+    this.startLine = startLine;
+    this.endLine = endLine;
+    this.hash = computeHash();
+  }
+
+  public static StructureNode scalar(
+      final String key, final String value, final int startLine, final int endLine) {
+    return new StructureNode(NodeKind.SCALAR, key, value, List.of(), startLine, endLine);
+  }
+
+  public static StructureNode keyed(
+      final String key,
+      final List<StructureNode> children,
+      final int startLine,
+      final int endLine) {
+    return new StructureNode(NodeKind.KEYED, key, null, children, startLine, endLine);
+  }
+
+  public static StructureNode ordered(
+      final String key,
+      final List<StructureNode> children,
+      final int startLine,
+      final int endLine) {
+    return new StructureNode(NodeKind.ORDERED, key, null, children, startLine, endLine);
+  }
+
+  /** Returns a copy of this node that starts earlier, e.g. at the name of a JSON member. */
+  public StructureNode withStartLine(final int startLine) {
+    return new StructureNode(kind, key, value, children, startLine, endLine);
+  }
+
+  public boolean isContainer() {
+    return kind != NodeKind.SCALAR;
+  }
+
+  private long computeHash() {
+    var result = hash(kind.ordinal(), key);
+    if (kind == NodeKind.SCALAR) {
+      return mix(hash(result, value));
+    }
+    // Keyed children are combined commutatively, since their order doesn't matter.
+    var childHashes = 0L;
+    for (final var child : children) {
+      if (kind == NodeKind.KEYED) {
+        childHashes += mix(child.hash);
+      } else {
+        childHashes = childHashes * PRIME + child.hash;
+      }
+    }
+    return mix(result ^ childHashes);
+  }
+
+  private static long hash(final long seed, final String text) {
+    // FNV-1a over the characters, 64-bit to keep collisions unlikely even for huge documents.
+    var result = seed ^ 0xCBF29CE484222325L;
+    for (var i = 0; i < text.length(); ++i) {
+      result = (result ^ text.charAt(i)) * PRIME;
+    }
+    return result;
+  }
+
+  private static long mix(final long value) {
+    // Finalizer of SplitMix64.
+    var result = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+    result = (result ^ (result >>> 27)) * 0x94D049BB133111EBL;
+    return result ^ (result >>> 31);
+  }
+}
@@ -0,0 +1,284 @@
+package com.ivicevic.diffviewer.structure;
+
+import com.ivicevic.diffviewer.algorithm.Diff;
+import com.ivicevic.diffviewer.algorithm.Hunk;
+import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.InsertCommand;
+import com.ivicevic.diffviewer.algorithm.commands.KeepCommand;
+import com.ivicevic.diffviewer.algorithm.commands.VirtualKeepCommand;
+import java.text.ParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Function;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Diffs documents by their structure instead of their lines, so reformatting and reordering of
+ * keys is no difference. Both trees are matched top-down, keyed children by key and ordered
+ * children by subtree hash, and equal subtrees are skipped as a whole. Lines of unmatched or
+ * changed nodes are marked as deleted or inserted, and the start and end lines of matched nodes
+ * serve as anchors to align both sides.
+ */
+public class StructuredDiffAlgorithm {
+  public Diff buildDiff(
+      final String originalText, final String modifiedText, final StructureFormat format)
+      throws ParseException {
+    return buildDiff(
+        originalText.split("\n"),
+        modifiedText.split("\n"),
+        format.parse(originalText),
+        format.parse(modifiedText));
+  }
+
+  public Diff buildDiff(
+      final String[] originalLines,
+      final String[] modifiedLines,
+      final StructureNode original,
+      final StructureNode modified) {
+    final var matching = new Matching(originalLines.length, modifiedLines.length);
+    matching.match(original, modified);
+
+    final var originalSide = new Side(originalLines, matching.originalChanged);
+    final var modifiedSide = new Side(modifiedLines, matching.modifiedChanged);
+    for (final var anchor : matching.alignedAnchors()) {
+      emitSegment(
+          originalSide,
+          Math.min((int) (anchor >>> 32), originalLines.length),
+          modifiedSide,
+          Math.min((int) anchor, modifiedLines.length));
+    }
+    emitSegment(originalSide, originalLines.length, modifiedSide, modifiedLines.length);
+
+    final var changedLines =
+        new Diff(originalSide.script, modifiedSide.script, List.of())
+            .getHunks().stream().map(Hunk::getRowStart).toList();
+    return new Diff(originalSide.script, modifiedSide.script, changedLines);
+  }
+
+  /**
+   * Emits the lines of both sides up to the given ends. Unchanged lines are paired with unchanged
+   * lines and changed lines with changed lines, the shorter side is padded with virtual lines.
+   */
+  private static void emitSegment(
+      final Side original, final int originalEnd, final Side modified, final int modifiedEnd) {
+    while (original.line < originalEnd || modified.line < modifiedEnd) {
+      final var hasOriginal = original.line < originalEnd;
+      final var hasModified = modified.line < modifiedEnd;
+      final var originalIsChanged = hasOriginal && original.isChanged();
+      final var modifiedIsChanged = hasModified && modified.isChanged();
+
+      if (hasOriginal && hasModified && originalIsChanged == modifiedIsChanged) {
+        original.emit(originalIsChanged ? DeleteCommand::new : KeepCommand::new);
+        modified.emit(modifiedIsChanged ? InsertCommand::new : KeepCommand::new);
+      } else if (hasOriginal && (originalIsChanged || !hasModified)) {
+        original.emit(originalIsChanged ? DeleteCommand::new : KeepCommand::new);
+        modified.script.add(new VirtualKeepCommand());
+      } else {
+        original.script.add(new VirtualKeepCommand());
+        modified.emit(modifiedIsChanged ? InsertCommand::new : KeepCommand::new);
+      }
+    }
+  }
+
+  @RequiredArgsConstructor
+  private static class Side {
+    private final String[] lines;
+    private final BitSet changed;
+    private final List<EditCommand> script = new ArrayList<>();
+    private int line = 0;
+
+    boolean isChanged() {
+      return changed.get(line);
+    }
+
+    void emit(final Function<String, EditCommand> command) {
+      script.add(command.apply(lines[line++]));
+    }
+  }
+
+  private static class Matching {
+    private final int originalLineCount;
+    private final int modifiedLineCount;
+    private final BitSet originalChanged = new BitSet();
+    private final BitSet modifiedChanged = new BitSet();
+    // Pairs of matching lines, packed with the original line in the upper half.
+    private long[] anchors = new long[64];
+    private int anchorCount = 0;
+
+    Matching(final int originalLineCount, final int modifiedLineCount) {
+      this.originalLineCount = originalLineCount;
+      this.modifiedLineCount = modifiedLineCount;
+    }
+
+    void match(final StructureNode original, final StructureNode modified) {
+      addAnchor(original.getStartLine(), modified.getStartLine());
+      // Equal subtrees need no further inspection, however large they are.
+      if (original.getHash() == modified.getHash()) {
+        addAnchor(original.getEndLine(), modified.getEndLine());
+        return;
+      }
+      if (original.getKind() != modified.getKind() || !original.isContainer()) {
+        markChanged(original, originalChanged, originalLineCount);
+        markChanged(modified, modifiedChanged, modifiedLineCount);
+        return;
+      }
+
+      if (original.getKind() == NodeKind.KEYED) {
+        matchKeyed(original.getChildren(), modified.getChildren());
+      } else {
+        matchOrdered(original.getChildren(), modified.getChildren());
+      }
+      addAnchor(original.getEndLine(), modified.getEndLine());
+    }
+
+    private void matchKeyed(
+        final List<StructureNode> originalChildren, final List<StructureNode> modifiedChildren) {
+      final var byKey = new HashMap<String, ArrayDeque<StructureNode>>();
+      for (final var child : modifiedChildren) {
+        byKey.computeIfAbsent(child.getKey(), key -> new ArrayDeque<>()).add(child);
+      }
+      for (final var child : originalChildren) {
+        final var candidates = byKey.get(child.getKey());
+        if (candidates == null || candidates.isEmpty()) {
+          markChanged(child, originalChanged, originalLineCount);
+        } else {
+          match(child, candidates.poll());
+        }
+      }
+      for (final var candidates : byKey.values()) {
+        for (final var child : candidates) {
+          markChanged(child, modifiedChanged, modifiedLineCount);
+        }
+      }
+    }
+
+    private void matchOrdered(
+        final List<StructureNode> originalChildren, final List<StructureNode> modifiedChildren) {
+      final var originalSize = originalChildren.size();
+      final var modifiedSize = modifiedChildren.size();
+      var prefix = 0;
+      while (prefix < originalSize
+          && prefix < modifiedSize
+          && originalChildren.get(prefix).getHash() == modifiedChildren.get(prefix).getHash()) {
+        match(originalChildren.get(prefix), modifiedChildren.get(prefix));
+        ++prefix;
+      }
+      var suffix = 0;
+      while (suffix < originalSize - prefix
+          && suffix < modifiedSize - prefix
+          && originalChildren.get(originalSize - 1 - suffix).getHash()
+              == modifiedChildren.get(modifiedSize - 1 - suffix).getHash()) {
+        match(
+            originalChildren.get(originalSize - 1 - suffix),
+            modifiedChildren.get(modifiedSize - 1 - suffix));
+        ++suffix;
+      }
+
+      // Equal subtrees are matched by hash first, which finds elements that were moved.
+      final var byHash = new HashMap<Long, ArrayDeque<Integer>>();
+      for (var j = prefix; j < modifiedSize - suffix; ++j) {
+        byHash
+            .computeIfAbsent(modifiedChildren.get(j).getHash(), hash -> new ArrayDeque<>())
+            .add(j);
+      }
+      final var matched = new boolean[modifiedSize];
+      final var unmatched = new ArrayList<StructureNode>();
+      for (var i = prefix; i < originalSize - suffix; ++i) {
+        final var candidates = byHash.get(originalChildren.get(i).getHash());
+        if (candidates == null || candidates.isEmpty()) {
+          unmatched.add(originalChildren.get(i));
+          continue;
+        }
+        final var j = candidates.poll();
+        matched[j] = true;
+        match(originalChildren.get(i), modifiedChildren.get(j));
+      }
+
+      // Remaining elements are paired in order if they are of the same kind and key.
+      var next = 0;
+      for (var j = prefix; j < modifiedSize - suffix; ++j) {
+        if (matched[j]) {
+          continue;
+        }
+        final var child = modifiedChildren.get(j);
+        if (next < unmatched.size()
+            && unmatched.get(next).getKind() == child.getKind()
+            && unmatched.get(next).getKey().equals(child.getKey())) {
+          match(unmatched.get(next++), child);
+        } else {
+          markChanged(child, modifiedChanged, modifiedLineCount);
+        }
+      }
+      for (; next < unmatched.size(); ++next) {
+        markChanged(unmatched.get(next), originalChanged, originalLineCount);
+      }
+    }
+
+    private void addAnchor(final int originalLine, final int modifiedLine) {
+      if (anchorCount == anchors.length) {
+        anchors = Arrays.copyOf(anchors, anchorCount * 2);
+      }
+      anchors[anchorCount++] = ((long) originalLine << 32) | modifiedLine;
+    }
+
+    private static void markChanged(
+        final StructureNode node, final BitSet changed, final int lineCount) {
+      changed.set(
+          Math.min(node.getStartLine(), lineCount), Math.min(node.getEndLine() + 1, lineCount));
+    }
+
+    /**
+     * Returns the longest chain of anchors that increases strictly on both sides, since crossing
+     * anchors can't be aligned.
+     */
+    long[] alignedAnchors() {
+      // Sorting by original line and descending modified line lets the longest increasing
+      // subsequence of modified lines pick at most one anchor per original line.
+      final var sorted = new long[anchorCount];
+      for (var i = 0; i < anchorCount; ++i) {
+        final var originalLine = anchors[i] >>> 32;
+        final var modifiedLine = anchors[i] & 0xFFFFFFFFL;
+        sorted[i] = (originalLine << 32) | (0xFFFFFFFFL - modifiedLine);
+      }
+      Arrays.sort(sorted);
+
+      // Patience sorting, tails holds the index of the smallest tail of each chain length.
+      final var tails = new int[anchorCount];
+      final var predecessors = new int[anchorCount];
+      var length = 0;
+      for (var i = 0; i < anchorCount; ++i) {
+        final var modifiedLine = modifiedLineOf(sorted[i]);
+        var low = 0;
+        var high = length;
+        while (low < high) {
+          final var mid = (low + high) >>> 1;
+          if (modifiedLineOf(sorted[tails[mid]]) < modifiedLine) {
+            low = mid + 1;
+          } else {
+            high = mid;
+          }
+        }
+        predecessors[i] = low > 0 ? tails[low - 1] : -1;
+        tails[low] = i;
+        length = Math.max(length, low + 1);
+      }
+
+      final var result = new long[length];
+      var k = length > 0 ? tails[length - 1] : -1;
+      for (var i = length - 1; i >= 0; --i) {
+        result[i] = ((sorted[k] >>> 32) << 32) | modifiedLineOf(sorted[k]);
+        k = predecessors[k];
+      }
+      return result;
+    }
+
+    private static long modifiedLineOf(final long sortedAnchor) {
+      return 0xFFFFFFFFL - (sortedAnchor & 0xFFFFFFFFL);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package com.ivicevic.diffviewer.structure;
+
+import java.io.StringReader;
+import java.text.ParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Parses XML with StAX. Elements become ordered nodes whose attributes are collected in a keyed
+ * child, text content becomes scalar children. Comments and processing instructions are ignored.
+ */
+public class XmlParser {
+  static final String ATTRIBUTES_KEY = "@attributes";
+  static final String TEXT_KEY = "#text";
+
+  private final XMLInputFactory factory;
+
+  public XmlParser() {
+    factory = XMLInputFactory.newFactory();
+    // External entities are neither needed nor safe.
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+  }
+
+  public StructureNode parse(final String text) throws ParseException {
+    XMLStreamReader reader = null;
+    try {
+      reader = factory.createXMLStreamReader(new StringReader(text));
+      final var stack = new ArrayDeque<ElementBuilder>();
+      StructureNode root = null;
+      while (reader.hasNext()) {
+        final var event = reader.next();
+        final var line = reader.getLocation().getLineNumber() - 1;
+        switch (event) {
+          case XMLStreamConstants.START_ELEMENT -> {
+            final var element = new ElementBuilder(reader.getLocalName(), line);
+            final var attributes = new ArrayList<StructureNode>();
+            for (var i = 0; i < reader.getAttributeCount(); ++i) {
+              attributes.add(
+                  StructureNode.scalar(
+                      reader.getAttributeLocalName(i), reader.getAttributeValue(i), line, line));
+            }
+            if (!attributes.isEmpty()) {
+              element.children.add(StructureNode.keyed(ATTRIBUTES_KEY, attributes, line, line));
+            }
+            stack.push(element);
+          }
+          case XMLStreamConstants.END_ELEMENT -> {
+            final var element = stack.pop();
+            final var node =
+                StructureNode.ordered(element.name, element.children, element.startLine, line);
+            if (stack.isEmpty()) {
+              root = node;
+            } else {
+              stack.peek().children.add(node);
+            }
+          }
+          case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> {
+            final var content = reader.getText();
+            if (stack.isEmpty() || content.isBlank()) {
+              continue;
+            }
+            // The location is behind the text, so its start is derived from the contained lines.
+            final var startLine = line - (int) content.chars().filter(c -> c == '\n').count();
+            stack
+                .peek()
+                .children
+                .add(StructureNode.scalar(TEXT_KEY, content.strip(), startLine, line));
+          }
+          default -> {
+            // Comments, processing instructions and the document itself carry no content.
+          }
+        }
+      }
+      if (root == null) {
+        throw new ParseException("Document contains no root element", 0);
+      }
+      return root;
+    } catch (final XMLStreamException e) {
+      final var location = e.getLocation();
+      throw new ParseException(
+          e.getMessage(), location == null ? 0 : location.getCharacterOffset());
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (final XMLStreamException e) {
+          // Nothing to release for in-memory input.
+        }
+      }
+    }
+  }
+
+  @RequiredArgsConstructor
+  private static class ElementBuilder {
+    private final String name;
+    private final int startLine;
+    private final List<StructureNode> children = new ArrayList<>();
+  }
+}
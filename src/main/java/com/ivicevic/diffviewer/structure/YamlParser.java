@@ -0,0 +1,244 @@
+package com.ivicevic.diffviewer.structure;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Value;
+
+/**
+ * Parser for the block subset of YAML found in configuration files: nested mappings and sequences,
+ * plain and quoted scalars as well as literal and folded block scalars. Flow collections, anchors
+ * and tags are kept as scalar text.
+ */
+public class YamlParser {
+  private String[] lines;
+  private int index;
+  // A line split off behind a sequence indicator, which is parsed before the next real line.
+  private Line pending;
+  private int lastLine;
+
+  public StructureNode parse(final String text) throws ParseException {
+    lines = text.split("\n", -1);
+    index = 0;
+    pending = null;
+    lastLine = 0;
+
+    final var first = peek();
+    if (first == null) {
+      return StructureNode.scalar("", "", 0, 0);
+    }
+    final var root = parseNode("", first.getIndent(), first.getNumber());
+    final var rest = peek();
+    if (rest != null) {
+      throw error("Unexpected indentation", rest.getNumber());
+    }
+    return root;
+  }
+
+  private StructureNode parseNode(final String key, final int indent, final int startLine)
+      throws ParseException {
+    final var line = peek();
+    if (line == null || line.getIndent() < indent) {
+      return StructureNode.scalar(key, "", startLine, startLine);
+    }
+    if (isSequenceItem(line.getContent())) {
+      return parseSequence(key, line.getIndent()).withStartLine(startLine);
+    }
+    if (findSeparator(line.getContent()) >= 0) {
+      return parseMapping(key, line.getIndent()).withStartLine(startLine);
+    }
+    consume(line);
+    return StructureNode.scalar(key, unquote(line.getContent()), startLine, line.getNumber());
+  }
+
+  private StructureNode parseSequence(final String key, final int indent) throws ParseException {
+    final var startLine = peek().getNumber();
+    final var items = new ArrayList<StructureNode>();
+    Line line;
+    while ((line = peek()) != null
+        && line.getIndent() == indent
+        && isSequenceItem(line.getContent())) {
+      consume(line);
+      final var rest = line.getContent().substring(1).stripLeading();
+      if (rest.isEmpty()) {
+        items.add(parseNode("", indent + 1, line.getNumber()));
+      } else {
+        // The item continues on this line, e.g. "- name: value", which starts a nested block.
+        final var column = indent + line.getContent().length() - rest.length();
+        pending = new Line(line.getNumber(), column, rest);
+        items.add(parseNode("", column, line.getNumber()));
+      }
+    }
+    return StructureNode.ordered(key, items, startLine, lastLine);
+  }
+
+  private StructureNode parseMapping(final String key, final int indent) throws ParseException {
+    final var startLine = peek().getNumber();
+    final var entries = new ArrayList<StructureNode>();
+    Line line;
+    while ((line = peek()) != null
+        && line.getIndent() == indent
+        && !isSequenceItem(line.getContent())) {
+      final var content = line.getContent();
+      final var separator = findSeparator(content);
+      if (separator < 0) {
+        throw error("Expected mapping entry", line.getNumber());
+      }
+      consume(line);
+
+      final var entryKey = unquote(content.substring(0, separator).strip());
+      final var value = content.substring(separator + 1).strip();
+      if (value.startsWith("|") || value.startsWith(">")) {
+        entries.add(parseBlockScalar(entryKey, indent, line.getNumber(), value.startsWith(">")));
+      } else if (!value.isEmpty()) {
+        entries.add(
+            StructureNode.scalar(entryKey, unquote(value), line.getNumber(), line.getNumber()));
+      } else {
+        final var next = peek();
+        // Sequences may be indented at the same level as their key.
+        if (next != null
+            && (next.getIndent() > indent
+                || (next.getIndent() == indent && isSequenceItem(next.getContent())))) {
+          entries.add(parseNode(entryKey, next.getIndent(), line.getNumber()));
+        } else {
+          entries.add(StructureNode.scalar(entryKey, "", line.getNumber(), line.getNumber()));
+        }
+      }
+    }
+    return StructureNode.keyed(key, entries, startLine, lastLine);
+  }
+
+  private StructureNode parseBlockScalar(
+      final String key, final int indent, final int startLine, final boolean folded) {
+    final var content = new ArrayList<String>();
+    var blockIndent = -1;
+    var end = index;
+    while (end < lines.length) {
+      final var raw = lines[end];
+      if (raw.isBlank()) {
+        content.add("");
+        ++end;
+        continue;
+      }
+      final var lineIndent = indentOf(raw);
+      if (lineIndent <= indent) {
+        break;
+      }
+      if (blockIndent < 0) {
+        blockIndent = lineIndent;
+      }
+      content.add(raw.substring(Math.min(blockIndent, lineIndent)));
+      ++end;
+    }
+    // Trailing blank lines belong to whatever follows.
+    while (!content.isEmpty() && content.get(content.size() - 1).isEmpty()) {
+      content.remove(content.size() - 1);
+      --end;
+    }
+
+    index = end;
+    lastLine = Math.max(startLine, end - 1);
+    return StructureNode.scalar(
+        key, String.join(folded ? " " : "\n", content), startLine, Math.max(startLine, end - 1));
+  }
+
+  /** Returns the next line with content, skipping blank lines, comments and document markers. */
+  private Line peek() {
+    if (pending != null) {
+      return pending;
+    }
+    while (index < lines.length) {
+      final var raw = lines[index];
+      final var content = stripComment(raw).strip();
+      if (!content.isEmpty() && !content.equals("---") && !content.equals("...")) {
+        return new Line(index, indentOf(raw), content);
+      }
+      ++index;
+    }
+    return null;
+  }
+
+  private void consume(final Line line) {
+    if (pending != null) {
+      pending = null;
+    } else {
+      index = line.getNumber() + 1;
+    }
+    lastLine = line.getNumber();
+  }
+
+  private static boolean isSequenceItem(final String content) {
+    return content.equals("-") || content.startsWith("- ");
+  }
+
+  /** Returns the index of the colon separating key and value, or -1 if there is none. */
+  private static int findSeparator(final String content) {
+    if (content.startsWith("{") || content.startsWith("[")) {
+      return -1;
+    }
+    var quote = '\0';
+    for (var i = 0; i < content.length(); ++i) {
+      final var c = content.charAt(i);
+      if (quote != '\0') {
+        if (c == quote) {
+          quote = '\0';
+        }
+      } else if ((c == '"' || c == '\'') && i == 0) {
+        quote = c;
+      } else if (c == ':' && (i + 1 == content.length() || content.charAt(i + 1) == ' ')) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static String stripComment(final String raw) {
+    var quote = '\0';
+    for (var i = 0; i < raw.length(); ++i) {
+      final var c = raw.charAt(i);
+      if (quote != '\0') {
+        if (c == quote) {
+          quote = '\0';
+        }
+      } else if ((c == '"' || c == '\'') && isQuoteStart(raw, i)) {
+        quote = c;
+      } else if (c == '#' && (i == 0 || Character.isWhitespace(raw.charAt(i - 1)))) {
+        return raw.substring(0, i);
+      }
+    }
+    return raw;
+  }
+
+  // Apostrophes within plain scalars, e.g. "don't", must not start a quoted section.
+  private static boolean isQuoteStart(final String raw, final int i) {
+    return i == 0 || " :-[{,".indexOf(raw.charAt(i - 1)) >= 0;
+  }
+
+  private static String unquote(final String value) {
+    if (value.length() >= 2
+        && (value.charAt(0) == '"' || value.charAt(0) == '\'')
+        && value.charAt(value.length() - 1) == value.charAt(0)) {
+      return value.substring(1, value.length() - 1);
+    }
+    return value;
+  }
+
+  private static int indentOf(final String raw) {
+    var indent = 0;
+    while (indent < raw.length() && raw.charAt(indent) == ' ') {
+      ++indent;
+    }
+    return indent;
+  }
+
+  private static ParseException error(final String message, final int line) {
+    return new ParseException(message + " in line " + (line + 1), 0);
+  }
+
+  @Value
+  private static class Line {
+    int number;
+    int indent;
+    String content;
+  }
+}
@@ -3,22 +3,33 @@ package com.ivicevic.diffviewer;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import com.ivicevic.diffviewer.algorithm.ComparisonOption;
 import com.ivicevic.diffviewer.algorithm.Diff;
+import com.ivicevic.diffviewer.algorithm.DiffAlgorithm;
 import com.ivicevic.diffviewer.algorithm.DiffMode;
-import com.ivicevic.diffviewer.algorithm.HuntAlgorithm;
 import com.ivicevic.diffviewer.components.EditorPane.EditorKind;
+import com.ivicevic.diffviewer.io.LineEnding;
+import com.ivicevic.diffviewer.session.FilePair;
 import java.beans.PropertyChangeEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class ControllerTest {
   private Controller testee;
@@ -27,12 +38,16 @@ class ControllerTest {
 
   @BeforeEach
   void setUp() {
-    final var algorithm = mock(HuntAlgorithm.class);
+    final var algorithm = mock(DiffAlgorithm.class);
     when(algorithm.buildDiff(any(String[].class), any(String[].class), any(DiffMode.class)))
         .thenReturn(new Diff(List.of(), List.of(), List.of()));
+    when(algorithm.buildDiff(
+            any(String[].class), any(String[].class), any(DiffMode.class), anySet()))
+        .thenReturn(new Diff(List.of(), List.of(), List.of()));
 
     model = mock(Model.class);
     when(model.getAlgorithm()).thenReturn(algorithm);
+    when(model.getComparisonOptions()).thenReturn(Set.of());
 
     view = mock(View.class);
     testee = new Controller(model, view);
@@ -58,14 +73,27 @@ class ControllerTest {
   @Test
   @Disabled
   void highlightStrategyChangesWithDiffTriggerRepaint() {
-    when(model.getOriginalText()).thenReturn("original");
-    when(model.getModifiedText()).thenReturn("modified");
+    when(model.getOriginalLines()).thenReturn(List.of("original"));
+    when(model.getModifiedLines()).thenReturn(List.of("modified"));
     testee.setHighlightStrategy(HighlightStrategy.LINES);
     verify(model).setHighlightStrategy(HighlightStrategy.LINES);
     verify(model).setDiff(any(Diff.class));
     verify(model).setChangedLines(anyList());
   }
 
+  @Test
+  void comparisonOptionsCanBeToggled() {
+    when(model.getComparisonOptions()).thenReturn(Set.of(ComparisonOption.IGNORE_CASE));
+    testee.setComparisonOption(ComparisonOption.IGNORE_ALL_WHITESPACE, true);
+    verify(model)
+        .setComparisonOptions(
+            Set.of(ComparisonOption.IGNORE_CASE, ComparisonOption.IGNORE_ALL_WHITESPACE));
+    clearInvocations(model);
+
+    testee.setComparisonOption(ComparisonOption.IGNORE_CASE, false);
+    verify(model).setComparisonOptions(Set.of());
+  }
+
   @Test
   void scrollingIsReplicatedWhenSyncIsEnabled() {
     when(model.isScrollingSynchronized()).thenReturn(true);
@@ -132,4 +160,56 @@ class ControllerTest {
     testee.gotoPreviousDifference(currentLine);
     verify(model).setOriginalCaretLine(15);
   }
+
+  @Test
+  void patchesOfHexDumpsAreRefused() {
+    when(model.getDiff()).thenReturn(new Diff(List.of(), List.of(), List.of()));
+    when(model.getOriginalLines()).thenReturn(List.of("text"));
+    when(model.getModifiedLines()).thenReturn(null);
+
+    // Refused before any file chooser is shown.
+    testee.exportPatch();
+    verify(model).setStatus("Patches can only be exported for text files.");
+    testee.applyPatch();
+    verify(model).setStatus("Patches can only be applied to text files.");
+  }
+
+  @Test
+  void filesToCompareAreLoadedConcurrently(@TempDir final Path directory) throws IOException {
+    final var original = Files.writeString(directory.resolve("original.txt"), "a\r\nb\r\n");
+    final var modified = Files.writeString(directory.resolve("modified.txt"), "a\nc\n");
+    when(model.getMaxTextFileSize()).thenReturn(1024L);
+
+    testee.compareFiles(original, modified);
+    verify(model, timeout(5000)).setModifiedLines(List.of("a", "c"));
+    verify(model).setOriginalLines(List.of("a", "b"));
+    verify(model).setOriginalLineEnding(LineEnding.CRLF);
+    verify(model).setModifiedLineEnding(LineEnding.LF);
+  }
+
+  @Test
+  void chosenFilesAreComparedWithTheOtherSide(@TempDir final Path directory) throws IOException {
+    final var modified = Files.writeString(directory.resolve("modified.txt"), "a\nc\n");
+    when(model.getMaxTextFileSize()).thenReturn(1024L);
+    when(model.getOriginalLines()).thenReturn(List.of("a", "b"));
+
+    testee.loadFile(EditorKind.MODIFIED, modified);
+    verify(model, timeout(5000)).setModifiedLines(List.of("a", "c"));
+    verify(model, timeout(5000)).setDiff(any(Diff.class));
+    verify(model, never()).setOriginalLines(anyList());
+  }
+
+  @Test
+  void sessionEntriesAreComparedLikeSingleFiles(@TempDir final Path directory)
+      throws IOException {
+    final var original = Files.writeString(directory.resolve("original.json"), "{\"a\": 1}");
+    final var modified = Files.writeString(directory.resolve("modified.json"), "{\"a\": 2}");
+    when(model.getMaxTextFileSize()).thenReturn(1024L);
+    when(model.isStructuredDiff()).thenReturn(true);
+    // The entry is not selected yet when it is opened, but it is once its document arrives.
+    when(model.getSessionIndex()).thenReturn(-1).thenReturn(0);
+
+    testee.openSession(List.of(new FilePair("a.json", original, modified)));
+    verify(model, timeout(5000)).setStatus(contains("structural differences"));
+  }
 }
@@ -2,18 +2,20 @@ package com.ivicevic.diffviewer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
+import com.ivicevic.diffviewer.algorithm.ComparisonOption;
 import com.ivicevic.diffviewer.algorithm.Diff;
-import com.ivicevic.diffviewer.algorithm.HuntAlgorithm;
+import com.ivicevic.diffviewer.algorithm.DiffAlgorithmRegistry;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.List;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -31,8 +33,9 @@ class ModelTest {
 
   @Test
   void defaultSettingsAreCorrect() {
-    assertInstanceOf(HuntAlgorithm.class, testee.getAlgorithm());
+    assertEquals(DiffAlgorithmRegistry.AUTOMATIC, testee.getAlgorithm().getName());
     assertEquals(HighlightStrategy.CHARACTERS, testee.getHighlightStrategy());
+    assertTrue(testee.getComparisonOptions().isEmpty());
     assertTrue(testee.isScrollingSynchronized());
   }
 
@@ -51,6 +54,35 @@ class ModelTest {
     assertEquals(Model.DIFF_PROPERTY, values.get(1).getPropertyName());
   }
 
+  @Test
+  void algorithmCanBeChanged() {
+    final var algorithm = testee.getAlgorithms().get("hunt").orElseThrow();
+    testee.setAlgorithm(algorithm);
+    assertEquals(algorithm, testee.getAlgorithm());
+
+    final var args = ArgumentCaptor.forClass(PropertyChangeEvent.class);
+    verify(listener).propertyChange(args.capture());
+    verifyNoMoreInteractions(listener);
+
+    final var value = args.getValue();
+    assertEquals(Model.ALGORITHM_PROPERTY, value.getPropertyName());
+    assertEquals(algorithm, value.getNewValue());
+  }
+
+  @Test
+  void comparisonOptionsCanBeChanged() {
+    testee.setComparisonOptions(Set.of(ComparisonOption.IGNORE_CASE));
+    assertEquals(Set.of(ComparisonOption.IGNORE_CASE), testee.getComparisonOptions());
+
+    final var args = ArgumentCaptor.forClass(PropertyChangeEvent.class);
+    verify(listener).propertyChange(args.capture());
+    verifyNoMoreInteractions(listener);
+
+    final var value = args.getValue();
+    assertEquals(Model.COMPARISON_OPTIONS_PROPERTY, value.getPropertyName());
+    assertEquals(Set.of(ComparisonOption.IGNORE_CASE), value.getNewValue());
+  }
+
   @Test
   void scrollingSynchronizedCanBeChanged() {
     testee.setIsScrollingSynchronized(false);
@@ -97,22 +129,29 @@ class ModelTest {
     assertEquals(10, value.getNewValue());
   }
 
+  @Test
+  void sameCaretLineIsFiredAgain() {
+    testee.setOriginalCaretLine(10);
+    testee.setOriginalCaretLine(10);
+    verify(listener, times(2)).propertyChange(any(PropertyChangeEvent.class));
+  }
+
   @Test
   void editorContentCanBeChanged() {
-    testee.setOriginalText("original");
-    assertEquals("original", testee.getOriginalText());
-    testee.setModifiedText("modified");
-    assertEquals("modified", testee.getModifiedText());
+    testee.setOriginalLines(List.of("original"));
+    assertEquals(List.of("original"), testee.getOriginalLines());
+    testee.setModifiedLines(List.of("modified"));
+    assertEquals(List.of("modified"), testee.getModifiedLines());
 
     final var args = ArgumentCaptor.forClass(PropertyChangeEvent.class);
     verify(listener, times(2)).propertyChange(args.capture());
     verifyNoMoreInteractions(listener);
 
     final var values = args.getAllValues();
-    assertEquals(Model.ORIGINAL_TEXT_PROPERTY, values.get(0).getPropertyName());
-    assertEquals("original", values.get(0).getNewValue());
-    assertEquals(Model.MODIFIED_TEXT_PROPERTY, values.get(1).getPropertyName());
-    assertEquals("modified", values.get(1).getNewValue());
+    assertEquals(Model.ORIGINAL_LINES_PROPERTY, values.get(0).getPropertyName());
+    assertEquals(List.of("original"), values.get(0).getNewValue());
+    assertEquals(Model.MODIFIED_LINES_PROPERTY, values.get(1).getPropertyName());
+    assertEquals(List.of("modified"), values.get(1).getNewValue());
   }
 
   @Test
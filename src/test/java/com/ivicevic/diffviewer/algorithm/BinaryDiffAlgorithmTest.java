@@ -0,0 +1,81 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.InsertCommand;
+import com.ivicevic.diffviewer.algorithm.commands.KeepCommand;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class BinaryDiffAlgorithmTest {
+  private final BinaryDiffAlgorithm testee = new BinaryDiffAlgorithm(new HuntAlgorithm());
+
+  @Test
+  void rowsAreRenderedAsHexDump() {
+    final var diff =
+        testee.buildDiff(
+            ByteBuffer.wrap("Hello, World!\n".getBytes()),
+            ByteBuffer.wrap("Hello, World!\n".getBytes()));
+    assertEquals(
+        "00000000  48 65 6c 6c 6f 2c 20 57  6f 72 6c 64 21 0a        |Hello, World!.|",
+        diff.getOriginal().get(0).getText());
+    assertEquals(0, diff.getChangedLines().size());
+  }
+
+  @Test
+  void insertionsOnlyAffectNearbyChunks() {
+    final var original = new byte[64 * 1024];
+    new Random(42).nextBytes(original);
+    final var modified = new byte[original.length + 5];
+    System.arraycopy(original, 0, modified, 0, 30_000);
+    System.arraycopy(new byte[] {1, 2, 3, 4, 5}, 0, modified, 30_000, 5);
+    System.arraycopy(original, 30_000, modified, 30_005, original.length - 30_000);
+
+    final var diff = testee.buildDiff(ByteBuffer.wrap(original), ByteBuffer.wrap(modified));
+
+    assertEquals(diff.getOriginal().size(), diff.getModified().size());
+    final var deletedRows =
+        diff.getOriginal().stream().filter(DeleteCommand.class::isInstance).count();
+    final var insertedRows =
+        diff.getModified().stream().filter(InsertCommand.class::isInstance).count();
+    final var keptRows = diff.getOriginal().stream().filter(KeepCommand.class::isInstance).count();
+    // Content-defined chunking re-synchronizes right after the insertion, so only the chunk that
+    // contains it differs instead of every row after it.
+    assertTrue(deletedRows <= 4096 / 16, "deleted rows: " + deletedRows);
+    assertTrue(insertedRows <= 4096 / 16 + 1, "inserted rows: " + insertedRows);
+    assertTrue(keptRows > original.length / 16 - 4096 / 16, "kept rows: " + keptRows);
+    assertEquals(1, diff.getChangedLines().size());
+  }
+
+  @Test
+  void chunksReplacedInPlaceAreChanged() {
+    final var original = new byte[64 * 1024];
+    new Random(42).nextBytes(original);
+    final var modified = original.clone();
+    for (var i = 30_000; i < 30_005; ++i) {
+      modified[i] ^= 0x55;
+    }
+
+    final var diff = testee.buildDiff(ByteBuffer.wrap(original), ByteBuffer.wrap(modified));
+
+    assertEquals(1, diff.getHunks().size());
+    final var hunk = diff.getHunks().get(0);
+    for (var row = 0; row < diff.getOriginal().size(); ++row) {
+      final var originalRow = diff.getOriginal().get(row);
+      final var modifiedRow = diff.getModified().get(row);
+      if (hunk.getRowStart() <= row && row < hunk.getRowEnd()) {
+        assertInstanceOf(DeleteCommand.class, originalRow);
+        assertInstanceOf(InsertCommand.class, modifiedRow);
+      } else {
+        assertInstanceOf(KeepCommand.class, originalRow);
+        assertEquals(originalRow.getText(), modifiedRow.getText());
+      }
+    }
+    // Rows outside the hunk are equal, so it holds the replaced bytes at 0x7530.
+    assertTrue(diff.getOriginal().get(hunk.getRowStart()).getText().compareTo("00007530") <= 0);
+  }
+}
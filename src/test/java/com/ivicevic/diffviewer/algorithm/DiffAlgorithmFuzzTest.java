@@ -0,0 +1,290 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.KeepCommand;
+import com.ivicevic.diffviewer.algorithm.commands.ModifyCommand;
+import com.ivicevic.diffviewer.algorithm.commands.VirtualKeepCommand;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the invariants of every diff engine on random inputs and compares their results with a
+ * reference implementation of the longest common subsequence. Failures name the engine and the
+ * seed of the input, the number of inputs and the first seed can be set by system properties.
+ */
+class DiffAlgorithmFuzzTest {
+  private static final int ITERATIONS = Integer.getInteger("diffviewer.fuzz.iterations", 300);
+  private static final long SEED = Long.getLong("diffviewer.fuzz.seed", 0);
+
+  private static final String[] COMMON_LINES = {"", "}", "{", "  return;", "  break;"};
+  private static final String ALPHABET = "abc AB\t.,_1";
+
+  private final Tokenizer tokenizer = Tokenizer.withAllBoundaries();
+
+  @Test
+  void lineDiffsAreAlignedAndReproduceBothInputs() {
+    for (final var algorithm : algorithms()) {
+      for (var seed = SEED; seed < SEED + ITERATIONS; ++seed) {
+        final var random = new Random(seed);
+        final var original = generateFile(random);
+        final var modified = generateModified(random, original);
+        final var options = generateOptions(random);
+        final var message = algorithm.getName() + ", seed " + seed + ", options " + options;
+
+        final var diff = algorithm.buildDiff(original, modified, DiffMode.LINES, options);
+
+        assertEquals(diff.getOriginal().size(), diff.getModified().size(), message);
+        assertArrayEquals(original, originalText(diff.getOriginal()), message);
+        assertArrayEquals(modified, modifiedText(diff.getModified()), message);
+      }
+    }
+  }
+
+  @Test
+  void lineDiffsKeepALongestCommonSubsequence() {
+    for (final var algorithm : algorithms()) {
+      final var exact = algorithm.getCapabilities().isExact();
+      for (var seed = SEED; seed < SEED + ITERATIONS; ++seed) {
+        final var random = new Random(seed);
+        final var original = generateFile(random);
+        final var modified = generateModified(random, original);
+        final var options = generateOptions(random);
+        final var message = algorithm.getName() + ", seed " + seed + ", options " + options;
+        final var normalizedOriginal = normalize(original, options);
+        final var normalizedModified = normalize(modified, options);
+
+        final var diff = algorithm.buildDiff(original, modified, DiffMode.LINES, options);
+
+        // Kept rows only pair lines that are equal after normalization.
+        var kept = 0;
+        var originalLine = 0;
+        var modifiedLine = 0;
+        for (var row = 0; row < diff.getOriginal().size(); ++row) {
+          final var originalCommand = diff.getOriginal().get(row);
+          final var modifiedCommand = diff.getModified().get(row);
+          if (originalCommand instanceof KeepCommand) {
+            assertInstanceOf(KeepCommand.class, modifiedCommand, message + ", row " + row);
+            assertEquals(
+                normalizedOriginal[originalLine],
+                normalizedModified[modifiedLine],
+                message + ", row " + row);
+            ++kept;
+          }
+          originalLine += originalCommand instanceof VirtualKeepCommand ? 0 : 1;
+          modifiedLine += modifiedCommand instanceof VirtualKeepCommand ? 0 : 1;
+        }
+
+        final var longest = lcsLength(normalizedOriginal, normalizedModified);
+        if (exact) {
+          assertEquals(longest, kept, message);
+        } else {
+          assertTrue(kept <= longest, message);
+        }
+      }
+    }
+  }
+
+  @Test
+  void characterAndWordDiffsReproduceBothInputs() {
+    final Function<String, String[]> characters =
+        text -> Arrays.stream(text.split("")).filter(s -> !s.isEmpty()).toArray(String[]::new);
+    for (final var algorithm : algorithms()) {
+      for (var seed = SEED; seed < SEED + ITERATIONS; ++seed) {
+        final var random = new Random(seed);
+        final var original = generateText(random);
+        final var modified = random.nextInt(4) == 0 ? generateText(random) : edit(random, original);
+        final var options = generateOptions(random);
+        final var message = algorithm.getName() + ", seed " + seed + ", options " + options;
+
+        final var characterDiff =
+            algorithm.buildDiff(
+                characters.apply(original),
+                characters.apply(modified),
+                DiffMode.CHARACTERS,
+                options);
+        assertEquals(original, String.join("", originalText(characterDiff.getOriginal())), message);
+        assertEquals(modified, String.join("", modifiedText(characterDiff.getModified())), message);
+
+        final var wordDiff =
+            algorithm.buildDiff(
+                tokenizer.tokenize(original),
+                tokenizer.tokenize(modified),
+                DiffMode.WORDS,
+                options);
+        assertEquals(original, String.join("", originalText(wordDiff.getOriginal())), message);
+        assertEquals(modified, String.join("", modifiedText(wordDiff.getModified())), message);
+      }
+    }
+  }
+
+  @Test
+  void referenceFindsTheLongestCommonSubsequence() {
+    assertEquals(0, lcsLength(new String[0], new String[] {"a"}));
+    assertEquals(2, lcsLength(new String[] {"a", "b", "c"}, new String[] {"c", "a", "c"}));
+    assertEquals(
+        4,
+        lcsLength(
+            new String[] {"a", "b", "c", "b", "d", "a", "b"},
+            new String[] {"b", "d", "c", "a", "b", "a"}));
+  }
+
+  /** Returns the registered engines, the automatic one and one splitting even small inputs. */
+  private static List<DiffAlgorithm> algorithms() {
+    final var registry = DiffAlgorithmRegistry.withDefaults();
+    final var algorithms = new ArrayList<>(registry.getAlgorithms());
+    algorithms.add(registry.getAutomatic());
+    algorithms.add(new ParallelHuntAlgorithm(ForkJoinPool.commonPool(), 8));
+    return algorithms;
+  }
+
+  /** Reference length of the longest common subsequence by the textbook dynamic program. */
+  private static int lcsLength(final String[] original, final String[] modified) {
+    var previous = new int[modified.length + 1];
+    var current = new int[modified.length + 1];
+    for (var i = 1; i <= original.length; ++i) {
+      for (var j = 1; j <= modified.length; ++j) {
+        current[j] =
+            original[i - 1].equals(modified[j - 1])
+                ? previous[j - 1] + 1
+                : Math.max(previous[j], current[j - 1]);
+      }
+      final var swap = previous;
+      previous = current;
+      current = swap;
+    }
+    return previous[modified.length];
+  }
+
+  private static String[] normalize(final String[] lines, final Set<ComparisonOption> options) {
+    return Arrays.stream(lines)
+        .map(line -> ComparisonKeys.normalize(line, options))
+        .toArray(String[]::new);
+  }
+
+  private static String[] originalText(final List<EditCommand> script) {
+    return script.stream()
+        .filter(command -> !(command instanceof VirtualKeepCommand))
+        .map(EditCommand::getText)
+        .toArray(String[]::new);
+  }
+
+  /** Returns the text of the modified side, whose changed tokens are the modified texts. */
+  private static String[] modifiedText(final List<EditCommand> script) {
+    return script.stream()
+        .filter(command -> !(command instanceof VirtualKeepCommand))
+        .map(
+            command ->
+                command instanceof ModifyCommand modify ? modify.getModified() : command.getText())
+        .toArray(String[]::new);
+  }
+
+  /**
+   * Generates a file of one of several shapes: few distinct lines with many equal candidates,
+   * source code like lines that are mostly unique, or an empty file.
+   */
+  private static String[] generateFile(final Random random) {
+    return switch (random.nextInt(5)) {
+      case 0 -> new String[0];
+      case 1, 2 -> {
+        final var distinct = 1 + random.nextInt(6);
+        final var lines = new String[random.nextInt(40)];
+        for (var i = 0; i < lines.length; ++i) {
+          lines[i] = String.valueOf((char) ('a' + random.nextInt(distinct)));
+        }
+        yield lines;
+      }
+      default -> {
+        final var lines = new String[random.nextInt(400)];
+        for (var i = 0; i < lines.length; ++i) {
+          lines[i] =
+              random.nextInt(4) == 0
+                  ? COMMON_LINES[random.nextInt(COMMON_LINES.length)]
+                  : "  call(" + i + ");";
+        }
+        yield lines;
+      }
+    };
+  }
+
+  /** Edits the file by deleting, inserting, replacing, moving and duplicating runs of lines. */
+  private static String[] generateModified(final Random random, final String[] original) {
+    if (random.nextInt(10) == 0) {
+      return generateFile(random);
+    }
+    final var lines = new ArrayList<>(List.of(original));
+    final var edits = random.nextInt(8);
+    for (var edit = 0; edit < edits; ++edit) {
+      final var start = random.nextInt(lines.size() + 1);
+      final var length = Math.min(1 + random.nextInt(5), lines.size() - start);
+      final var run = lines.subList(start, start + length);
+      switch (random.nextInt(7)) {
+        case 0 -> run.clear();
+        case 1 -> run.add(0, "  inserted(" + random.nextInt(1000) + ");");
+        case 2 -> run.replaceAll(line -> line.toUpperCase());
+        case 3 -> run.replaceAll(line -> " " + line + "\t");
+        case 4 -> run.replaceAll(line -> line + "\r");
+        case 5 -> {
+          final var moved = new ArrayList<>(run);
+          run.clear();
+          lines.addAll(random.nextInt(lines.size() + 1), moved);
+        }
+        default -> lines.addAll(random.nextInt(lines.size() + 1), new ArrayList<>(run));
+      }
+    }
+    return lines.toArray(String[]::new);
+  }
+
+  private static Set<ComparisonOption> generateOptions(final Random random) {
+    final var options = EnumSet.noneOf(ComparisonOption.class);
+    for (final var option : ComparisonOption.values()) {
+      if (random.nextInt(4) == 0) {
+        options.add(option);
+      }
+    }
+    return options;
+  }
+
+  private static String generateText(final Random random) {
+    final var text = new StringBuilder();
+    final var length = random.nextInt(40);
+    for (var i = 0; i < length; ++i) {
+      text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+    }
+    return text.toString();
+  }
+
+  /** Deletes, inserts and replaces a few characters of the text. */
+  private static String edit(final Random random, final String text) {
+    final var result = new StringBuilder(text);
+    final var edits = random.nextInt(5);
+    for (var edit = 0; edit < edits; ++edit) {
+      final var position = random.nextInt(result.length() + 1);
+      switch (random.nextInt(3)) {
+        case 0 -> result.insert(position, ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        case 1 -> {
+          if (position < result.length()) {
+            result.deleteCharAt(position);
+          }
+        }
+        default -> {
+          if (position < result.length()) {
+            result.setCharAt(position, Character.toUpperCase(result.charAt(position)));
+          }
+        }
+      }
+    }
+    return result.toString();
+  }
+}
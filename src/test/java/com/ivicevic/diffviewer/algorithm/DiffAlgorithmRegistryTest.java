@@ -0,0 +1,182 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ivicevic.diffviewer.algorithm.AlgorithmCapabilities.MemoryClass;
+import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+
+class DiffAlgorithmRegistryTest {
+  private final DiffAlgorithmRegistry testee = DiffAlgorithmRegistry.withDefaults();
+
+  @Test
+  void builtInEnginesAreRegistered() {
+    assertEquals(
+        List.of("hunt", "parallel"),
+        testee.getAlgorithms().stream().map(DiffAlgorithm::getName).toList());
+    assertSame(testee.getAutomatic(), testee.get(DiffAlgorithmRegistry.AUTOMATIC).orElseThrow());
+    assertTrue(testee.get("unknown").isEmpty());
+  }
+
+  @Test
+  void namesAreUnique() {
+    assertThrows(IllegalArgumentException.class, () -> testee.register(new HuntAlgorithm()));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> testee.register(new StubAlgorithm(DiffAlgorithmRegistry.AUTOMATIC, null)));
+  }
+
+  @Test
+  void smallInputsAreDiffedExactly() {
+    final var original = lines(100, "line");
+    final var modified = lines(120, "line");
+
+    assertEquals("hunt", testee.select(original, modified, DiffMode.LINES).getName());
+  }
+
+  @Test
+  void largeSparselyChangedInputsAreSegmented() {
+    final var original = lines(3_000, "line");
+    final var modified = original.clone();
+    for (var i = 0; i < modified.length; i += 100) {
+      modified[i] = "changed " + i;
+    }
+
+    assertEquals("parallel", testee.select(original, modified, DiffMode.LINES).getName());
+  }
+
+  @Test
+  void largeDenselyChangedInputsAreNeverDiffedInQuadraticMemory() {
+    final var original = lines(50_000, "line");
+    final var modified = lines(50_000, "other");
+
+    assertEquals("parallel", testee.select(original, modified, DiffMode.LINES).getName());
+    // A matrix of both inputs would take 10 GB.
+    final var allocatedBefore = getAllocatedBytes();
+    final var diff = testee.getAutomatic().buildDiff(original, modified, DiffMode.LINES);
+    final var allocated = getAllocatedBytes() - allocatedBefore;
+    assertTrue(allocated < 1024L * 1024 * 1024, allocated + " bytes allocated");
+    assertEquals(
+        original.length,
+        diff.getOriginal().stream().filter(DeleteCommand.class::isInstance).count());
+  }
+
+  @Test
+  void exactEnginesArePreferredForLargeDenselyChangedInputs() {
+    final var registry = new DiffAlgorithmRegistry();
+    registry.register(
+        new StubAlgorithm(
+            "linear", AlgorithmCapabilities.of(MemoryClass.LINEAR, false, DiffMode.LINES)));
+    registry.register(
+        new StubAlgorithm(
+            "segmented", AlgorithmCapabilities.of(MemoryClass.SEGMENTED, true, DiffMode.LINES)));
+    registry.register(
+        new StubAlgorithm(
+            "quadratic", AlgorithmCapabilities.of(MemoryClass.QUADRATIC, true, DiffMode.LINES)));
+
+    assertEquals(
+        "segmented",
+        registry.select(lines(3_000, "line"), lines(3_000, "other"), DiffMode.LINES).getName());
+  }
+
+  @Test
+  void enginesAreOnlySelectedForTheirModes() {
+    final var registry = new DiffAlgorithmRegistry();
+    registry.register(
+        new StubAlgorithm(
+            "exact",
+            AlgorithmCapabilities.of(
+                MemoryClass.QUADRATIC, true, DiffMode.LINES, DiffMode.CHARACTERS)));
+    registry.register(
+        new StubAlgorithm(
+            "linear", AlgorithmCapabilities.of(MemoryClass.LINEAR, false, DiffMode.LINES)));
+    final var original = lines(3_000, "line");
+
+    assertEquals("linear", registry.select(original, original, DiffMode.LINES).getName());
+    assertEquals("exact", registry.select(original, original, DiffMode.CHARACTERS).getName());
+    assertThrows(
+        IllegalStateException.class, () -> registry.select(original, original, DiffMode.WORDS));
+
+    final var capabilities = registry.getAutomatic().getCapabilities();
+    assertEquals(MemoryClass.LINEAR, capabilities.getMemoryClass());
+    assertFalse(capabilities.isExact());
+    assertEquals(Set.of(DiffMode.LINES, DiffMode.CHARACTERS), capabilities.getModes());
+  }
+
+  @Test
+  void automaticDiffsEqualThoseOfTheSelectedEngine() {
+    final var original = new String[] {"a", "b", "c", "d"};
+    final var modified = new String[] {"a", "c", "x", "d"};
+
+    final var expected = new HuntAlgorithm().buildDiff(original, modified, DiffMode.LINES);
+    final var actual = testee.getAutomatic().buildDiff(original, modified, DiffMode.LINES);
+    assertEquals(expected.getOriginal(), actual.getOriginal());
+    assertEquals(expected.getModified(), actual.getModified());
+    assertEquals(expected.getChangedLines(), actual.getChangedLines());
+  }
+
+  @Test
+  void editDensityIsTheShareOfUnmatchedLines() {
+    final var original = lines(10, "line");
+
+    assertEquals(0, DiffAlgorithmRegistry.estimateEditDensity(original, original));
+    assertEquals(1, DiffAlgorithmRegistry.estimateEditDensity(original, lines(10, "other")));
+    final var halfChanged = original.clone();
+    System.arraycopy(lines(5, "other"), 0, halfChanged, 5, 5);
+    assertEquals(0.5, DiffAlgorithmRegistry.estimateEditDensity(original, halfChanged));
+    assertEquals(1, DiffAlgorithmRegistry.estimateEditDensity(original, new String[0]));
+    assertEquals(0, DiffAlgorithmRegistry.estimateEditDensity(new String[0], new String[0]));
+  }
+
+  /** Sums the bytes allocated by all live threads, including the workers of parallel engines. */
+  private static long getAllocatedBytes() {
+    final var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    return Arrays.stream(threads.getThreadAllocatedBytes(threads.getAllThreadIds()))
+        .filter(bytes -> bytes > 0)
+        .sum();
+  }
+
+  private static String[] lines(final int count, final String prefix) {
+    return IntStream.range(0, count).mapToObj(i -> prefix + " " + i).toArray(String[]::new);
+  }
+
+  @RequiredArgsConstructor
+  private static class StubAlgorithm implements DiffAlgorithm {
+    private final String name;
+    private final AlgorithmCapabilities capabilities;
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public String getLabel() {
+      return name;
+    }
+
+    @Override
+    public AlgorithmCapabilities getCapabilities() {
+      return capabilities;
+    }
+
+    @Override
+    public Diff buildDiff(
+        final String[] original,
+        final String[] modified,
+        final DiffMode diffMode,
+        final Set<ComparisonOption> options) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.InsertCommand;
+import com.ivicevic.diffviewer.algorithm.commands.KeepCommand;
+import com.ivicevic.diffviewer.algorithm.commands.VirtualKeepCommand;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class DiffTest {
+  @Test
+  void changedRowsFormHunks() {
+    final var diff =
+        new Diff(
+            List.of(keep("a"), new DeleteCommand("b"), new DeleteCommand("c"), keep("d")),
+            List.of(keep("a"), new InsertCommand("B"), new VirtualKeepCommand(), keep("d")),
+            List.of());
+
+    assertEquals(List.of(new Hunk(1, 3, 1, 3, 1, 2)), diff.getHunks());
+  }
+
+  @Test
+  void keptLinesPaddedByVirtualLinesAreUnchanged() {
+    // Lines that are merely shifted are padded on the other side without being a difference.
+    final var diff =
+        new Diff(
+            List.of(keep("a"), keep("b"), new VirtualKeepCommand(), new DeleteCommand("c")),
+            List.of(keep("a"), new VirtualKeepCommand(), keep("b"), new InsertCommand("C")),
+            List.of());
+
+    assertEquals(List.of(new Hunk(3, 4, 2, 3, 2, 3)), diff.getHunks());
+  }
+
+  @Test
+  void identicalDiffsHaveNoHunks() {
+    assertTrue(Diff.identical(new String[] {"a", "b"}).getHunks().isEmpty());
+  }
+
+  private static EditCommand keep(final String line) {
+    return new KeepCommand(line);
+  }
+}
@@ -0,0 +1,76 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.FoldCommand;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class FoldedDiffTest {
+  // Changes in rows 10 and 20 of 30 rows.
+  private final Diff source =
+      new HuntAlgorithm()
+          .buildDiff(
+              IntStream.range(0, 30).mapToObj(String::valueOf).toArray(String[]::new),
+              IntStream.range(0, 30)
+                  .mapToObj(i -> i == 10 || i == 20 ? "changed " + i : String.valueOf(i))
+                  .toArray(String[]::new),
+              DiffMode.LINES);
+
+  @Test
+  void unchangedRowsAreFoldedExceptForTheirContext() {
+    final var testee = FoldedDiff.of(source, 2, Set.of());
+
+    assertEquals(
+        List.of(
+            "... 8 unchanged lines ...",
+            "8",
+            "9",
+            "10",
+            "11",
+            "12",
+            "... 5 unchanged lines ...",
+            "18",
+            "19",
+            "20",
+            "21",
+            "22",
+            "... 7 unchanged lines ..."),
+        testee.getDiff().getOriginal().stream().map(EditCommand::getText).toList());
+    assertEquals(
+        List.of(new FoldCommand(0, 8, 8), new FoldCommand(13, 18, 5), new FoldCommand(23, 30, 7)),
+        testee.getDiff().getModified().stream()
+            .filter(FoldCommand.class::isInstance)
+            .toList());
+    assertEquals(List.of(3, 9), testee.getDiff().getChangedLines());
+    assertEquals(2, testee.getDiff().getHunks().size());
+  }
+
+  @Test
+  void rowsAreMappedBetweenSourceAndDisplay() {
+    final var testee = FoldedDiff.of(source, 2, Set.of());
+
+    assertEquals(3, testee.toDisplayRow(10));
+    assertEquals(6, testee.toDisplayRow(15));
+    assertEquals(13, testee.toSourceRow(6));
+    assertEquals(20, testee.toSourceRow(9));
+    assertEquals(new FoldCommand(13, 18, 5), testee.getFold(15));
+    assertNull(testee.getFold(12));
+  }
+
+  @Test
+  void expandedFoldsAndNegativeContextShowAllRows() {
+    final var expanded = FoldedDiff.of(source, 2, Set.of(13));
+    final var unfolded = FoldedDiff.of(source, -1, Set.of());
+
+    assertEquals("13", expanded.getDiff().getOriginal().get(6).getText());
+    assertEquals(17, expanded.getDiff().getOriginal().size());
+    assertSame(source, unfolded.getDiff());
+    assertEquals(15, unfolded.toDisplayRow(15));
+  }
+}
@@ -2,12 +2,16 @@ package com.ivicevic.diffviewer.algorithm;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
 import com.ivicevic.diffviewer.algorithm.commands.InsertCommand;
 import com.ivicevic.diffviewer.algorithm.commands.KeepCommand;
+import com.ivicevic.diffviewer.algorithm.commands.ModifyCommand;
 import com.ivicevic.diffviewer.algorithm.commands.VirtualKeepCommand;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import org.junit.jupiter.api.Test;
 
 class HuntAlgorithmTest {
@@ -60,4 +64,199 @@ class HuntAlgorithmTest {
 
     assertEquals(List.of(0, 3, 8), result.getChangedLines());
   }
+
+  @Test
+  void linesBeforeTrailingDeletionsAreKept() {
+    final var result =
+        new HuntAlgorithm()
+            .buildDiff(
+                new String[] {"removed", "removed", "kept", "trailer"},
+                new String[] {"kept"},
+                DiffMode.LINES);
+
+    // Commands compare by their text only.
+    assertIterableEquals(
+        List.of(
+            DeleteCommand.class, DeleteCommand.class, KeepCommand.class, DeleteCommand.class),
+        result.getOriginal().stream().map(Object::getClass).toList());
+    assertIterableEquals(
+        List.of(
+            VirtualKeepCommand.class,
+            VirtualKeepCommand.class,
+            KeepCommand.class,
+            VirtualKeepCommand.class),
+        result.getModified().stream().map(Object::getClass).toList());
+  }
+
+  @Test
+  void interruptedDiffsAreCancelled() {
+    Thread.currentThread().interrupt();
+    try {
+      assertThrows(
+          CancellationException.class,
+          () ->
+              new HuntAlgorithm()
+                  .buildDiff(new String[] {"a", "b"}, new String[] {"b", "c"}, DiffMode.LINES));
+    } finally {
+      Thread.interrupted();
+    }
+  }
+
+  @Test
+  void wordDiffsKeepTokensIntact() {
+    final var tokenizer = Tokenizer.withAllBoundaries();
+    final var result =
+        new HuntAlgorithm()
+            .buildDiff(
+                tokenizer.tokenize("int count = 0;"),
+                tokenizer.tokenize("long count = 10;"),
+                DiffMode.WORDS);
+
+    assertIterableEquals(
+        List.of(
+            new ModifyCommand("int", ""),
+            new KeepCommand(" "),
+            new KeepCommand("count"),
+            new KeepCommand(" "),
+            new KeepCommand("="),
+            new KeepCommand(" "),
+            new ModifyCommand("0", ""),
+            new KeepCommand(";")),
+        result.getOriginal());
+    assertIterableEquals(
+        List.of(
+            new ModifyCommand("", "long"),
+            new KeepCommand(" "),
+            new KeepCommand("count"),
+            new KeepCommand(" "),
+            new KeepCommand("="),
+            new KeepCommand(" "),
+            new ModifyCommand("", "10"),
+            new KeepCommand(";")),
+        result.getModified());
+  }
+
+  @Test
+  void normalizedLinesAreKeptWithTheirOriginalText() {
+    final var result =
+        new HuntAlgorithm()
+            .buildDiff(
+                new String[] {"if (a) {", "  return;", "}\r"},
+                new String[] {"IF (a) {", "    return;  ", "}", "done"},
+                DiffMode.LINES,
+                Set.of(
+                    ComparisonOption.IGNORE_ALL_WHITESPACE,
+                    ComparisonOption.IGNORE_CASE,
+                    ComparisonOption.IGNORE_LINE_ENDINGS));
+
+    final var expectedOriginal =
+        List.of(
+            new KeepCommand("if (a) {"),
+            new KeepCommand("  return;"),
+            new KeepCommand("}\r"),
+            new VirtualKeepCommand());
+    assertIterableEquals(expectedOriginal, result.getOriginal());
+    final var expectedModified =
+        List.of(
+            new KeepCommand("IF (a) {"),
+            new KeepCommand("    return;  "),
+            new KeepCommand("}"),
+            new InsertCommand("done"));
+    assertIterableEquals(expectedModified, result.getModified());
+    assertEquals(List.of(3), result.getChangedLines());
+  }
+
+  @Test
+  void linesAreComparedVerbatimWithoutOptions() {
+    final var result =
+        new HuntAlgorithm().buildDiff(new String[] {"a "}, new String[] {"a"}, DiffMode.LINES);
+    assertIterableEquals(List.of(new DeleteCommand("a ")), result.getOriginal());
+    assertIterableEquals(List.of(new InsertCommand("a")), result.getModified());
+    assertEquals(List.of(0), result.getChangedLines());
+  }
+
+  @Test
+  void insertedBlocksEndAtTheirClosingBrace() {
+    final var original = new String[] {"int a() {", "  x;", "}"};
+    final var modified = new String[] {"int a() {", "  x;", "}", "", "int b() {", "  y;", "}"};
+
+    final var unprocessed =
+        new HuntAlgorithm(mode -> List.of()).buildDiff(original, modified, DiffMode.LINES);
+    final var result = new HuntAlgorithm().buildDiff(original, modified, DiffMode.LINES);
+
+    assertIterableEquals(
+        List.of(
+            new KeepCommand("int a() {"),
+            new KeepCommand("  x;"),
+            new InsertCommand("}"),
+            new InsertCommand(""),
+            new InsertCommand("int b() {"),
+            new InsertCommand("  y;"),
+            new KeepCommand("}")),
+        unprocessed.getModified());
+    assertIterableEquals(
+        List.of(
+            new KeepCommand("int a() {"),
+            new KeepCommand("  x;"),
+            new KeepCommand("}"),
+            new InsertCommand(""),
+            new InsertCommand("int b() {"),
+            new InsertCommand("  y;"),
+            new InsertCommand("}")),
+        result.getModified());
+    assertEquals(List.of(3), result.getChangedLines());
+  }
+
+  @Test
+  void similarLinesArePairedOnTheSameRow() {
+    final var result =
+        new HuntAlgorithm()
+            .buildDiff(
+                new String[] {"a", "int x = 1;", "b"},
+                new String[] {"a", "// set x", "int x = 2;", "b"},
+                DiffMode.LINES);
+
+    final var expectedOriginal =
+        List.of(
+            new KeepCommand("a"),
+            new VirtualKeepCommand(),
+            new DeleteCommand("int x = 1;"),
+            new KeepCommand("b"));
+    assertIterableEquals(expectedOriginal, result.getOriginal());
+    assertIterableEquals(
+        expectedOriginal.stream().map(Object::getClass).toList(),
+        result.getOriginal().stream().map(Object::getClass).toList());
+    assertIterableEquals(
+        List.of(
+            new KeepCommand("a"),
+            new InsertCommand("// set x"),
+            new InsertCommand("int x = 2;"),
+            new KeepCommand("b")),
+        result.getModified());
+  }
+
+  @Test
+  void coincidentalCharacterMatchesAreMergedIntoTheChange() {
+    final var result =
+        new HuntAlgorithm()
+            .buildDiff("int a".split(""), "long a".split(""), DiffMode.CHARACTERS);
+
+    assertIterableEquals(
+        List.of(
+            new ModifyCommand("i", ""),
+            new ModifyCommand("n", ""),
+            new ModifyCommand("t", ""),
+            new KeepCommand(" "),
+            new KeepCommand("a")),
+        result.getOriginal());
+    assertIterableEquals(
+        List.of(
+            new ModifyCommand("", "l"),
+            new ModifyCommand("", "o"),
+            new ModifyCommand("", "n"),
+            new ModifyCommand("", "g"),
+            new KeepCommand(" "),
+            new KeepCommand("a")),
+        result.getModified());
+  }
 }
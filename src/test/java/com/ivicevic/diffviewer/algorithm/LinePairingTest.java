@@ -0,0 +1,74 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.InsertCommand;
+import com.ivicevic.diffviewer.algorithm.commands.KeepCommand;
+import com.ivicevic.diffviewer.algorithm.commands.MovedDeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.VirtualKeepCommand;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LinePairingTest {
+  private final LinePairing testee = new LinePairing();
+
+  @Test
+  void onlySimilarLinesArePaired() {
+    final var diff =
+        new Diff(
+            List.of(
+                new KeepCommand("{"),
+                new DeleteCommand("final var count = list.size();"),
+                new DeleteCommand("return count;"),
+                new VirtualKeepCommand(),
+                new KeepCommand("}")),
+            List.of(
+                new KeepCommand("{"),
+                new InsertCommand("// Unrelated comment"),
+                new InsertCommand("final var count = items.size();"),
+                new InsertCommand("return count + 1;"),
+                new KeepCommand("}")),
+            List.of(1));
+
+    assertEquals(List.of(new LinePair(1, 2), new LinePair(2, 3)), testee.pair(diff));
+  }
+
+  @Test
+  void linesAlignedOnTheSameRowArePairedAndNotCrossed() {
+    final var diff =
+        new Diff(
+            List.of(
+                new DeleteCommand("int total = first + second;"),
+                new DeleteCommand("return total;"),
+                new VirtualKeepCommand()),
+            List.of(
+                new InsertCommand("// Unrelated comment"),
+                new InsertCommand("return total * 2;"),
+                new InsertCommand("int total = first + third;")),
+            List.of(0));
+
+    assertEquals(List.of(new LinePair(1, 1)), testee.pair(diff));
+  }
+
+  @Test
+  void movedAndBlankLinesAreNotPaired() {
+    final var diff =
+        new Diff(
+            List.of(new MovedDeleteCommand("moved();", 0), new DeleteCommand("  ")),
+            List.of(new InsertCommand("moved();"), new InsertCommand("")),
+            List.of(0));
+
+    assertTrue(testee.pair(diff).isEmpty());
+  }
+
+  @Test
+  void signaturesEstimateTrigramOverlap() {
+    final var line = LinePairing.signatureOf("int x = 1;");
+
+    assertEquals(1.0, LinePairing.similarity(line, LinePairing.signatureOf("int x = 1;")));
+    assertTrue(LinePairing.similarity(line, LinePairing.signatureOf("int x = 2;")) > 0.4);
+    assertTrue(LinePairing.similarity(line, LinePairing.signatureOf("while (true) {")) < 0.2);
+  }
+}
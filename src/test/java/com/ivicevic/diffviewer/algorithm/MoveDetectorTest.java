@@ -0,0 +1,129 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.InsertCommand;
+import com.ivicevic.diffviewer.algorithm.commands.KeepCommand;
+import com.ivicevic.diffviewer.algorithm.commands.MovedDeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.MovedInsertCommand;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MoveDetectorTest {
+  @Test
+  void movedBlocksAreDetected() {
+    final var diff =
+        new Diff(
+            List.of(
+                new DeleteCommand("void foo() {"),
+                new DeleteCommand("  bar();"),
+                new DeleteCommand("}"),
+                new DeleteCommand("removed")),
+            List.of(
+                new InsertCommand("added"),
+                new InsertCommand("    void foo() {"),
+                new InsertCommand("      bar();"),
+                new InsertCommand("    }")),
+            List.of(0));
+
+    final var result = new MoveDetector().detectMoves(diff);
+
+    assertEquals(
+        List.of(
+            MovedDeleteCommand.class,
+            MovedDeleteCommand.class,
+            MovedDeleteCommand.class,
+            DeleteCommand.class),
+        result.getOriginal().stream().map(EditCommand::getClass).toList());
+    assertEquals(
+        List.of(
+            InsertCommand.class,
+            MovedInsertCommand.class,
+            MovedInsertCommand.class,
+            MovedInsertCommand.class),
+        result.getModified().stream().map(EditCommand::getClass).toList());
+    assertEquals("    void foo() {", result.getModified().get(1).getText());
+  }
+
+  @Test
+  void movesAcrossHunksAreDetected() {
+    final var original =
+        new String[] {"one", "two", "three", "keep", "x1", "y1", "z1", "w1", "keep2", "end"};
+    final var modified =
+        new String[] {"keep", "x1", "y1", "z1", "w1", "keep2", "one", "two", "three", "end"};
+    final var diff =
+        new MoveDetector()
+            .detectMoves(new HuntAlgorithm().buildDiff(original, modified, DiffMode.LINES));
+
+    final var movedOriginal =
+        diff.getOriginal().stream().filter(MovedDeleteCommand.class::isInstance).count();
+    final var movedModified =
+        diff.getModified().stream().filter(MovedInsertCommand.class::isInstance).count();
+    assertEquals(3, movedOriginal);
+    assertEquals(3, movedModified);
+  }
+
+  @Test
+  void shortOrInsignificantBlocksAreNotMoves() {
+    final var diff =
+        new Diff(
+            List.of(new DeleteCommand("}"), new DeleteCommand(""), new DeleteCommand("}")),
+            List.of(new InsertCommand("}"), new InsertCommand(""), new InsertCommand("}")),
+            List.of(0));
+    assertSame(diff, new MoveDetector().detectMoves(diff));
+  }
+
+  @Test
+  void repeatedBlocksMoveToDistinctCopies() {
+    final var block = List.of("foo();", "bar();", "baz();");
+    final var deleted = new ArrayList<EditCommand>();
+    final var inserted = new ArrayList<EditCommand>();
+    for (var copy = 0; copy < 3; ++copy) {
+      block.forEach(line -> deleted.add(new DeleteCommand(line)));
+      deleted.add(new KeepCommand("separator"));
+      block.forEach(line -> inserted.add(new InsertCommand(line)));
+      inserted.add(new KeepCommand("separator"));
+    }
+
+    final var result = new MoveDetector().detectMoves(new Diff(deleted, inserted, List.of()));
+
+    assertEquals(
+        List.of(0, 0, 0, 1, 1, 1, 2, 2, 2),
+        result.getModified().stream()
+            .filter(MovedInsertCommand.class::isInstance)
+            .map(command -> ((MovedInsertCommand) command).getBlock())
+            .toList());
+  }
+
+  @Test
+  void blocksAmongManyInsignificantLinesAreFound() {
+    // Every window of blank lines and braces has the same hash, which must not be compared to
+    // every other one.
+    final var block = List.of("foo();", "bar();", "baz();");
+    final var deleted = new ArrayList<EditCommand>();
+    final var inserted = new ArrayList<EditCommand>();
+    block.forEach(line -> inserted.add(new InsertCommand(line)));
+    for (var i = 0; i < 100_000; ++i) {
+      deleted.add(new DeleteCommand(i % 2 == 0 ? "}" : ""));
+      inserted.add(new InsertCommand(i % 2 == 0 ? "" : "}"));
+    }
+    block.forEach(line -> deleted.add(new DeleteCommand(line)));
+
+    final var result =
+        assertTimeoutPreemptively(
+            Duration.ofSeconds(10),
+            () -> new MoveDetector().detectMoves(new Diff(deleted, inserted, List.of())));
+
+    assertEquals(
+        3, result.getOriginal().stream().filter(MovedDeleteCommand.class::isInstance).count());
+    assertEquals(
+        List.of(MovedInsertCommand.class, MovedInsertCommand.class, MovedInsertCommand.class),
+        result.getModified().subList(0, 3).stream().map(EditCommand::getClass).toList());
+  }
+}
@@ -0,0 +1,188 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.InsertCommand;
+import com.ivicevic.diffviewer.algorithm.commands.KeepCommand;
+import com.ivicevic.diffviewer.algorithm.commands.VirtualKeepCommand;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class ParallelHuntAlgorithmTest {
+  // Small segments split even small inputs into many of them.
+  private final ParallelHuntAlgorithm testee =
+      new ParallelHuntAlgorithm(ForkJoinPool.commonPool(), 16);
+
+  @Test
+  void diffsOfEditedFilesMatchTheSequentialDiff() {
+    for (var seed = 0; seed < 20; ++seed) {
+      final var random = new Random(seed);
+      final var original = generateFile(random, 200 + random.nextInt(800));
+      final var modified = edit(random, original);
+
+      for (final var options :
+          List.of(Set.<ComparisonOption>of(), Set.of(ComparisonOption.IGNORE_CASE))) {
+        assertEquals(
+            describe(new HuntAlgorithm().buildDiff(original, modified, DiffMode.LINES, options)),
+            describe(testee.buildDiff(original, modified, DiffMode.LINES, options)),
+            "seed " + seed);
+      }
+    }
+  }
+
+  @Test
+  void diffsOfArbitraryInputsReproduceBothInputs() {
+    for (var seed = 0; seed < 20; ++seed) {
+      final var random = new Random(seed);
+      // Few distinct lines make for many repeated ones and only some unique anchors.
+      final var original = randomLines(random, 100 + random.nextInt(200), 8 + random.nextInt(99));
+      final var modified = randomLines(random, 100 + random.nextInt(200), 8 + random.nextInt(99));
+
+      final var diff = testee.buildDiff(original, modified, DiffMode.LINES);
+
+      assertEquals(diff.getOriginal().size(), diff.getModified().size());
+      assertArrayEquals(original, textOf(diff.getOriginal()), "seed " + seed);
+      assertArrayEquals(modified, textOf(diff.getModified()), "seed " + seed);
+    }
+  }
+
+  @Test
+  void largeRewrittenFilesAreDiffedInBoundedMemory() {
+    // Without any common line there is no anchor, the matrix would take 10 GB.
+    final var original = new String[50_000];
+    final var modified = new String[50_000];
+    for (var i = 0; i < original.length; ++i) {
+      original[i] = "old " + i;
+      modified[i] = "new " + i;
+    }
+    modified[0] = original[0];
+    modified[modified.length - 1] = original[original.length - 1];
+
+    final var allocatedBefore = getAllocatedBytes();
+    final var diff = new ParallelHuntAlgorithm().buildDiff(original, modified, DiffMode.LINES);
+    final var allocated = getAllocatedBytes() - allocatedBefore;
+
+    assertTrue(allocated < 1024L * 1024 * 1024, allocated + " bytes allocated");
+    assertArrayEquals(original, textOf(diff.getOriginal()));
+    assertArrayEquals(modified, textOf(diff.getModified()));
+    final var last = diff.getOriginal().size() - 1;
+    // The common first and last lines are trimmed off before the rest is replaced.
+    assertEquals(KeepCommand.class, diff.getOriginal().get(0).getClass());
+    assertEquals(KeepCommand.class, diff.getOriginal().get(last).getClass());
+    assertEquals(DeleteCommand.class, diff.getOriginal().get(1).getClass());
+    assertEquals(InsertCommand.class, diff.getModified().get(1).getClass());
+  }
+
+  @Test
+  void interruptingTheCallerCancelsAllSegments() {
+    final var original = generateFile(new Random(0), 1_000);
+    final var modified = edit(new Random(1), original);
+
+    // The segments run on the pool, whose threads aren't interrupted themselves.
+    final var pool = new ForkJoinPool(2);
+    Thread.currentThread().interrupt();
+    try {
+      assertThrows(
+          CancellationException.class,
+          () ->
+              new ParallelHuntAlgorithm(pool, 16).buildDiff(original, modified, DiffMode.LINES));
+    } finally {
+      Thread.interrupted();
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void anchorsAreTheLongestIncreasingRunOfUniqueLines() {
+    final var keys =
+        ComparisonKeys.of(
+            new String[] {"a", "x", "b", "c", "x", "d", "e"},
+            new String[] {"b", "a", "c", "e", "d", "f"},
+            Set.of());
+
+    final var anchors = ParallelHuntAlgorithm.findAnchors(keys, 0, 7, 0, 6);
+
+    // Either "a" or "b" and either "d" or "e" can be kept, the lower modified position wins.
+    assertArrayEquals(new int[] {2, 3, 6}, anchors[0]);
+    assertArrayEquals(new int[] {0, 2, 3}, anchors[1]);
+  }
+
+  /** Generates source code like lines, which are unique except for braces and blank lines. */
+  private static String[] generateFile(final Random random, final int lines) {
+    final var result = new String[lines];
+    for (var i = 0; i < lines; ++i) {
+      final var kind = random.nextInt(10);
+      result[i] = kind == 0 ? "}" : kind == 1 ? "" : "  statement(" + i + ");";
+    }
+    return result;
+  }
+
+  /** Deletes, replaces and inserts lines, but never moves or duplicates any. */
+  private static String[] edit(final Random random, final String[] lines) {
+    final var result = new ArrayList<String>();
+    for (var i = 0; i < lines.length; ++i) {
+      final var operation = random.nextInt(20);
+      if (operation == 0) {
+        continue;
+      } else if (operation == 1) {
+        result.add("  replaced(" + i + ");");
+      } else if (operation == 2) {
+        result.add("  inserted(" + i + ");");
+        result.add(lines[i]);
+      } else if (operation == 3) {
+        result.add(lines[i].toUpperCase());
+      } else {
+        result.add(lines[i]);
+      }
+    }
+    return result.toArray(String[]::new);
+  }
+
+  /** Sums the bytes allocated by all live threads, including the workers of the pool. */
+  private static long getAllocatedBytes() {
+    final var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    return Arrays.stream(threads.getThreadAllocatedBytes(threads.getAllThreadIds()))
+        .filter(bytes -> bytes > 0)
+        .sum();
+  }
+
+  private static String[] randomLines(final Random random, final int lines, final int distinct) {
+    final var result = new String[lines];
+    for (var i = 0; i < lines; ++i) {
+      result[i] = "line " + random.nextInt(distinct);
+    }
+    return result;
+  }
+
+  private static List<String> describe(final Diff diff) {
+    final var result = new ArrayList<String>();
+    for (var row = 0; row < diff.getOriginal().size(); ++row) {
+      result.add(
+          describe(diff.getOriginal().get(row)) + " | " + describe(diff.getModified().get(row)));
+    }
+    return result;
+  }
+
+  private static String describe(final EditCommand command) {
+    return command.getClass().getSimpleName() + " " + command.getText();
+  }
+
+  private static String[] textOf(final List<EditCommand> script) {
+    return script.stream()
+        .filter(command -> !(command instanceof VirtualKeepCommand))
+        .map(EditCommand::getText)
+        .toArray(String[]::new);
+  }
+}
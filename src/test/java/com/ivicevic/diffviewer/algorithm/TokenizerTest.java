@@ -0,0 +1,47 @@
+package com.ivicevic.diffviewer.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.EnumSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class TokenizerTest {
+  @Test
+  void linesAreSplitAtAllBoundaries() {
+    final var tokens = Tokenizer.withAllBoundaries().tokenize("  final var foo_bar = baz(1, 2);");
+    assertArrayEquals(
+        new String[] {
+          "  ", "final", " ", "var", " ", "foo_bar", " ", "=", " ", "baz", "(", "1", ",", " ", "2",
+          ")", ";"
+        },
+        tokens);
+  }
+
+  @Test
+  void identifiersAreSplitWithoutIdentifierBoundary() {
+    final var tokenizer =
+        new Tokenizer(EnumSet.of(TokenBoundary.WHITESPACE, TokenBoundary.PUNCTUATION));
+    assertArrayEquals(new String[] {"foo", "_", "bar"}, tokenizer.tokenize("foo_bar"));
+  }
+
+  @Test
+  void punctuationStaysAttachedWithoutPunctuationBoundary() {
+    final var tokenizer = new Tokenizer(EnumSet.of(TokenBoundary.WHITESPACE));
+    assertArrayEquals(
+        new String[] {"call(a,", " ", "b);"}, tokenizer.tokenize("call(a, b);"));
+  }
+
+  @Test
+  void tokensConcatenateToTheOriginalLine() {
+    final var line = "\tif (x->y != null) { return \"a b\"; } // comment";
+    assertEquals(line, String.join("", Tokenizer.withAllBoundaries().tokenize(line)));
+    assertEquals(line, String.join("", new Tokenizer(Set.of()).tokenize(line)));
+  }
+
+  @Test
+  void emptyLinesHaveNoTokens() {
+    assertEquals(0, Tokenizer.withAllBoundaries().tokenize("").length);
+  }
+}
@@ -0,0 +1,261 @@
+package com.ivicevic.diffviewer.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+import lombok.Value;
+
+/**
+ * A directory of file pairs to benchmark. Every subdirectory holds one pair, whose files are named
+ * original and modified with any extension, e.g. lockfile/original.json and
+ * lockfile/modified.json. Recorded real-world pairs can be dropped in as they are, the default
+ * corpus is generated with the shapes of typical large inputs.
+ */
+@Value
+public class BenchmarkCorpus {
+  Path directory;
+
+  /** Returns the pairs ordered by name, skipping subdirectories without both files. */
+  public List<Pair> getPairs() throws IOException {
+    final var pairs = new ArrayList<Pair>();
+    try (final var directories = Files.list(directory)) {
+      for (final var pairDirectory : directories.filter(Files::isDirectory).sorted().toList()) {
+        final var original = find(pairDirectory, "original");
+        final var modified = find(pairDirectory, "modified");
+        if (original != null && modified != null) {
+          pairs.add(new Pair(pairDirectory.getFileName().toString(), original, modified));
+        }
+      }
+    }
+    return pairs;
+  }
+
+  private static Path find(final Path directory, final String name) throws IOException {
+    try (final Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(Files::isRegularFile)
+          .filter(file -> file.getFileName().toString().startsWith(name))
+          .findFirst()
+          .orElse(null);
+    }
+  }
+
+  /**
+   * Writes the generated pairs that are missing from the directory. The scale multiplies their
+   * length, 1 yields files of a few megabytes.
+   */
+  public void generate(final double scale) throws IOException {
+    write("generated-code", "java", scale, BenchmarkCorpus::generatedCode);
+    write("lockfile", "json", scale, BenchmarkCorpus::lockfile);
+    write("log", "log", scale, BenchmarkCorpus::log);
+    write("minified-js", "js", scale, BenchmarkCorpus::minifiedJs);
+  }
+
+  private void write(
+      final String name, final String extension, final double scale, final Generator generator)
+      throws IOException {
+    final var pairDirectory = directory.resolve(name);
+    if (Files.isDirectory(pairDirectory)) {
+      return;
+    }
+    final var original = new StringBuilder();
+    final var modified = new StringBuilder();
+    generator.generate(new SplittableRandom(name.hashCode()), scale, original, modified);
+    Files.createDirectories(pairDirectory);
+    Files.writeString(pairDirectory.resolve("original." + extension), original);
+    Files.writeString(pairDirectory.resolve("modified." + extension), modified);
+  }
+
+  private static int scaled(final int count, final double scale) {
+    return Math.max(1, (int) (count * scale));
+  }
+
+  /** Application log that was rotated and appended to, with some values differing. */
+  private static void log(
+      final SplittableRandom random,
+      final double scale,
+      final StringBuilder original,
+      final StringBuilder modified) {
+    final var lines = scaled(100_000, scale);
+    final var rotated = lines / 50;
+    final var appended = lines / 20;
+    final var levels = new String[] {"INFO ", "INFO ", "INFO ", "DEBUG", "WARN "};
+    for (var i = 0; i < lines + appended; ++i) {
+      final var line =
+          String.format(
+              Locale.ROOT,
+              "2024-05-01T%02d:%02d:%02d.%03dZ %s [worker-%d] c.e.RequestHandler - Request %d"
+                  + " handled in %d ms",
+              i / 360_000 % 24,
+              i / 6_000 % 60,
+              i / 100 % 60,
+              i % 100 * 10,
+              levels[random.nextInt(levels.length)],
+              random.nextInt(16),
+              i,
+              random.nextInt(200));
+      if (i < lines) {
+        original.append(line).append('\n');
+      }
+      if (i >= rotated) {
+        modified
+            .append(random.nextInt(100) == 0 ? line.replace(" ms", " ms (retried)") : line)
+            .append('\n');
+      }
+    }
+  }
+
+  /** Package lock whose dependencies were partly upgraded, added and removed. */
+  private static void lockfile(
+      final SplittableRandom random,
+      final double scale,
+      final StringBuilder original,
+      final StringBuilder modified) {
+    final var packages = scaled(3_000, scale);
+    original.append("{\n  \"lockfileVersion\": 3,\n  \"packages\": {\n");
+    modified.append("{\n  \"lockfileVersion\": 3,\n  \"packages\": {\n");
+    for (var i = 0; i < packages; ++i) {
+      final var name = "package-" + Integer.toString(i * 7919, 36);
+      final var version = "1." + random.nextInt(20) + "." + random.nextInt(10);
+      final var operation = random.nextInt(100);
+      if (operation != 0) {
+        appendPackage(original, name, version, i);
+      }
+      if (operation == 1) {
+        continue;
+      }
+      final var upgraded = operation < 7 ? "2.0." + random.nextInt(10) : version;
+      appendPackage(modified, name, operation == 0 ? "0.1.0" : upgraded, i);
+    }
+    original.append("  }\n}\n");
+    modified.append("  }\n}\n");
+  }
+
+  private static void appendPackage(
+      final StringBuilder text, final String name, final String version, final int index) {
+    text.append("    \"node_modules/").append(name).append("\": {\n");
+    text.append("      \"version\": \"").append(version).append("\",\n");
+    text.append("      \"resolved\": \"https://registry.npmjs.org/")
+        .append(name)
+        .append("/-/")
+        .append(name)
+        .append('-')
+        .append(version)
+        .append(".tgz\",\n");
+    text.append("      \"integrity\": \"sha512-")
+        .append(Integer.toHexString((name + version).hashCode()))
+        .append("\",\n");
+    text.append("      \"dev\": true,\n");
+    text.append(index % 3 == 0 ? "      \"license\": \"ISC\"\n" : "      \"license\": \"MIT\"\n");
+    text.append("    },\n");
+  }
+
+  /** Bundle of long minified lines, some of which were changed in place. */
+  private static void minifiedJs(
+      final SplittableRandom random,
+      final double scale,
+      final StringBuilder original,
+      final StringBuilder modified) {
+    final var lines = scaled(40, scale);
+    for (var i = 0; i < lines; ++i) {
+      final var line = new StringBuilder();
+      while (line.length() < 4_000) {
+        final var a = identifier(random);
+        final var b = identifier(random);
+        line.append("function ")
+            .append(a)
+            .append('(')
+            .append(b)
+            .append("){return ")
+            .append(b)
+            .append('.')
+            .append(identifier(random))
+            .append('(')
+            .append(random.nextInt(1000))
+            .append(")||")
+            .append(a)
+            .append('}');
+      }
+      original.append(line).append('\n');
+      final var text = line.toString();
+      modified
+          .append(
+              i % 8 == 0
+                  ? text.replace("return ", "return void 0,").replace("||", "??")
+                  : text)
+          .append('\n');
+    }
+  }
+
+  private static String identifier(final SplittableRandom random) {
+    final var letters = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ$_";
+    final var length = 1 + random.nextInt(3);
+    final var result = new StringBuilder();
+    for (var i = 0; i < length; ++i) {
+      result.append(letters.charAt(random.nextInt(letters.length())));
+    }
+    return result.toString();
+  }
+
+  /** Generated message classes, a field was added to some messages and renumbers the later ones. */
+  private static void generatedCode(
+      final SplittableRandom random,
+      final double scale,
+      final StringBuilder original,
+      final StringBuilder modified) {
+    final var messages = scaled(400, scale);
+    for (var message = 0; message < messages; ++message) {
+      final var fields = 3 + random.nextInt(8);
+      final var added = message % 50 == 0;
+      appendMessage(original, message, fields, false);
+      appendMessage(modified, message, fields, added);
+    }
+  }
+
+  private static void appendMessage(
+      final StringBuilder text, final int message, final int fields, final boolean added) {
+    text.append("public final class Message").append(message).append(" {\n");
+    final var names = new ArrayList<String>();
+    if (added) {
+      names.add("createdAt");
+    }
+    for (var field = 0; field < fields; ++field) {
+      names.add("field" + field);
+    }
+    for (var number = 1; number <= names.size(); ++number) {
+      final var name = names.get(number - 1);
+      text.append("  public static final int ")
+          .append(name.toUpperCase(Locale.ROOT))
+          .append("_FIELD_NUMBER = ")
+          .append(number)
+          .append(";\n");
+      text.append("  private java.lang.String ").append(name).append("_ = \"\";\n\n");
+      text.append("  @java.lang.Override\n");
+      text.append("  public java.lang.String get")
+          .append(Character.toUpperCase(name.charAt(0)))
+          .append(name.substring(1))
+          .append("() {\n");
+      text.append("    return ").append(name).append("_;\n");
+      text.append("  }\n\n");
+    }
+    text.append("}\n\n");
+  }
+
+  @FunctionalInterface
+  private interface Generator {
+    void generate(
+        SplittableRandom random, double scale, StringBuilder original, StringBuilder modified);
+  }
+
+  @Value
+  public static class Pair {
+    String name;
+    Path original;
+    Path modified;
+  }
+}
@@ -0,0 +1,145 @@
+package com.ivicevic.diffviewer.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import lombok.Value;
+
+/**
+ * The measurements of a benchmark run, stored as JSON with one pair per line so that baselines
+ * can be read back without a JSON library and diffed line by line.
+ */
+@Value
+public class BenchmarkReport {
+  private static final List<String> COMPARED_METRICS =
+      List.of("wallMillis", "peakHeapBytes", "allocatedBytes");
+  // Smaller changes are considered noise however large they are relative to the baseline.
+  private static final double MILLIS_NOISE = 5;
+  private static final double BYTES_NOISE = 1024 * 1024;
+
+  private static final Pattern ALGORITHM = Pattern.compile("\"algorithm\": \"([^\"]*)\"");
+  private static final Pattern NAME = Pattern.compile("\"name\": \"([^\"]*)\"");
+  private static final Pattern ERROR = Pattern.compile("\"error\": \"([^\"]*)\"");
+  private static final Pattern NUMBER = Pattern.compile("\"(\\w+)\": (-?[0-9.]+)");
+
+  String algorithm;
+  List<Result> results;
+
+  public static BenchmarkReport read(final Path path) throws IOException {
+    final var lines = Files.readAllLines(path);
+    var algorithm = "";
+    final var results = new ArrayList<Result>();
+    for (final var line : lines) {
+      final var name = NAME.matcher(line);
+      if (!name.find()) {
+        final var header = ALGORITHM.matcher(line);
+        if (header.find()) {
+          algorithm = header.group(1);
+        }
+        continue;
+      }
+      final var error = ERROR.matcher(line);
+      final var metrics = new LinkedHashMap<String, Double>();
+      final var number = NUMBER.matcher(line);
+      while (number.find()) {
+        metrics.put(number.group(1), Double.parseDouble(number.group(2)));
+      }
+      results.add(new Result(name.group(1), metrics, error.find() ? error.group(1) : null));
+    }
+    return new BenchmarkReport(algorithm, results);
+  }
+
+  public void write(final Path path) throws IOException {
+    final var json = new StringBuilder();
+    json.append("{\n");
+    json.append("  \"algorithm\": \"").append(algorithm).append("\",\n");
+    json.append("  \"java\": \"").append(System.getProperty("java.version")).append("\",\n");
+    json.append("  \"pairs\": [\n");
+    for (var i = 0; i < results.size(); ++i) {
+      final var result = results.get(i);
+      json.append("    {\"name\": \"").append(result.getName()).append('"');
+      if (result.getError() != null) {
+        // Quotes would end the string, the error is only read back by this class.
+        json.append(", \"error\": \"")
+            .append(result.getError().replace('"', '\'').replace('\\', '/'))
+            .append('"');
+      }
+      result
+          .getMetrics()
+          .forEach(
+              (metric, value) ->
+                  json.append(", \"")
+                      .append(metric)
+                      .append("\": ")
+                      .append(
+                          value == Math.rint(value)
+                              ? String.valueOf(value.longValue())
+                              : String.format(Locale.ROOT, "%.3f", value)));
+      json.append(i + 1 < results.size() ? "},\n" : "}\n");
+    }
+    json.append("  ]\n}\n");
+    if (path.getParent() != null) {
+      Files.createDirectories(path.getParent());
+    }
+    Files.writeString(path, json);
+  }
+
+  /**
+   * Returns the measurements exceeding those of the baseline by more than the tolerated share and
+   * the noise of the metric, as well as pairs that failed but not in the baseline.
+   */
+  public List<String> findRegressions(final BenchmarkReport baseline, final double tolerance) {
+    final var regressions = new ArrayList<String>();
+    for (final var result : results) {
+      final var previous =
+          baseline.getResults().stream()
+              .filter(candidate -> candidate.getName().equals(result.getName()))
+              .findFirst()
+              .orElse(null);
+      if (previous == null) {
+        continue;
+      }
+      if (result.getError() != null) {
+        if (previous.getError() == null) {
+          regressions.add(result.getName() + " failed: " + result.getError());
+        }
+        continue;
+      }
+      for (final var metric : COMPARED_METRICS) {
+        final var before = previous.getMetrics().get(metric);
+        final var after = result.getMetrics().get(metric);
+        final var noise = metric.endsWith("Millis") ? MILLIS_NOISE : BYTES_NOISE;
+        if (before != null
+            && after != null
+            && after > before * (1 + tolerance)
+            && after - before > noise) {
+          regressions.add(
+              String.format(
+                  Locale.ROOT,
+                  "%s %s: %.1f -> %.1f (%+.0f%%)",
+                  result.getName(),
+                  metric,
+                  before,
+                  after,
+                  (after / before - 1) * 100));
+        }
+      }
+    }
+    return regressions;
+  }
+
+  @Value
+  public static class Result {
+    String name;
+    // Measurements by their name, in the order they are reported.
+    Map<String, Double> metrics;
+    // The exception that ended the pipeline, null if it completed.
+    String error;
+  }
+}
@@ -0,0 +1,73 @@
+package com.ivicevic.diffviewer.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BenchmarkReportTest {
+  @TempDir Path directory;
+
+  @Test
+  void reportsAreReadBack() throws IOException {
+    final var report =
+        new BenchmarkReport(
+            "hunt",
+            List.of(
+                result("log", 12.5, 2_000_000, 8_000_000),
+                new BenchmarkReport.Result(
+                    "minified-js", new LinkedHashMap<>(), "java.lang.OutOfMemoryError: \"heap\"")));
+    final var path = directory.resolve("report.json");
+
+    report.write(path);
+    final var restored = BenchmarkReport.read(path);
+
+    assertEquals("hunt", restored.getAlgorithm());
+    assertEquals(report.getResults().get(0), restored.getResults().get(0));
+    assertEquals("minified-js", restored.getResults().get(1).getName());
+    assertEquals("java.lang.OutOfMemoryError: 'heap'", restored.getResults().get(1).getError());
+  }
+
+  @Test
+  void measurementsBeyondTheToleranceAreRegressions() {
+    final var baseline =
+        new BenchmarkReport(
+            "auto",
+            List.of(
+                result("log", 100, 50_000_000, 400_000_000),
+                result("lockfile", 2, 10_000_000, 20_000_000),
+                result("generated-code", 40, 30_000_000, 90_000_000)));
+    final var report =
+        new BenchmarkReport(
+            "auto",
+            List.of(
+                result("log", 130, 50_000_000, 410_000_000),
+                // Twice as slow, but within the noise of a few milliseconds.
+                result("lockfile", 4, 10_000_000, 20_000_000),
+                new BenchmarkReport.Result("generated-code", Map.of(), "java.lang.Error"),
+                result("new-pair", 1_000, 1, 1)));
+
+    assertEquals(
+        List.of("log wallMillis: 100.0 -> 130.0 (+30%)", "generated-code failed: java.lang.Error"),
+        report.findRegressions(baseline, 0.25));
+    assertTrue(report.findRegressions(baseline, 0.5).stream().noneMatch(r -> r.startsWith("log")));
+  }
+
+  private static BenchmarkReport.Result result(
+      final String name,
+      final double wallMillis,
+      final double peakHeapBytes,
+      final double allocatedBytes) {
+    final var metrics = new LinkedHashMap<String, Double>();
+    metrics.put("wallMillis", wallMillis);
+    metrics.put("peakHeapBytes", peakHeapBytes);
+    metrics.put("allocatedBytes", allocatedBytes);
+    return new BenchmarkReport.Result(name, metrics, null);
+  }
+}
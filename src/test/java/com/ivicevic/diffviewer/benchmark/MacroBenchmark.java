@@ -0,0 +1,294 @@
+package com.ivicevic.diffviewer.benchmark;
+
+import com.ivicevic.diffviewer.algorithm.BinaryDiffAlgorithm;
+import com.ivicevic.diffviewer.algorithm.ComparisonOption;
+import com.ivicevic.diffviewer.algorithm.Diff;
+import com.ivicevic.diffviewer.algorithm.DiffAlgorithm;
+import com.ivicevic.diffviewer.algorithm.DiffAlgorithmRegistry;
+import com.ivicevic.diffviewer.algorithm.DiffMode;
+import com.ivicevic.diffviewer.algorithm.MoveDetector;
+import com.ivicevic.diffviewer.components.EditorPane;
+import com.ivicevic.diffviewer.components.EditorPane.EditorKind;
+import com.ivicevic.diffviewer.components.OverviewRuler;
+import com.ivicevic.diffviewer.io.FileInspector;
+import com.ivicevic.diffviewer.io.FileKind;
+import com.ivicevic.diffviewer.io.TextDecoder;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+import javax.swing.text.BadLocationException;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Runs the whole pipeline of the viewer on every pair of a corpus without showing anything: both
+ * files are loaded, diffed and put into the documents of both editor panes with their highlights.
+ * Wall time, peak heap usage and allocated bytes are measured per pair and written to a JSON
+ * report, which is compared against a baseline to flag regressions.
+ *
+ * <p>Run it with {@code mvn -Pbenchmark verify -DskipTests}. The system properties with the
+ * prefix {@code diffviewer.benchmark.} listed below configure it.
+ */
+@RequiredArgsConstructor
+public class MacroBenchmark {
+  // Directory of file pairs, the generated corpus is written to it if it is empty.
+  public static final String CORPUS_PROPERTY = "diffviewer.benchmark.corpus";
+  // Length of the generated pairs, 1 yields files of a few megabytes.
+  public static final String SCALE_PROPERTY = "diffviewer.benchmark.scale";
+  public static final String REPORT_PROPERTY = "diffviewer.benchmark.report";
+  // Baselines only apply to the machine that recorded them, so they are kept out of the sources.
+  public static final String BASELINE_PROPERTY = "diffviewer.benchmark.baseline";
+  // Writes the report to the baseline instead of comparing them.
+  public static final String UPDATE_BASELINE_PROPERTY = "diffviewer.benchmark.updateBaseline";
+  // Name of the diff engine, as on the command line of the application.
+  public static final String ALGORITHM_PROPERTY = "diffviewer.benchmark.algorithm";
+  public static final String WARMUPS_PROPERTY = "diffviewer.benchmark.warmups";
+  public static final String RUNS_PROPERTY = "diffviewer.benchmark.runs";
+  // Share by which a measurement may exceed the baseline.
+  public static final String TOLERANCE_PROPERTY = "diffviewer.benchmark.tolerance";
+
+  private final DiffAlgorithm algorithm;
+  private final int warmups;
+  private final int runs;
+  // Collects the garbage of the previous run before every measured one, for an accurate peak heap.
+  private final boolean collectGarbage;
+
+  private final FileInspector fileInspector = new FileInspector();
+  private final Set<ComparisonOption> options = Set.of();
+
+  public static void main(final String[] args) throws IOException {
+    final var algorithmName =
+        System.getProperty(ALGORITHM_PROPERTY, DiffAlgorithmRegistry.AUTOMATIC);
+    final var algorithm =
+        DiffAlgorithmRegistry.withDefaults()
+            .get(algorithmName)
+            .orElseThrow(
+                () -> new IllegalArgumentException("Unknown diff algorithm: " + algorithmName));
+    final var corpusDirectory =
+        Path.of(System.getProperty(CORPUS_PROPERTY, "target/benchmark/corpus"));
+    Files.createDirectories(corpusDirectory);
+    final var corpus = new BenchmarkCorpus(corpusDirectory);
+    // Recorded corpora are used as they are, only an empty directory gets the generated pairs.
+    if (corpus.getPairs().isEmpty()) {
+      corpus.generate(Double.parseDouble(System.getProperty(SCALE_PROPERTY, "1")));
+    }
+
+    final var report =
+        new MacroBenchmark(
+                algorithm,
+                Integer.getInteger(WARMUPS_PROPERTY, 2),
+                Integer.getInteger(RUNS_PROPERTY, 5),
+                true)
+            .run(corpus);
+    report.getResults().forEach(result -> System.out.println(describe(result)));
+    report.write(Path.of(System.getProperty(REPORT_PROPERTY, "target/benchmark/report.json")));
+
+    final var baselinePath =
+        System.getProperty(BASELINE_PROPERTY, "target/benchmark/baseline.json");
+    if (Boolean.getBoolean(UPDATE_BASELINE_PROPERTY) || !Files.exists(Path.of(baselinePath))) {
+      report.write(Path.of(baselinePath));
+      System.out.println("Baseline written to " + baselinePath);
+      return;
+    }
+    final var regressions =
+        report.findRegressions(
+            BenchmarkReport.read(Path.of(baselinePath)),
+            Double.parseDouble(System.getProperty(TOLERANCE_PROPERTY, "0.25")));
+    if (!regressions.isEmpty()) {
+      System.out.println("Regressions against " + baselinePath + ":");
+      regressions.forEach(regression -> System.out.println("  " + regression));
+      System.exit(1);
+    }
+    System.out.println("No regressions against " + baselinePath);
+  }
+
+  public BenchmarkReport run(final BenchmarkCorpus corpus) throws IOException {
+    final var results = new ArrayList<BenchmarkReport.Result>();
+    for (final var pair : corpus.getPairs()) {
+      results.add(run(pair));
+    }
+    return new BenchmarkReport(algorithm.getName(), results);
+  }
+
+  /** Returns the medians of the measured runs after the warm-up runs, or the first failure. */
+  BenchmarkReport.Result run(final BenchmarkCorpus.Pair pair) {
+    final var measurements = new ArrayList<Measurement>();
+    try {
+      for (var i = 0; i < warmups; ++i) {
+        runPipeline(pair);
+      }
+      for (var i = 0; i < Math.max(1, runs); ++i) {
+        measurements.add(measure(pair));
+      }
+    } catch (final Exception | OutOfMemoryError e) {
+      return new BenchmarkReport.Result(pair.getName(), new LinkedHashMap<>(), e.toString());
+    }
+
+    final var metrics = new LinkedHashMap<String, Double>();
+    metrics.put("originalBytes", (double) size(pair.getOriginal()));
+    metrics.put("modifiedBytes", (double) size(pair.getModified()));
+    metrics.put("rows", (double) measurements.get(0).rows);
+    metrics.put("loadMillis", median(measurements, measurement -> measurement.loadNanos / 1e6));
+    metrics.put("diffMillis", median(measurements, measurement -> measurement.diffNanos / 1e6));
+    metrics.put(
+        "renderMillis", median(measurements, measurement -> measurement.renderNanos / 1e6));
+    metrics.put("wallMillis", median(measurements, measurement -> measurement.wallNanos / 1e6));
+    metrics.put("peakHeapBytes", median(measurements, measurement -> measurement.peakHeapBytes));
+    metrics.put(
+        "allocatedBytes", median(measurements, measurement -> measurement.allocatedBytes));
+    return new BenchmarkReport.Result(pair.getName(), metrics, null);
+  }
+
+  private Measurement measure(final BenchmarkCorpus.Pair pair) throws Exception {
+    // Garbage of the previous run would otherwise count towards the peak of this one.
+    if (collectGarbage) {
+      System.gc();
+    }
+    final var heapPools = getHeapPools();
+    heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+    final var allocatedBefore = getAllocatedBytes();
+    final var start = System.nanoTime();
+
+    final var measurement = runPipeline(pair);
+
+    measurement.wallNanos = System.nanoTime() - start;
+    measurement.allocatedBytes = getAllocatedBytes() - allocatedBefore;
+    // The pools peak at different times, so their sum overestimates the peak of the heap.
+    measurement.peakHeapBytes =
+        heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+    return measurement;
+  }
+
+  /**
+   * Loads, diffs and renders the pair like a comparison in the viewer, which hands the decoded
+   * lines to the diff as they are.
+   */
+  private Measurement runPipeline(final BenchmarkCorpus.Pair pair)
+      throws IOException, BadLocationException {
+    final var measurement = new Measurement();
+    var start = System.nanoTime();
+    final var originalKind =
+        fileInspector.inspect(pair.getOriginal(), FileInspector.DEFAULT_MAX_TEXT_FILE_SIZE);
+    final var modifiedKind =
+        fileInspector.inspect(pair.getModified(), FileInspector.DEFAULT_MAX_TEXT_FILE_SIZE);
+    if (originalKind != FileKind.TEXT || modifiedKind != FileKind.TEXT) {
+      measurement.loadNanos = System.nanoTime() - start;
+      start = System.nanoTime();
+      final var diff = compareBytes(pair);
+      measurement.diffNanos = System.nanoTime() - start;
+      render(diff, measurement);
+      return measurement;
+    }
+
+    final var originalLines =
+        new TextDecoder().decode(pair.getOriginal()).getLines().toArray(String[]::new);
+    final var modifiedLines =
+        new TextDecoder().decode(pair.getModified()).getLines().toArray(String[]::new);
+    measurement.loadNanos = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    final var diff =
+        Arrays.equals(originalLines, modifiedLines)
+            ? Diff.identical(originalLines)
+            : new MoveDetector()
+                .detectMoves(
+                    algorithm.buildDiff(originalLines, modifiedLines, DiffMode.LINES, options));
+    measurement.diffNanos = System.nanoTime() - start;
+
+    render(diff, measurement);
+    return measurement;
+  }
+
+  private Diff compareBytes(final BenchmarkCorpus.Pair pair) throws IOException {
+    try (final var originalChannel =
+            FileChannel.open(pair.getOriginal(), StandardOpenOption.READ);
+        final var modifiedChannel =
+            FileChannel.open(pair.getModified(), StandardOpenOption.READ)) {
+      return new BinaryDiffAlgorithm(algorithm)
+          .buildDiff(
+              originalChannel.map(MapMode.READ_ONLY, 0, originalChannel.size()),
+              modifiedChannel.map(MapMode.READ_ONLY, 0, modifiedChannel.size()));
+    }
+  }
+
+  /** Builds the documents and highlights of both panes and the ruler, as the view does. */
+  private void render(final Diff diff, final Measurement measurement)
+      throws BadLocationException {
+    final var start = System.nanoTime();
+    OverviewRuler.Index.of(diff);
+    new EditorPane(EditorKind.ORIGINAL).prepareCharacterDiff(diff, algorithm, options);
+    new EditorPane(EditorKind.MODIFIED).prepareCharacterDiff(diff, algorithm, options);
+    measurement.renderNanos = System.nanoTime() - start;
+    measurement.rows = diff.getOriginal().size();
+  }
+
+  private static List<MemoryPoolMXBean> getHeapPools() {
+    return ManagementFactory.getMemoryPoolMXBeans().stream()
+        .filter(pool -> pool.getType() == MemoryType.HEAP)
+        .toList();
+  }
+
+  /** Sums the bytes allocated by all live threads, including the workers of parallel engines. */
+  private static long getAllocatedBytes() {
+    final var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    return Arrays.stream(threads.getThreadAllocatedBytes(threads.getAllThreadIds()))
+        .filter(bytes -> bytes > 0)
+        .sum();
+  }
+
+  private static double median(
+      final List<Measurement> measurements,
+      final ToDoubleFunction<Measurement> metric) {
+    final var values = measurements.stream().mapToDouble(metric).sorted().toArray();
+    return values.length % 2 == 1
+        ? values[values.length / 2]
+        : (values[values.length / 2 - 1] + values[values.length / 2]) / 2;
+  }
+
+  private static long size(final Path path) {
+    try {
+      return Files.size(path);
+    } catch (final IOException e) {
+      return -1;
+    }
+  }
+
+  private static String describe(final BenchmarkReport.Result result) {
+    if (result.getError() != null) {
+      return String.format(Locale.ROOT, "%-20s failed: %s", result.getName(), result.getError());
+    }
+    final var metrics = result.getMetrics();
+    return String.format(
+        Locale.ROOT,
+        "%-20s %9.1f ms (load %.1f, diff %.1f, render %.1f), peak heap %,d KB, allocated %,d KB",
+        result.getName(),
+        metrics.get("wallMillis"),
+        metrics.get("loadMillis"),
+        metrics.get("diffMillis"),
+        metrics.get("renderMillis"),
+        metrics.get("peakHeapBytes").longValue() / 1024,
+        metrics.get("allocatedBytes").longValue() / 1024);
+  }
+
+  private static class Measurement {
+    private int rows;
+    private long loadNanos;
+    private long diffNanos;
+    private long renderNanos;
+    private long wallNanos;
+    private long peakHeapBytes;
+    private long allocatedBytes;
+  }
+}
@@ -0,0 +1,44 @@
+package com.ivicevic.diffviewer.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ivicevic.diffviewer.algorithm.HuntAlgorithm;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MacroBenchmarkTest {
+  @TempDir Path directory;
+
+  @Test
+  void everyPairOfTheCorpusIsMeasured() throws IOException {
+    final var corpus = new BenchmarkCorpus(directory);
+    corpus.generate(0.01);
+    // Pairs of binary files are diffed byte by byte.
+    Files.createDirectories(directory.resolve("binary"));
+    Files.write(directory.resolve("binary/original.bin"), new byte[] {0, 1, 2, 3});
+    Files.write(directory.resolve("binary/modified.bin"), new byte[] {0, 1, 5, 3});
+    // Incomplete pairs are skipped.
+    Files.createDirectories(directory.resolve("incomplete"));
+    Files.writeString(directory.resolve("incomplete/original.txt"), "a");
+
+    final var report = new MacroBenchmark(new HuntAlgorithm(), 0, 1, false).run(corpus);
+
+    assertEquals("hunt", report.getAlgorithm());
+    assertEquals(
+        "binary generated-code lockfile log minified-js",
+        String.join(
+            " ", report.getResults().stream().map(BenchmarkReport.Result::getName).toList()));
+    for (final var result : report.getResults()) {
+      assertNull(result.getError(), result.getName());
+      assertTrue(result.getMetrics().get("rows") > 0, result.getName());
+      assertTrue(result.getMetrics().get("wallMillis") > 0, result.getName());
+      assertTrue(result.getMetrics().get("allocatedBytes") > 0, result.getName());
+      assertTrue(result.getMetrics().get("peakHeapBytes") > 0, result.getName());
+    }
+  }
+}
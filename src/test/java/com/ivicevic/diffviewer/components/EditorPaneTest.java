@@ -0,0 +1,90 @@
+package com.ivicevic.diffviewer.components;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.ivicevic.diffviewer.algorithm.Diff;
+import com.ivicevic.diffviewer.algorithm.DiffMode;
+import com.ivicevic.diffviewer.algorithm.HuntAlgorithm;
+import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.InsertCommand;
+import com.ivicevic.diffviewer.algorithm.commands.KeepCommand;
+import com.ivicevic.diffviewer.components.EditorPane.EditorKind;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Highlighter.Highlight;
+import org.junit.jupiter.api.Test;
+
+class EditorPaneTest {
+  private final Diff diff =
+      new Diff(
+          List.<EditCommand>of(
+              new KeepCommand("a"), new DeleteCommand("1 = value"), new KeepCommand("c")),
+          List.<EditCommand>of(
+              new KeepCommand("a"), new InsertCommand("2 = value"), new KeepCommand("c")),
+          List.of(1));
+
+  @Test
+  void contentIsPreparedWithLineHighlights() throws BadLocationException {
+    final var content = new EditorPane(EditorKind.MODIFIED).prepareLineDiff(diff);
+
+    final var document = content.getDocument();
+    assertEquals("a\n2 = value\nc", document.getText(0, document.getLength()));
+    assertEquals(List.of(List.of(2, 12)), offsetsOf(content.getHighlights()));
+  }
+
+  @Test
+  void characterHighlightsArePaintedAfterTheirLineHighlight() throws BadLocationException {
+    final var content =
+        new EditorPane(EditorKind.MODIFIED)
+            .prepareCharacterDiff(diff, new HuntAlgorithm(), Set.of());
+
+    // Both start at the same offset, the character highlight has to stay on top.
+    assertEquals(List.of(List.of(2, 12), List.of(2, 3)), offsetsOf(content.getHighlights()));
+  }
+
+  @Test
+  void contentIsInstalledAtOnce() throws BadLocationException {
+    final var testee = new EditorPane(EditorKind.ORIGINAL);
+    final var content = testee.prepareLineDiff(diff);
+
+    testee.setContent(content);
+
+    final var textArea = testee.getTextArea();
+    assertSame(content.getDocument(), textArea.getDocument());
+    assertSame(content.getEditScript(), testee.getEditScript());
+    assertEquals(List.of(List.of(2, 12)), offsetsOf(textArea.getHighlighter().getHighlights()));
+
+    textArea.getHighlighter().addHighlight(0, 1, content.getHighlights().get(0).getPainter());
+    assertEquals(2, textArea.getHighlighter().getHighlights().length);
+    textArea.getHighlighter().removeAllHighlights();
+    assertEquals(0, textArea.getHighlighter().getHighlights().length);
+  }
+
+  @Test
+  void largeDiffsArePreparedOffTheEventDispatchThread() throws BadLocationException {
+    final var lines = new String[10_000];
+    Arrays.setAll(lines, String::valueOf);
+    final var modified = lines.clone();
+    modified[5_000] = "changed";
+    final var largeDiff = new HuntAlgorithm().buildDiff(lines, modified, DiffMode.LINES);
+
+    final var content = new EditorPane(EditorKind.ORIGINAL).prepareLineDiff(largeDiff);
+
+    assertEquals(10_000, content.getDocument().getDefaultRootElement().getElementCount());
+    assertEquals(1, content.getHighlights().size());
+  }
+
+  private static List<List<Integer>> offsetsOf(final List<? extends Highlight> highlights) {
+    return highlights.stream()
+        .map(highlight -> List.of(highlight.getStartOffset(), highlight.getEndOffset()))
+        .toList();
+  }
+
+  private static List<List<Integer>> offsetsOf(final Highlight[] highlights) {
+    return offsetsOf(Arrays.asList(highlights));
+  }
+}
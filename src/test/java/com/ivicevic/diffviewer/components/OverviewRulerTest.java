@@ -0,0 +1,41 @@
+package com.ivicevic.diffviewer.components;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.ivicevic.diffviewer.algorithm.DiffMode;
+import com.ivicevic.diffviewer.algorithm.HuntAlgorithm;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OverviewRulerTest {
+  private final OverviewRuler testee = new OverviewRuler();
+
+  @BeforeEach
+  void setUp() {
+    // Changes in rows 100 and 700 of 1000 rows on a track of 100 pixels below a 4 pixel border.
+    testee.setDiff(
+        new HuntAlgorithm()
+            .buildDiff(
+                IntStream.range(0, 1000).mapToObj(String::valueOf).toArray(String[]::new),
+                IntStream.range(0, 1000)
+                    .mapToObj(i -> i == 100 || i == 700 ? "changed " + i : String.valueOf(i))
+                    .toArray(String[]::new),
+                DiffMode.LINES));
+    testee.setSize(24, 114);
+  }
+
+  @Test
+  void clicksNearMarksJumpToTheirHunk() {
+    assertEquals(100, testee.getRowAt(14));
+    assertEquals(100, testee.getRowAt(12));
+    assertEquals(700, testee.getRowAt(77));
+  }
+
+  @Test
+  void clicksElsewhereJumpToTheScaledRow() {
+    assertEquals(0, testee.getRowAt(0));
+    assertEquals(400, testee.getRowAt(44));
+    assertEquals(999, testee.getRowAt(200));
+  }
+}
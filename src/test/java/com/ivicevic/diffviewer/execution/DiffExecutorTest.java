@@ -0,0 +1,128 @@
+package com.ivicevic.diffviewer.execution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+class DiffExecutorTest {
+  // Callbacks are run by the test, like the EDT would run them.
+  private final BlockingQueue<Runnable> callbacks = new LinkedBlockingQueue<>();
+  private final DiffExecutor testee = new DiffExecutor(callbacks::add);
+  private final AtomicReference<Object> result = new AtomicReference<>();
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+  @Test
+  void resultsOfSubtasksAreDelivered() throws Exception {
+    testee.submit(
+        scope -> {
+          final var left = scope.fork(() -> 20);
+          final var right = scope.fork(() -> 22);
+          scope.join();
+          return left.resultNow() + right.resultNow();
+        },
+        result::set,
+        failure::set);
+    runCallback();
+
+    assertEquals(42, result.get());
+    assertNull(failure.get());
+  }
+
+  @Test
+  void failuresOfSubtasksAreDelivered() throws Exception {
+    final var cause = new IOException("unreadable");
+    testee.submit(
+        scope -> {
+          scope.fork(
+              () -> {
+                throw cause;
+              });
+          scope.join();
+          return "unreachable";
+        },
+        result::set,
+        failure::set);
+    runCallback();
+
+    assertNull(result.get());
+    assertSame(cause, failure.get());
+  }
+
+  @Test
+  void publishedValuesAreDeliveredBeforeTheResult() throws Exception {
+    final var published = new ArrayList<Integer>();
+    testee.submit(
+        (TaskScope scope, Consumer<Integer> publish) -> {
+          for (var i = 0; i < 3; ++i) {
+            publish.accept(i);
+          }
+          return "done";
+        },
+        published::addAll,
+        value -> result.set(List.copyOf(published)),
+        failure::set);
+    runCallback();
+    while (result.get() == null) {
+      runCallback();
+    }
+
+    assertEquals(List.of(0, 1, 2), result.get());
+    assertNull(failure.get());
+  }
+
+  @Test
+  void errorsAreDelivered() throws Exception {
+    final var cause = new OutOfMemoryError("Java heap space");
+    testee.submit(
+        scope -> {
+          throw cause;
+        },
+        result::set,
+        failure::set);
+    runCallback();
+
+    assertNull(result.get());
+    assertSame(cause, failure.get());
+  }
+
+  @Test
+  void cancelledExecutionsDeliverNothing() throws Exception {
+    final var started = new CountDownLatch(1);
+    final var execution =
+        testee.submit(
+            scope -> {
+              final var subtask =
+                  scope.fork(
+                      () -> {
+                        started.countDown();
+                        Thread.sleep(60_000);
+                        return "late";
+                      });
+              scope.join();
+              return subtask.resultNow();
+            },
+            result::set,
+            failure::set);
+    started.await();
+    execution.cancel();
+    runCallback();
+
+    assertNull(result.get());
+    assertNull(failure.get());
+  }
+
+  private void runCallback() throws InterruptedException {
+    callbacks.poll(10, TimeUnit.SECONDS).run();
+  }
+}
@@ -0,0 +1,75 @@
+package com.ivicevic.diffviewer.execution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+class TaskScopeTest {
+  @Test
+  void resultsAreAvailableAfterJoining() throws Exception {
+    try (final var testee = new TaskScope()) {
+      final var first = testee.fork(() -> 1);
+      final var second = testee.fork(() -> "2");
+      testee.join();
+
+      assertEquals(1, first.resultNow());
+      assertEquals("2", second.resultNow());
+    }
+  }
+
+  @Test
+  void firstFailureCancelsAllOtherSubtasks() throws Exception {
+    final var failure = new IllegalStateException("broken");
+    final var started = new CountDownLatch(1);
+    final var interrupted = new AtomicBoolean();
+    try (final var testee = new TaskScope()) {
+      final var blocked =
+          testee.fork(
+              () -> {
+                started.countDown();
+                try {
+                  Thread.sleep(60_000);
+                } catch (final InterruptedException e) {
+                  interrupted.set(true);
+                }
+                return null;
+              });
+      started.await();
+      testee.fork(
+          () -> {
+            throw failure;
+          });
+
+      final var e = assertThrows(ExecutionException.class, testee::join);
+      assertSame(failure, e.getCause());
+      assertTrue(blocked.isCancelled());
+    }
+    // Closing waits for the cancelled subtask to terminate.
+    assertTrue(interrupted.get());
+  }
+
+  @Test
+  void nothingIsForkedAfterShutdown() throws Exception {
+    final var ran = new AtomicBoolean();
+    try (final var testee = new TaskScope()) {
+      testee.shutdown();
+      final var subtask =
+          testee.fork(
+              () -> {
+                ran.set(true);
+                return null;
+              });
+      testee.join();
+
+      assertTrue(subtask.isCancelled());
+    }
+    assertFalse(ran.get());
+  }
+}
@@ -0,0 +1,99 @@
+package com.ivicevic.diffviewer.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ivicevic.diffviewer.algorithm.ComparisonOption;
+import com.ivicevic.diffviewer.algorithm.DiffMode;
+import com.ivicevic.diffviewer.algorithm.HuntAlgorithm;
+import com.ivicevic.diffviewer.algorithm.MoveDetector;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DiffCacheTest {
+  private static final String[] ORIGINAL = {"alpha", "beta", "gamma", "delta", "epsilon", "zeta"};
+  private static final String[] MODIFIED = {"beta", "gamma", "delta", "new", "zeta", "alpha"};
+
+  @TempDir Path directory;
+
+  @Test
+  void cachedDiffsAreRestored() throws IOException {
+    final var testee = new DiffCache(directory, DiffCache.DEFAULT_MAX_SIZE);
+    final var diff =
+        new MoveDetector(1)
+            .detectMoves(new HuntAlgorithm().buildDiff(ORIGINAL, MODIFIED, DiffMode.LINES));
+    final var key = DiffCache.key("hunt", ORIGINAL, MODIFIED, Set.of());
+
+    assertTrue(testee.get(key, ORIGINAL, MODIFIED).isEmpty());
+    testee.put(key, diff);
+    final var restored = testee.get(key, ORIGINAL, MODIFIED).orElseThrow();
+
+    assertEquals(diff.getChangedLines(), restored.getChangedLines());
+    assertEquals(diff.getOriginal().size(), restored.getOriginal().size());
+    for (var i = 0; i < diff.getOriginal().size(); ++i) {
+      assertEquals(diff.getOriginal().get(i), restored.getOriginal().get(i));
+      assertEquals(diff.getOriginal().get(i).getClass(), restored.getOriginal().get(i).getClass());
+      assertEquals(diff.getModified().get(i), restored.getModified().get(i));
+      assertEquals(diff.getModified().get(i).getClass(), restored.getModified().get(i).getClass());
+    }
+  }
+
+  @Test
+  void keysDependOnLinesAlgorithmAndOptions() {
+    final var a = new String[] {"a"};
+    final var b = new String[] {"b"};
+    final var key = DiffCache.key("hunt", a, b, Set.of());
+
+    assertEquals(key, DiffCache.key("hunt", new String[] {"a"}, new String[] {"b"}, Set.of()));
+    assertNotEquals(key, DiffCache.key("hunt", new String[] {"ab"}, new String[0], Set.of()));
+    assertNotEquals(key, DiffCache.key("hunt", new String[] {"a", "b"}, new String[0], Set.of()));
+    assertNotEquals(key, DiffCache.key("hunt", a, b, Set.of(ComparisonOption.IGNORE_CASE)));
+    assertNotEquals(key, DiffCache.key("parallel", a, b, Set.of()));
+    assertEquals(
+        DiffCache.key(
+            "hunt",
+            a,
+            b,
+            Set.of(ComparisonOption.IGNORE_CASE, ComparisonOption.IGNORE_LINE_ENDINGS)),
+        DiffCache.key(
+            "hunt",
+            a,
+            b,
+            Set.of(ComparisonOption.IGNORE_LINE_ENDINGS, ComparisonOption.IGNORE_CASE)));
+  }
+
+  @Test
+  void corruptAndMismatchingEntriesAreMisses() throws IOException {
+    final var testee = new DiffCache(directory, DiffCache.DEFAULT_MAX_SIZE);
+    testee.put("key", new HuntAlgorithm().buildDiff(ORIGINAL, MODIFIED, DiffMode.LINES));
+    Files.write(directory.resolve("corrupt.diff"), new byte[] {1, 2, 3});
+
+    assertTrue(testee.get("key", ORIGINAL, Arrays.copyOf(MODIFIED, 5)).isEmpty());
+    assertTrue(testee.get("corrupt", ORIGINAL, MODIFIED).isEmpty());
+    assertTrue(Files.notExists(directory.resolve("corrupt.diff")));
+  }
+
+  @Test
+  void leastRecentlyUsedEntriesAreEvicted() throws IOException {
+    final var diff = new HuntAlgorithm().buildDiff(ORIGINAL, MODIFIED, DiffMode.LINES);
+    final var entrySize = DiffEncoding.encode(diff).remaining();
+    final var testee = new DiffCache(directory, 2L * entrySize);
+
+    testee.put("first", diff);
+    testee.put("second", diff);
+    Files.setLastModifiedTime(
+        directory.resolve("first.diff"), FileTime.fromMillis(0));
+    testee.put("third", diff);
+
+    assertTrue(Files.notExists(directory.resolve("first.diff")));
+    assertTrue(testee.get("second", ORIGINAL, MODIFIED).isPresent());
+    assertTrue(testee.get("third", ORIGINAL, MODIFIED).isPresent());
+  }
+}
@@ -0,0 +1,54 @@
+package com.ivicevic.diffviewer.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileInspectorTest {
+  private final FileInspector testee = new FileInspector();
+
+  @TempDir Path directory;
+
+  @Test
+  void textAndBinaryFilesAreDistinguished() throws IOException {
+    final var text = write("text.txt", "Hello\r\n\tWorld\n".getBytes(StandardCharsets.UTF_8));
+    final var utf16 = write("utf16.txt", "﻿Hello".getBytes(StandardCharsets.UTF_16BE));
+    final var binary = write("binary.bin", new byte[] {(byte) 0xCA, (byte) 0xFE, 0, 1, 2});
+
+    assertEquals(FileKind.TEXT, testee.inspect(text, 1024));
+    assertFalse(testee.isBinary(utf16));
+    assertEquals(FileKind.BINARY, testee.inspect(binary, 1024));
+    assertEquals(FileKind.TOO_LARGE, testee.inspect(text, 4));
+  }
+
+  @Test
+  void identicalFilesAreReported() throws IOException {
+    final var original = write("a.bin", new byte[] {1, 2, 3});
+    final var modified = write("b.bin", new byte[] {1, 2, 3});
+
+    final var comparison = testee.compare(original, modified);
+    assertTrue(comparison.isIdentical());
+    assertEquals(3, comparison.getOriginalSize());
+  }
+
+  @Test
+  void firstDifferenceIsReported() throws IOException {
+    final var original = write("a.bin", new byte[] {1, 2, 3, 4});
+    final var modified = write("b.bin", new byte[] {1, 2, 9, 4, 5});
+    assertEquals(2, testee.compare(original, modified).getFirstDifference());
+
+    final var prefix = write("c.bin", new byte[] {1, 2});
+    assertEquals(2, testee.compare(prefix, original).getFirstDifference());
+  }
+
+  private Path write(final String name, final byte[] content) throws IOException {
+    return Files.write(directory.resolve(name), content);
+  }
+}
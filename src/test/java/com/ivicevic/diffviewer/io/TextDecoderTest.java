@@ -0,0 +1,60 @@
+package com.ivicevic.diffviewer.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TextDecoderTest {
+  private final TextDecoder testee = new TextDecoder();
+
+  @Test
+  void lineEndingsAreDetectedAndStripped() {
+    final var lf = decode("a\nb\n".getBytes(StandardCharsets.UTF_8));
+    final var crlf = decode("a\r\nb\r\n".getBytes(StandardCharsets.UTF_8));
+    final var cr = decode("a\rb".getBytes(StandardCharsets.UTF_8));
+    final var mixed = decode("a\r\nb\nc".getBytes(StandardCharsets.UTF_8));
+    final var none = decode("a".getBytes(StandardCharsets.UTF_8));
+
+    assertEquals(LineEnding.LF, lf.getLineEnding());
+    assertEquals(LineEnding.CRLF, crlf.getLineEnding());
+    assertEquals(LineEnding.CR, cr.getLineEnding());
+    assertEquals(LineEnding.MIXED, mixed.getLineEnding());
+    assertEquals(LineEnding.NONE, none.getLineEnding());
+    assertEquals(List.of("a", "b"), lf.getLines());
+    assertEquals(lf.getLines(), crlf.getLines());
+    assertEquals(lf.getLines(), cr.getLines());
+    assertEquals(List.of("a", "b", "c"), mixed.getLines());
+  }
+
+  @Test
+  void charsetIsDetectedFromByteOrderMark() {
+    final var utf16 = decode("﻿ä\r\nö".getBytes(StandardCharsets.UTF_16LE));
+    final var utf8 = decode("﻿ä".getBytes(StandardCharsets.UTF_8));
+
+    assertEquals(StandardCharsets.UTF_16LE, utf16.getCharset());
+    assertTrue(utf16.isByteOrderMark());
+    assertEquals(List.of("ä", "ö"), utf16.getLines());
+    assertEquals(StandardCharsets.UTF_8, utf8.getCharset());
+    assertEquals(List.of("ä"), utf8.getLines());
+  }
+
+  @Test
+  void invalidUtf8FallsBackToLatin1() {
+    final var utf8 = decode("größe".getBytes(StandardCharsets.UTF_8));
+    final var latin1 = decode("größe".getBytes(StandardCharsets.ISO_8859_1));
+
+    assertEquals(StandardCharsets.UTF_8, utf8.getCharset());
+    assertFalse(utf8.isByteOrderMark());
+    assertEquals(StandardCharsets.ISO_8859_1, latin1.getCharset());
+    assertEquals(utf8.getLines(), latin1.getLines());
+  }
+
+  private DecodedText decode(final byte[] bytes) {
+    return testee.decode(ByteBuffer.wrap(bytes));
+  }
+}
@@ -0,0 +1,56 @@
+package com.ivicevic.diffviewer.merge;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.ivicevic.diffviewer.algorithm.HuntAlgorithm;
+import com.ivicevic.diffviewer.execution.TaskScope;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ThreeWayMergeTest {
+  private final ThreeWayMerge testee = new ThreeWayMerge(new HuntAlgorithm());
+
+  @Test
+  void changesAreClassifiedPerSide() throws Exception {
+    final var base = new String[] {"a", "b", "c", "d", "e", "f", "g"};
+    final var ours = new String[] {"a", "B", "c", "d", "e", "f", "G"};
+    final var theirs = new String[] {"a", "b", "c", "D", "e", "f", "G"};
+
+    final var result = merge(base, ours, theirs);
+
+    assertEquals(
+        List.of(
+            new MergeChunk(MergeChunkKind.UNCHANGED, 0, 1, 0, 1, 0, 1),
+            new MergeChunk(MergeChunkKind.OURS, 1, 2, 1, 2, 1, 2),
+            new MergeChunk(MergeChunkKind.UNCHANGED, 2, 3, 2, 3, 2, 3),
+            new MergeChunk(MergeChunkKind.THEIRS, 3, 4, 3, 4, 3, 4),
+            new MergeChunk(MergeChunkKind.UNCHANGED, 4, 6, 4, 6, 4, 6),
+            new MergeChunk(MergeChunkKind.BOTH, 6, 7, 6, 7, 6, 7)),
+        result.getChunks());
+    assertEquals(0, result.getConflictCount());
+  }
+
+  @Test
+  void overlappingChangesConflict() throws Exception {
+    final var base = new String[] {"a", "b", "c", "d"};
+    final var ours = new String[] {"a", "x", "y", "c", "d"};
+    final var theirs = new String[] {"a", "z", "d"};
+
+    final var result = merge(base, ours, theirs);
+
+    assertEquals(
+        List.of(
+            new MergeChunk(MergeChunkKind.UNCHANGED, 0, 1, 0, 1, 0, 1),
+            new MergeChunk(MergeChunkKind.CONFLICT, 1, 3, 1, 4, 1, 2),
+            new MergeChunk(MergeChunkKind.UNCHANGED, 3, 4, 4, 5, 2, 3)),
+        result.getChunks());
+    assertEquals(1, result.getConflictCount());
+  }
+
+  private MergeResult merge(final String[] base, final String[] ours, final String[] theirs)
+      throws Exception {
+    try (final var scope = new TaskScope()) {
+      return testee.merge(base, ours, theirs, scope);
+    }
+  }
+}
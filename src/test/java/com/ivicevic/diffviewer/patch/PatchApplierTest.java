@@ -0,0 +1,86 @@
+package com.ivicevic.diffviewer.patch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.ivicevic.diffviewer.algorithm.DiffMode;
+import com.ivicevic.diffviewer.algorithm.HuntAlgorithm;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PatchApplierTest {
+  private static final String PATCH =
+      String.join(
+          "\n",
+          "--- a.txt",
+          "+++ b.txt",
+          "@@ -2,3 +2,3 @@",
+          " b",
+          "-c",
+          "+C",
+          " d",
+          "@@ -7,4 +7,4 @@",
+          " g",
+          "-h",
+          " i",
+          " j",
+          "+k",
+          "");
+
+  @Test
+  void patchesApplyToTheirSource() throws IOException {
+    final var result =
+        apply(PATCH, new String[] {"a", "b", "c", "d", "e", "f", "g", "h", "i", "j"});
+    assertEquals(List.of("a", "b", "C", "d", "e", "f", "g", "i", "j", "k"), result.getLines());
+    assertEquals(List.of(), result.getConflicts());
+    assertEquals(2, result.getAppliedHunks());
+  }
+
+  @Test
+  void shiftedHunksAreFoundAtTheirOffset() throws IOException {
+    final var result =
+        apply(PATCH, new String[] {"x", "y", "a", "b", "c", "d", "e", "f", "g", "h", "i", "j"});
+    assertEquals(
+        List.of("x", "y", "a", "b", "C", "d", "e", "f", "g", "i", "j", "k"), result.getLines());
+    assertEquals(List.of(), result.getConflicts());
+  }
+
+  @Test
+  void changedContextIsToleratedWithFuzz() throws IOException {
+    final var result =
+        apply(PATCH, new String[] {"a", "b", "c", "D", "e", "f", "G", "h", "i", "j"});
+    assertEquals(List.of("a", "b", "C", "D", "e", "f", "G", "i", "j", "k"), result.getLines());
+    assertEquals(List.of(), result.getConflicts());
+  }
+
+  @Test
+  void unmatchedHunksAreReportedAsConflicts() throws IOException {
+    final var result =
+        new PatchApplier(0)
+            .apply(
+                new String[] {"a", "B", "c", "d", "e", "f", "g", "h", "i", "j"},
+                new PatchParser().parse(new StringReader(PATCH)));
+    assertEquals(List.of("a", "B", "c", "d", "e", "f", "g", "i", "j", "k"), result.getLines());
+    assertEquals(List.of(new PatchConflict(0, 1, 3)), result.getConflicts());
+    assertEquals(1, result.getAppliedHunks());
+  }
+
+  @Test
+  void exportedPatchesRoundTrip() throws IOException {
+    final var original = new String[] {"one", "two", "three", "four", "five", "six", "seven"};
+    final var modified = new String[] {"zero", "one", "three", "four", "4.5", "five", "seven"};
+    final var writer = new StringWriter();
+    new PatchWriter(PatchFormat.UNIFIED, 1)
+        .write(
+            new HuntAlgorithm().buildDiff(original, modified, DiffMode.LINES), "a", "b", writer);
+
+    assertEquals(List.of(modified), apply(writer.toString(), original).getLines());
+  }
+
+  private static PatchResult apply(final String patch, final String[] document)
+      throws IOException {
+    return new PatchApplier().apply(document, new PatchParser().parse(new StringReader(patch)));
+  }
+}
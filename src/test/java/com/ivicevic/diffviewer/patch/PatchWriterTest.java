@@ -0,0 +1,98 @@
+package com.ivicevic.diffviewer.patch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.ivicevic.diffviewer.algorithm.Diff;
+import com.ivicevic.diffviewer.algorithm.DiffMode;
+import com.ivicevic.diffviewer.algorithm.HuntAlgorithm;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PatchWriterTest {
+  private final Diff diff =
+      new HuntAlgorithm()
+          .buildDiff(
+              new String[] {"a", "b", "c", "d", "e", "f", "g", "h", "i", "j"},
+              new String[] {"a", "b", "C", "d", "e", "f", "g", "i", "j", "k"},
+              DiffMode.LINES);
+
+  @Test
+  void unifiedDiffsAreWritten() throws IOException {
+    final var writer = new StringWriter();
+    new PatchWriter(PatchFormat.UNIFIED, 1).write(diff, "a.txt", "b.txt", writer);
+    assertEquals(
+        String.join(
+            "\n",
+            "--- a.txt",
+            "+++ b.txt",
+            "@@ -2,3 +2,3 @@",
+            " b",
+            "-c",
+            "+C",
+            " d",
+            "@@ -7,4 +7,4 @@",
+            " g",
+            "-h",
+            " i",
+            " j",
+            "+k",
+            ""),
+        writer.toString());
+  }
+
+  @Test
+  void overlappingContextMergesHunks() throws IOException {
+    final var writer = new StringWriter();
+    new PatchWriter(PatchFormat.UNIFIED, 3).write(diff, "a.txt", "b.txt", writer);
+    final var hunkHeaders =
+        writer.toString().lines().filter(line -> line.startsWith("@@")).toList();
+    assertEquals(List.of("@@ -1,10 +1,10 @@"), hunkHeaders);
+  }
+
+  @Test
+  void contextDiffsAreWritten() throws IOException {
+    final var writer = new StringWriter();
+    new PatchWriter(PatchFormat.CONTEXT, 1).write(diff, "a.txt", "b.txt", writer);
+    assertEquals(
+        String.join(
+            "\n",
+            "*** a.txt",
+            "--- b.txt",
+            "***************",
+            "*** 2,4 ****",
+            "  b",
+            "! c",
+            "  d",
+            "--- 2,4 ----",
+            "  b",
+            "! C",
+            "  d",
+            "***************",
+            "*** 7,10 ****",
+            "  g",
+            "- h",
+            "  i",
+            "  j",
+            "--- 7,10 ----",
+            "  g",
+            "  i",
+            "  j",
+            "+ k",
+            ""),
+        writer.toString());
+  }
+
+  @Test
+  void identicalInputsProduceAnEmptyPatch() throws IOException {
+    final var writer = new StringWriter();
+    new PatchWriter(PatchFormat.UNIFIED)
+        .write(
+            new HuntAlgorithm().buildDiff(new String[] {"a"}, new String[] {"a"}, DiffMode.LINES),
+            "a.txt",
+            "b.txt",
+            writer);
+    assertEquals("", writer.toString());
+  }
+}
@@ -0,0 +1,64 @@
+package com.ivicevic.diffviewer.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.ivicevic.diffviewer.algorithm.DiffMode;
+import com.ivicevic.diffviewer.algorithm.HuntAlgorithm;
+import com.ivicevic.diffviewer.search.SearchMatch.Side;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class DiffIndexTest {
+  private final DiffIndex testee =
+      DiffIndex.of(
+          new HuntAlgorithm()
+              .buildDiff(
+                  new String[] {"int count = 0;", "count++;", "return count;"},
+                  new String[] {"int count = 0;", "Count += 2;", "return count;", "// COUNT"},
+                  DiffMode.LINES));
+
+  @Test
+  void matchesAreReportedWithRowsAndColumns() {
+    final var matches = search(new SearchQuery("count", true, false));
+
+    assertEquals(
+        List.of(
+            new SearchMatch(Side.ORIGINAL, 0, 4, 9),
+            new SearchMatch(Side.ORIGINAL, 1, 0, 5),
+            new SearchMatch(Side.ORIGINAL, 2, 7, 12),
+            new SearchMatch(Side.MODIFIED, 0, 4, 9),
+            new SearchMatch(Side.MODIFIED, 2, 7, 12)),
+        matches);
+  }
+
+  @Test
+  void searchesCanIgnoreCaseAndUnchangedRows() {
+    final var matches = search(new SearchQuery("COUNT", false, true));
+
+    assertEquals(
+        List.of(
+            new SearchMatch(Side.ORIGINAL, 1, 0, 5),
+            new SearchMatch(Side.MODIFIED, 1, 0, 5),
+            new SearchMatch(Side.MODIFIED, 3, 3, 8)),
+        matches);
+  }
+
+  @Test
+  void consumersCanStopTheSearch() {
+    final var matches = new ArrayList<SearchMatch>();
+    final var count =
+        testee.search(new SearchQuery("count", true, false), match -> matches.add(match) && false);
+
+    assertEquals(1, count);
+    assertEquals(1, matches.size());
+    assertEquals(0, testee.search(new SearchQuery("a\nb", true, false), match -> true));
+  }
+
+  private List<SearchMatch> search(final SearchQuery query) {
+    final var matches = new ArrayList<SearchMatch>();
+    final var count = testee.search(query, matches::add);
+    assertEquals(matches.size(), count);
+    return matches;
+  }
+}
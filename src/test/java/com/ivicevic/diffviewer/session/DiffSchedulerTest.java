@@ -0,0 +1,47 @@
+package com.ivicevic.diffviewer.session;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class DiffSchedulerTest {
+  @Test
+  void queuedTasksRunByPriority() throws InterruptedException {
+    final var testee = new DiffScheduler(1);
+    final var blocker = new CountDownLatch(1);
+    final var done = new CountDownLatch(4);
+    final var order = new CopyOnWriteArrayList<String>();
+    try {
+      testee.execute(
+          () -> {
+            try {
+              blocker.await();
+            } catch (final InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          },
+          DiffPriority.BACKGROUND);
+      testee.execute(() -> run(order, "background", done), DiffPriority.BACKGROUND);
+      testee.execute(() -> run(order, "prefetch", done), DiffPriority.PREFETCH);
+      testee.execute(() -> run(order, "visible", done), DiffPriority.VISIBLE);
+      testee.execute(() -> run(order, "next", done), DiffPriority.PREFETCH);
+      blocker.countDown();
+
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+      assertEquals(List.of("visible", "prefetch", "next", "background"), order);
+    } finally {
+      testee.shutdown();
+    }
+  }
+
+  private static void run(
+      final List<String> order, final String name, final CountDownLatch done) {
+    order.add(name);
+    done.countDown();
+  }
+}
@@ -0,0 +1,161 @@
+package com.ivicevic.diffviewer.session;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.ivicevic.diffviewer.algorithm.Diff;
+import com.ivicevic.diffviewer.algorithm.DiffAlgorithm;
+import com.ivicevic.diffviewer.algorithm.DiffMode;
+import com.ivicevic.diffviewer.algorithm.HuntAlgorithm;
+import com.ivicevic.diffviewer.io.FileInspector;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SessionTest {
+  private final DiffScheduler scheduler = new DiffScheduler(2);
+
+  @TempDir Path directory;
+
+  @AfterEach
+  void tearDown() {
+    scheduler.shutdown();
+  }
+
+  @Test
+  void directoriesArePairedByRelativePath() throws IOException {
+    final var original = Files.createDirectories(directory.resolve("a"));
+    final var modified = Files.createDirectories(directory.resolve("b"));
+    Files.writeString(original.resolve("both.txt"), "x");
+    Files.writeString(modified.resolve("both.txt"), "y");
+    Files.writeString(original.resolve("deleted.txt"), "x");
+    Files.createDirectories(modified.resolve("sub"));
+    Files.writeString(modified.resolve("sub/added.txt"), "y");
+
+    final var pairs = FilePair.ofDirectories(original, modified);
+
+    assertEquals(List.of("both.txt", "deleted.txt", "sub/added.txt"), names(pairs));
+    assertEquals(original.resolve("both.txt"), pairs.get(0).getOriginal());
+    assertNull(pairs.get(1).getModified());
+    assertNull(pairs.get(2).getOriginal());
+  }
+
+  @Test
+  void evictedDocumentsAreRestoredWithoutDiffingAgain() throws Exception {
+    final var algorithm = spy(new HuntAlgorithm());
+    final var pairs =
+        List.of(pair("first", "a\nb\nc", "a\nc"), pair("second", "x", "y"), pair("third", "", "z"));
+    final var testee =
+        new Session(
+            pairs, comparer(algorithm), scheduler, FileInspector.DEFAULT_MAX_TEXT_FILE_SIZE, 1, 1);
+
+    final var first = testee.open(0).get();
+    assertEquals(List.of("a", "b", "c"), first.getOriginalLines());
+    assertEquals(1, first.getDiff().getHunks().size());
+    assertEquals("1 differences.", first.getStatus());
+
+    // Opening the third entry evicts the others, but keeps their compact diffs.
+    testee.open(2).get();
+    assertTrue(testee.isComputed(0));
+    final var restored = testee.open(0).get();
+    assertEquals(first.getDiff().getOriginal(), restored.getDiff().getOriginal());
+    assertEquals(first.getDiff().getModified(), restored.getDiff().getModified());
+    assertEquals(first.getStatus(), restored.getStatus());
+    // Waits for the prefetched second entry.
+    testee.open(1).get();
+    verify(algorithm, times(3))
+        .buildDiff(any(String[].class), any(String[].class), any(DiffMode.class), anySet());
+  }
+
+  @Test
+  void missingFilesAreComparedAgainstEmptyText() throws Exception {
+    final var modified = Files.writeString(directory.resolve("added.txt"), "new\nlines");
+    final var testee =
+        new Session(
+            List.of(new FilePair("added.txt", null, modified)),
+            comparer(new HuntAlgorithm()),
+            scheduler,
+            FileInspector.DEFAULT_MAX_TEXT_FILE_SIZE);
+
+    final var document = testee.open(0).get();
+    assertEquals(List.of(), document.getOriginalLines());
+    assertFalse(document.getDiff().getHunks().isEmpty());
+  }
+
+  @Test
+  void closedSessionsDropQueuedComputations() throws Exception {
+    final var started = new CompletableFuture<Void>();
+    final var release = new CompletableFuture<Void>();
+    final var compared = new AtomicInteger();
+    final var singleThreadScheduler = new DiffScheduler(1);
+    final var testee =
+        new Session(
+            List.of(pair("first", "a", "b"), pair("second", "c", "d")),
+            (pair, original, modified) -> {
+              compared.incrementAndGet();
+              started.complete(null);
+              release.join();
+              return new Session.Comparison(Diff.identical(new String[] {"a"}), null);
+            },
+            singleThreadScheduler,
+            FileInspector.DEFAULT_MAX_TEXT_FILE_SIZE,
+            Session.DEFAULT_MAX_DOCUMENTS,
+            1);
+
+    try {
+      // The second entry is queued behind the first one on the only thread.
+      final var first = testee.open(0);
+      started.join();
+      final var second = testee.open(1);
+      testee.close();
+      release.complete(null);
+
+      first.get();
+      assertTrue(second.isCancelled());
+      assertThrows(ExecutionException.class, () -> testee.open(1).get());
+      assertEquals(1, compared.get());
+    } finally {
+      singleThreadScheduler.shutdown();
+    }
+  }
+
+  private static Session.Comparer comparer(final DiffAlgorithm algorithm) {
+    return (pair, original, modified) -> {
+      final var diff =
+          algorithm.buildDiff(
+              original.getLines().toArray(String[]::new),
+              modified.getLines().toArray(String[]::new),
+              DiffMode.LINES,
+              Set.of());
+      return new Session.Comparison(diff, diff.getHunks().size() + " differences.");
+    };
+  }
+
+  private FilePair pair(final String name, final String original, final String modified)
+      throws IOException {
+    return new FilePair(
+        name,
+        Files.writeString(directory.resolve(name + ".orig"), original),
+        Files.writeString(directory.resolve(name + ".mod"), modified));
+  }
+
+  private static List<String> names(final List<FilePair> pairs) {
+    return pairs.stream().map(FilePair::getName).toList();
+  }
+}
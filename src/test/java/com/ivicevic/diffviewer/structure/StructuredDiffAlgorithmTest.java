@@ -0,0 +1,120 @@
+package com.ivicevic.diffviewer.structure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ivicevic.diffviewer.algorithm.Diff;
+import com.ivicevic.diffviewer.algorithm.commands.DeleteCommand;
+import com.ivicevic.diffviewer.algorithm.commands.EditCommand;
+import com.ivicevic.diffviewer.algorithm.commands.InsertCommand;
+import com.ivicevic.diffviewer.algorithm.commands.VirtualKeepCommand;
+import java.text.ParseException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class StructuredDiffAlgorithmTest {
+  private final StructuredDiffAlgorithm testee = new StructuredDiffAlgorithm();
+
+  @Test
+  void reformattedAndReorderedJsonIsIdentical() throws ParseException {
+    final var original = "{\"name\": \"diff\", \"tags\": [1, 2], \"nested\": {\"a\": true}}";
+    final var modified =
+        """
+        {
+          "nested": {
+            "a": true
+          },
+          "tags": [
+            1,
+            2
+          ],
+          "name": "diff"
+        }""";
+
+    final var diff = testee.buildDiff(original, modified, StructureFormat.JSON);
+
+    assertTrue(diff.getHunks().isEmpty());
+    assertTrue(diff.getChangedLines().isEmpty());
+    assertAligned(diff);
+  }
+
+  @Test
+  void changedValuesAreMappedToTheirLines() throws ParseException {
+    final var original =
+        """
+        {
+          "name": "diff",
+          "version": 1,
+          "removed": [1, 2, 3]
+        }""";
+    final var modified =
+        """
+        {
+          "version": 2,
+          "name": "diff",
+          "added": null
+        }""";
+
+    final var diff = testee.buildDiff(original, modified, StructureFormat.JSON);
+
+    assertEquals(
+        List.of("  \"version\": 1,", "  \"removed\": [1, 2, 3]"), changed(diff.getOriginal()));
+    assertEquals(List.of("  \"version\": 2,", "  \"added\": null"), changed(diff.getModified()));
+    assertAligned(diff);
+  }
+
+  @Test
+  void insertedArrayElementsDontShiftTheOthers() throws ParseException {
+    final var original = "[\n  {\"id\": 1},\n  {\"id\": 2},\n  {\"id\": 3}\n]";
+    final var modified = "[\n  {\"id\": 1},\n  {\"id\": 4},\n  {\"id\": 2},\n  {\"id\": 3}\n]";
+
+    final var diff = testee.buildDiff(original, modified, StructureFormat.JSON);
+
+    assertEquals(List.of(), changed(diff.getOriginal()));
+    assertEquals(List.of("  {\"id\": 4},"), changed(diff.getModified()));
+    assertEquals(1, diff.getHunks().size());
+  }
+
+  @Test
+  void yamlAndXmlAreComparedStructurally() throws ParseException {
+    final var yaml =
+        testee.buildDiff(
+            "server:\n  port: 80\n  hosts:\n    - a\n    - b\n",
+            "server:\n  hosts: [a, b]\n  port: 8080\n",
+            StructureFormat.YAML);
+    final var xml =
+        testee.buildDiff(
+            "<config><entry key=\"a\">1</entry><entry key=\"b\">2</entry></config>",
+            "<config>\n  <entry key=\"a\">1</entry>\n  <entry key=\"b\">3</entry>\n</config>",
+            StructureFormat.XML);
+
+    assertTrue(changed(yaml.getOriginal()).contains("  port: 80"));
+    assertTrue(changed(yaml.getModified()).contains("  port: 8080"));
+    assertEquals(List.of("  <entry key=\"b\">3</entry>"), changed(xml.getModified()));
+  }
+
+  @Test
+  void malformedDocumentsAreRejected() {
+    assertThrows(
+        ParseException.class, () -> testee.buildDiff("{\"a\": }", "{}", StructureFormat.JSON));
+    assertThrows(
+        ParseException.class, () -> testee.buildDiff("<a><b></a>", "<a/>", StructureFormat.XML));
+  }
+
+  private static List<String> changed(final List<EditCommand> script) {
+    return script.stream()
+        .filter(command -> command instanceof DeleteCommand || command instanceof InsertCommand)
+        .map(EditCommand::getText)
+        .toList();
+  }
+
+  private static void assertAligned(final Diff diff) {
+    assertEquals(diff.getOriginal().size(), diff.getModified().size());
+    for (var row = 0; row < diff.getOriginal().size(); ++row) {
+      assertTrue(
+          !(diff.getOriginal().get(row) instanceof VirtualKeepCommand)
+              || !(diff.getModified().get(row) instanceof VirtualKeepCommand));
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package com.ivicevic.diffviewer.structure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.text.ParseException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class YamlParserTest {
+  private final YamlParser testee = new YamlParser();
+
+  @Test
+  void blockMappingsAndSequencesAreParsed() throws ParseException {
+    final var root =
+        testee.parse(
+            """
+            # comment
+            name: diffviewer  # trailing comment
+            authors:
+              - name: "Christian"
+                role: maintainer
+              - name: 'Other'
+            description: |
+              first line
+              second line
+            empty:
+            """);
+
+    assertEquals(NodeKind.KEYED, root.getKind());
+    assertEquals(
+        List.of("name", "authors", "description", "empty"),
+        root.getChildren().stream().map(StructureNode::getKey).toList());
+    final var authors = root.getChildren().get(1);
+    assertEquals(NodeKind.ORDERED, authors.getKind());
+    assertEquals(2, authors.getChildren().size());
+    assertEquals(3, authors.getChildren().get(0).getStartLine());
+    assertEquals(4, authors.getChildren().get(0).getEndLine());
+    assertEquals("Christian", authors.getChildren().get(0).getChildren().get(0).getValue());
+    assertEquals("first line\nsecond line", root.getChildren().get(2).getValue());
+    assertEquals(8, root.getChildren().get(2).getEndLine());
+  }
+
+  @Test
+  void keyOrderDoesNotAffectTheHash() throws ParseException {
+    final var original = testee.parse("a: 1\nb: [x]\n");
+    final var reordered = testee.parse("b: [x]\na: 1\n");
+    final var changed = testee.parse("a: 1\nb: [y]\n");
+
+    assertEquals(original.getHash(), reordered.getHash());
+    assertNotEquals(original.getHash(), changed.getHash());
+  }
+}